@@ -0,0 +1,97 @@
+// The benchmarks project is not part of the module (it is not listed in the root
+// projectScopes), it only exists to measure and check the code paths the module runs.
+plugins {
+    java
+    // JMH integration, provides the `jmh` source set and the `jmh` task
+    id("me.champeau.jmh") version("0.7.2")
+}
+
+// Configure Java compilation settings
+java {
+    toolchain {
+        // Set Java version to 17
+        languageVersion.set(JavaLanguageVersion.of(17))
+    }
+}
+
+dependencies {
+    // The module code under measurement
+    jmh(projects.common)
+    jmh(projects.designer)
+    jmh(projects.gateway)
+
+    // The Ignition runtime normally provides these, so they are compileOnly in the module
+    // projects. Benchmarks run outside a gateway, so they must be on the runtime classpath here.
+    jmh(libs.ignition.common)
+    jmh(libs.ignition.client.api)
+    jmh(libs.ignition.designer.api)
+    jmh(libs.ignition.perspective.common)
+    jmh(libs.ignition.perspective.designer)
+    jmh(libs.ignition.gateway.api)
+    jmh(libs.ignition.perspective.gateway)
+    jmh(libs.google.guava)
+}
+
+// Headless load test of the Button's event path, e.g.
+// `./gradlew :benchmarks:loadTest --args="--sessions=5000 --pattern=bursty"`
+val loadTest by tasks.registering(JavaExec::class) {
+    group = "verification"
+    description = "Drives the Button's gateway event path from simulated Perspective sessions."
+    classpath = sourceSets["jmh"].runtimeClasspath
+    mainClass.set("dev.kgamble.perspective.examples.benchmarks.loadtest.ButtonLoadTest")
+}
+
+// A short, small load test run by `./gradlew check`, which fails if clicks stop reaching the
+// pipeline or the pipeline stops draining. Runs offline, like the full load test.
+val loadTestSmoke by tasks.registering(JavaExec::class) {
+    group = "verification"
+    description = "Runs a short Button load test and fails if no action is dispatched."
+    classpath = sourceSets["jmh"].runtimeClasspath
+    mainClass.set("dev.kgamble.perspective.examples.benchmarks.loadtest.ButtonLoadTest")
+    args("--sessions=200", "--warmupSeconds=1", "--durationSeconds=3", "--journal=true")
+}
+
+// Reloads the module in one JVM and fails if old generations of it stay reachable, e.g.
+// `./gradlew :benchmarks:reloadLeakCheck --args="--cycles=200 --heapDump=build/reload.hprof"`
+val reloadLeakCheck by tasks.registering(JavaExec::class) {
+    group = "verification"
+    description = "Fails if the module's classloader isn't released after shutdown."
+    classpath = sourceSets["jmh"].runtimeClasspath
+    mainClass.set("dev.kgamble.perspective.examples.benchmarks.reload.ReloadLeakCheck")
+    // A fixed heap keeps the heap growth check comparable between runs
+    maxHeapSize = "512m"
+    jvmArgs("-Djava.awt.headless=true")
+}
+
+// A short reload leak check run by `./gradlew check`, which reloads the module with the palette
+// loader, the action journal, the delegates' event paths and the web bundle route in every cycle.
+val reloadLeakCheckSmoke by tasks.registering(JavaExec::class) {
+    group = "verification"
+    description = "Reloads the module a few times and fails if its classloader isn't released."
+    classpath = sourceSets["jmh"].runtimeClasspath
+    mainClass.set("dev.kgamble.perspective.examples.benchmarks.reload.ReloadLeakCheck")
+    args("--cycles=15", "--warmupCycles=3")
+    maxHeapSize = "512m"
+    jvmArgs("-Djava.awt.headless=true")
+}
+
+tasks.named("check") {
+    dependsOn(loadTestSmoke, reloadLeakCheckSmoke)
+}
+
+// Configure the JMH run, use `./gradlew :benchmarks:jmh` to execute the suite
+jmh {
+    // Report allocation per operation alongside time per operation
+    profilers.set(listOf("gc"))
+    // Keep runs short enough to be used during development, override from the command line for CI
+    warmupIterations.set(3)
+    iterations.set(5)
+    fork.set(1)
+    // The thumbnail and icon paths use AWT imaging, which must not try to reach a display
+    jvmArgs.set(listOf("-Djava.awt.headless=true"))
+    // Write machine readable results so runs can be compared between commits
+    resultFormat.set("JSON")
+    resultsFile.set(project.file("$buildDir/reports/jmh/results.json"))
+    // Allow running a single benchmark, e.g. `-PjmhInclude=SchemaLoading`
+    findProperty("jmhInclude")?.let { includes.set(listOf(it.toString())) }
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright 2024 Keith Gamble
+ * [License information]
+ */
+package dev.kgamble.perspective.examples.benchmarks;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+
+import dev.kgamble.perspective.examples.gateway.journal.ActionJournal;
+import dev.kgamble.perspective.examples.gateway.journal.ActionJournalSettings;
+import dev.kgamble.perspective.examples.gateway.journal.ActionRecord;
+import dev.kgamble.perspective.examples.gateway.metrics.EventMetrics;
+
+/**
+ * Measures what journaling a Button press costs the thread delivering the
+ * Button's events, with four threads pressing at once and the writer draining
+ * into 16 MB segments in a temporary directory.
+ *
+ * The teardown prints how many presses were written and how many were dropped
+ * because the writer fell behind.
+ *
+ * @author Keith Gamble
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ActionJournalBenchmark {
+	private Path directory;
+	private EventMetrics metrics;
+	private ActionJournal journal;
+	private ActionRecord record;
+
+	@Setup(Level.Trial)
+	public void setUp() throws IOException {
+		directory = Files.createTempDirectory("action-journal");
+		metrics = new EventMetrics();
+		journal = new ActionJournal(ActionJournalSettings.newBuilder().setEnabled(true).build(), directory, metrics);
+		journal.start();
+		record = new ActionRecord(-1, System.currentTimeMillis(), "3f2a9c1e", "operator",
+				"Overview/Line 1", "root/FlexContainer/Start");
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws IOException {
+		journal.close(5000);
+		System.out.printf("%nJournal: %d presses, %d written, %d dropped%n", metrics.getArrivals(),
+				journal.newReader().replayAll(r -> {
+				}), metrics.getCounter("dropped"));
+		try (Stream<Path> files = Files.walk(directory)) {
+			files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+		}
+	}
+
+	/**
+	 * Journals a press as ButtonModelDelegate.handleEvent does.
+	 */
+	@Benchmark
+	@Threads(4)
+	public void record() {
+		journal.record(record);
+	}
+}
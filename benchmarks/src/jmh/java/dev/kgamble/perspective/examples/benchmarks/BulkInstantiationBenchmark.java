@@ -0,0 +1,82 @@
+/*
+ * Copyright 2024 Keith Gamble
+ * [License information]
+ */
+package dev.kgamble.perspective.examples.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.inductiveautomation.perspective.common.api.ComponentDescriptor;
+
+import dev.kgamble.perspective.examples.common.ComponentCatalog;
+import dev.kgamble.perspective.examples.common.utilities.FrozenPropsDescriptor;
+
+/**
+ * Measures the props work of creating or pasting a view with
+ * {@link #instanceCount} instances of a component: the default props and the
+ * initial props of the default variant of every instance. {@code delegate}
+ * asks the descriptor built by the ComponentBuilder, as every registered
+ * descriptor did before, {@code frozen} asks the FrozenPropsDescriptor the
+ * catalog now registers.
+ *
+ * @author Keith Gamble
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class BulkInstantiationBenchmark {
+
+	@Param({ "examples.input.button", "examples.chart.trend", "examples.display.table" })
+	public String componentId;
+
+	@Param({ "100", "500" })
+	public int instanceCount;
+
+	private ComponentDescriptor delegate;
+	private ComponentDescriptor frozen;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		delegate = ComponentCatalog.ENTRIES.stream()
+				.filter(entry -> entry.getId().equals(componentId))
+				.findFirst()
+				.map(ComponentCatalog.Entry::getDescriptor)
+				.orElseThrow(() -> new IllegalArgumentException("Unknown component " + componentId));
+		frozen = new FrozenPropsDescriptor(delegate);
+	}
+
+	/**
+	 * Creates the props of every instance with the ComponentBuilder's
+	 * descriptor.
+	 */
+	@Benchmark
+	public void delegate(Blackhole blackhole) {
+		instantiate(delegate, blackhole);
+	}
+
+	/**
+	 * Creates the props of every instance from the frozen templates.
+	 */
+	@Benchmark
+	public void frozen(Blackhole blackhole) {
+		instantiate(frozen, blackhole);
+	}
+
+	private void instantiate(ComponentDescriptor descriptor, Blackhole blackhole) {
+		for (int i = 0; i < instanceCount; i++) {
+			blackhole.consume(descriptor.defaultProperties());
+			blackhole.consume(descriptor.getInitialProps(""));
+		}
+	}
+}
@@ -0,0 +1,195 @@
+/*
+ * Copyright 2024 Keith Gamble
+ * [License information]
+ */
+package dev.kgamble.perspective.examples.benchmarks;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.BenchmarkParams;
+
+import com.inductiveautomation.perspective.common.api.ComponentDescriptor;
+import com.inductiveautomation.perspective.common.api.ComponentDescriptorImpl;
+import com.inductiveautomation.perspective.common.api.ComponentEventDescriptor;
+
+import dev.kgamble.perspective.examples.common.ComponentCatalog;
+import dev.kgamble.perspective.examples.common.Constants;
+import dev.kgamble.perspective.examples.common.DescriptorSnapshot;
+import dev.kgamble.perspective.examples.common.ExampleComponents;
+import dev.kgamble.perspective.examples.common.LifecycleContext;
+import dev.kgamble.perspective.examples.common.generated.ExampleButtonOnActionPerformedEvent;
+import dev.kgamble.perspective.examples.common.generated.ExampleButtonProps;
+import dev.kgamble.perspective.examples.common.utilities.ImageUtilities;
+import dev.kgamble.perspective.examples.common.utilities.SchemaRegistry;
+import dev.kgamble.perspective.examples.common.utilities.StartupProfiler;
+
+/**
+ * Measures building complete component descriptors the way
+ * {@code Button.descriptor()} is built, scaled to a synthetic library of
+ * {@link #componentCount} components. Each synthetic component repeats all of
+ * the Button's startup work (schema, event descriptor and builder) under its
+ * own id, so the score shows how startup grows per component. In the designer
+ * {@link #scope} the palette thumbnail is loaded as well, as the Designer does
+ * when it first shows the palette, rendered without the ImageCache since each
+ * real component has its own thumbnail.
+ *
+ * The cold start benchmarks build the library in a new LifecycleContext each
+ * time, so no schema is cached, once in full and once from a
+ * DescriptorSnapshot loaded from disk, as the gateway hook does when
+ * {@code example-components.descriptorSnapshot.enabled} is set. The snapshot
+ * is only worth enabling where {@link #coldStartFromSnapshot()} scores below
+ * {@link #coldStart()}.
+ *
+ * @author Keith Gamble
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class DescriptorBuildBenchmark {
+	private static final String FINGERPRINT = "benchmark";
+
+	/**
+	 * The number of components in the synthetic library.
+	 */
+	@Param({ "1", "10", "50", "100" })
+	public int componentCount;
+
+	/**
+	 * The scope the descriptors are built for, only the Designer loads thumbnails.
+	 */
+	@Param({ "gateway", "designer" })
+	public String scope;
+
+	private List<ComponentCatalog.Entry> entries;
+	private Path snapshotFile;
+
+	/**
+	 * Creates the catalog entries of the synthetic library and writes the
+	 * snapshot of a full build of it.
+	 */
+	@Setup
+	public void setup() throws IOException {
+		boolean thumbnails = "designer".equals(scope);
+		entries = new ArrayList<>(componentCount);
+		for (int i = 0; i < componentCount; i++) {
+			String componentId = "examples.synthetic.button-" + i;
+			entries.add(new ComponentCatalog.Entry(componentId, () -> buildDescriptor(componentId, thumbnails),
+					List::of, "/images/button-click.svg"));
+		}
+
+		snapshotFile = Files.createTempFile("descriptors", ".snapshot");
+		ComponentCatalog.BuildResult result = ComponentCatalog.buildDescriptors(entries);
+		DescriptorSnapshot.capture(FINGERPRINT, result, SchemaRegistry.shared()).write(snapshotFile);
+	}
+
+	/**
+	 * Deletes the snapshot.
+	 */
+	@TearDown
+	public void deleteSnapshot() throws IOException {
+		Files.deleteIfExists(snapshotFile);
+	}
+
+	/**
+	 * Forgets the phases the catalog recorded, so they don't pile up between
+	 * iterations. The cold starts drop theirs with each closed context, after
+	 * which the components can't be used until the next one starts.
+	 */
+	@TearDown(Level.Iteration)
+	public void clearProfiler(BenchmarkParams params) {
+		if (!params.getBenchmark().contains(".coldStart")) {
+			StartupProfiler.get().clear();
+		}
+	}
+
+	/**
+	 * Builds the descriptors of the whole synthetic library, one after another on
+	 * the calling thread.
+	 */
+	@Benchmark
+	public List<ComponentDescriptor> buildLibrary() {
+		List<ComponentDescriptor> descriptors = new ArrayList<>(componentCount);
+		for (int i = 0; i < componentCount; i++) {
+			descriptors.add(buildDescriptor("examples.synthetic.button-" + i, "designer".equals(scope)));
+		}
+		return descriptors;
+	}
+
+	/**
+	 * Builds the descriptors of the whole synthetic library in parallel, as the
+	 * module hooks do through the ComponentCatalog.
+	 */
+	@Benchmark
+	public ComponentCatalog.BuildResult buildLibraryParallel() {
+		return ComponentCatalog.buildDescriptors(entries);
+	}
+
+	/**
+	 * Builds the descriptors of the whole synthetic library in a new lifecycle,
+	 * as the gateway hook does on startup without a snapshot.
+	 */
+	@Benchmark
+	public ComponentCatalog.BuildResult coldStart() {
+		try (LifecycleContext context = LifecycleContext.start("benchmark")) {
+			return ComponentCatalog.buildDescriptors(entries, null);
+		}
+	}
+
+	/**
+	 * Loads the snapshot and builds the descriptors of the whole synthetic
+	 * library with it in a new lifecycle, as the gateway hook does on startup
+	 * with the snapshot enabled.
+	 */
+	@Benchmark
+	public ComponentCatalog.BuildResult coldStartFromSnapshot() {
+		try (LifecycleContext context = LifecycleContext.start("benchmark")) {
+			DescriptorSnapshot snapshot = DescriptorSnapshot.load(snapshotFile, FINGERPRINT)
+					.orElseThrow(() -> new IllegalStateException("The snapshot " + snapshotFile + " didn't load"));
+			return ComponentCatalog.buildDescriptors(entries, snapshot);
+		}
+	}
+
+	/**
+	 * Builds one descriptor with the same builder calls as
+	 * {@code Button.descriptor()}.
+	 *
+	 * @param componentId The id to register the synthetic component under.
+	 * @param thumbnails  true to load the palette thumbnail.
+	 * @return The built ComponentDescriptor.
+	 */
+	static ComponentDescriptor buildDescriptor(String componentId, boolean thumbnails) {
+		ComponentEventDescriptor actionPerformed = ExampleButtonOnActionPerformedEvent.descriptor(
+				"This event is fired when Better Button is clicked.");
+		BufferedImage thumbnail = thumbnails
+				? ImageUtilities.renderThumbnail("/images/button-thumbnail.png", 70, 35, 1)
+				: null;
+
+		return ComponentDescriptorImpl.ComponentBuilder.newBuilder()
+				.setPaletteCategory(ExampleComponents.COMPONENT_CATEGORY)
+				.setId(componentId)
+				.setModuleId(Constants.MODULE_ID)
+				.setSchema(ExampleButtonProps.schema())
+				.setEvents(List.of(actionPerformed))
+				.setName("Example Button")
+				.addPaletteEntry("", "Example Button", "A better button.", thumbnail, null)
+				.setDefaultMetaName("example-button")
+				.setResources(ExampleComponents.BROWSER_RESOURCES)
+				.build();
+	}
+}
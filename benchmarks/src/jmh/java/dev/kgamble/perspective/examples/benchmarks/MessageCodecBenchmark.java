@@ -0,0 +1,127 @@
+/*
+ * Copyright 2024 Keith Gamble
+ * [License information]
+ */
+package dev.kgamble.perspective.examples.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.inductiveautomation.ignition.common.gson.JsonArray;
+import com.inductiveautomation.ignition.common.gson.JsonElement;
+import com.inductiveautomation.ignition.common.gson.JsonObject;
+import com.inductiveautomation.ignition.common.gson.JsonParser;
+
+import dev.kgamble.perspective.examples.common.codec.MessageCodec;
+import dev.kgamble.perspective.examples.common.codec.MessageCodecs;
+import dev.kgamble.perspective.examples.common.codec.MessageReader;
+import dev.kgamble.perspective.examples.common.codec.MessageWriter;
+
+/**
+ * Compares the JSON and binary message codecs on a message shaped like a Trend
+ * refresh: a source name, a few numbers, and arrays of timestamps and values.
+ *
+ * {@code encode} builds the event payload, {@code encodeToWire} also serializes
+ * it the way it is sent to the session, and {@code decode} parses the wire text
+ * back into the fields. The setup prints the size of the wire text of each
+ * codec.
+ *
+ * @author Keith Gamble
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class MessageCodecBenchmark {
+
+	@Param({ "json", "binary" })
+	public String codec;
+
+	@Param({ "300", "4000" })
+	public int points;
+
+	private MessageWriter writer;
+	private final MessageReader reader = new MessageReader();
+	private long[] times;
+	private double[] values;
+	private String wire;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		MessageCodec messageCodec = MessageCodecs.forName(codec);
+		writer = messageCodec.newWriter();
+
+		// 100 ms samples with some jitter, and a noisy signal
+		times = new long[points];
+		values = new double[points];
+		long time = 1_700_000_000_000L;
+		for (int i = 0; i < points; i++) {
+			time += 100 + (i * 7919L) % 13;
+			times[i] = time;
+			values[i] = 50 + 40 * Math.sin(i / 25d) + ((i * 104729L) % 1000) / 100d;
+		}
+
+		wire = encode().toString();
+		System.out.printf("%n%s, %d points: %d bytes on the wire%n", messageCodec.getName(), points, wire.length());
+	}
+
+	/**
+	 * Builds the event payload.
+	 */
+	@Benchmark
+	public JsonObject encode() {
+		return writer.reset()
+				.writeString("source", "synthetic/noise")
+				.writeLong("raw", 36_000)
+				.writeLong("t0", times[0])
+				.writeLongs("t", times, points, times[0])
+				.writeFloats("v", values, points)
+				.toJson();
+	}
+
+	/**
+	 * Builds the event payload and serializes it as it is sent to the session.
+	 */
+	@Benchmark
+	public String encodeToWire() {
+		return encode().toString();
+	}
+
+	/**
+	 * Parses the wire text and reads every field, as the client does.
+	 */
+	@Benchmark
+	@SuppressWarnings("deprecation")
+	public void decode(Blackhole blackhole) {
+		JsonObject json = new JsonParser().parse(wire).getAsJsonObject();
+		if (MessageCodecs.BINARY.getName().equals(codec)) {
+			reader.reset(json.get("data").getAsString());
+			while (reader.next()) {
+				blackhole.consume(reader.getName());
+				blackhole.consume(reader.getLongs());
+				blackhole.consume(reader.getDoubles());
+			}
+		} else {
+			for (String member : json.keySet()) {
+				JsonElement element = json.get(member);
+				if (element.isJsonArray()) {
+					JsonArray array = element.getAsJsonArray();
+					for (int i = 0; i < array.size(); i++) {
+						blackhole.consume(array.get(i).getAsDouble());
+					}
+				} else {
+					blackhole.consume(element.getAsString());
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright 2024 Keith Gamble
+ * [License information]
+ */
+package dev.kgamble.perspective.examples.benchmarks;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+
+import javax.swing.Icon;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import dev.kgamble.perspective.examples.common.utilities.ImageUtilities;
+import dev.kgamble.perspective.examples.designer.IconUtilities;
+
+/**
+ * Measures the palette assets each component produces on startup: the
+ * rescaled PNG thumbnail (both scopes) and the rasterized SVG icon (Designer).
+ *
+ * @author Keith Gamble
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PaletteAssetBenchmark {
+	private final Icon cachedIcon = IconUtilities.getCachedSvgIcon("/images/button-click.svg");
+
+	/**
+	 * Decodes and rescales the Button palette thumbnail.
+	 */
+	@Benchmark
+	public BufferedImage thumbnail() {
+		return ImageUtilities.renderThumbnail("/images/button-thumbnail.png", 70, 35, 1);
+	}
+
+	/**
+	 * Looks up the Button palette thumbnail in the shared ImageCache, which is
+	 * what every load after the first costs.
+	 */
+	@Benchmark
+	public BufferedImage thumbnailCached() {
+		return ImageUtilities.loadThumbnailFromFilePath("/images/button-thumbnail.png", 70, 35);
+	}
+
+	/**
+	 * Parses the Button SVG and wraps it in a 16x16 Swing icon.
+	 */
+	@Benchmark
+	public Icon svgIcon() {
+		return IconUtilities.getSvgIcon("/images/button-click.svg");
+	}
+
+	/**
+	 * Parses the Button SVG and paints it once, which is when Batik actually
+	 * rasterizes the document in the Designer palette.
+	 */
+	@Benchmark
+	public BufferedImage svgIconPainted() {
+		Icon icon = IconUtilities.getSvgIcon("/images/button-click.svg");
+		BufferedImage target = new BufferedImage(icon.getIconWidth(), icon.getIconHeight(),
+				BufferedImage.TYPE_INT_ARGB);
+		Graphics2D g2d = target.createGraphics();
+		icon.paintIcon(null, g2d, 0, 0);
+		g2d.dispose();
+		return target;
+	}
+
+	/**
+	 * Paints the cached Button icon at 2x, as the palette does on a HiDPI
+	 * display once the icon has been rendered.
+	 */
+	@Benchmark
+	public BufferedImage svgIconCachedPainted() {
+		BufferedImage target = new BufferedImage(2 * IconUtilities.ICON_SIZE, 2 * IconUtilities.ICON_SIZE,
+				BufferedImage.TYPE_INT_ARGB);
+		Graphics2D g2d = target.createGraphics();
+		g2d.scale(2, 2);
+		cachedIcon.paintIcon(null, g2d, 0, 0);
+		g2d.dispose();
+		return target;
+	}
+}
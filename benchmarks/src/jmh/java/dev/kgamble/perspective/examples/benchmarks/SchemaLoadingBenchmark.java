@@ -0,0 +1,121 @@
+/*
+ * Copyright 2024 Keith Gamble
+ * [License information]
+ */
+package dev.kgamble.perspective.examples.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.inductiveautomation.ignition.common.gson.JsonObject;
+import com.inductiveautomation.ignition.common.jsonschema.JsonSchema;
+import com.inductiveautomation.perspective.common.api.ComponentEventDescriptor;
+
+import dev.kgamble.perspective.examples.common.generated.ExampleButtonOnActionPerformedEvent;
+import dev.kgamble.perspective.examples.common.generated.ExampleButtonProps;
+import dev.kgamble.perspective.examples.common.generated.ExampleTableProps;
+import dev.kgamble.perspective.examples.common.generated.ExampleTrendProps;
+import dev.kgamble.perspective.examples.common.utilities.ComponentUtilities;
+import dev.kgamble.perspective.examples.common.utilities.SchemaRegistry;
+
+/**
+ * Measures the cost of loading the props schema and event descriptors that
+ * every component performs when its descriptor is first built.
+ *
+ * Schemas loaded by resource path or from the generated classes are cached in
+ * the shared SchemaRegistry, so those benchmarks measure the cached lookup
+ * that every descriptor after the first gets. {@code parseSchema} and
+ * {@code internLibrary} measure the first load. The setup prints how many
+ * fragments of the module's schemas are shared.
+ *
+ * @author Keith Gamble
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SchemaLoadingBenchmark {
+	private JsonObject buttonSchemaJson;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		buttonSchemaJson = ExampleButtonProps.schemaJson();
+
+		SchemaRegistry registry = new SchemaRegistry();
+		internLibrary(registry);
+		System.out.printf("%nSchemas: %d parsed, %d distinct fragments, %d fragments shared%n",
+				registry.getParsedCount(), registry.getFragmentCount(), registry.getSharedFragmentCount());
+	}
+
+	/**
+	 * Parses the Button props schema without the registry, as every descriptor
+	 * did before schemas were shared.
+	 */
+	@Benchmark
+	public JsonSchema parseSchema() {
+		return JsonSchema.parse(buttonSchemaJson);
+	}
+
+	/**
+	 * Interns and parses the schemas of every component of the module into an
+	 * empty registry.
+	 */
+	@Benchmark
+	public SchemaRegistry internLibrary() {
+		SchemaRegistry registry = new SchemaRegistry();
+		internLibrary(registry);
+		return registry;
+	}
+
+	private static void internLibrary(SchemaRegistry registry) {
+		registry.get(ExampleButtonProps.RESOURCE_PATH, ExampleButtonProps::schemaJson);
+		registry.get(ExampleTrendProps.RESOURCE_PATH, ExampleTrendProps::schemaJson);
+		registry.get(ExampleTableProps.RESOURCE_PATH, ExampleTableProps::schemaJson);
+		registry.get(ExampleButtonOnActionPerformedEvent.RESOURCE_PATH,
+				ExampleButtonOnActionPerformedEvent::schemaJson);
+	}
+
+	/**
+	 * Parses the Button props schema from the jar.
+	 */
+	@Benchmark
+	public JsonSchema propsSchema() {
+		return ComponentUtilities.getSchemaFromFilePath("/props/example-button.props.json");
+	}
+
+	/**
+	 * Builds the onActionPerformed event descriptor from the jar.
+	 */
+	@Benchmark
+	public ComponentEventDescriptor eventDescriptor() {
+		return ComponentUtilities.getEventDescriptor(
+				"events/example-button/onActionPerformed.json",
+				"onActionPerformed",
+				"This event is fired when Better Button is clicked.");
+	}
+
+	/**
+	 * Builds the Button props schema from the class generated at build time, as
+	 * done by {@code Button.descriptor()}.
+	 */
+	@Benchmark
+	public JsonSchema generatedPropsSchema() {
+		return ExampleButtonProps.schema();
+	}
+
+	/**
+	 * Builds the onActionPerformed event descriptor from the class generated at
+	 * build time, as done by {@code Button.actionPerformedDescriptor()}.
+	 */
+	@Benchmark
+	public ComponentEventDescriptor generatedEventDescriptor() {
+		return ExampleButtonOnActionPerformedEvent.descriptor("This event is fired when Better Button is clicked.");
+	}
+}
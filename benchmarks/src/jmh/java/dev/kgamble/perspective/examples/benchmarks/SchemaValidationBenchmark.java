@@ -0,0 +1,101 @@
+/*
+ * Copyright 2024 Keith Gamble
+ * [License information]
+ */
+package dev.kgamble.perspective.examples.benchmarks;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.inductiveautomation.ignition.common.gson.JsonElement;
+import com.inductiveautomation.ignition.common.gson.JsonParser;
+import com.inductiveautomation.ignition.common.jsonschema.JsonSchema;
+
+import dev.kgamble.perspective.examples.common.generated.ExampleButtonOnActionPerformedEvent;
+import dev.kgamble.perspective.examples.common.generated.ExampleButtonProps;
+import dev.kgamble.perspective.examples.common.utilities.CompiledValidator;
+
+/**
+ * Compares checking a payload against a JsonSchema, which walks the schema
+ * and collects validation messages, with the CompiledValidator of the same
+ * schema.
+ *
+ * The payloads are parsed from JSON text, as they arrive from a session: a
+ * Button click checked against the onActionPerformed schema, and a complete
+ * set of Button props checked against the props schema. {@code invalid}
+ * payloads have a wrong type in one field. {@code compileProps} is the one-time
+ * cost of compiling the props schema. The setup prints whether both paths
+ * agree on each payload.
+ *
+ * @author Keith Gamble
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class SchemaValidationBenchmark {
+
+	@Param({ "valid", "invalid" })
+	public String payload;
+
+	private JsonSchema eventSchema;
+	private JsonSchema propsSchema;
+	private CompiledValidator eventValidator;
+	private CompiledValidator propsValidator;
+	private JsonElement click;
+	private JsonElement props;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		eventSchema = ExampleButtonOnActionPerformedEvent.schema();
+		propsSchema = ExampleButtonProps.schema();
+		eventValidator = ExampleButtonOnActionPerformedEvent.validator();
+		propsValidator = ExampleButtonProps.validator();
+
+		boolean valid = "valid".equals(payload);
+		click = new JsonParser().parse(valid
+				? "{\"actionId\":1724000000000}"
+				: "{\"actionId\":\"1724000000000\"}");
+		props = new JsonParser().parse("{\"text\":" + (valid ? "\"Start\"" : "true")
+				+ ",\"enabled\":true,\"debounceMs\":250,\"channels\":{\"text\":\"line-1/label\",\"enabled\":\"\"},"
+				+ "\"style\":{\"classes\":\"primary\"}}");
+
+		System.out.printf("%nClick: generic %s, compiled %s. Props: generic %s, compiled %s.%n",
+				eventSchema.validate(click).isEmpty(), eventValidator.test(click),
+				propsSchema.validate(props).isEmpty(), propsValidator.test(props));
+	}
+
+	@Benchmark
+	public Set<?> genericClick() {
+		return eventSchema.validate(click);
+	}
+
+	@Benchmark
+	public boolean compiledClick() {
+		return eventValidator.test(click);
+	}
+
+	@Benchmark
+	public Set<?> genericProps() {
+		return propsSchema.validate(props);
+	}
+
+	@Benchmark
+	public boolean compiledProps() {
+		return propsValidator.test(props);
+	}
+
+	@Benchmark
+	public CompiledValidator compileProps() {
+		return CompiledValidator.compile(ExampleButtonProps.schemaJson());
+	}
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright 2024 Keith Gamble
+ * [License information]
+ */
+package dev.kgamble.perspective.examples.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import com.inductiveautomation.ignition.common.gson.JsonObject;
+
+import dev.kgamble.perspective.examples.gateway.metrics.EventMetrics;
+import dev.kgamble.perspective.examples.gateway.table.ColumnarTable;
+import dev.kgamble.perspective.examples.gateway.table.SyntheticTables;
+import dev.kgamble.perspective.examples.gateway.table.TableService;
+import dev.kgamble.perspective.examples.gateway.table.TableView;
+import dev.kgamble.perspective.examples.gateway.table.TableWindowRequest;
+
+/**
+ * Measures what a Table costs the gateway: fetching the window of rows a
+ * session shows, with and without a cached sorted view, and filtering and
+ * sorting the whole dataset when no view is cached.
+ *
+ * The window benchmarks should not depend on {@code rowCount}, that is what
+ * lets a Table open a dataset of any size in constant time.
+ *
+ * @author Keith Gamble
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class TableWindowBenchmark {
+	private static final int WINDOW_ROWS = 80;
+
+	@Param({ "100000", "1000000" })
+	public int rowCount;
+
+	private TableService service;
+	private TableWindowRequest unsortedWindow;
+	private TableWindowRequest sortedWindow;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		ColumnarTable table = SyntheticTables.orders(rowCount);
+		service = new TableService(1, 16, 256L * 1024 * 1024, new EventMetrics());
+		service.addTable(SyntheticTables.ORDERS, () -> table);
+
+		int middle = rowCount / 2;
+		unsortedWindow = new TableWindowRequest(1, SyntheticTables.ORDERS, middle, WINDOW_ROWS, null, true, null);
+		sortedWindow = new TableWindowRequest(2, SyntheticTables.ORDERS, middle, WINDOW_ROWS, "price", false, null);
+		service.window(sortedWindow);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		service.shutdown(1000);
+	}
+
+	/**
+	 * Fetches a window from the middle of the dataset in table order.
+	 */
+	@Benchmark
+	public JsonObject unsortedWindow() {
+		return service.window(unsortedWindow);
+	}
+
+	/**
+	 * Fetches a window from the middle of a sorted view that is already cached,
+	 * as every scroll of a sorted Table does.
+	 */
+	@Benchmark
+	public JsonObject cachedSortedWindow() {
+		return service.window(sortedWindow);
+	}
+
+	/**
+	 * Sorts the whole dataset by a numeric column.
+	 */
+	@Benchmark
+	public TableView sortNumeric() {
+		service.invalidateViews();
+		return service.getView(SyntheticTables.ORDERS, "", "price", true);
+	}
+
+	/**
+	 * Sorts the whole dataset by a dictionary column.
+	 */
+	@Benchmark
+	public TableView sortDictionary() {
+		service.invalidateViews();
+		return service.getView(SyntheticTables.ORDERS, "", "product", true);
+	}
+
+	/**
+	 * Filters the whole dataset by text.
+	 */
+	@Benchmark
+	public TableView filter() {
+		service.invalidateViews();
+		return service.getView(SyntheticTables.ORDERS, "pump", null, true);
+	}
+}
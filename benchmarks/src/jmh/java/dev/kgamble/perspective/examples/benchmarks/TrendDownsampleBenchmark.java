@@ -0,0 +1,117 @@
+/*
+ * Copyright 2024 Keith Gamble
+ * [License information]
+ */
+package dev.kgamble.perspective.examples.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.inductiveautomation.ignition.common.gson.JsonObject;
+
+import dev.kgamble.perspective.examples.common.codec.MessageCodecs;
+import dev.kgamble.perspective.examples.common.codec.MessageWriter;
+
+import dev.kgamble.perspective.examples.gateway.metrics.EventMetrics;
+import dev.kgamble.perspective.examples.gateway.trend.Downsampler;
+import dev.kgamble.perspective.examples.gateway.trend.SampleWindow;
+import dev.kgamble.perspective.examples.gateway.trend.SyntheticTrendSource;
+import dev.kgamble.perspective.examples.gateway.trend.TrendRequest;
+import dev.kgamble.perspective.examples.gateway.trend.TrendSubscription;
+
+/**
+ * Measures one refresh of a Trend: reading the window from the source's
+ * history, downsampling it to the Trend's width and encoding the points.
+ *
+ * The setup prints the size of the payload with and without downsampling, so
+ * the bandwidth saved can be read from the run's output. It also fails the run
+ * if a Trend only 1 or 2 px wide would be sent more than 2 points, as a
+ * collapsed Trend must never receive its raw window.
+ *
+ * @author Keith Gamble
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class TrendDownsampleBenchmark {
+	private static final long INTERVAL_MILLIS = 100;
+
+	@Param({ "lttb", "min-max" })
+	public String algorithm;
+
+	@Param({ "300", "1200" })
+	public int width;
+
+	@Param({ "1", "4" })
+	public int windowHours;
+
+	private SyntheticTrendSource source;
+	private TrendSubscription subscription;
+	private final SampleWindow raw = new SampleWindow(1024);
+	private final SampleWindow points = new SampleWindow(256);
+	private long now;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		long windowMillis = TimeUnit.HOURS.toMillis(windowHours);
+		now = System.currentTimeMillis();
+		source = new SyntheticTrendSource(SyntheticTrendSource.Waveform.NOISE, INTERVAL_MILLIS, windowMillis);
+		source.backfill(windowMillis, now);
+
+		JsonObject json = new JsonObject();
+		json.addProperty("source", source.getName());
+		json.addProperty("windowMs", windowMillis);
+		json.addProperty("algorithm", algorithm);
+		json.addProperty("width", width);
+		subscription = new TrendSubscription(source, TrendRequest.fromJson(json), payload -> {
+		}, new EventMetrics());
+
+		source.getHistory().read(now - windowMillis, now + 1, raw);
+		Downsampler.downsample(raw, width, Downsampler.Algorithm.fromString(algorithm), points);
+		MessageWriter writer = MessageCodecs.JSON.newWriter();
+		int rawBytes = TrendSubscription.encode(writer, source.getName(), raw.size(), raw).toString().length();
+		int downsampledBytes = TrendSubscription.encode(writer, source.getName(), raw.size(), points).toString()
+				.length();
+		System.out.printf("%n%s, %d px, %d h: %d samples as %d bytes, %d points as %d bytes%n",
+				algorithm, width, windowHours, raw.size(), rawBytes, points.size(), downsampledBytes);
+
+		SampleWindow narrow = new SampleWindow(4);
+		for (int narrowWidth = 1; narrowWidth <= 2; narrowWidth++) {
+			Downsampler.downsample(raw, narrowWidth, Downsampler.Algorithm.fromString(algorithm), narrow);
+			if (narrow.size() > 2) {
+				throw new IllegalStateException(String.format("A %d px Trend got %d points with %s, at most 2 expected",
+						narrowWidth, narrow.size(), algorithm));
+			}
+		}
+	}
+
+	/**
+	 * Downsamples the window that was read in the setup.
+	 */
+	@Benchmark
+	public SampleWindow downsample() {
+		Downsampler.downsample(raw, width, Downsampler.Algorithm.fromString(algorithm), points);
+		return points;
+	}
+
+	/**
+	 * Runs a full refresh of a subscription, as the TrendService does on every
+	 * tick. The subscription skips refreshes when the source has no new samples,
+	 * so a new sample is appended before each refresh.
+	 */
+	@Benchmark
+	public JsonObject refresh() {
+		now += INTERVAL_MILLIS;
+		source.poll(now);
+		return subscription.refresh(now);
+	}
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright 2024 Keith Gamble
+ * [License information]
+ */
+package dev.kgamble.perspective.examples.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+
+import dev.kgamble.perspective.examples.gateway.metrics.EventMetrics;
+import dev.kgamble.perspective.examples.gateway.writeback.InMemoryWriteSink;
+import dev.kgamble.perspective.examples.gateway.writeback.WriteCoalescer;
+
+/**
+ * Measures what submitting a write to the WriteCoalescer costs an action
+ * handler, with four threads writing to a small set of targets at once, with a
+ * flush window of 0 and 10 ms.
+ *
+ * The teardown prints how many writes were submitted, how many write calls
+ * reached the sink and the mean batch size, which is what the flush window
+ * trades its latency for.
+ *
+ * @author Keith Gamble
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class WriteCoalescerBenchmark {
+
+	@Param({ "0", "10" })
+	public long flushWindowMs;
+
+	@Param({ "10", "100" })
+	public int targetCount;
+
+	private InMemoryWriteSink sink;
+	private EventMetrics metrics;
+	private WriteCoalescer coalescer;
+	private String[] targets;
+	private final AtomicInteger next = new AtomicInteger();
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		sink = new InMemoryWriteSink();
+		metrics = new EventMetrics();
+		coalescer = new WriteCoalescer(sink, flushWindowMs, 500, metrics);
+		targets = new String[targetCount];
+		for (int i = 0; i < targetCount; i++) {
+			targets[i] = "[default]Line" + (i % 4) + "/Setpoint" + i;
+		}
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		coalescer.shutdown(5000);
+		System.out.printf("%nWrite-back: %d writes, %d write calls, %.1f targets per call%n",
+				metrics.getArrivals(), sink.getWriteCalls(), metrics.getBatchSize().getMean());
+	}
+
+	/**
+	 * Submits a write as an action handler does.
+	 */
+	@Benchmark
+	@Threads(4)
+	public Object submit() {
+		int index = next.getAndIncrement();
+		return coalescer.submit(targets[Math.floorMod(index, targetCount)], index);
+	}
+}
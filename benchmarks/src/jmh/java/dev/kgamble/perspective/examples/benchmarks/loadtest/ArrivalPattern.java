@@ -0,0 +1,25 @@
+/*
+ * Copyright 2024 Keith Gamble
+ * [License information]
+ */
+package dev.kgamble.perspective.examples.benchmarks.loadtest;
+
+/**
+ * How the clicks of a simulated session are spread over time. Both patterns
+ * have the same average rate, they only differ in how the clicks cluster.
+ *
+ * @author Keith Gamble
+ */
+public enum ArrivalPattern {
+	/**
+	 * Clicks arrive one at a time with exponentially distributed gaps, the
+	 * arrivals of many independent operators.
+	 */
+	STEADY,
+
+	/**
+	 * Clicks arrive in bursts on a single Button, e.g. an impatient operator or a
+	 * bouncing touchscreen. The bursts start with exponentially distributed gaps.
+	 */
+	BURSTY
+}
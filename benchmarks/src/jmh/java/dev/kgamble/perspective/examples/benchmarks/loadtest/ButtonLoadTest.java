@@ -0,0 +1,341 @@
+/*
+ * Copyright 2024 Keith Gamble
+ * [License information]
+ */
+package dev.kgamble.perspective.examples.benchmarks.loadtest;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Stream;
+
+import dev.kgamble.perspective.examples.common.ComponentCatalog;
+import dev.kgamble.perspective.examples.common.EventRateLimit;
+import dev.kgamble.perspective.examples.common.components.input.Button;
+import dev.kgamble.perspective.examples.gateway.delegates.ButtonActionReceiver;
+import dev.kgamble.perspective.examples.gateway.events.ActionDeduplicator;
+import dev.kgamble.perspective.examples.gateway.events.ActionHandler;
+import dev.kgamble.perspective.examples.gateway.events.ActionPipeline;
+import dev.kgamble.perspective.examples.gateway.events.ActionPipelineSettings;
+import dev.kgamble.perspective.examples.gateway.journal.ActionJournal;
+import dev.kgamble.perspective.examples.gateway.journal.ActionJournalSettings;
+import dev.kgamble.perspective.examples.gateway.journal.ActionRecorder;
+import dev.kgamble.perspective.examples.gateway.metrics.EventMetrics;
+import dev.kgamble.perspective.examples.gateway.metrics.LatencyHistogram;
+import dev.kgamble.perspective.examples.gateway.metrics.ModuleMetrics;
+import dev.kgamble.perspective.examples.gateway.ratelimit.EventRateLimiter;
+
+/**
+ * A headless load test of the gateway-side event path of the Button,
+ * onActionPerformed, without a gateway or browsers.
+ *
+ * Thousands of SimulatedSessions click the SimulatedButtons of their view at a
+ * configurable rate and pattern. A few driver threads, standing in for the
+ * threads that receive the sessions' websocket messages, hand each click to a
+ * ButtonActionReceiver, the same stages ButtonModelDelegate.handleEvent runs:
+ * the Button's rate limit, the check of the payload against its compiled
+ * schema, the journal if enabled and an ActionPipeline, all wired as the
+ * gateway hook wires them. The pipeline dispatches the actions back to the
+ * SimulatedButtons, which record the latency.
+ *
+ * After the warmup the load is measured, then the harness prints the
+ * throughput, the p50/p99/p999 latency and the allocation rate of the drivers
+ * and the pipeline. The run fails, and the process exits with 1, if no action
+ * was dispatched or the pipeline didn't drain after the load stopped. Run it
+ * with {@code ./gradlew :benchmarks:loadTest}, see
+ * {@link LoadTestSettings#fromArgs(String[])} for the arguments. A short run
+ * is part of {@code ./gradlew check}.
+ *
+ * @author Keith Gamble
+ */
+public class ButtonLoadTest {
+	// Longest a driver sleeps, so it notices the end of the run
+	private static final long MAX_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+	private final LoadTestSettings settings;
+	private final AtomicReference<LoadTestResults> results = new AtomicReference<>(new LoadTestResults());
+	private final List<Thread> drivers = new ArrayList<>();
+	private volatile boolean running = true;
+
+	/**
+	 * Constructs a new ButtonLoadTest.
+	 *
+	 * @param settings The settings of the run.
+	 */
+	public ButtonLoadTest(LoadTestSettings settings) {
+		this.settings = settings;
+	}
+
+	public static void main(String[] args) throws Exception {
+		LoadTestSettings settings = LoadTestSettings.fromArgs(args);
+		System.out.println("Button load test: " + settings);
+		boolean passed = new ButtonLoadTest(settings).run();
+		System.exit(passed ? 0 : 1);
+	}
+
+	/**
+	 * Runs the warmup and the measurement and prints the report.
+	 *
+	 * @return Whether actions were dispatched and the pipeline drained.
+	 * @throws IOException If the journal could not be opened.
+	 */
+	public boolean run() throws IOException {
+		ModuleMetrics moduleMetrics = new ModuleMetrics();
+		EventMetrics metrics = moduleMetrics.component(Button.COMPONENT_ID).event("onActionPerformed");
+		ActionPipelineSettings pipelineSettings = ActionPipelineSettings.newBuilder()
+				.setWorkers(settings.getWorkers())
+				.setQueueCapacity(settings.getQueueCapacity())
+				.setBackpressure(settings.getBackpressure())
+				.build();
+		ActionDeduplicator deduplicator = new ActionDeduplicator(pipelineSettings.getMaxDebounceMillis(),
+				ActionHandler.DISPATCH, metrics);
+		ActionPipeline pipeline = new ActionPipeline(pipelineSettings, deduplicator, metrics);
+
+		Path journalDirectory = null;
+		ActionJournal journal = null;
+		ActionRecorder recorder = ActionRecorder.NONE;
+		if (settings.isJournal()) {
+			journalDirectory = Files.createTempDirectory("button-load-test");
+			journal = new ActionJournal(ActionJournalSettings.newBuilder().setEnabled(true).build(),
+					journalDirectory, moduleMetrics.component(Button.COMPONENT_ID).event("journal"));
+			journal.start();
+			recorder = journal;
+		}
+
+		EventRateLimiter rateLimiter = settings.isRateLimit() ? EventRateLimiter.fromSystemProperties()
+				: new EventRateLimiter(false, EventRateLimit.DEFAULT, 10_000);
+		EventMetrics limitMetrics = moduleMetrics.component(Button.COMPONENT_ID).event("rate-limit");
+		ButtonActionReceiver receiver = new ButtonActionReceiver(pipeline, recorder,
+				rateLimiter.forComponent(Button.COMPONENT_ID, buttonLimit(), limitMetrics));
+
+		rateLimiter.start();
+		pipeline.start();
+		try {
+			startDrivers(createSessions(), receiver);
+
+			sleep(TimeUnit.SECONDS.toMillis(settings.getWarmupSeconds()));
+			LoadTestResults measured = new LoadTestResults();
+			results.set(measured);
+			long suppressedBefore = deduplicator.getSuppressedCount();
+			Map<Long, Long> allocatedBefore = allocatedBytes();
+			long startNanos = System.nanoTime();
+
+			sleep(TimeUnit.SECONDS.toMillis(settings.getDurationSeconds()));
+			Map<Long, Long> allocatedAfter = allocatedBytes();
+			long elapsedNanos = System.nanoTime() - startNanos;
+			stopDrivers();
+			boolean drained = drain(pipeline);
+
+			report(measured, deduplicator.getSuppressedCount() - suppressedBefore, elapsedNanos,
+					allocated(allocatedBefore, allocatedAfter), metrics);
+			return verify(measured, drained);
+		} finally {
+			stopDrivers();
+			rateLimiter.shutdown(5000);
+			pipeline.shutdown(5000);
+			if (journal != null) {
+				journal.close(5000);
+				deleteDirectory(journalDirectory);
+			}
+		}
+	}
+
+	private List<SimulatedSession> createSessions() {
+		SplittableRandom seed = new SplittableRandom(42);
+		List<SimulatedSession> sessions = new ArrayList<>(settings.getSessions());
+		for (int s = 0; s < settings.getSessions(); s++) {
+			String viewPath = "LoadTest/View " + (s % 50);
+			List<SimulatedButton> buttons = new ArrayList<>(settings.getButtonsPerSession());
+			for (int b = 0; b < settings.getButtonsPerSession(); b++) {
+				buttons.add(new SimulatedButton(viewPath, "root/FlexContainer/Button " + b,
+						settings.getDebounceMillis(), results));
+			}
+			sessions.add(new SimulatedSession(String.format("%08x", seed.nextInt()), "operator-" + (s % 200),
+					buttons, settings, seed.split()));
+		}
+		return sessions;
+	}
+
+	/**
+	 * @return The rate limit of the Button, as declared in its catalog entry.
+	 */
+	private static EventRateLimit buttonLimit() {
+		return ComponentCatalog.ENTRIES.stream()
+				.filter(entry -> entry.getId().equals(Button.COMPONENT_ID))
+				.map(ComponentCatalog.Entry::getRateLimit)
+				.findFirst()
+				.orElse(EventRateLimit.DEFAULT);
+	}
+
+	private void startDrivers(List<SimulatedSession> sessions, ButtonActionReceiver receiver) {
+		long startNanos = System.nanoTime();
+		for (int d = 0; d < settings.getDrivers(); d++) {
+			PriorityQueue<SimulatedSession> due = new PriorityQueue<>(
+					Comparator.comparingLong(SimulatedSession::getNextClickNanos));
+			for (int s = d; s < sessions.size(); s += settings.getDrivers()) {
+				SimulatedSession session = sessions.get(s);
+				session.start(startNanos);
+				due.add(session);
+			}
+
+			Thread driver = new Thread(() -> drive(due, receiver), "button-load-test-driver-" + d);
+			driver.setDaemon(true);
+			drivers.add(driver);
+			driver.start();
+		}
+	}
+
+	/**
+	 * Fires the clicks of a driver's sessions as they fall due.
+	 */
+	private void drive(PriorityQueue<SimulatedSession> due, ButtonActionReceiver receiver) {
+		while (running) {
+			long now = System.nanoTime();
+			SimulatedSession session = due.peek();
+			long wait = session.getNextClickNanos() - now;
+			if (wait > 0) {
+				LockSupport.parkNanos(Math.min(wait, MAX_PARK_NANOS));
+				continue;
+			}
+
+			due.poll();
+			long lag = now - session.getNextClickNanos();
+			SimulatedButton button = session.nextClick();
+			String sessionId = session.getSessionId();
+			ActionPipeline.SubmitResult result = receiver.receive(sessionId, button, button.click(),
+					payload -> button.createAction(sessionId, payload), session::getUserName);
+			results.get().recordClick(lag, result);
+			due.add(session);
+		}
+	}
+
+	private void stopDrivers() {
+		running = false;
+		for (Thread driver : drivers) {
+			try {
+				driver.join(5000);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return;
+			}
+		}
+		drivers.clear();
+	}
+
+	/**
+	 * Waits for the pipeline to process the actions it accepted.
+	 *
+	 * @return Whether the pipeline drained in time.
+	 */
+	private static boolean drain(ActionPipeline pipeline) {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+		while (pipeline.getQueuedCount() > 0 && System.nanoTime() - deadline < 0) {
+			sleep(10);
+		}
+		return pipeline.getQueuedCount() == 0;
+	}
+
+	/**
+	 * Prints and returns whether the event path worked at all. The numbers are
+	 * for a person to judge, they depend too much on the machine to fail on.
+	 */
+	private static boolean verify(LoadTestResults measured, boolean drained) {
+		List<String> failures = new ArrayList<>();
+		if (measured.getDispatched() == 0) {
+			failures.add("no action was dispatched");
+		}
+		if (!drained) {
+			failures.add("the pipeline didn't drain within 10 s after the load stopped");
+		}
+		failures.forEach(failure -> System.out.println("FAILED: " + failure));
+		return failures.isEmpty();
+	}
+
+	/**
+	 * @return The bytes allocated so far by the drivers, the pipeline workers and
+	 *         the journal writer, by thread id.
+	 */
+	private static Map<Long, Long> allocatedBytes() {
+		ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+		Map<Long, Long> allocated = new HashMap<>();
+		if (!(threads instanceof com.sun.management.ThreadMXBean)) {
+			return allocated;
+		}
+		com.sun.management.ThreadMXBean allocations = (com.sun.management.ThreadMXBean) threads;
+		for (Thread thread : Thread.getAllStackTraces().keySet()) {
+			String name = thread.getName();
+			if (name.startsWith("button-load-test-driver-") || name.startsWith("example-components-")) {
+				allocated.put(thread.getId(), allocations.getThreadAllocatedBytes(thread.getId()));
+			}
+		}
+		return allocated;
+	}
+
+	private static long allocated(Map<Long, Long> before, Map<Long, Long> after) {
+		long total = 0;
+		for (Map.Entry<Long, Long> thread : after.entrySet()) {
+			total += Math.max(0, thread.getValue() - before.getOrDefault(thread.getKey(), 0L));
+		}
+		return total;
+	}
+
+	private void report(LoadTestResults measured, long suppressed, long elapsedNanos, long allocatedBytes,
+			EventMetrics metrics) {
+		double seconds = elapsedNanos / 1e9;
+		long clicks = measured.getClicks();
+		System.out.println();
+		System.out.printf(Locale.ROOT, "Clicks:      %,d fired, %,.0f/s (configured %,.0f/s)%n", clicks,
+				clicks / seconds, settings.getSessions() * settings.getClicksPerSecond());
+		System.out.printf(Locale.ROOT, "Rate limit:  %,d clicks didn't reach the pipeline%n", measured.getLimited());
+		System.out.printf(Locale.ROOT, "Pipeline:    %,d accepted, %,d coalesced, %,d dropped, %,d rejected%n",
+				measured.getAccepted(), measured.getCoalesced(), measured.getDropped(), measured.getRejected());
+		System.out.printf(Locale.ROOT, "Dispatched:  %,d, %,.0f/s, %,d suppressed as repeats, %,d clicks folded in%n",
+				measured.getDispatched(), measured.getDispatched() / seconds, suppressed,
+				measured.getCoalescedClicks());
+		printLatency("Latency:    ", measured.getDispatchLatency());
+		printLatency("Driver lag: ", measured.getDriverLag());
+		printLatency("Queue wait: ", metrics.getQueueWait());
+		System.out.printf(Locale.ROOT, "Allocation:  %,.1f MB/s, %,.0f B per click%n",
+				allocatedBytes / seconds / (1024 * 1024), clicks == 0 ? 0d : (double) allocatedBytes / clicks);
+		System.out.println("Queue wait includes the warmup, driver lag above a few ms means the harness"
+				+ " fell behind and the offered load is lower than configured.");
+	}
+
+	private static void printLatency(String label, LatencyHistogram histogram) {
+		System.out.printf(Locale.ROOT, "%s p50 %s, p99 %s, p999 %s, max %s (%,d samples)%n", label,
+				format(histogram.getValueAtQuantile(0.50)), format(histogram.getValueAtQuantile(0.99)),
+				format(histogram.getValueAtQuantile(0.999)), format(histogram.getMax()), histogram.getCount());
+	}
+
+	private static String format(long nanos) {
+		return nanos < 1_000_000 ? String.format(Locale.ROOT, "%.1f us", nanos / 1e3)
+				: String.format(Locale.ROOT, "%.2f ms", nanos / 1e6);
+	}
+
+	private static void sleep(long millis) {
+		try {
+			Thread.sleep(millis);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private static void deleteDirectory(Path directory) throws IOException {
+		try (Stream<Path> files = Files.walk(directory)) {
+			files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+		}
+	}
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright 2024 Keith Gamble
+ * [License information]
+ */
+package dev.kgamble.perspective.examples.benchmarks.loadtest;
+
+import java.util.concurrent.atomic.LongAdder;
+
+import dev.kgamble.perspective.examples.gateway.events.ActionPipeline;
+import dev.kgamble.perspective.examples.gateway.metrics.LatencyHistogram;
+
+/**
+ * What the simulated sessions and Buttons observed during one phase of a load
+ * test, the warmup or the measurement.
+ *
+ * @author Keith Gamble
+ */
+public class LoadTestResults {
+	private final LatencyHistogram dispatchLatency = new LatencyHistogram();
+	private final LatencyHistogram driverLag = new LatencyHistogram();
+	private final LongAdder clicks = new LongAdder();
+	private final LongAdder limited = new LongAdder();
+	private final LongAdder accepted = new LongAdder();
+	private final LongAdder coalesced = new LongAdder();
+	private final LongAdder dropped = new LongAdder();
+	private final LongAdder rejected = new LongAdder();
+	private final LongAdder dispatched = new LongAdder();
+	private final LongAdder coalescedClicks = new LongAdder();
+
+	/**
+	 * Records a click fired by a session.
+	 *
+	 * @param lagNanos How late the click was fired after it was due.
+	 * @param result   What the pipeline did with it, null if it didn't reach
+	 *                 the pipeline.
+	 */
+	void recordClick(long lagNanos, ActionPipeline.SubmitResult result) {
+		clicks.increment();
+		driverLag.record(lagNanos);
+		if (result == null) {
+			limited.increment();
+			return;
+		}
+		switch (result) {
+			case ACCEPTED:
+				accepted.increment();
+				break;
+			case COALESCED:
+				coalesced.increment();
+				break;
+			case DROPPED:
+				dropped.increment();
+				break;
+			default:
+				rejected.increment();
+				break;
+		}
+	}
+
+	/**
+	 * Records an action dispatched back to a Button.
+	 *
+	 * @param latencyNanos   The time from the gateway receiving the click to the
+	 *                       dispatch.
+	 * @param foldedInClicks The clicks folded into the action.
+	 */
+	void recordDispatch(long latencyNanos, int foldedInClicks) {
+		dispatched.increment();
+		coalescedClicks.add(foldedInClicks);
+		dispatchLatency.record(latencyNanos);
+	}
+
+	/**
+	 * @return The time from the gateway receiving a click to it being dispatched
+	 *         back to the Button.
+	 */
+	public LatencyHistogram getDispatchLatency() {
+		return dispatchLatency;
+	}
+
+	/**
+	 * @return How late the drivers fired the clicks, if this grows the harness
+	 *         itself can't keep up and the offered load is lower than configured.
+	 */
+	public LatencyHistogram getDriverLag() {
+		return driverLag;
+	}
+
+	public long getClicks() {
+		return clicks.sum();
+	}
+
+	/**
+	 * @return The clicks that didn't reach the pipeline, because of the rate
+	 *         limit or an invalid payload.
+	 */
+	public long getLimited() {
+		return limited.sum();
+	}
+
+	public long getAccepted() {
+		return accepted.sum();
+	}
+
+	public long getCoalesced() {
+		return coalesced.sum();
+	}
+
+	public long getDropped() {
+		return dropped.sum();
+	}
+
+	public long getRejected() {
+		return rejected.sum();
+	}
+
+	public long getDispatched() {
+		return dispatched.sum();
+	}
+
+	public long getCoalescedClicks() {
+		return coalescedClicks.sum();
+	}
+}
@@ -0,0 +1,352 @@
+/*
+ * Copyright 2024 Keith Gamble
+ * [License information]
+ */
+package dev.kgamble.perspective.examples.benchmarks.loadtest;
+
+import java.util.Locale;
+
+import dev.kgamble.perspective.examples.gateway.events.BackpressurePolicy;
+
+/**
+ * Settings of a ButtonLoadTest run, see {@link #fromArgs(String[])} for the
+ * command line.
+ *
+ * @author Keith Gamble
+ */
+public class LoadTestSettings {
+	private final int sessions;
+	private final int buttonsPerSession;
+	private final double clicksPerSecond;
+	private final ArrivalPattern pattern;
+	private final int burstClicks;
+	private final long burstGapMillis;
+	private final long debounceMillis;
+	private final int drivers;
+	private final int warmupSeconds;
+	private final int durationSeconds;
+	private final int workers;
+	private final int queueCapacity;
+	private final BackpressurePolicy backpressure;
+	private final boolean journal;
+	private final boolean rateLimit;
+
+	private LoadTestSettings(Builder builder) {
+		this.sessions = builder.sessions;
+		this.buttonsPerSession = builder.buttonsPerSession;
+		this.clicksPerSecond = builder.clicksPerSecond;
+		this.pattern = builder.pattern;
+		this.burstClicks = builder.burstClicks;
+		this.burstGapMillis = builder.burstGapMillis;
+		this.debounceMillis = builder.debounceMillis;
+		this.drivers = builder.drivers;
+		this.warmupSeconds = builder.warmupSeconds;
+		this.durationSeconds = builder.durationSeconds;
+		this.workers = builder.workers;
+		this.queueCapacity = builder.queueCapacity;
+		this.backpressure = builder.backpressure;
+		this.journal = builder.journal;
+		this.rateLimit = builder.rateLimit;
+	}
+
+	/**
+	 * @return The number of simulated sessions.
+	 */
+	public int getSessions() {
+		return sessions;
+	}
+
+	/**
+	 * @return The number of Buttons in the view of each session.
+	 */
+	public int getButtonsPerSession() {
+		return buttonsPerSession;
+	}
+
+	/**
+	 * @return The average clicks per second of each session.
+	 */
+	public double getClicksPerSecond() {
+		return clicksPerSecond;
+	}
+
+	/**
+	 * @return How the clicks of a session are spread over time.
+	 */
+	public ArrivalPattern getPattern() {
+		return pattern;
+	}
+
+	/**
+	 * @return The clicks in each burst of the BURSTY pattern.
+	 */
+	public int getBurstClicks() {
+		return burstClicks;
+	}
+
+	/**
+	 * @return The time between the clicks of a burst.
+	 */
+	public long getBurstGapMillis() {
+		return burstGapMillis;
+	}
+
+	/**
+	 * @return The debounceMs prop of the Buttons, 0 for none.
+	 */
+	public long getDebounceMillis() {
+		return debounceMillis;
+	}
+
+	/**
+	 * @return The number of threads firing the clicks, standing in for the
+	 *         threads that receive the sessions' websocket messages.
+	 */
+	public int getDrivers() {
+		return drivers;
+	}
+
+	/**
+	 * @return How long the load runs before it is measured.
+	 */
+	public int getWarmupSeconds() {
+		return warmupSeconds;
+	}
+
+	/**
+	 * @return How long the load is measured.
+	 */
+	public int getDurationSeconds() {
+		return durationSeconds;
+	}
+
+	/**
+	 * @return The workers of the ActionPipeline.
+	 */
+	public int getWorkers() {
+		return workers;
+	}
+
+	/**
+	 * @return The queue capacity of each pipeline worker.
+	 */
+	public int getQueueCapacity() {
+		return queueCapacity;
+	}
+
+	/**
+	 * @return What the pipeline does with clicks when a queue is full.
+	 */
+	public BackpressurePolicy getBackpressure() {
+		return backpressure;
+	}
+
+	/**
+	 * @return Whether every click is also journaled.
+	 */
+	public boolean isJournal() {
+		return journal;
+	}
+
+	/**
+	 * @return Whether clicks pass the Button's rate limit, as on the gateway.
+	 */
+	public boolean isRateLimit() {
+		return rateLimit;
+	}
+
+	/**
+	 * @return A new builder with the default settings.
+	 */
+	public static Builder newBuilder() {
+		return new Builder();
+	}
+
+	/**
+	 * Reads the settings from command line arguments of the form
+	 * {@code --name=value}, e.g. {@code --sessions=5000 --pattern=bursty}. The
+	 * names are those of the builder's setters, without "set".
+	 *
+	 * @param args The arguments.
+	 * @return The settings.
+	 * @throws IllegalArgumentException If an argument is unknown or malformed.
+	 */
+	public static LoadTestSettings fromArgs(String[] args) {
+		Builder builder = newBuilder();
+		for (String arg : args) {
+			int separator = arg.indexOf('=');
+			if (!arg.startsWith("--") || separator < 0) {
+				throw new IllegalArgumentException("Expected --name=value, got " + arg);
+			}
+			String name = arg.substring(2, separator);
+			String value = arg.substring(separator + 1).trim();
+			switch (name) {
+				case "sessions":
+					builder.setSessions(Integer.parseInt(value));
+					break;
+				case "buttonsPerSession":
+					builder.setButtonsPerSession(Integer.parseInt(value));
+					break;
+				case "clicksPerSecond":
+					builder.setClicksPerSecond(Double.parseDouble(value));
+					break;
+				case "pattern":
+					builder.setPattern(ArrivalPattern.valueOf(value.toUpperCase(Locale.ROOT)));
+					break;
+				case "burstClicks":
+					builder.setBurstClicks(Integer.parseInt(value));
+					break;
+				case "burstGapMs":
+					builder.setBurstGapMillis(Long.parseLong(value));
+					break;
+				case "debounceMs":
+					builder.setDebounceMillis(Long.parseLong(value));
+					break;
+				case "drivers":
+					builder.setDrivers(Integer.parseInt(value));
+					break;
+				case "warmupSeconds":
+					builder.setWarmupSeconds(Integer.parseInt(value));
+					break;
+				case "durationSeconds":
+					builder.setDurationSeconds(Integer.parseInt(value));
+					break;
+				case "workers":
+					builder.setWorkers(Integer.parseInt(value));
+					break;
+				case "queueCapacity":
+					builder.setQueueCapacity(Integer.parseInt(value));
+					break;
+				case "backpressure":
+					builder.setBackpressure(BackpressurePolicy.valueOf(value.toUpperCase(Locale.ROOT)));
+					break;
+				case "journal":
+					builder.setJournal(Boolean.parseBoolean(value));
+					break;
+				case "rateLimit":
+					builder.setRateLimit(Boolean.parseBoolean(value));
+					break;
+				default:
+					throw new IllegalArgumentException("Unknown setting " + name);
+			}
+		}
+		return builder.build();
+	}
+
+	@Override
+	public String toString() {
+		return String.format(Locale.ROOT,
+				"%d sessions x %d buttons, %.2f clicks/s per session %s%s, debounce %d ms, %d drivers, "
+						+ "%d workers, queue %d, %s, journal %s, rate limit %s, warmup %d s, measured %d s",
+				sessions, buttonsPerSession, clicksPerSecond, pattern,
+				pattern == ArrivalPattern.BURSTY ? " (" + burstClicks + " clicks " + burstGapMillis + " ms apart)" : "",
+				debounceMillis, drivers, workers, queueCapacity, backpressure, journal, rateLimit, warmupSeconds,
+				durationSeconds);
+	}
+
+	/**
+	 * Builder for LoadTestSettings.
+	 */
+	public static class Builder {
+		private int sessions = 2000;
+		private int buttonsPerSession = 4;
+		private double clicksPerSecond = 1;
+		private ArrivalPattern pattern = ArrivalPattern.STEADY;
+		private int burstClicks = 10;
+		private long burstGapMillis = 30;
+		private long debounceMillis = 250;
+		private int drivers = 4;
+		private int warmupSeconds = 5;
+		private int durationSeconds = 30;
+		private int workers = Math.max(2, Runtime.getRuntime().availableProcessors() / 2);
+		private int queueCapacity = 1024;
+		private BackpressurePolicy backpressure = BackpressurePolicy.COALESCE;
+		private boolean journal = false;
+		private boolean rateLimit = true;
+
+		private Builder() {
+		}
+
+		public Builder setSessions(int sessions) {
+			this.sessions = Math.max(1, sessions);
+			return this;
+		}
+
+		public Builder setButtonsPerSession(int buttonsPerSession) {
+			this.buttonsPerSession = Math.max(1, buttonsPerSession);
+			return this;
+		}
+
+		public Builder setClicksPerSecond(double clicksPerSecond) {
+			if (!(clicksPerSecond > 0)) {
+				throw new IllegalArgumentException("clicksPerSecond must be positive");
+			}
+			this.clicksPerSecond = clicksPerSecond;
+			return this;
+		}
+
+		public Builder setPattern(ArrivalPattern pattern) {
+			this.pattern = pattern;
+			return this;
+		}
+
+		public Builder setBurstClicks(int burstClicks) {
+			this.burstClicks = Math.max(1, burstClicks);
+			return this;
+		}
+
+		public Builder setBurstGapMillis(long burstGapMillis) {
+			this.burstGapMillis = Math.max(0, burstGapMillis);
+			return this;
+		}
+
+		public Builder setDebounceMillis(long debounceMillis) {
+			this.debounceMillis = Math.max(0, debounceMillis);
+			return this;
+		}
+
+		public Builder setDrivers(int drivers) {
+			this.drivers = Math.max(1, drivers);
+			return this;
+		}
+
+		public Builder setWarmupSeconds(int warmupSeconds) {
+			this.warmupSeconds = Math.max(0, warmupSeconds);
+			return this;
+		}
+
+		public Builder setDurationSeconds(int durationSeconds) {
+			this.durationSeconds = Math.max(1, durationSeconds);
+			return this;
+		}
+
+		public Builder setWorkers(int workers) {
+			this.workers = Math.max(1, workers);
+			return this;
+		}
+
+		public Builder setQueueCapacity(int queueCapacity) {
+			this.queueCapacity = Math.max(1, queueCapacity);
+			return this;
+		}
+
+		public Builder setBackpressure(BackpressurePolicy backpressure) {
+			this.backpressure = backpressure;
+			return this;
+		}
+
+		public Builder setJournal(boolean journal) {
+			this.journal = journal;
+			return this;
+		}
+
+		public Builder setRateLimit(boolean rateLimit) {
+			this.rateLimit = rateLimit;
+			return this;
+		}
+
+		public LoadTestSettings build() {
+			return new LoadTestSettings(this);
+		}
+	}
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright 2024 Keith Gamble
+ * [License information]
+ */
+package dev.kgamble.perspective.examples.benchmarks.loadtest;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import com.inductiveautomation.ignition.common.gson.JsonObject;
+
+import dev.kgamble.perspective.examples.gateway.events.ActionTarget;
+import dev.kgamble.perspective.examples.gateway.events.ButtonAction;
+
+/**
+ * Stands in for a Button instance and its ButtonModelDelegate: it builds the
+ * payload the web component sends with each click and the action the delegate
+ * creates from it, and records the actions the pipeline dispatches back
+ * instead of firing onActionPerformed. Its rate limit bucket is its own, as
+ * each delegate's is.
+ *
+ * @author Keith Gamble
+ */
+public class SimulatedButton implements ActionTarget {
+	// Each simulated session shows its views on a single page
+	private static final String PAGE_ID = "loadtest-page";
+
+	private final String viewPath;
+	private final String componentPath;
+	private final long debounceMillis;
+	private final AtomicReference<LoadTestResults> results;
+
+	// Only touched by the driver thread of the session
+	private long lastActionId;
+
+	/**
+	 * Constructs a new SimulatedButton.
+	 *
+	 * @param viewPath       The path of the view containing the Button.
+	 * @param componentPath  The path of the Button within the view.
+	 * @param debounceMillis The debounceMs prop of the Button.
+	 * @param results        Where dispatched actions are recorded.
+	 */
+	public SimulatedButton(String viewPath, String componentPath, long debounceMillis,
+			AtomicReference<LoadTestResults> results) {
+		this.viewPath = viewPath;
+		this.componentPath = componentPath;
+		this.debounceMillis = debounceMillis;
+		this.results = results;
+	}
+
+	/**
+	 * @return The payload of a click, the same as Button.tsx sends.
+	 */
+	JsonObject click() {
+		JsonObject payload = new JsonObject();
+		payload.addProperty("actionId", ++lastActionId);
+		return payload;
+	}
+
+	/**
+	 * Creates the action of a checked click, as ButtonModelDelegate does.
+	 *
+	 * @param sessionId The id of the session the Button is shown in.
+	 * @param payload   The payload of the click.
+	 * @return The action.
+	 */
+	ButtonAction createAction(String sessionId, JsonObject payload) {
+		return new ButtonAction(sessionId, PAGE_ID, viewPath, componentPath, payload, debounceMillis, this);
+	}
+
+	@Override
+	public void dispatch(ButtonAction action) {
+		// ButtonModelDelegate copies the payload before firing it back
+		action.getPayload().deepCopy();
+		results.get().recordDispatch(System.nanoTime() - action.getReceivedNanos(), action.getCoalescedClicks());
+	}
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright 2024 Keith Gamble
+ * [License information]
+ */
+package dev.kgamble.perspective.examples.benchmarks.loadtest;
+
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Stands in for a Perspective session with a page showing one view of Buttons,
+ * and decides when its operator clicks which Button next.
+ *
+ * A session is only ever used by the driver thread it belongs to.
+ *
+ * @author Keith Gamble
+ */
+public class SimulatedSession {
+	private final String sessionId;
+	private final String userName;
+	private final List<SimulatedButton> buttons;
+	private final LoadTestSettings settings;
+	private final SplittableRandom random;
+
+	private long nextClickNanos;
+	private SimulatedButton burstButton;
+	private int remainingInBurst;
+
+	/**
+	 * Constructs a new SimulatedSession.
+	 *
+	 * @param sessionId The id of the session.
+	 * @param userName  The user logged into the session.
+	 * @param buttons   The Buttons in the session's view.
+	 * @param settings  The settings of the load test.
+	 * @param random    The random source of the session.
+	 */
+	public SimulatedSession(String sessionId, String userName, List<SimulatedButton> buttons,
+			LoadTestSettings settings, SplittableRandom random) {
+		this.sessionId = sessionId;
+		this.userName = userName;
+		this.buttons = buttons;
+		this.settings = settings;
+		this.random = random;
+	}
+
+	public String getSessionId() {
+		return sessionId;
+	}
+
+	public String getUserName() {
+		return userName;
+	}
+
+	/**
+	 * @return The System.nanoTime() at which the next click is due.
+	 */
+	long getNextClickNanos() {
+		return nextClickNanos;
+	}
+
+	/**
+	 * Schedules the first click, at a random point of the session's average
+	 * interval between clicks, or bursts, so the sessions don't all start at
+	 * once.
+	 *
+	 * @param startNanos When the load starts.
+	 */
+	void start(long startNanos) {
+		double interval = settings.getPattern() == ArrivalPattern.BURSTY ? meanGapNanos() * settings.getBurstClicks()
+				: meanGapNanos();
+		nextClickNanos = startNanos + (long) (random.nextDouble() * interval);
+	}
+
+	/**
+	 * Picks the Button of the click that is due and schedules the next one.
+	 *
+	 * @return The Button that is clicked.
+	 */
+	SimulatedButton nextClick() {
+		if (settings.getPattern() == ArrivalPattern.STEADY) {
+			nextClickNanos += exponential(meanGapNanos());
+			return buttons.get(random.nextInt(buttons.size()));
+		}
+
+		if (remainingInBurst == 0) {
+			burstButton = buttons.get(random.nextInt(buttons.size()));
+			remainingInBurst = settings.getBurstClicks();
+		}
+		remainingInBurst--;
+		long burstGapNanos = TimeUnit.MILLISECONDS.toNanos(settings.getBurstGapMillis());
+		if (remainingInBurst > 0) {
+			nextClickNanos += burstGapNanos;
+		} else {
+			// The pause after a burst makes up for its clicks, so the average rate stays as configured
+			double burstNanos = (settings.getBurstClicks() - 1) * (double) burstGapNanos;
+			nextClickNanos += exponential(Math.max(0, meanGapNanos() * settings.getBurstClicks() - burstNanos));
+		}
+		return burstButton;
+	}
+
+	private double meanGapNanos() {
+		return TimeUnit.SECONDS.toNanos(1) / settings.getClicksPerSecond();
+	}
+
+	private long exponential(double meanNanos) {
+		return (long) (-Math.log(1 - random.nextDouble()) * meanNanos);
+	}
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright 2024 Keith Gamble
+ * [License information]
+ */
+package dev.kgamble.perspective.examples.benchmarks.reload;
+
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Loads the module's classes the way the gateway and Designer load a module:
+ * the module's own classes and resources come from this loader, everything
+ * else, like Ignition, Perspective, Gson and Guava, from the parent.
+ *
+ * The module's jars are also on the harness's classpath, so the module's
+ * classes are looked up here first rather than delegated to the parent,
+ * otherwise every loader would share the parent's copy and unloading couldn't
+ * be observed. The harness itself is always taken from the parent.
+ *
+ * @author Keith Gamble
+ */
+class ModuleClassLoader extends URLClassLoader {
+	private static final String MODULE_PACKAGE = "dev.kgamble.perspective.examples.";
+	private static final String HARNESS_PACKAGE = ModuleClassLoader.class.getPackageName() + ".";
+	private static final AtomicInteger generations = new AtomicInteger();
+
+	static {
+		registerAsParallelCapable();
+	}
+
+	/**
+	 * Constructs a new ModuleClassLoader.
+	 *
+	 * @param urls   The module's jars or class directories.
+	 * @param parent The loader of the platform, i.e. the harness's loader.
+	 */
+	ModuleClassLoader(URL[] urls, ClassLoader parent) {
+		super("example-components-" + generations.incrementAndGet(), urls, parent);
+	}
+
+	@Override
+	protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+		if (!isModuleClass(name)) {
+			return super.loadClass(name, resolve);
+		}
+		synchronized (getClassLoadingLock(name)) {
+			Class<?> loaded = findLoadedClass(name);
+			if (loaded == null) {
+				try {
+					loaded = findClass(name);
+				} catch (ClassNotFoundException e) {
+					loaded = super.loadClass(name, false);
+				}
+			}
+			if (resolve) {
+				resolveClass(loaded);
+			}
+			return loaded;
+		}
+	}
+
+	@Override
+	public URL getResource(String name) {
+		// The schemas and images the module reads from its own jars
+		URL resource = findResource(name);
+		return resource != null ? resource : super.getResource(name);
+	}
+
+	/**
+	 * @return Whether the class belongs to the module rather than the platform
+	 *         or the harness. The cycle run inside the module is part of it.
+	 */
+	private static boolean isModuleClass(String name) {
+		if (!name.startsWith(MODULE_PACKAGE)) {
+			return false;
+		}
+		return !name.startsWith(HARNESS_PACKAGE) || name.startsWith(ModuleCycle.class.getName());
+	}
+
+	/**
+	 * Closes the jars, so the loader holds no open files once it is dropped.
+	 */
+	void closeQuietly() {
+		try {
+			close();
+		} catch (IOException e) {
+			// Only the open jar files are at stake, the loader is dropped anyway
+		}
+	}
+}
@@ -0,0 +1,318 @@
+/*
+ * Copyright 2024 Keith Gamble
+ * [License information]
+ */
+package dev.kgamble.perspective.examples.benchmarks.reload;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Proxy;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import com.inductiveautomation.ignition.common.gson.JsonObject;
+import com.inductiveautomation.ignition.common.gson.JsonPrimitive;
+import com.inductiveautomation.perspective.common.api.ComponentDescriptor;
+
+import dev.kgamble.perspective.examples.common.ComponentCatalog;
+import dev.kgamble.perspective.examples.common.LifecycleContext;
+import dev.kgamble.perspective.examples.common.components.chart.Trend;
+import dev.kgamble.perspective.examples.common.components.display.Table;
+import dev.kgamble.perspective.examples.common.components.input.Button;
+import dev.kgamble.perspective.examples.common.generated.ExampleButtonOnActionPerformedEvent;
+import dev.kgamble.perspective.examples.common.generated.ExampleButtonProps;
+import dev.kgamble.perspective.examples.common.generated.WebBundle;
+import dev.kgamble.perspective.examples.common.utilities.PlaceholderPaletteDescriptor;
+import dev.kgamble.perspective.examples.designer.PaletteAssetLoader;
+import dev.kgamble.perspective.examples.gateway.channels.ChannelStore;
+import dev.kgamble.perspective.examples.gateway.channels.ChannelSubscription;
+import dev.kgamble.perspective.examples.gateway.delegates.ButtonActionReceiver;
+import dev.kgamble.perspective.examples.gateway.delegates.ButtonModelDelegate;
+import dev.kgamble.perspective.examples.gateway.events.ActionDeduplicator;
+import dev.kgamble.perspective.examples.gateway.events.ActionHandler;
+import dev.kgamble.perspective.examples.gateway.events.ActionPipeline;
+import dev.kgamble.perspective.examples.gateway.events.ActionPipelineSettings;
+import dev.kgamble.perspective.examples.gateway.events.ButtonAction;
+import dev.kgamble.perspective.examples.gateway.journal.ActionJournal;
+import dev.kgamble.perspective.examples.gateway.journal.ActionJournalSettings;
+import dev.kgamble.perspective.examples.gateway.metrics.EventMetrics;
+import dev.kgamble.perspective.examples.gateway.metrics.ModuleMetrics;
+import dev.kgamble.perspective.examples.gateway.ratelimit.ComponentRateLimiter;
+import dev.kgamble.perspective.examples.gateway.ratelimit.EventRateLimiter;
+import dev.kgamble.perspective.examples.gateway.resources.PrecompressedAssets;
+import dev.kgamble.perspective.examples.gateway.table.TableService;
+import dev.kgamble.perspective.examples.gateway.table.TableWindowRequest;
+import dev.kgamble.perspective.examples.gateway.trend.TrendRequest;
+import dev.kgamble.perspective.examples.gateway.trend.TrendService;
+import dev.kgamble.perspective.examples.gateway.trend.TrendSubscription;
+import dev.kgamble.perspective.examples.gateway.writeback.InMemoryWriteSink;
+import dev.kgamble.perspective.examples.gateway.writeback.WriteCoalescer;
+
+/**
+ * One lifecycle of the module, from startup to shutdown, as the module hooks
+ * run it but without a gateway or Designer. Loaded by a new ModuleClassLoader
+ * for every cycle, so everything it touches belongs to that generation of the
+ * module.
+ *
+ * The common part builds every descriptor of the catalog and compiles the
+ * Button's validators. The designer part renders the palette thumbnails and
+ * icons on a PaletteAssetLoader, as the Designer hook does. The gateway part
+ * starts the services that own threads, including an action journal mapping
+ * its segments in a temporary directory, wired as the gateway hook wires them.
+ * It then sends a click, a channel request, a Trend subscription and a Table
+ * window through the same calls the model delegates make, serves the web
+ * bundle's files, and shuts it all down in the order of the gateway hook and
+ * the delegates' onShutdown.
+ *
+ * After the lifecycle is closed the cycle fails if the components can still
+ * be used, as code running after a hook's shutdown must not start a new
+ * lifecycle of its own.
+ *
+ * @author Keith Gamble
+ */
+public class ModuleCycle implements Runnable {
+	private static final String SESSION_ID = "reload-check";
+	private static final long TIMEOUT_SECONDS = 10;
+
+	private final boolean gateway;
+	private final boolean designer;
+
+	/**
+	 * Constructs a new ModuleCycle.
+	 *
+	 * @param gateway  Whether to run the gateway's services.
+	 * @param designer Whether to render the Designer's palette assets.
+	 */
+	public ModuleCycle(boolean gateway, boolean designer) {
+		this.gateway = gateway;
+		this.designer = designer;
+	}
+
+	@Override
+	public void run() {
+		try (LifecycleContext lifecycle = LifecycleContext.start("reload-check")) {
+			ComponentCatalog.BuildResult catalog = ComponentCatalog.buildDescriptors();
+			if (!catalog.getFailures().isEmpty()) {
+				Map.Entry<ComponentCatalog.Entry, Throwable> failure = catalog.getFailures().entrySet().iterator().next();
+				throw new IllegalStateException("Failed to build " + failure.getKey().getId(), failure.getValue());
+			}
+			for (ComponentDescriptor descriptor : catalog.getDescriptors().values()) {
+				descriptor.defaultProperties();
+			}
+			if (!ExampleButtonProps.validator().test(ExampleButtonProps.defaultProperties())) {
+				throw new IllegalStateException("The default Button props don't match their schema");
+			}
+			ExampleButtonOnActionPerformedEvent.validator().test(new JsonObject());
+
+			if (designer) {
+				renderPaletteAssets(catalog);
+			}
+			if (gateway) {
+				runGatewayServices();
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+
+		boolean usable;
+		try {
+			LifecycleContext.current();
+			usable = true;
+		} catch (IllegalStateException e) {
+			usable = false;
+		}
+		if (usable) {
+			throw new IllegalStateException("The components could still be used after their lifecycle was closed");
+		}
+	}
+
+	/**
+	 * Renders the palette assets of every component on a PaletteAssetLoader and
+	 * stops it, as the Designer hook does.
+	 */
+	private static void renderPaletteAssets(ComponentCatalog.BuildResult catalog) {
+		PaletteAssetLoader loader = PaletteAssetLoader.fromSystemProperties();
+		try {
+			List<CompletableFuture<Void>> loads = new ArrayList<>();
+			catalog.getDescriptors().forEach((entry, descriptor) -> loads.add(loader.load(
+					new PlaceholderPaletteDescriptor(descriptor, null), entry.getPaletteEntries(),
+					entry.getIconPath(), () -> {
+					})));
+			CompletableFuture.allOf(loads.toArray(new CompletableFuture[0]))
+					.orTimeout(TIMEOUT_SECONDS, TimeUnit.SECONDS)
+					.join();
+		} finally {
+			loader.shutdown(5000);
+		}
+	}
+
+	/**
+	 * Starts the gateway's services, sends them a little work the way the model
+	 * delegates do and shuts them down in the order of the gateway hook.
+	 */
+	private void runGatewayServices() throws IOException {
+		ModuleMetrics metrics = new ModuleMetrics();
+		EventRateLimiter rateLimiter = EventRateLimiter.fromSystemProperties();
+		rateLimiter.start();
+		Map<String, ComponentRateLimiter> limiters = new HashMap<>();
+		for (ComponentCatalog.Entry entry : ComponentCatalog.ENTRIES) {
+			limiters.put(entry.getId(), rateLimiter.forComponent(entry.getId(), entry.getRateLimit(),
+					metrics.component(entry.getId()).event("rate-limit")));
+		}
+		limiters.put(ButtonModelDelegate.CHANNELS_LIMIT_ID, rateLimiter.forComponent(
+				ButtonModelDelegate.CHANNELS_LIMIT_ID, ButtonModelDelegate.CHANNELS_RATE_LIMIT,
+				metrics.component(Button.COMPONENT_ID).event("channels-rate-limit")));
+
+		InMemoryWriteSink sink = new InMemoryWriteSink();
+		WriteCoalescer writeCoalescer = WriteCoalescer.fromSystemProperties(sink,
+				metrics.component("reload-check").event("write-back"));
+		ActionPipelineSettings settings = ActionPipelineSettings.fromSystemProperties();
+		EventMetrics actionMetrics = metrics.component("reload-check").event("onActionPerformed");
+		ActionPipeline actionPipeline = new ActionPipeline(settings,
+				new ActionDeduplicator(settings.getMaxDebounceMillis(), ActionHandler.DISPATCH, actionMetrics),
+				actionMetrics);
+		actionPipeline.start();
+		Path journalDirectory = Files.createTempDirectory("reload-check-journal");
+		ActionJournal journal = new ActionJournal(ActionJournalSettings.newBuilder()
+				.setEnabled(true)
+				.setSegmentBytes(64 * 1024)
+				.build(), journalDirectory, metrics.component("reload-check").event("journal"));
+		journal.start();
+		ChannelStore channelStore = ChannelStore.fromSystemProperties(
+				metrics.component("reload-check").event("channels"));
+		channelStore.start();
+		TrendService trendService = TrendService.fromSystemProperties(
+				metrics.component("reload-check").event("trend-data"));
+		trendService.start();
+		TableService tableService = TableService.fromSystemProperties(
+				metrics.component("reload-check").event("table-window"));
+		PrecompressedAssets assets = new PrecompressedAssets("/mounted/", WebBundle.FILES);
+
+		writeCoalescer.submit("reload/check", 1).join();
+		useDelegates(limiters, actionPipeline, journal, channelStore, trendService, tableService);
+		serveAssets(assets);
+
+		rateLimiter.shutdown(5000);
+		actionPipeline.shutdown(5000);
+		writeCoalescer.shutdown(5000);
+		journal.close(5000);
+		// Reads the segments back through their own mappings
+		long journaled = journal.newReader().replayAll(record -> {
+		});
+		if (journaled == 0) {
+			throw new IllegalStateException("The click was not journaled");
+		}
+		channelStore.shutdown(5000);
+		trendService.shutdown(5000);
+		tableService.shutdown(5000);
+		assets.clear();
+		deleteDirectory(journalDirectory);
+	}
+
+	/**
+	 * Sends the events of a Button, a Trend and a Table through the calls their
+	 * model delegates make, waits for the answers and then releases what the
+	 * delegates release in onShutdown.
+	 */
+	private static void useDelegates(Map<String, ComponentRateLimiter> limiters, ActionPipeline actionPipeline,
+			ActionJournal journal, ChannelStore channelStore, TrendService trendService, TableService tableService) {
+		// Stand in for the delegate instances, whose rate limit buckets they key
+		Object button = new Object();
+		Object trend = new Object();
+		Object table = new Object();
+
+		ComponentRateLimiter buttonLimiter = limiters.get(Button.COMPONENT_ID);
+		ComponentRateLimiter channelLimiter = limiters.get(ButtonModelDelegate.CHANNELS_LIMIT_ID);
+		ButtonActionReceiver receiver = new ButtonActionReceiver(actionPipeline, journal, buttonLimiter);
+		CompletableFuture<ButtonAction> dispatched = new CompletableFuture<>();
+		JsonObject click = new JsonObject();
+		click.addProperty("actionId", 1);
+		receiver.receive(SESSION_ID, button, click,
+				payload -> new ButtonAction(SESSION_ID, "reload-page", "reload/view", "root/Button", payload, 0,
+						dispatched::complete),
+				() -> "reload-check");
+
+		ChannelSubscription[] subscription = new ChannelSubscription[1];
+		CompletableFuture<JsonObject> channelValues = new CompletableFuture<>();
+		channelLimiter.execute(SESSION_ID, button, () -> subscription[0] = channelStore.subscribe("reload/check",
+				SESSION_ID, channelValues::complete));
+		channelStore.publish("reload/check", new JsonPrimitive(1));
+
+		TrendSubscription[] trendSubscription = new TrendSubscription[1];
+		CompletableFuture<JsonObject> trendPoints = new CompletableFuture<>();
+		JsonObject trendRequest = new JsonObject();
+		trendRequest.addProperty("refreshMs", TrendRequest.MIN_REFRESH_MILLIS);
+		limiters.get(Trend.COMPONENT_ID).execute(SESSION_ID, trend,
+				() -> trendSubscription[0] = trendService.subscribe(TrendRequest.fromJson(trendRequest),
+						trendPoints::complete));
+
+		CompletableFuture<JsonObject> tableWindow = new CompletableFuture<>();
+		limiters.get(Table.COMPONENT_ID).execute(SESSION_ID, table,
+				() -> tableService.fetch(TableWindowRequest.fromJson(new JsonObject()), tableWindow::complete));
+
+		CompletableFuture.allOf(dispatched, channelValues, trendPoints, tableWindow)
+				.orTimeout(TIMEOUT_SECONDS, TimeUnit.SECONDS)
+				.join();
+
+		subscription[0].cancel();
+		buttonLimiter.release(button);
+		channelLimiter.release(button);
+		trendSubscription[0].cancel();
+		limiters.get(Trend.COMPONENT_ID).release(trend);
+		limiters.get(Table.COMPONENT_ID).release(table);
+	}
+
+	/**
+	 * Requests every file of the web bundle, as browsers do through the route
+	 * the gateway hook mounts.
+	 */
+	private static void serveAssets(PrecompressedAssets assets) throws IOException {
+		HttpServletRequest request = (HttpServletRequest) Proxy.newProxyInstance(
+				ModuleCycle.class.getClassLoader(), new Class<?>[] { HttpServletRequest.class },
+				(proxy, method, args) -> "getHeader".equals(method.getName()) && "Accept-Encoding".equals(args[0])
+						? "br, gzip"
+						: null);
+		ServletOutputStream body = new ServletOutputStream() {
+			@Override
+			public boolean isReady() {
+				return true;
+			}
+
+			@Override
+			public void setWriteListener(WriteListener listener) {
+			}
+
+			@Override
+			public void write(int b) {
+			}
+		};
+		// The handler only sets headers and writes the body, nothing else is called
+		HttpServletResponse response = (HttpServletResponse) Proxy.newProxyInstance(
+				ModuleCycle.class.getClassLoader(), new Class<?>[] { HttpServletResponse.class },
+				(proxy, method, args) -> "getOutputStream".equals(method.getName()) ? body : null);
+		for (String file : WebBundle.FILES) {
+			assets.handle(file, request, response);
+		}
+	}
+
+	private static void deleteDirectory(Path directory) throws IOException {
+		try (Stream<Path> files = Files.walk(directory)) {
+			for (Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+				Files.delete(file);
+			}
+		}
+	}
+}
@@ -0,0 +1,317 @@
+/*
+ * Copyright 2024 Keith Gamble
+ * [License information]
+ */
+package dev.kgamble.perspective.examples.benchmarks.reload;
+
+import java.awt.EventQueue;
+import java.io.IOException;
+import java.lang.management.ClassLoadingMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.ref.WeakReference;
+import java.lang.reflect.InvocationTargetException;
+import java.net.URL;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import javax.imageio.ImageIO;
+
+import com.sun.management.HotSpotDiagnosticMXBean;
+
+import dev.kgamble.perspective.examples.common.LifecycleContext;
+import dev.kgamble.perspective.examples.designer.IconUtilities;
+import dev.kgamble.perspective.examples.gateway.ExampleComponentLibraryGatewayHook;
+
+/**
+ * Reloads the module many times in one JVM and fails if the old generations
+ * of the module aren't released, the way a gateway leaks when a module is
+ * redeployed during development or upgraded.
+ *
+ * Every cycle loads the module's jars with a new ModuleClassLoader, runs one
+ * ModuleCycle in it, i.e. starts the module's LifecycleContext, builds and
+ * runs what the hooks and model delegates build and run, shuts it all down
+ * again, and then drops the loader. After a
+ * few warmup cycles the harness forces a full GC and records the classloaders
+ * of the module still alive, the loaded class count and the used heap. After
+ * all cycles it does the same again and fails if:
+ *
+ * - any loader of a finished cycle is still reachable,
+ * - more classes are loaded than after the warmup, beyond a tolerance, or
+ * - the heap used after GC grew by more than a tolerance.
+ *
+ * A leak shows as all three growing with the number of cycles, so the
+ * tolerances only absorb the JVM's own warmup. With {@code --heapDump=<file>}
+ * a heap dump is written on failure, in which the paths from the GC roots to a
+ * ModuleClassLoader show what keeps it alive.
+ *
+ * Run it with {@code ./gradlew :benchmarks:reloadLeakCheck}, see
+ * {@link #main(String[])} for the arguments. {@code ./gradlew check} runs a
+ * short version of it with the reloadLeakCheckSmoke task. The process exits
+ * with 1 on failure, or if a cycle throws, which fails the task.
+ *
+ * @author Keith Gamble
+ */
+public class ReloadLeakCheck {
+	// A full GC is asked for until the dropped loaders are gone, at most this often
+	private static final int MAX_GC_ATTEMPTS = 10;
+
+	private final int cycles;
+	private final int warmupCycles;
+	private final boolean gateway;
+	private final boolean designer;
+	private final long maxHeapGrowthBytes;
+	private final int maxClassGrowth;
+	private final Path heapDump;
+
+	private final URL[] moduleUrls;
+	private final List<WeakReference<ClassLoader>> loaders = new ArrayList<>();
+
+	ReloadLeakCheck(int cycles, int warmupCycles, String scope, long maxHeapGrowthBytes, int maxClassGrowth,
+			Path heapDump) {
+		this.cycles = cycles;
+		this.warmupCycles = warmupCycles;
+		this.gateway = !scope.equals("designer");
+		this.designer = !scope.equals("gateway");
+		this.maxHeapGrowthBytes = maxHeapGrowthBytes;
+		this.maxClassGrowth = maxClassGrowth;
+		this.heapDump = heapDump;
+		this.moduleUrls = moduleUrls();
+	}
+
+	/**
+	 * Runs the check. The arguments are {@code --name=value} pairs:
+	 *
+	 * - {@code cycles}: How many times the module is reloaded after the warmup,
+	 * 50 by default.
+	 * - {@code warmupCycles}: How many reloads happen before the baseline is
+	 * taken, 5 by default.
+	 * - {@code scope}: {@code gateway}, {@code designer} or {@code both}, which
+	 * hook's work each cycle does, both by default.
+	 * - {@code maxHeapGrowthMb}: How much the used heap may grow, 8 by default.
+	 * - {@code maxClassGrowth}: How many more classes may be loaded, 200 by
+	 * default, for classes the JVM generates for itself, like lambda forms.
+	 * - {@code heapDump}: Where to write a heap dump on failure, none by default.
+	 */
+	public static void main(String[] args) throws Exception {
+		int cycles = 50;
+		int warmupCycles = 5;
+		String scope = "both";
+		long maxHeapGrowthMb = 8;
+		int maxClassGrowth = 200;
+		Path heapDump = null;
+		for (String arg : args) {
+			int separator = arg.indexOf('=');
+			if (!arg.startsWith("--") || separator < 0) {
+				throw new IllegalArgumentException("Expected --name=value, got " + arg);
+			}
+			String name = arg.substring(2, separator);
+			String value = arg.substring(separator + 1).trim();
+			switch (name) {
+				case "cycles":
+					cycles = Integer.parseInt(value);
+					break;
+				case "warmupCycles":
+					warmupCycles = Integer.parseInt(value);
+					break;
+				case "scope":
+					if (!Set.of("gateway", "designer", "both").contains(value)) {
+						throw new IllegalArgumentException("Unknown scope " + value);
+					}
+					scope = value;
+					break;
+				case "maxHeapGrowthMb":
+					maxHeapGrowthMb = Long.parseLong(value);
+					break;
+				case "maxClassGrowth":
+					maxClassGrowth = Integer.parseInt(value);
+					break;
+				case "heapDump":
+					heapDump = Path.of(value);
+					break;
+				default:
+					throw new IllegalArgumentException("Unknown argument --" + name);
+			}
+		}
+
+		System.out.printf("Reload leak check: %d cycles after %d warmup cycles, scope %s%n", cycles, warmupCycles,
+				scope);
+		boolean passed = new ReloadLeakCheck(cycles, warmupCycles, scope, maxHeapGrowthMb * 1024 * 1024,
+				maxClassGrowth, heapDump).run();
+		System.exit(passed ? 0 : 1);
+	}
+
+	/**
+	 * Runs the warmup and the measured cycles and prints the report.
+	 *
+	 * @return Whether the module was released after every cycle.
+	 */
+	boolean run() throws Exception {
+		initializePlatform();
+		for (int i = 0; i < warmupCycles; i++) {
+			cycle();
+		}
+		Sample baseline = sample();
+		System.out.println("After warmup:  " + baseline);
+
+		long startNanos = System.nanoTime();
+		for (int i = 0; i < cycles; i++) {
+			cycle();
+		}
+		long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+		Sample end = sample();
+		System.out.println("After cycles:  " + end);
+		System.out.printf("%d cycles in %d ms, %d classes unloaded in total%n", cycles, elapsedMillis,
+				ManagementFactory.getClassLoadingMXBean().getUnloadedClassCount());
+
+		List<String> failures = new ArrayList<>();
+		if (end.liveLoaders > 0) {
+			failures.add(end.liveLoaders + " of " + loaders.size() + " module classloaders are still reachable");
+		}
+		if (end.loadedClasses - baseline.loadedClasses > maxClassGrowth) {
+			failures.add("the loaded classes grew by " + (end.loadedClasses - baseline.loadedClasses)
+					+ ", more than " + maxClassGrowth);
+		}
+		if (end.usedHeap - baseline.usedHeap > maxHeapGrowthBytes) {
+			failures.add("the used heap grew by " + mb(end.usedHeap - baseline.usedHeap) + ", more than "
+					+ mb(maxHeapGrowthBytes));
+		}
+		Set<String> threads = moduleThreads();
+		if (!threads.isEmpty()) {
+			failures.add("module threads are still running: " + threads);
+		}
+
+		if (failures.isEmpty()) {
+			System.out.println("PASSED: every generation of the module was released.");
+			return true;
+		}
+		failures.forEach(failure -> System.out.println("FAILED: " + failure));
+		if (heapDump != null) {
+			dumpHeap(heapDump);
+			System.out.println("Heap dump written to " + heapDump + ", look for the paths to ModuleClassLoader.");
+		}
+		return false;
+	}
+
+	/**
+	 * Initializes the JDK's ImageIO and AWT event queue before the first cycle,
+	 * as the gateway and Designer do long before a module loads. ImageIO keeps
+	 * the context classloader of its first caller in its registry of image
+	 * readers, and the event queue hands it to every event thread it starts,
+	 * which would otherwise pin the first generation of the module for good.
+	 */
+	private static void initializePlatform() throws InterruptedException, InvocationTargetException {
+		ImageIO.getReaderFormatNames();
+		EventQueue.invokeAndWait(() -> {
+		});
+	}
+
+	/**
+	 * Loads a new generation of the module, runs one lifecycle in it and drops
+	 * it.
+	 */
+	private void cycle() throws ReflectiveOperationException {
+		ModuleClassLoader loader = new ModuleClassLoader(moduleUrls, ReloadLeakCheck.class.getClassLoader());
+		loaders.add(new WeakReference<>(loader));
+		Thread thread = Thread.currentThread();
+		ClassLoader previous = thread.getContextClassLoader();
+		// As the platform does while it runs a module hook
+		thread.setContextClassLoader(loader);
+		try {
+			Runnable cycle = (Runnable) loader.loadClass(ModuleCycle.class.getName())
+					.getConstructor(boolean.class, boolean.class)
+					.newInstance(gateway, designer);
+			cycle.run();
+		} finally {
+			thread.setContextClassLoader(previous);
+			loader.closeQuietly();
+		}
+	}
+
+	/**
+	 * Forces full GCs until the dropped loaders are gone, or gives up, and then
+	 * records what is left.
+	 */
+	private Sample sample() throws InterruptedException {
+		MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+		ClassLoadingMXBean classes = ManagementFactory.getClassLoadingMXBean();
+		int live = liveLoaders();
+		for (int attempt = 0; attempt < MAX_GC_ATTEMPTS && (attempt < 2 || live > 0); attempt++) {
+			// Shut down threads may take a moment to let go of their last task
+			System.gc();
+			Thread.sleep(100);
+			live = liveLoaders();
+		}
+		return new Sample(live, classes.getLoadedClassCount(), memory.getHeapMemoryUsage().getUsed());
+	}
+
+	private int liveLoaders() {
+		int live = 0;
+		for (WeakReference<ClassLoader> loader : loaders) {
+			if (loader.get() != null) {
+				live++;
+			}
+		}
+		return live;
+	}
+
+	/**
+	 * @return The names of the running threads the module started, which all
+	 *         share the module's prefix.
+	 */
+	private static Set<String> moduleThreads() {
+		Set<String> names = new LinkedHashSet<>();
+		for (Thread thread : Thread.getAllStackTraces().keySet()) {
+			if (thread.isAlive() && thread.getName().startsWith("example-components-")) {
+				names.add(thread.getName());
+			}
+		}
+		return names;
+	}
+
+	/**
+	 * @return The jars or class directories of the module's common, gateway and
+	 *         designer projects, and of this harness for the ModuleCycle.
+	 */
+	private static URL[] moduleUrls() {
+		Set<URL> urls = new LinkedHashSet<>();
+		for (Class<?> type : List.of(LifecycleContext.class, ExampleComponentLibraryGatewayHook.class,
+				IconUtilities.class, ModuleCycle.class)) {
+			urls.add(type.getProtectionDomain().getCodeSource().getLocation());
+		}
+		return urls.toArray(new URL[0]);
+	}
+
+	private static void dumpHeap(Path file) throws IOException {
+		ManagementFactory.getPlatformMXBean(HotSpotDiagnosticMXBean.class).dumpHeap(file.toString(), true);
+	}
+
+	private static String mb(long bytes) {
+		return String.format("%.1f MB", bytes / (1024d * 1024d));
+	}
+
+	/**
+	 * What is left of the module after a full GC.
+	 */
+	private static class Sample {
+		final int liveLoaders;
+		final int loadedClasses;
+		final long usedHeap;
+
+		Sample(int liveLoaders, int loadedClasses, long usedHeap) {
+			this.liveLoaders = liveLoaders;
+			this.loadedClasses = loadedClasses;
+			this.usedHeap = usedHeap;
+		}
+
+		@Override
+		public String toString() {
+			return String.format("%d module classloaders alive, %d classes loaded, %s heap used", liveLoaders,
+					loadedClasses, mb(usedHeap));
+		}
+	}
+}
@@ -1,3 +1,5 @@
+import java.security.MessageDigest
+
 // Apply the java-library plugin which is appropriate for Java libraries
 // that are consumed by other projects
 plugins {
@@ -23,4 +25,519 @@ dependencies {
     compileOnly(libs.ignition.perspective.common)
     // Google's Guava library (provided by Ignition)
     compileOnly(libs.google.guava)
-}
\ No newline at end of file
+}
+
+// Where the classes generated from the props and event schemas are written
+val generatedDescriptorsDir = layout.buildDirectory.dir("generated/sources/componentDescriptors/java/main")
+
+// Package of the generated classes
+val generatedDescriptorsPackage = "dev.kgamble.perspective.examples.common.generated"
+
+// Generates a Java class for every props schema and event descriptor in the resources.
+// The generated classes rebuild the schemas from Java literals, so the gateway and Designer
+// don't need to read and tokenize the JSON files on every boot. Defaults are validated
+// against their declared types here, so a broken schema fails the build instead of startup.
+val generateComponentDescriptors by tasks.registering {
+    description = "Generates descriptor classes from props/*.props.json and events/**/*.json."
+    group = "build"
+
+    val resourcesDir = file("src/main/resources")
+    val propsFiles = fileTree(resourcesDir) { include("props/*.props.json") }
+    val eventFiles = fileTree(resourcesDir) { include("events/**/*.json") }
+    // The component classes build the rest of each descriptor, so they are part of the fingerprint
+    val componentSources = fileTree("src/main/java") { include("**/components/**/*.java") }
+    val moduleVersion = project.version.toString()
+    val baseDir = projectDir
+
+    inputs.files(propsFiles, eventFiles, componentSources)
+    inputs.property("moduleVersion", moduleVersion)
+    outputs.dir(generatedDescriptorsDir)
+
+    doLast {
+        val packageDir = generatedDescriptorsDir.get().dir(generatedDescriptorsPackage.replace('.', '/')).asFile
+        delete(packageDir)
+        packageDir.mkdirs()
+
+        propsFiles.forEach { file ->
+            val resourcePath = "/" + file.relativeTo(resourcesDir).invariantSeparatorsPath
+            val className = javaClassName(file.name.removeSuffix(".props.json")) + "Props"
+            val schema = parseJsonObject(file)
+
+            validateDefaults(resourcePath, "", schema)
+
+            File(packageDir, "$className.java").writeText(
+                generatedPropsClass(className, resourcePath, schema, defaultsOf(schema) ?: emptyMap<String, Any?>())
+            )
+        }
+
+        eventFiles.forEach { file ->
+            val resourcePath = "/" + file.relativeTo(resourcesDir).invariantSeparatorsPath
+            val className = javaClassName(file.parentFile.name) + javaClassName(file.name.removeSuffix(".json")) + "Event"
+            val event = parseJsonObject(file)
+            // Event files wrap the payload schema with the event metadata, older files are the schema itself
+            val schema = event["schema"] as? Map<*, *> ?: event
+
+            validateDefaults(resourcePath, "", schema)
+
+            File(packageDir, "$className.java").writeText(
+                generatedEventClass(
+                    className,
+                    resourcePath,
+                    event["name"]?.toString() ?: file.name.removeSuffix(".json"),
+                    event["description"]?.toString() ?: "",
+                    schema
+                )
+            )
+        }
+
+        File(packageDir, "DescriptorSources.java").writeText(
+            generatedSourcesClass(moduleVersion, fingerprintOf(moduleVersion, baseDir,
+                (propsFiles.files + eventFiles.files + componentSources.files)))
+        )
+    }
+}
+
+// The manifest of the content-hashed files written by the web build
+val webManifest = rootProject.layout.projectDirectory.file("web/build/manifest/browser-resources.json")
+
+// Where the class generated from the web manifest is written
+val generatedBrowserResourcesDir = layout.buildDirectory.dir("generated/sources/browserResources/java/main")
+
+// Generates the WebBundle class listing the web build's content-hashed files, so the
+// BrowserResources the components declare always point at the files in the module.
+// The file names are content hashes only webpack can compute, so compiling this project, and
+// everything that depends on it like the benchmarks, needs the web build. The web build is up to
+// date as long as the web sources don't change, so it only runs the npm build after such a change.
+val generateBrowserResources by tasks.registering {
+    description = "Generates the WebBundle class from the web build's browser-resources.json."
+    group = "build"
+
+    dependsOn(":web:webpack")
+    inputs.file(webManifest)
+    outputs.dir(generatedBrowserResourcesDir)
+
+    doLast {
+        val packageDir = generatedBrowserResourcesDir.get().dir(generatedDescriptorsPackage.replace('.', '/')).asFile
+        delete(packageDir)
+        packageDir.mkdirs()
+
+        val manifestFile = webManifest.asFile
+        val resources = (parseJsonObject(manifestFile)["resources"] as? List<*>)
+            ?.map { it as? Map<*, *> ?: throw GradleException("${manifestFile.path}: resources must be objects") }
+            ?: throw GradleException("${manifestFile.path} must list its resources")
+
+        resources.forEach { resource ->
+            listOf("name", "file", "type").forEach { key ->
+                if (resource[key] !is String) {
+                    throw GradleException("${manifestFile.path}: every resource needs a '$key'")
+                }
+            }
+            if (resource["type"] !in listOf("JS", "CSS")) {
+                throw GradleException("${manifestFile.path}: unknown resource type ${resource["type"]}")
+            }
+        }
+
+        // The per-component chunks aren't BrowserResources, the stub loads them on first render
+        val chunks = (parseJsonObject(manifestFile)["chunks"] as? Map<*, *> ?: emptyMap<String, Any>())
+            .entries.associate { (name, files) ->
+                name.toString() to ((files as? List<*>)?.map { it.toString() }
+                    ?: throw GradleException("${manifestFile.path}: chunk $name must list its files"))
+            }
+
+        File(packageDir, "WebBundle.java").writeText(generatedWebBundleClass(resources, chunks))
+    }
+}
+
+// Compile the generated classes with the rest of the common code
+sourceSets.main {
+    java.srcDir(generateComponentDescriptors)
+    java.srcDir(generateBrowserResources)
+}
+
+/**
+ * Parses a JSON file into nested maps and lists, failing the build when the file isn't a JSON object.
+ */
+fun parseJsonObject(file: File): Map<*, *> =
+    groovy.json.JsonSlurper().parse(file) as? Map<*, *>
+        ?: throw GradleException("${file.path} must contain a JSON object")
+
+/**
+ * Converts a file name like `example-button` or `onActionPerformed` into `ExampleButton` or `OnActionPerformed`.
+ */
+fun javaClassName(name: String): String =
+    name.split('-', '_', '.', ' ')
+        .filter { it.isNotEmpty() }
+        .joinToString("") { it.replaceFirstChar(Char::uppercaseChar) }
+
+/**
+ * Checks every `default` in the schema against the `type` declared next to it.
+ */
+fun validateDefaults(resourcePath: String, path: String, schema: Map<*, *>) {
+    val properties = schema["properties"] as? Map<*, *> ?: return
+
+    properties.forEach { (name, value) ->
+        val property = value as? Map<*, *> ?: return@forEach
+        val propertyPath = if (path.isEmpty()) name.toString() else "$path.$name"
+        val types = when (val type = property["type"]) {
+            is String -> listOf(type)
+            is List<*> -> type.map { it.toString() }
+            else -> emptyList()
+        }
+
+        if (property.containsKey("default") && types.isNotEmpty() && types.none { matchesType(it, property["default"]) }) {
+            throw GradleException("$resourcePath: default of '$propertyPath' does not match its type $types")
+        }
+
+        validateDefaults(resourcePath, propertyPath, property)
+    }
+}
+
+/**
+ * Returns true when the value parsed from JSON is valid for the given JSON schema type.
+ */
+fun matchesType(type: String, value: Any?): Boolean = when (type) {
+    "string" -> value is String
+    "number" -> value is Number
+    "integer" -> value is Int || value is Long || value is java.math.BigInteger ||
+        (value is java.math.BigDecimal && value.stripTrailingZeros().scale() <= 0)
+    "boolean" -> value is Boolean
+    "object" -> value is Map<*, *>
+    "array" -> value is List<*>
+    "null" -> value == null
+    else -> true
+}
+
+/**
+ * Collects the default property values declared in a schema, descending into
+ * object properties that don't declare a default of their own.
+ */
+fun defaultsOf(schema: Map<*, *>): Map<String, Any?>? {
+    val properties = schema["properties"] as? Map<*, *> ?: return null
+    val defaults = LinkedHashMap<String, Any?>()
+
+    properties.forEach { (name, value) ->
+        val property = value as? Map<*, *> ?: return@forEach
+        if (property.containsKey("default")) {
+            defaults[name.toString()] = property["default"]
+        } else {
+            defaultsOf(property)?.takeIf { it.isNotEmpty() }?.let { defaults[name.toString()] = it }
+        }
+    }
+
+    return defaults
+}
+
+/**
+ * Quotes and escapes a value as a Java string literal.
+ */
+fun javaString(value: String): String {
+    val literal = StringBuilder("\"")
+    value.forEach { c ->
+        when {
+            c == '"' -> literal.append("\\\"")
+            c == '\\' -> literal.append("\\\\")
+            c == '\n' -> literal.append("\\n")
+            c == '\r' -> literal.append("\\r")
+            c == '\t' -> literal.append("\\t")
+            c < ' ' || c > '~' -> literal.append(String.format("\\u%04x", c.code))
+            else -> literal.append(c)
+        }
+    }
+    return literal.append('"').toString()
+}
+
+/**
+ * Renders a value parsed from JSON as a Java expression using the JsonLiterals helpers.
+ */
+fun jsonLiteral(value: Any?, indent: String): String = when (value) {
+    null -> "null"
+    is String -> javaString(value)
+    is Boolean -> value.toString()
+    is Int -> value.toString()
+    is Long -> "${value}L"
+    is java.math.BigInteger -> "new java.math.BigInteger(${javaString(value.toString())})"
+    is java.math.BigDecimal -> "new java.math.BigDecimal(${javaString(value.toPlainString())})"
+    is Number -> value.toString()
+    is Map<*, *> ->
+        if (value.isEmpty()) "object()"
+        else value.entries.joinToString(",\n", "object(\n", ")") { (key, member) ->
+            "$indent\t${javaString(key.toString())}, ${jsonLiteral(member, "$indent\t")}"
+        }
+    is List<*> ->
+        if (value.isEmpty()) "array()"
+        else value.joinToString(",\n", "array(\n", ")") { "$indent\t${jsonLiteral(it, "$indent\t")}" }
+    else -> throw GradleException("Unsupported JSON value: $value")
+}
+
+/**
+ * The header shared by all generated classes.
+ */
+fun generatedHeader(resourcePath: String, imports: List<String>): String = """
+    |/*
+    | * Generated by :common:generateComponentDescriptors from $resourcePath.
+    | * Do not edit, changes will be overwritten by the next build.
+    | */
+    |package $generatedDescriptorsPackage;
+    |
+    |import static dev.kgamble.perspective.examples.common.utilities.JsonLiterals.array;
+    |import static dev.kgamble.perspective.examples.common.utilities.JsonLiterals.object;
+    |
+    |${imports.joinToString("\n") { "import $it;" }}
+    |""".trimMargin()
+
+/**
+ * Renders the class generated for a props schema.
+ */
+fun generatedPropsClass(className: String, resourcePath: String, schema: Map<*, *>, defaults: Map<*, *>): String =
+    generatedHeader(
+        resourcePath,
+        listOf(
+            "com.inductiveautomation.ignition.common.gson.JsonObject",
+            "com.inductiveautomation.ignition.common.jsonschema.JsonSchema",
+            "dev.kgamble.perspective.examples.common.utilities.CompiledValidator",
+            "dev.kgamble.perspective.examples.common.utilities.SchemaRegistry"
+        )
+    ) + """
+    |
+    |/**
+    | * The props schema of {@code $resourcePath}, compiled into Java.
+    | */
+    |@SuppressWarnings("unused")
+    |public final class $className {
+    |
+    |	/**
+    |	 * The resource this class was generated from.
+    |	 */
+    |	public static final String RESOURCE_PATH = ${javaString(resourcePath)};
+    |
+    |	private $className() {
+    |	}
+    |
+    |	/**
+    |	 * @return A new copy of the schema as JSON.
+    |	 */
+    |	public static JsonObject schemaJson() {
+    |		return ${jsonLiteral(schema, "\t\t")};
+    |	}
+    |
+    |	/**
+    |	 * @return The parsed props schema, parsed once and shared through the
+    |	 *         SchemaRegistry.
+    |	 */
+    |	public static JsonSchema schema() {
+    |		return SchemaRegistry.shared().get(RESOURCE_PATH, $className::schemaJson);
+    |	}
+    |
+    |	/**
+    |	 * @return The props schema compiled for checking prop writes, compiled once
+    |	 *         and shared through the SchemaRegistry.
+    |	 */
+    |	public static CompiledValidator validator() {
+    |		return SchemaRegistry.shared().validator(RESOURCE_PATH, $className::schemaJson);
+    |	}
+    |
+    |	/**
+    |	 * The defaults were checked against their declared types when this class was
+    |	 * generated.
+    |	 *
+    |	 * @return A new copy of the default props.
+    |	 */
+    |	public static JsonObject defaultProperties() {
+    |		return ${jsonLiteral(defaults, "\t\t")};
+    |	}
+    |}
+    |""".trimMargin()
+
+/**
+ * Hashes the module version and the path and content of every file a descriptor is derived from.
+ */
+fun fingerprintOf(moduleVersion: String, baseDir: File, files: Collection<File>): String {
+    val digest = MessageDigest.getInstance("SHA-256")
+    digest.update(moduleVersion.toByteArray())
+    files.sortedBy { it.relativeTo(baseDir).invariantSeparatorsPath }.forEach { file ->
+        digest.update(0.toByte())
+        digest.update(file.relativeTo(baseDir).invariantSeparatorsPath.toByteArray())
+        digest.update(0.toByte())
+        digest.update(file.readBytes())
+    }
+    return digest.digest().joinToString("") { "%02x".format(it) }
+}
+
+/**
+ * Renders the class identifying the sources the descriptors were generated from.
+ */
+fun generatedSourcesClass(moduleVersion: String, fingerprint: String): String = """
+    |/*
+    | * Generated by :common:generateComponentDescriptors.
+    | * Do not edit, changes will be overwritten by the next build.
+    | */
+    |package $generatedDescriptorsPackage;
+    |
+    |/**
+    | * Identifies the sources the component descriptors of this build are derived
+    | * from, so data derived from them can be checked against this build.
+    | */
+    |public final class DescriptorSources {
+    |
+    |	/**
+    |	 * The version of the module.
+    |	 */
+    |	public static final String MODULE_VERSION = ${javaString(moduleVersion)};
+    |
+    |	/**
+    |	 * SHA-256 of the module version, the props and event schemas and the
+    |	 * component classes.
+    |	 */
+    |	public static final String FINGERPRINT = ${javaString(fingerprint)};
+    |
+    |	private DescriptorSources() {
+    |	}
+    |}
+    |""".trimMargin()
+
+/**
+ * Renders the class generated for an event descriptor.
+ */
+fun generatedEventClass(
+    className: String,
+    resourcePath: String,
+    eventName: String,
+    description: String,
+    schema: Map<*, *>
+): String =
+    generatedHeader(
+        resourcePath,
+        listOf(
+            "com.inductiveautomation.ignition.common.gson.JsonObject",
+            "com.inductiveautomation.ignition.common.jsonschema.JsonSchema",
+            "com.inductiveautomation.perspective.common.api.ComponentEventDescriptor",
+            "dev.kgamble.perspective.examples.common.utilities.CompiledValidator",
+            "dev.kgamble.perspective.examples.common.utilities.SchemaRegistry"
+        )
+    ) + """
+    |
+    |/**
+    | * The event descriptor of {@code $resourcePath}, compiled into Java.
+    | */
+    |@SuppressWarnings("unused")
+    |public final class $className {
+    |
+    |	/**
+    |	 * The resource this class was generated from.
+    |	 */
+    |	public static final String RESOURCE_PATH = ${javaString(resourcePath)};
+    |
+    |	/**
+    |	 * The name of the event.
+    |	 */
+    |	public static final String NAME = ${javaString(eventName)};
+    |
+    |	/**
+    |	 * The description of the event from the resource.
+    |	 */
+    |	public static final String DESCRIPTION = ${javaString(description)};
+    |
+    |	private $className() {
+    |	}
+    |
+    |	/**
+    |	 * @return A new copy of the event payload schema as JSON.
+    |	 */
+    |	public static JsonObject schemaJson() {
+    |		return ${jsonLiteral(schema, "\t\t")};
+    |	}
+    |
+    |	/**
+    |	 * @return The parsed event payload schema, parsed once and shared through
+    |	 *         the SchemaRegistry.
+    |	 */
+    |	public static JsonSchema schema() {
+    |		return SchemaRegistry.shared().get(RESOURCE_PATH + "#schema", $className::schemaJson);
+    |	}
+    |
+    |	/**
+    |	 * @return The event payload schema compiled for checking payloads, compiled
+    |	 *         once and shared through the SchemaRegistry.
+    |	 */
+    |	public static CompiledValidator validator() {
+    |		return SchemaRegistry.shared().validator(RESOURCE_PATH + "#schema", $className::schemaJson);
+    |	}
+    |
+    |	/**
+    |	 * @param description The description shown for the event in the Designer.
+    |	 * @return A new ComponentEventDescriptor for the event.
+    |	 */
+    |	public static ComponentEventDescriptor descriptor(String description) {
+    |		return new ComponentEventDescriptor(NAME, description, schema());
+    |	}
+    |
+    |	/**
+    |	 * @return A new ComponentEventDescriptor for the event, using the description
+    |	 *         from the resource.
+    |	 */
+    |	public static ComponentEventDescriptor descriptor() {
+    |		return descriptor(DESCRIPTION);
+    |	}
+    |}
+    |""".trimMargin()
+
+/**
+ * Renders the class generated for the web build's manifest.
+ */
+fun generatedWebBundleClass(resources: List<Map<*, *>>, chunks: Map<String, List<String>>): String {
+    val files = resources.map { it["file"].toString() } + chunks.values.flatten()
+
+    return """
+    |/*
+    | * Generated by :common:generateBrowserResources from web/build/manifest/browser-resources.json.
+    | * Do not edit, changes will be overwritten by the next build.
+    | */
+    |package $generatedDescriptorsPackage;
+    |
+    |import java.util.List;
+    |import java.util.Map;
+    |import java.util.Set;
+    |
+    |import com.inductiveautomation.perspective.common.api.BrowserResource;
+    |
+    |/**
+    | * The content-hashed files of the web bundle, compiled into Java.
+    | */
+    |@SuppressWarnings("unused")
+    |public final class WebBundle {
+    |
+    |	/**
+    |	 * The names of all files, each shipped with .gz and .br siblings.
+    |	 */
+    |	public static final List<String> FILES = List.of(
+    |${files.joinToString(",\n") { "\t\t\t${javaString(it)}" }});
+    |
+    |	/**
+    |	 * The files of each component's chunk by chunk name. The registry stub
+    |	 * loads a chunk the first time one of its components is rendered.
+    |	 */
+    |	public static final Map<String, List<String>> CHUNKS = Map.ofEntries(${
+        chunks.entries.joinToString(",") { (name, chunkFiles) ->
+            "\n\t\t\tMap.entry(${javaString(name)}, List.of(${chunkFiles.joinToString(", ") { javaString(it) }}))"
+        }
+    });
+    |
+    |	private WebBundle() {
+    |	}
+    |
+    |	/**
+    |	 * @param basePath The path the files are served at, ending with a slash.
+    |	 * @return The BrowserResources of the registry stub, which every session
+    |	 *         loads.
+    |	 */
+    |	public static Set<BrowserResource> browserResources(String basePath) {
+    |		return Set.of(
+    |${resources.joinToString(",\n") { resource ->
+        "\t\t\t\tnew BrowserResource(${javaString(resource["name"].toString())}, " +
+            "basePath + ${javaString(resource["file"].toString())}, " +
+            "BrowserResource.ResourceType.${resource["type"]})"
+    }});
+    |	}
+    |}
+    |""".trimMargin()
+}
@@ -0,0 +1,351 @@
+/*
+ * Copyright 2024 Keith Gamble
+ * [License information]
+ */
+package dev.kgamble.perspective.examples.common;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import javax.annotation.Nullable;
+
+import com.inductiveautomation.perspective.common.api.ComponentDescriptor;
+import com.inductiveautomation.perspective.common.api.PaletteEntry;
+
+import dev.kgamble.perspective.examples.common.components.chart.Trend;
+import dev.kgamble.perspective.examples.common.components.display.Table;
+import dev.kgamble.perspective.examples.common.components.input.Button;
+import dev.kgamble.perspective.examples.common.utilities.FrozenPropsDescriptor;
+import dev.kgamble.perspective.examples.common.utilities.SchemaRegistry;
+import dev.kgamble.perspective.examples.common.utilities.StartupProfiler;
+
+/**
+ * The catalog of all components this module ships, used by the gateway and
+ * Designer hooks to register them.
+ *
+ * Building a descriptor loads its schema and event descriptors, and keeps the
+ * descriptor in the current LifecycleContext until the module shuts down. The hooks build all
+ * descriptors in parallel with {@link #buildDescriptors()} and then register
+ * the results in one pass on their own thread, so startup time grows with the
+ * slowest component rather than with the number of components. Each descriptor
+ * is wrapped in a FrozenPropsDescriptor, so its default and initial props are
+ * built once rather than for every instance.
+ *
+ * Given a DescriptorSnapshot, the schemas are parsed from the JSON in the
+ * snapshot and the props templates are taken from it instead of being built.
+ *
+ * Each entry also declares how many events an instance of the component may
+ * send to the gateway, which the gateway enforces before handling them.
+ *
+ * New components are added to {@link #ENTRIES}.
+ *
+ * @author Keith Gamble
+ */
+public class ComponentCatalog {
+
+	/**
+	 * How long building all descriptors may take before the unfinished ones are
+	 * reported as failed.
+	 */
+	private static final long BUILD_TIMEOUT_MILLIS = 30_000;
+
+	/**
+	 * The components of this module. The ids are compile time constants and
+	 * class literals don't initialize a class, so listing them doesn't
+	 * initialize the component classes.
+	 */
+	public static final List<Entry> ENTRIES = List.of(
+			// Clicks beyond what a person can do are dropped rather than acted on late
+			new Entry(Button.COMPONENT_ID, Button.class, Button::descriptor, Button::createPaletteEntries,
+					"/images/button-click.svg", new EventRateLimit(10, 20, EventRateLimit.Policy.DROP)),
+			// Subscriptions and windows are requests for state, only the latest one is kept
+			new Entry(Trend.COMPONENT_ID, Trend.class, Trend::descriptor, Trend::createPaletteEntries,
+					"/images/trend.svg", new EventRateLimit(10, 20, EventRateLimit.Policy.DEFER)),
+			new Entry(Table.COMPONENT_ID, Table.class, Table::descriptor, Table::createPaletteEntries,
+					"/images/table.svg", new EventRateLimit(30, 60, EventRateLimit.Policy.DEFER)));
+
+	/**
+	 * Builds the descriptors of all components in parallel.
+	 *
+	 * @return The descriptors that were built and the components that failed.
+	 */
+	public static BuildResult buildDescriptors() {
+		return buildDescriptors(ENTRIES, null);
+	}
+
+	/**
+	 * Builds the descriptors of all components in parallel, with the data of a
+	 * snapshot taken by an earlier build.
+	 *
+	 * @param snapshot The snapshot, or null to build everything.
+	 * @return The descriptors that were built and the components that failed.
+	 */
+	public static BuildResult buildDescriptors(@Nullable DescriptorSnapshot snapshot) {
+		return buildDescriptors(ENTRIES, snapshot);
+	}
+
+	/**
+	 * Builds the descriptors of the given components in parallel.
+	 *
+	 * @param entries The components to build.
+	 * @return The descriptors that were built and the components that failed.
+	 */
+	public static BuildResult buildDescriptors(List<Entry> entries) {
+		return buildDescriptors(entries, null);
+	}
+
+	/**
+	 * Builds the descriptors of the given components in parallel on a fork-join
+	 * pool that only lives for this call. Its threads have the module's
+	 * classloader as their context classloader, like the hook's thread, so
+	 * lookups of services and resources, e.g. by Batik, ImageIO or Gson, find
+	 * the same classes as they would on the hook's thread. A component whose
+	 * descriptor fails to build, or doesn't finish in time, is reported in the
+	 * result and doesn't keep the others from being built.
+	 *
+	 * If a snapshot is given, its schemas are preloaded into the shared
+	 * SchemaRegistry and the props templates of the components it holds are
+	 * taken from it.
+	 *
+	 * The class of each component is initialized in a phase of its own before
+	 * its descriptor is built, so the StartupProfiler reports the class loading
+	 * and static initializers apart from the descriptor.
+	 *
+	 * @param entries  The components to build.
+	 * @param snapshot The snapshot, or null to build everything.
+	 * @return The descriptors that were built and the components that failed.
+	 */
+	public static BuildResult buildDescriptors(List<Entry> entries, @Nullable DescriptorSnapshot snapshot) {
+		if (snapshot != null) {
+			SchemaRegistry.shared().preload(snapshot.getSchemas());
+		}
+		StartupProfiler profiler = StartupProfiler.get();
+		int parallelism = Math.max(1, Math.min(entries.size(), Runtime.getRuntime().availableProcessors()));
+		ForkJoinPool pool = new ForkJoinPool(parallelism, new CatalogThreadFactory(), null, false);
+		try {
+			List<ForkJoinTask<ComponentDescriptor>> tasks = new ArrayList<>(entries.size());
+			for (Entry entry : entries) {
+				tasks.add(pool.submit(() -> {
+					if (entry.getComponentClass() != null) {
+						profiler.run(entry.getId(), "class init", () -> initialize(entry.getComponentClass()));
+					}
+					ComponentDescriptor descriptor = profiler.time(entry.getId(), "descriptor", entry.descriptor);
+					if (descriptor == null) {
+						return null;
+					}
+					if (snapshot != null && snapshot.hasComponent(entry.getId())) {
+						return new FrozenPropsDescriptor(descriptor, snapshot.getDefaultProperties(entry.getId()),
+								snapshot.getInitialProps(entry.getId()));
+					}
+					return profiler.time(entry.getId(), "props templates", () -> new FrozenPropsDescriptor(descriptor));
+				}));
+			}
+
+			long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(BUILD_TIMEOUT_MILLIS);
+			Map<Entry, ComponentDescriptor> built = new LinkedHashMap<>();
+			Map<Entry, Throwable> failed = new LinkedHashMap<>();
+			for (int i = 0; i < entries.size(); i++) {
+				Entry entry = entries.get(i);
+				try {
+					long remaining = Math.max(0, deadline - System.nanoTime());
+					ComponentDescriptor descriptor = tasks.get(i).get(remaining, TimeUnit.NANOSECONDS);
+					if (descriptor == null) {
+						failed.put(entry, new IllegalStateException("Descriptor of " + entry.getId() + " is null"));
+					} else {
+						built.put(entry, descriptor);
+					}
+				} catch (ExecutionException e) {
+					failed.put(entry, e.getCause());
+				} catch (TimeoutException e) {
+					failed.put(entry, e);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					failed.put(entry, e);
+				}
+			}
+			return new BuildResult(built, failed);
+		} finally {
+			pool.shutdownNow();
+		}
+	}
+
+	/**
+	 * Initializes a class, running its static initializers if it hasn't been
+	 * initialized yet.
+	 *
+	 * @param componentClass The class to initialize.
+	 */
+	private static void initialize(Class<?> componentClass) {
+		try {
+			Class.forName(componentClass.getName(), true, componentClass.getClassLoader());
+		} catch (ClassNotFoundException e) {
+			// The class is already loaded, it can't be missing
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Creates the threads building the descriptors, named after the module and
+	 * with the module's classloader as their context classloader. The default
+	 * factory would give them the system classloader instead.
+	 */
+	private static class CatalogThreadFactory implements ForkJoinPool.ForkJoinWorkerThreadFactory {
+		private final ClassLoader moduleLoader = ComponentCatalog.class.getClassLoader();
+		private final AtomicInteger threadCount = new AtomicInteger();
+
+		@Override
+		public ForkJoinWorkerThread newThread(ForkJoinPool pool) {
+			ForkJoinWorkerThread thread = new ForkJoinWorkerThread(pool) {
+			};
+			thread.setName("example-components-catalog-" + threadCount.incrementAndGet());
+			thread.setContextClassLoader(moduleLoader);
+			thread.setDaemon(true);
+			return thread;
+		}
+	}
+
+	/**
+	 * A component of the catalog.
+	 */
+	public static class Entry {
+		private final String id;
+		@Nullable
+		private final Class<?> componentClass;
+		private final Supplier<ComponentDescriptor> descriptor;
+		private final Supplier<Collection<PaletteEntry>> paletteEntries;
+		private final String iconPath;
+		private final EventRateLimit rateLimit;
+
+		/**
+		 * Constructs a new Entry with the default event rate limit.
+		 *
+		 * @param id             The id of the component, e.g. "examples.input.button".
+		 * @param descriptor     Returns the descriptor shared by the gateway and
+		 *                       Designer.
+		 * @param paletteEntries Creates the palette entries with thumbnails, only
+		 *                       called in the Designer.
+		 * @param iconPath       The path of the component's SVG icon.
+		 */
+		public Entry(String id, Supplier<ComponentDescriptor> descriptor,
+				Supplier<Collection<PaletteEntry>> paletteEntries, String iconPath) {
+			this(id, descriptor, paletteEntries, iconPath, EventRateLimit.DEFAULT);
+		}
+
+		/**
+		 * Constructs a new Entry.
+		 *
+		 * @param id             The id of the component, e.g. "examples.input.button".
+		 * @param descriptor     Returns the descriptor shared by the gateway and
+		 *                       Designer.
+		 * @param paletteEntries Creates the palette entries with thumbnails, only
+		 *                       called in the Designer.
+		 * @param iconPath       The path of the component's SVG icon.
+		 * @param rateLimit      How many events an instance may send to the
+		 *                       gateway.
+		 */
+		public Entry(String id, Supplier<ComponentDescriptor> descriptor,
+				Supplier<Collection<PaletteEntry>> paletteEntries, String iconPath, EventRateLimit rateLimit) {
+			this(id, null, descriptor, paletteEntries, iconPath, rateLimit);
+		}
+
+		/**
+		 * Constructs a new Entry whose class is initialized in a profiled phase
+		 * of its own.
+		 *
+		 * @param id             The id of the component, e.g. "examples.input.button".
+		 * @param componentClass The class defining the component, or null to
+		 *                       leave its initialization to the descriptor.
+		 * @param descriptor     Returns the descriptor shared by the gateway and
+		 *                       Designer.
+		 * @param paletteEntries Creates the palette entries with thumbnails, only
+		 *                       called in the Designer.
+		 * @param iconPath       The path of the component's SVG icon.
+		 * @param rateLimit      How many events an instance may send to the
+		 *                       gateway.
+		 */
+		public Entry(String id, @Nullable Class<?> componentClass, Supplier<ComponentDescriptor> descriptor,
+				Supplier<Collection<PaletteEntry>> paletteEntries, String iconPath, EventRateLimit rateLimit) {
+			this.id = id;
+			this.componentClass = componentClass;
+			this.descriptor = descriptor;
+			this.paletteEntries = paletteEntries;
+			this.iconPath = iconPath;
+			this.rateLimit = rateLimit;
+		}
+
+		public String getId() {
+			return id;
+		}
+
+		/**
+		 * @return The class defining the component, or null if none was given.
+		 */
+		@Nullable
+		public Class<?> getComponentClass() {
+			return componentClass;
+		}
+
+		/**
+		 * @return The descriptor as the component class defines it, without the
+		 *         FrozenPropsDescriptor added by {@link ComponentCatalog#buildDescriptors()}.
+		 */
+		public ComponentDescriptor getDescriptor() {
+			return descriptor.get();
+		}
+
+		public Supplier<Collection<PaletteEntry>> getPaletteEntries() {
+			return paletteEntries;
+		}
+
+		public String getIconPath() {
+			return iconPath;
+		}
+
+		/**
+		 * @return How many events an instance may send to the gateway, before the
+		 *         gateway's system property overrides.
+		 */
+		public EventRateLimit getRateLimit() {
+			return rateLimit;
+		}
+	}
+
+	/**
+	 * The outcome of building the descriptors of the catalog.
+	 */
+	public static class BuildResult {
+		private final Map<Entry, ComponentDescriptor> descriptors;
+		private final Map<Entry, Throwable> failures;
+
+		BuildResult(Map<Entry, ComponentDescriptor> descriptors, Map<Entry, Throwable> failures) {
+			this.descriptors = Collections.unmodifiableMap(descriptors);
+			this.failures = Collections.unmodifiableMap(failures);
+		}
+
+		/**
+		 * @return The descriptors that were built, in catalog order.
+		 */
+		public Map<Entry, ComponentDescriptor> getDescriptors() {
+			return descriptors;
+		}
+
+		/**
+		 * @return The components whose descriptors failed to build, with the reason.
+		 */
+		public Map<Entry, Throwable> getFailures() {
+			return failures;
+		}
+	}
+}
@@ -26,4 +26,10 @@ public class Constants {
 	 * context.
 	 */
 	public static final String MODULE_URL_ALIAS = "example-components";
-}
\ No newline at end of file
+
+	/**
+	 * The path at which the gateway serves the web bundle, with precompressed
+	 * variants and immutable cache headers.
+	 */
+	public static final String ASSETS_PATH = "/data/" + MODULE_URL_ALIAS + "/assets/";
+}
@@ -0,0 +1,253 @@
+/*
+ * Copyright 2024 Keith Gamble
+ * [License information]
+ */
+package dev.kgamble.perspective.examples.common;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.zip.CRC32;
+
+import com.inductiveautomation.ignition.common.gson.Gson;
+import com.inductiveautomation.ignition.common.gson.JsonObject;
+import com.inductiveautomation.ignition.common.util.LoggerEx;
+
+import dev.kgamble.perspective.examples.common.utilities.SchemaRegistry;
+
+/**
+ * A snapshot of the data derived while the descriptors of the catalog are
+ * built: the JSON of every schema in the SchemaRegistry and the default and
+ * initial props of every component.
+ *
+ * If enabled, the gateway writes the snapshot to its data directory after a
+ * full build and memory-maps it on the next start, so the schemas are parsed
+ * from their stored JSON and the props templates are taken as they are.
+ * DescriptorBuildBenchmark compares a cold start with and without it. A snapshot only
+ * loads if it was written for the same fingerprint, see DescriptorSources, and
+ * its checksum matches, otherwise the descriptors are built in full.
+ *
+ * The file layout is a magic number, the format version, the fingerprint, the
+ * schemas, the components and a CRC32 of everything before it. Strings are
+ * stored as their UTF-8 length, -1 for null, and bytes.
+ *
+ * @author Keith Gamble
+ */
+public class DescriptorSnapshot {
+	private static final LoggerEx log = LoggerEx.newBuilder().build(DescriptorSnapshot.class);
+
+	private static final int MAGIC = 0x45584453;
+	private static final int FORMAT_VERSION = 1;
+	private static final Gson GSON = new Gson();
+
+	private final String fingerprint;
+	private final Map<String, JsonObject> schemas;
+	private final Map<String, JsonObject> defaultProperties;
+	private final Map<String, JsonObject> initialProps;
+
+	private DescriptorSnapshot(String fingerprint, Map<String, JsonObject> schemas,
+			Map<String, JsonObject> defaultProperties, Map<String, JsonObject> initialProps) {
+		this.fingerprint = fingerprint;
+		this.schemas = Collections.unmodifiableMap(schemas);
+		this.defaultProperties = Collections.unmodifiableMap(defaultProperties);
+		this.initialProps = Collections.unmodifiableMap(initialProps);
+	}
+
+	/**
+	 * Captures the data derived by a full build of the catalog.
+	 *
+	 * @param fingerprint The fingerprint of the sources the build used.
+	 * @param result      The descriptors that were built.
+	 * @param registry    The registry holding the parsed schemas.
+	 * @return The snapshot.
+	 */
+	public static DescriptorSnapshot capture(String fingerprint, ComponentCatalog.BuildResult result,
+			SchemaRegistry registry) {
+		Map<String, JsonObject> defaults = new LinkedHashMap<>();
+		Map<String, JsonObject> initial = new LinkedHashMap<>();
+		result.getDescriptors().forEach((entry, descriptor) -> {
+			defaults.put(entry.getId(), descriptor.defaultProperties());
+			initial.put(entry.getId(), descriptor.getInitialProps(""));
+		});
+		return new DescriptorSnapshot(fingerprint, new LinkedHashMap<>(registry.getSchemaJson()), defaults, initial);
+	}
+
+	/**
+	 * Loads a snapshot written for the given fingerprint.
+	 *
+	 * @param file        The snapshot file.
+	 * @param fingerprint The fingerprint of the running build.
+	 * @return The snapshot, or empty if there is none, it was written for other
+	 *         sources or it is damaged.
+	 */
+	public static Optional<DescriptorSnapshot> load(Path file, String fingerprint) {
+		try (FileChannel channel = FileChannel.open(file)) {
+			ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			return Optional.ofNullable(read(buffer, fingerprint, file));
+		} catch (NoSuchFileException e) {
+			log.debugf("No descriptor snapshot at %s", file);
+		} catch (IOException | RuntimeException e) {
+			log.debugf("Ignoring unreadable descriptor snapshot %s: %s", file, e);
+		}
+		return Optional.empty();
+	}
+
+	private static DescriptorSnapshot read(ByteBuffer buffer, String fingerprint, Path file) {
+		if (buffer.remaining() < 16 || buffer.getInt() != MAGIC || buffer.getInt() != FORMAT_VERSION) {
+			log.debugf("Ignoring descriptor snapshot %s of another format", file);
+			return null;
+		}
+
+		CRC32 crc = new CRC32();
+		ByteBuffer content = buffer.duplicate();
+		content.position(0).limit(buffer.limit() - 8);
+		crc.update(content);
+		if (crc.getValue() != buffer.getLong(buffer.limit() - 8)) {
+			log.debugf("Ignoring damaged descriptor snapshot %s", file);
+			return null;
+		}
+
+		String written = readString(buffer);
+		if (!fingerprint.equals(written)) {
+			log.debugf("Ignoring descriptor snapshot %s of other sources", file);
+			return null;
+		}
+
+		Map<String, JsonObject> schemas = new LinkedHashMap<>();
+		for (int i = buffer.getInt(); i > 0; i--) {
+			schemas.put(readString(buffer), readJson(buffer));
+		}
+		Map<String, JsonObject> defaults = new LinkedHashMap<>();
+		Map<String, JsonObject> initial = new LinkedHashMap<>();
+		for (int i = buffer.getInt(); i > 0; i--) {
+			String id = readString(buffer);
+			defaults.put(id, readJson(buffer));
+			initial.put(id, readJson(buffer));
+		}
+		return new DescriptorSnapshot(written, schemas, defaults, initial);
+	}
+
+	/**
+	 * Writes the snapshot, replacing the file at once so a crash never leaves a
+	 * partial snapshot behind.
+	 *
+	 * @param file The snapshot file, its directory is created if missing.
+	 * @throws IOException If the snapshot could not be written.
+	 */
+	public void write(Path file) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bytes);
+		out.writeInt(MAGIC);
+		out.writeInt(FORMAT_VERSION);
+		writeString(out, fingerprint);
+		out.writeInt(schemas.size());
+		for (Map.Entry<String, JsonObject> schema : schemas.entrySet()) {
+			writeString(out, schema.getKey());
+			writeString(out, GSON.toJson(schema.getValue()));
+		}
+		out.writeInt(defaultProperties.size());
+		for (Map.Entry<String, JsonObject> component : defaultProperties.entrySet()) {
+			writeString(out, component.getKey());
+			writeString(out, component.getValue() != null ? GSON.toJson(component.getValue()) : null);
+			JsonObject initial = initialProps.get(component.getKey());
+			writeString(out, initial != null ? GSON.toJson(initial) : null);
+		}
+		out.flush();
+
+		CRC32 crc = new CRC32();
+		crc.update(bytes.toByteArray());
+		out.writeLong(crc.getValue());
+		out.flush();
+
+		Files.createDirectories(file.toAbsolutePath().getParent());
+		Path temp = Files.createTempFile(file.toAbsolutePath().getParent(), file.getFileName().toString(), ".tmp");
+		try {
+			Files.write(temp, bytes.toByteArray());
+			try {
+				Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			} catch (AtomicMoveNotSupportedException e) {
+				Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+			}
+		} finally {
+			Files.deleteIfExists(temp);
+		}
+	}
+
+	/**
+	 * @return The fingerprint of the sources the snapshot was written for.
+	 */
+	public String getFingerprint() {
+		return fingerprint;
+	}
+
+	/**
+	 * @return The JSON of every schema by its SchemaRegistry key.
+	 */
+	public Map<String, JsonObject> getSchemas() {
+		return schemas;
+	}
+
+	/**
+	 * @param componentId The id of a component.
+	 * @return Whether the snapshot holds the props of the component.
+	 */
+	public boolean hasComponent(String componentId) {
+		return defaultProperties.containsKey(componentId);
+	}
+
+	/**
+	 * @param componentId The id of a component.
+	 * @return The default props of the component, or null if it has none. The
+	 *         props are owned by the snapshot, don't modify them.
+	 */
+	public JsonObject getDefaultProperties(String componentId) {
+		return defaultProperties.get(componentId);
+	}
+
+	/**
+	 * @param componentId The id of a component.
+	 * @return The initial props of the component's default variant, or null if
+	 *         it has none. The props are owned by the snapshot, don't modify
+	 *         them.
+	 */
+	public JsonObject getInitialProps(String componentId) {
+		return initialProps.get(componentId);
+	}
+
+	private static void writeString(DataOutputStream out, String value) throws IOException {
+		if (value == null) {
+			out.writeInt(-1);
+			return;
+		}
+		byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+
+	private static String readString(ByteBuffer buffer) {
+		int length = buffer.getInt();
+		if (length < 0) {
+			return null;
+		}
+		byte[] bytes = new byte[length];
+		buffer.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	private static JsonObject readJson(ByteBuffer buffer) {
+		String json = readString(buffer);
+		return json != null ? GSON.fromJson(json, JsonObject.class) : null;
+	}
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright 2024 Keith Gamble
+ * [License information]
+ */
+package dev.kgamble.perspective.examples.common;
+
+import java.util.Locale;
+
+/**
+ * How many events a component instance may send to the gateway, declared per
+ * component type in the ComponentCatalog.
+ *
+ * An instance may send up to {@code burst} events at once, and then
+ * {@code eventsPerSecond} on average. What happens to the events beyond that
+ * is decided by the Policy.
+ *
+ * @author Keith Gamble
+ */
+public class EventRateLimit {
+
+	/**
+	 * What happens to an event that exceeds the limit.
+	 */
+	public enum Policy {
+		/**
+		 * Drop the event. Suits events that each trigger an action, like clicks,
+		 * where acting late is worse than not acting.
+		 */
+		DROP,
+
+		/**
+		 * Hold the event until the limit allows it. Only the latest held event of
+		 * an instance is kept, so this suits requests for state, like a window of
+		 * rows, where only the latest one matters but it must not be lost.
+		 */
+		DEFER
+	}
+
+	/**
+	 * The limit of components that don't declare one.
+	 */
+	public static final EventRateLimit DEFAULT = new EventRateLimit(20, 40, Policy.DROP);
+
+	private final double eventsPerSecond;
+	private final int burst;
+	private final Policy policy;
+
+	/**
+	 * Constructs a new EventRateLimit.
+	 *
+	 * @param eventsPerSecond The average rate allowed.
+	 * @param burst           How many events may arrive at once.
+	 * @param policy          What happens to the events beyond the limit.
+	 */
+	public EventRateLimit(double eventsPerSecond, int burst, Policy policy) {
+		if (!(eventsPerSecond > 0)) {
+			throw new IllegalArgumentException("The event rate must be positive");
+		}
+		if (burst < 1) {
+			throw new IllegalArgumentException("The burst must be at least one event");
+		}
+		this.eventsPerSecond = eventsPerSecond;
+		this.burst = burst;
+		this.policy = policy;
+	}
+
+	public double getEventsPerSecond() {
+		return eventsPerSecond;
+	}
+
+	public int getBurst() {
+		return burst;
+	}
+
+	public Policy getPolicy() {
+		return policy;
+	}
+
+	@Override
+	public String toString() {
+		return String.format(Locale.ROOT, "%.1f/s, burst %d, %s", eventsPerSecond, burst, policy);
+	}
+}
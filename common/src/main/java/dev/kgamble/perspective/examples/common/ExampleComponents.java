@@ -3,6 +3,8 @@ package dev.kgamble.perspective.examples.common;
 import java.util.Set;
 import com.inductiveautomation.perspective.common.api.BrowserResource;
 
+import dev.kgamble.perspective.examples.common.generated.WebBundle;
+
 /**
  * This class defines common properties and resources for all example
  * components.
@@ -21,16 +23,10 @@ public class ExampleComponents {
 	/**
 	 * A set of BrowserResource objects representing the JavaScript and CSS files
 	 * required by the example components on the client side.
+	 *
+	 * The file names carry a hash of their content and are generated from the web
+	 * build's manifest, so browsers can cache them for good and only download a
+	 * new bundle when its content changed.
 	 */
-	public static final Set<BrowserResource> BROWSER_RESOURCES = Set.of(
-			// JavaScript resource for the example components
-			new BrowserResource(
-					"example-components-js",
-					String.format("/res/%s/ExampleComponents.js", Constants.MODULE_URL_ALIAS),
-					BrowserResource.ResourceType.JS),
-			// CSS resource for the example components
-			new BrowserResource(
-					"example-components-css",
-					String.format("/res/%s/ExampleComponents.css", Constants.MODULE_URL_ALIAS),
-					BrowserResource.ResourceType.CSS));
-}
\ No newline at end of file
+	public static final Set<BrowserResource> BROWSER_RESOURCES = WebBundle.browserResources(Constants.ASSETS_PATH);
+}
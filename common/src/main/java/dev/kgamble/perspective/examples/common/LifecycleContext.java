@@ -0,0 +1,210 @@
+/*
+ * Copyright 2024 Keith Gamble
+ * [License information]
+ */
+package dev.kgamble.perspective.examples.common;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+import com.inductiveautomation.ignition.common.util.LoggerEx;
+
+import dev.kgamble.perspective.examples.common.utilities.ImageCache;
+import dev.kgamble.perspective.examples.common.utilities.SchemaRegistry;
+import dev.kgamble.perspective.examples.common.utilities.StartupProfiler;
+
+/**
+ * The state of the module's components for one lifecycle of a module hook,
+ * from startup to shutdown.
+ *
+ * The descriptors, schemas, compiled validators, palette images and startup
+ * phases used to be held in static fields, which only let go of them when the
+ * module's classloader was collected, so anything else keeping that
+ * classloader reachable after a redeploy kept all of it too. They are now held
+ * here instead: the hooks start a context on startup and close it on shutdown,
+ * which drops everything the components built and runs the cleanups registered
+ * with {@link #onClose(Runnable)}. Nothing of the module stays reachable from a
+ * closed context.
+ *
+ * {@link SchemaRegistry#shared()}, {@link ImageCache#shared()} and
+ * {@link StartupProfiler#get()} return the instances of the current context.
+ * Once a hook closed its context they fail until the next one is started, so
+ * code still running after shutdown can't quietly build state that nothing
+ * closes. Code that runs without a hook, like benchmarks, gets a context
+ * started on first use.
+ *
+ * @author Keith Gamble
+ */
+public final class LifecycleContext implements AutoCloseable {
+	private static final LoggerEx log = LoggerEx.newBuilder().build(LifecycleContext.class);
+	private static final AtomicReference<LifecycleContext> CURRENT = new AtomicReference<>();
+
+	private final String scope;
+	// Started by a hook rather than on first use, stays current once closed
+	private final boolean started;
+	private final SchemaRegistry schemaRegistry = new SchemaRegistry();
+	private final ImageCache imageCache = new ImageCache(
+			Long.getLong(Constants.MODULE_URL_ALIAS + ".imageCache.maxBytes", ImageCache.DEFAULT_MAX_BYTES));
+	private final StartupProfiler profiler = new StartupProfiler();
+	private final ConcurrentHashMap<String, Object> state = new ConcurrentHashMap<>();
+	private final Deque<Runnable> cleanups = new ArrayDeque<>();
+	private volatile boolean closed = false;
+
+	private LifecycleContext(String scope, boolean started) {
+		this.scope = scope;
+		this.started = started;
+	}
+
+	/**
+	 * Starts the context of a new lifecycle, which becomes the current one. A
+	 * context a previous lifecycle left open is closed.
+	 *
+	 * @param scope The scope of the lifecycle, e.g. "gateway".
+	 * @return The new context, close it on shutdown.
+	 */
+	public static LifecycleContext start(String scope) {
+		LifecycleContext context = new LifecycleContext(scope, true);
+		LifecycleContext previous = CURRENT.getAndSet(context);
+		if (previous != null && !previous.isClosed()) {
+			log.debugf("Closing the %s context left open before the %s context started", previous.scope, scope);
+			previous.close();
+		}
+		return context;
+	}
+
+	/**
+	 * @return The current context, started on first use if no hook started one.
+	 * @throws IllegalStateException If the context a hook started was closed
+	 *                               and no new one was started since.
+	 */
+	public static LifecycleContext current() {
+		while (true) {
+			LifecycleContext context = CURRENT.get();
+			if (context == null) {
+				CURRENT.compareAndSet(null, new LifecycleContext("default", false));
+			} else if (!context.isClosed()) {
+				return context;
+			} else if (context.started) {
+				throw new IllegalStateException("The " + context.scope
+						+ " lifecycle of the module has ended, its components can't be used until it starts again");
+			} else {
+				// A context started on first use that was closed is replaced by a new one
+				CURRENT.compareAndSet(context, null);
+			}
+		}
+	}
+
+	/**
+	 * Returns the state kept under a key, creating it on first use. Component
+	 * classes keep their descriptors here rather than in static fields.
+	 *
+	 * The factory runs outside of the map, so it may get other state, e.g. a
+	 * descriptor may get its event descriptor. Threads racing for missing state may
+	 * each create it, all of them get the one that was kept.
+	 *
+	 * @param key     The key of the state, e.g. the component id.
+	 * @param factory Creates the state, only called while it is missing.
+	 * @return The state, shared until the context is closed.
+	 */
+	@SuppressWarnings("unchecked")
+	public <T> T get(String key, Supplier<T> factory) {
+		Object value = state.get(key);
+		if (value == null) {
+			Object created = factory.get();
+			value = state.putIfAbsent(key, created);
+			if (value == null) {
+				value = created;
+			}
+		}
+		return (T) value;
+	}
+
+	/**
+	 * Registers a cleanup to run when the context is closed. Cleanups run in the
+	 * reverse order they were registered, or right away if the context is
+	 * already closed.
+	 *
+	 * @param cleanup Releases something the lifecycle holds outside the context.
+	 */
+	public void onClose(Runnable cleanup) {
+		synchronized (cleanups) {
+			if (!closed) {
+				cleanups.push(cleanup);
+				return;
+			}
+		}
+		cleanup.run();
+	}
+
+	/**
+	 * Runs the registered cleanups and drops all state. A context started by a
+	 * hook stays the current one, so using the components fails until the next
+	 * {@link #start(String)}. A context started on first use stops being the
+	 * current one, so the next use starts a new one.
+	 */
+	@Override
+	public void close() {
+		Deque<Runnable> pending;
+		synchronized (cleanups) {
+			if (closed) {
+				return;
+			}
+			closed = true;
+			pending = new ArrayDeque<>(cleanups);
+			cleanups.clear();
+		}
+		if (!started) {
+			CURRENT.compareAndSet(this, null);
+		}
+
+		for (Runnable cleanup : pending) {
+			try {
+				cleanup.run();
+			} catch (RuntimeException e) {
+				log.warn("A cleanup of the " + scope + " context failed.", e);
+			}
+		}
+		state.clear();
+		imageCache.invalidateAll();
+		schemaRegistry.clear();
+		profiler.clear();
+	}
+
+	/**
+	 * @return The scope of the lifecycle, e.g. "gateway".
+	 */
+	public String getScope() {
+		return scope;
+	}
+
+	/**
+	 * @return Whether the context was closed.
+	 */
+	public boolean isClosed() {
+		return closed;
+	}
+
+	/**
+	 * @return The parsed schemas of this lifecycle.
+	 */
+	public SchemaRegistry getSchemaRegistry() {
+		return schemaRegistry;
+	}
+
+	/**
+	 * @return The rendered palette images of this lifecycle.
+	 */
+	public ImageCache getImageCache() {
+		return imageCache;
+	}
+
+	/**
+	 * @return The startup phases recorded in this lifecycle.
+	 */
+	public StartupProfiler getProfiler() {
+		return profiler;
+	}
+}
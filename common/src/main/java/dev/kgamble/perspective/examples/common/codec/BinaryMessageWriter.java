@@ -0,0 +1,243 @@
+/*
+ * Copyright 2024 Keith Gamble
+ * [License information]
+ */
+package dev.kgamble.perspective.examples.common.codec;
+
+import java.nio.charset.StandardCharsets;
+
+import com.inductiveautomation.ignition.common.gson.JsonObject;
+
+/**
+ * Writes a message as packed binary fields, sent to the client as a base64
+ * string in {@code {"codec": "binary", "data": "..."}}.
+ *
+ * The format starts with a version byte, followed by the fields. Each field is
+ * a type byte, its name as a length-prefixed UTF-8 string, and its value:
+ * <ul>
+ * <li>integers as zigzag varints, so small numbers take one byte,</li>
+ * <li>doubles as 8 little-endian bytes,</li>
+ * <li>arrays of longs as a varint count followed by the zigzag varint delta of
+ * each value to the previous one, so increasing timestamps take a byte or two
+ * each,</li>
+ * <li>arrays of doubles and floats as a varint count followed by 8 or 4
+ * little-endian bytes per value.</li>
+ * </ul>
+ *
+ * The bytes and the base64 characters are written into arrays kept by the
+ * writer, which only grow. Once they have grown to the largest message, the
+ * only allocations per message are the String and JsonObject the event API
+ * needs.
+ *
+ * @author Keith Gamble
+ */
+public class BinaryMessageWriter implements MessageWriter {
+	/**
+	 * The name of the codec, also the value of the "codec" member of every
+	 * message.
+	 */
+	public static final String CODEC_NAME = "binary";
+
+	static final byte VERSION = 1;
+	static final byte TYPE_STRING = 1;
+	static final byte TYPE_LONG = 2;
+	static final byte TYPE_DOUBLE = 3;
+	static final byte TYPE_BOOLEAN = 4;
+	static final byte TYPE_LONGS = 5;
+	static final byte TYPE_DOUBLES = 6;
+	static final byte TYPE_FLOATS = 7;
+
+	private static final char[] BASE64 = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/"
+			.toCharArray();
+
+	private byte[] buffer = new byte[256];
+	private int position;
+	private char[] base64 = new char[344];
+
+	/**
+	 * Constructs a new BinaryMessageWriter.
+	 */
+	public BinaryMessageWriter() {
+		reset();
+	}
+
+	@Override
+	public MessageWriter reset() {
+		position = 0;
+		buffer[position++] = VERSION;
+		return this;
+	}
+
+	@Override
+	public MessageWriter writeString(String name, String value) {
+		writeHeader(TYPE_STRING, name);
+		writeUtf8(value);
+		return this;
+	}
+
+	@Override
+	public MessageWriter writeLong(String name, long value) {
+		writeHeader(TYPE_LONG, name);
+		writeZigZag(value);
+		return this;
+	}
+
+	@Override
+	public MessageWriter writeDouble(String name, double value) {
+		writeHeader(TYPE_DOUBLE, name);
+		ensure(8);
+		writeLittleEndian(Double.doubleToRawLongBits(value), 8);
+		return this;
+	}
+
+	@Override
+	public MessageWriter writeBoolean(String name, boolean value) {
+		writeHeader(TYPE_BOOLEAN, name);
+		ensure(1);
+		buffer[position++] = (byte) (value ? 1 : 0);
+		return this;
+	}
+
+	@Override
+	public MessageWriter writeLongs(String name, long[] values, int length, long offset) {
+		writeHeader(TYPE_LONGS, name);
+		writeVarint(length);
+		long previous = 0;
+		for (int i = 0; i < length; i++) {
+			long value = values[i] - offset;
+			writeZigZag(value - previous);
+			previous = value;
+		}
+		return this;
+	}
+
+	@Override
+	public MessageWriter writeDoubles(String name, double[] values, int length) {
+		writeHeader(TYPE_DOUBLES, name);
+		writeVarint(length);
+		ensure(length * 8);
+		for (int i = 0; i < length; i++) {
+			writeLittleEndian(Double.doubleToRawLongBits(values[i]), 8);
+		}
+		return this;
+	}
+
+	@Override
+	public MessageWriter writeFloats(String name, double[] values, int length) {
+		writeHeader(TYPE_FLOATS, name);
+		writeVarint(length);
+		ensure(length * 4);
+		for (int i = 0; i < length; i++) {
+			writeLittleEndian(Float.floatToRawIntBits((float) values[i]), 4);
+		}
+		return this;
+	}
+
+	@Override
+	public JsonObject toJson() {
+		JsonObject json = new JsonObject();
+		json.addProperty("codec", CODEC_NAME);
+		json.addProperty("data", toBase64());
+		return json;
+	}
+
+	/**
+	 * @return The number of bytes of the message so far.
+	 */
+	public int size() {
+		return position;
+	}
+
+	/**
+	 * @return A copy of the bytes of the message so far.
+	 */
+	public byte[] toByteArray() {
+		byte[] bytes = new byte[position];
+		System.arraycopy(buffer, 0, bytes, 0, position);
+		return bytes;
+	}
+
+	/**
+	 * @return The message so far as a base64 string.
+	 */
+	public String toBase64() {
+		int length = 4 * ((position + 2) / 3);
+		if (base64.length < length) {
+			base64 = new char[Math.max(length, base64.length * 2)];
+		}
+
+		int out = 0;
+		int in = 0;
+		for (; in + 3 <= position; in += 3) {
+			int bits = (buffer[in] & 0xff) << 16 | (buffer[in + 1] & 0xff) << 8 | (buffer[in + 2] & 0xff);
+			base64[out++] = BASE64[bits >>> 18];
+			base64[out++] = BASE64[(bits >>> 12) & 0x3f];
+			base64[out++] = BASE64[(bits >>> 6) & 0x3f];
+			base64[out++] = BASE64[bits & 0x3f];
+		}
+		int remaining = position - in;
+		if (remaining > 0) {
+			int bits = (buffer[in] & 0xff) << 16 | (remaining == 2 ? (buffer[in + 1] & 0xff) << 8 : 0);
+			base64[out++] = BASE64[bits >>> 18];
+			base64[out++] = BASE64[(bits >>> 12) & 0x3f];
+			base64[out++] = remaining == 2 ? BASE64[(bits >>> 6) & 0x3f] : '=';
+			base64[out++] = '=';
+		}
+		return new String(base64, 0, out);
+	}
+
+	private void writeHeader(byte type, String name) {
+		ensure(1);
+		buffer[position++] = type;
+		writeUtf8(name);
+	}
+
+	private void writeUtf8(String value) {
+		int length = value.length();
+		boolean ascii = true;
+		for (int i = 0; i < length && ascii; i++) {
+			ascii = value.charAt(i) < 0x80;
+		}
+
+		if (ascii) {
+			writeVarint(length);
+			ensure(length);
+			for (int i = 0; i < length; i++) {
+				buffer[position++] = (byte) value.charAt(i);
+			}
+		} else {
+			byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+			writeVarint(bytes.length);
+			ensure(bytes.length);
+			System.arraycopy(bytes, 0, buffer, position, bytes.length);
+			position += bytes.length;
+		}
+	}
+
+	private void writeZigZag(long value) {
+		writeVarint((value << 1) ^ (value >> 63));
+	}
+
+	private void writeVarint(long value) {
+		ensure(10);
+		while ((value & ~0x7fL) != 0) {
+			buffer[position++] = (byte) ((value & 0x7f) | 0x80);
+			value >>>= 7;
+		}
+		buffer[position++] = (byte) value;
+	}
+
+	private void writeLittleEndian(long bits, int bytes) {
+		for (int i = 0; i < bytes; i++) {
+			buffer[position++] = (byte) (bits >>> (8 * i));
+		}
+	}
+
+	private void ensure(int extra) {
+		if (position + extra > buffer.length) {
+			byte[] grown = new byte[Math.max(position + extra, buffer.length * 2)];
+			System.arraycopy(buffer, 0, grown, 0, position);
+			buffer = grown;
+		}
+	}
+}
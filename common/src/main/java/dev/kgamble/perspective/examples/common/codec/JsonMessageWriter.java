@@ -0,0 +1,78 @@
+/*
+ * Copyright 2024 Keith Gamble
+ * [License information]
+ */
+package dev.kgamble.perspective.examples.common.codec;
+
+import com.inductiveautomation.ignition.common.gson.JsonArray;
+import com.inductiveautomation.ignition.common.gson.JsonObject;
+
+/**
+ * Writes a message as a plain JSON object with a member per field. Arrays are
+ * written as JSON arrays, and floats at full precision.
+ *
+ * @author Keith Gamble
+ */
+public class JsonMessageWriter implements MessageWriter {
+	private JsonObject json = new JsonObject();
+
+	@Override
+	public MessageWriter reset() {
+		json = new JsonObject();
+		return this;
+	}
+
+	@Override
+	public MessageWriter writeString(String name, String value) {
+		json.addProperty(name, value);
+		return this;
+	}
+
+	@Override
+	public MessageWriter writeLong(String name, long value) {
+		json.addProperty(name, value);
+		return this;
+	}
+
+	@Override
+	public MessageWriter writeDouble(String name, double value) {
+		json.addProperty(name, value);
+		return this;
+	}
+
+	@Override
+	public MessageWriter writeBoolean(String name, boolean value) {
+		json.addProperty(name, value);
+		return this;
+	}
+
+	@Override
+	public MessageWriter writeLongs(String name, long[] values, int length, long offset) {
+		JsonArray array = new JsonArray();
+		for (int i = 0; i < length; i++) {
+			array.add(values[i] - offset);
+		}
+		json.add(name, array);
+		return this;
+	}
+
+	@Override
+	public MessageWriter writeDoubles(String name, double[] values, int length) {
+		JsonArray array = new JsonArray();
+		for (int i = 0; i < length; i++) {
+			array.add(values[i]);
+		}
+		json.add(name, array);
+		return this;
+	}
+
+	@Override
+	public MessageWriter writeFloats(String name, double[] values, int length) {
+		return writeDoubles(name, values, length);
+	}
+
+	@Override
+	public JsonObject toJson() {
+		return json;
+	}
+}
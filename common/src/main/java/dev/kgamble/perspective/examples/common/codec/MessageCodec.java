@@ -0,0 +1,27 @@
+/*
+ * Copyright 2024 Keith Gamble
+ * [License information]
+ */
+package dev.kgamble.perspective.examples.common.codec;
+
+/**
+ * A format for the messages gateway-side delegates send to their components.
+ *
+ * The built-in codecs are in {@link MessageCodecs}. Every codec must have a
+ * matching decoder in the web project's {@code codec/decodeMessage.ts}.
+ *
+ * @author Keith Gamble
+ */
+public interface MessageCodec {
+
+	/**
+	 * @return The name clients use to ask for this codec, e.g. "json" or
+	 *         "binary".
+	 */
+	String getName();
+
+	/**
+	 * @return A new writer, to be reused for all messages of one producer.
+	 */
+	MessageWriter newWriter();
+}
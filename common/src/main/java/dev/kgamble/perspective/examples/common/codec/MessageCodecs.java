@@ -0,0 +1,81 @@
+/*
+ * Copyright 2024 Keith Gamble
+ * [License information]
+ */
+package dev.kgamble.perspective.examples.common.codec;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The registry of message codecs, looked up by the name a client asks for.
+ *
+ * @author Keith Gamble
+ */
+public final class MessageCodecs {
+
+	/**
+	 * Plain JSON objects, readable by any client.
+	 */
+	public static final MessageCodec JSON = new SimpleCodec("json") {
+		@Override
+		public MessageWriter newWriter() {
+			return new JsonMessageWriter();
+		}
+	};
+
+	/**
+	 * Packed binary fields in a base64 string, see {@link BinaryMessageWriter}.
+	 */
+	public static final MessageCodec BINARY = new SimpleCodec(BinaryMessageWriter.CODEC_NAME) {
+		@Override
+		public MessageWriter newWriter() {
+			return new BinaryMessageWriter();
+		}
+	};
+
+	private static final ConcurrentHashMap<String, MessageCodec> codecs = new ConcurrentHashMap<>();
+
+	static {
+		register(JSON);
+		register(BINARY);
+	}
+
+	private MessageCodecs() {
+	}
+
+	/**
+	 * Adds a codec, replacing any codec of the same name.
+	 *
+	 * @param codec The codec.
+	 */
+	public static void register(MessageCodec codec) {
+		codecs.put(codec.getName(), codec);
+	}
+
+	/**
+	 * @param name The name of a codec, e.g. "binary".
+	 * @return The codec, JSON if the name is null or unknown.
+	 */
+	public static MessageCodec forName(String name) {
+		MessageCodec codec = name != null ? codecs.get(name) : null;
+		return codec != null ? codec : JSON;
+	}
+
+	private abstract static class SimpleCodec implements MessageCodec {
+		private final String name;
+
+		SimpleCodec(String name) {
+			this.name = name;
+		}
+
+		@Override
+		public String getName() {
+			return name;
+		}
+
+		@Override
+		public String toString() {
+			return name;
+		}
+	}
+}
@@ -0,0 +1,190 @@
+/*
+ * Copyright 2024 Keith Gamble
+ * [License information]
+ */
+package dev.kgamble.perspective.examples.common.codec;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Reads the fields of a message written by a {@link BinaryMessageWriter}, the
+ * Java counterpart of the web project's decoder.
+ *
+ * Arrays are read into arrays kept by the reader, which only grow, so a reader
+ * can be reused for many messages without allocating per field. A reader must
+ * not be shared between threads.
+ *
+ * @author Keith Gamble
+ */
+public class MessageReader {
+	private byte[] buffer = new byte[0];
+	private int position;
+	private int limit;
+
+	private byte type;
+	private String name;
+	private long longValue;
+	private double doubleValue;
+	private String stringValue;
+	private int count;
+	private long[] longs = new long[16];
+	private double[] doubles = new double[16];
+
+	/**
+	 * Starts reading a message from its base64 string.
+	 *
+	 * @param data The "data" member of a binary message.
+	 * @return This reader.
+	 */
+	public MessageReader reset(String data) {
+		byte[] bytes = Base64.getDecoder().decode(data);
+		return reset(bytes, bytes.length);
+	}
+
+	/**
+	 * Starts reading a message from its bytes.
+	 *
+	 * @param bytes  The bytes.
+	 * @param length The number of bytes of the message.
+	 * @return This reader.
+	 */
+	public MessageReader reset(byte[] bytes, int length) {
+		if (length < 1 || bytes[0] != BinaryMessageWriter.VERSION) {
+			throw new IllegalArgumentException("Not a version " + BinaryMessageWriter.VERSION + " message");
+		}
+		this.buffer = bytes;
+		this.position = 1;
+		this.limit = length;
+		return this;
+	}
+
+	/**
+	 * Reads the next field.
+	 *
+	 * @return false if the message has no more fields.
+	 */
+	public boolean next() {
+		if (position >= limit) {
+			return false;
+		}
+
+		type = buffer[position++];
+		name = readUtf8();
+		switch (type) {
+			case BinaryMessageWriter.TYPE_STRING:
+				stringValue = readUtf8();
+				break;
+			case BinaryMessageWriter.TYPE_LONG:
+				longValue = readZigZag();
+				break;
+			case BinaryMessageWriter.TYPE_DOUBLE:
+				doubleValue = Double.longBitsToDouble(readLittleEndian(8));
+				break;
+			case BinaryMessageWriter.TYPE_BOOLEAN:
+				longValue = buffer[position++];
+				break;
+			case BinaryMessageWriter.TYPE_LONGS:
+				count = (int) readVarint();
+				if (longs.length < count) {
+					longs = new long[count];
+				}
+				long previous = 0;
+				for (int i = 0; i < count; i++) {
+					previous += readZigZag();
+					longs[i] = previous;
+				}
+				break;
+			case BinaryMessageWriter.TYPE_DOUBLES:
+			case BinaryMessageWriter.TYPE_FLOATS:
+				count = (int) readVarint();
+				if (doubles.length < count) {
+					doubles = new double[count];
+				}
+				for (int i = 0; i < count; i++) {
+					doubles[i] = type == BinaryMessageWriter.TYPE_DOUBLES
+							? Double.longBitsToDouble(readLittleEndian(8))
+							: Float.intBitsToFloat((int) readLittleEndian(4));
+				}
+				break;
+			default:
+				throw new IllegalArgumentException("Unknown field type " + type + " of field " + name);
+		}
+		return true;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public String getString() {
+		return stringValue;
+	}
+
+	public long getLong() {
+		return longValue;
+	}
+
+	public double getDouble() {
+		return doubleValue;
+	}
+
+	public boolean getBoolean() {
+		return longValue != 0;
+	}
+
+	/**
+	 * @return The number of values of the current array field.
+	 */
+	public int getCount() {
+		return count;
+	}
+
+	/**
+	 * @return The values of the current long array field, only the first
+	 *         getCount() are valid. The array is reused by the next field.
+	 */
+	public long[] getLongs() {
+		return longs;
+	}
+
+	/**
+	 * @return The values of the current double or float array field, only the
+	 *         first getCount() are valid. The array is reused by the next field.
+	 */
+	public double[] getDoubles() {
+		return doubles;
+	}
+
+	private String readUtf8() {
+		int length = (int) readVarint();
+		String value = new String(buffer, position, length, StandardCharsets.UTF_8);
+		position += length;
+		return value;
+	}
+
+	private long readZigZag() {
+		long value = readVarint();
+		return (value >>> 1) ^ -(value & 1);
+	}
+
+	private long readVarint() {
+		long value = 0;
+		for (int shift = 0; shift < 64; shift += 7) {
+			byte b = buffer[position++];
+			value |= (long) (b & 0x7f) << shift;
+			if ((b & 0x80) == 0) {
+				return value;
+			}
+		}
+		throw new IllegalArgumentException("Malformed varint");
+	}
+
+	private long readLittleEndian(int bytes) {
+		long bits = 0;
+		for (int i = 0; i < bytes; i++) {
+			bits |= (long) (buffer[position++] & 0xff) << (8 * i);
+		}
+		return bits;
+	}
+}
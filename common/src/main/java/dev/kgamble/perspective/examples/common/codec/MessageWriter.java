@@ -0,0 +1,75 @@
+/*
+ * Copyright 2024 Keith Gamble
+ * [License information]
+ */
+package dev.kgamble.perspective.examples.common.codec;
+
+import com.inductiveautomation.ignition.common.gson.JsonObject;
+
+/**
+ * Writes the fields of a message sent from a gateway-side delegate to its
+ * component, in the format of the MessageCodec that created the writer.
+ *
+ * Code that produces messages writes its fields once through this interface,
+ * and the codec decides how they go over the wire. Writers are reused for every
+ * message of their producer, so they must not be shared between threads.
+ *
+ * @author Keith Gamble
+ */
+public interface MessageWriter {
+
+	/**
+	 * Starts a new message, discarding the fields of the previous one.
+	 *
+	 * @return This writer.
+	 */
+	MessageWriter reset();
+
+	MessageWriter writeString(String name, String value);
+
+	MessageWriter writeLong(String name, long value);
+
+	MessageWriter writeDouble(String name, double value);
+
+	MessageWriter writeBoolean(String name, boolean value);
+
+	/**
+	 * Writes an array of longs, e.g. timestamps. Subtracting an offset, like the
+	 * first timestamp, keeps the numbers short.
+	 *
+	 * @param name   The name of the field.
+	 * @param values The values, only the first length are written.
+	 * @param length The number of values.
+	 * @param offset Subtracted from every value.
+	 * @return This writer.
+	 */
+	MessageWriter writeLongs(String name, long[] values, int length, long offset);
+
+	/**
+	 * Writes an array of doubles at full precision.
+	 *
+	 * @param name   The name of the field.
+	 * @param values The values, only the first length are written.
+	 * @param length The number of values.
+	 * @return This writer.
+	 */
+	MessageWriter writeDoubles(String name, double[] values, int length);
+
+	/**
+	 * Writes an array of doubles that only need single precision, e.g. values
+	 * that end up as pixels. A codec may store them as floats.
+	 *
+	 * @param name   The name of the field.
+	 * @param values The values, only the first length are written.
+	 * @param length The number of values.
+	 * @return This writer.
+	 */
+	MessageWriter writeFloats(String name, double[] values, int length);
+
+	/**
+	 * Finishes the message.
+	 *
+	 * @return The message as the payload of a component event.
+	 */
+	JsonObject toJson();
+}
@@ -0,0 +1,98 @@
+package dev.kgamble.perspective.examples.common.components.display;
+
+import java.util.Collection;
+import java.util.List;
+import java.awt.image.BufferedImage;
+
+import com.inductiveautomation.ignition.common.gson.JsonObject;
+import com.inductiveautomation.perspective.common.api.ComponentDescriptor;
+import com.inductiveautomation.perspective.common.api.ComponentDescriptorImpl;
+import com.inductiveautomation.perspective.common.api.PaletteEntry;
+
+import dev.kgamble.perspective.examples.common.Constants;
+import dev.kgamble.perspective.examples.common.ExampleComponents;
+import dev.kgamble.perspective.examples.common.LifecycleContext;
+import dev.kgamble.perspective.examples.common.generated.ExampleTableProps;
+import dev.kgamble.perspective.examples.common.utilities.DelegatingComponentDescriptor;
+import dev.kgamble.perspective.examples.common.utilities.ImageUtilities;
+import dev.kgamble.perspective.examples.common.utilities.StartupProfiler;
+
+/**
+ * This class describes the Table component to the Java registry.
+ * The Table shows a gateway-side dataset of any size. Its gateway-side model
+ * delegate keeps the dataset, sorts and filters it, and only sends the rows the
+ * Table is about to show, so the dataset never goes through the props.
+ */
+public class Table {
+
+	// Unique ID of the component, matching the ID in the JavaScript implementation
+	public static final String COMPONENT_ID = "examples.display.table";
+
+	// Path to the thumbnail image for the component palette
+	private static final String THUMBNAIL_PATH = "/images/table-thumbnail.png";
+	private static final int THUMBNAIL_WIDTH = 70;
+	private static final int THUMBNAIL_HEIGHT = 35;
+
+	// Component metadata
+	private static final String COMPONENT_NAME = "Example Table";
+	private static final String COMPONENT_DESCRIPTION = "A virtualized table of a gateway-side dataset.";
+	private static final String COMPONENT_DEFAULT_NAME = "example-table";
+
+	// Key of the Table's descriptor in the LifecycleContext
+	private static final String DESCRIPTOR_KEY = COMPONENT_ID + "#descriptor";
+
+	/**
+	 * The ComponentDescriptor for the Table component.
+	 * The props schema and its defaults are generated at build time from
+	 * /props/example-table.props.json.
+	 *
+	 * The palette entry of this descriptor has no thumbnail, the Designer adds it
+	 * with createPaletteEntries().
+	 *
+	 * The descriptor is built once per LifecycleContext and dropped when the
+	 * module shuts down.
+	 *
+	 * @return The descriptor of the current lifecycle.
+	 */
+	public static ComponentDescriptor descriptor() {
+		return LifecycleContext.current().get(DESCRIPTOR_KEY, () -> new DelegatingComponentDescriptor(
+				newDescriptorBuilder()
+					.addPaletteEntry("", COMPONENT_NAME, COMPONENT_DESCRIPTION, null, null)
+					.build()) {
+			@Override
+			public JsonObject defaultProperties() {
+				return ExampleTableProps.defaultProperties();
+			}
+		});
+	}
+
+	/**
+	 * Creates the palette entries of the Table, including the thumbnail.
+	 * Only the Designer shows the palette, so only the Designer should call this.
+	 *
+	 * @return The palette entries of the Table.
+	 */
+	public static Collection<PaletteEntry> createPaletteEntries() {
+		BufferedImage thumbnail = StartupProfiler.get().time(
+				COMPONENT_ID, "thumbnail",
+				() -> ImageUtilities.loadThumbnailFromFilePath(THUMBNAIL_PATH, THUMBNAIL_WIDTH, THUMBNAIL_HEIGHT));
+
+		// The entry is all the palette needs, the rest of the descriptor is built once by descriptor()
+		return List.of(new PaletteEntry(COMPONENT_ID, "", COMPONENT_NAME, COMPONENT_DESCRIPTION, thumbnail, null));
+	}
+
+	/**
+	 * @return A builder with everything of the Table's descriptor except its
+	 *         palette entries.
+	 */
+	private static ComponentDescriptorImpl.ComponentBuilder newDescriptorBuilder() {
+		return ComponentDescriptorImpl.ComponentBuilder.newBuilder()
+				.setPaletteCategory(ExampleComponents.COMPONENT_CATEGORY)
+				.setId(COMPONENT_ID)
+				.setModuleId(Constants.MODULE_ID)
+				.setSchema(StartupProfiler.get().time(COMPONENT_ID, "schema load", ExampleTableProps::schema))
+				.setName(COMPONENT_NAME)
+				.setDefaultMetaName(COMPONENT_DEFAULT_NAME)
+				.setResources(ExampleComponents.BROWSER_RESOURCES);
+	}
+}
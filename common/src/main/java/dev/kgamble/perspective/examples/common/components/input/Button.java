@@ -1,16 +1,23 @@
 package dev.kgamble.perspective.examples.common.components.input;
 
+import java.util.Collection;
 import java.util.List;
 import java.awt.image.BufferedImage;
 
+import com.inductiveautomation.ignition.common.gson.JsonObject;
 import com.inductiveautomation.perspective.common.api.ComponentDescriptor;
 import com.inductiveautomation.perspective.common.api.ComponentDescriptorImpl;
 import com.inductiveautomation.perspective.common.api.ComponentEventDescriptor;
+import com.inductiveautomation.perspective.common.api.PaletteEntry;
 
 import dev.kgamble.perspective.examples.common.Constants;
 import dev.kgamble.perspective.examples.common.ExampleComponents;
-import dev.kgamble.perspective.examples.common.utilities.ComponentUtilities;
+import dev.kgamble.perspective.examples.common.LifecycleContext;
+import dev.kgamble.perspective.examples.common.generated.ExampleButtonOnActionPerformedEvent;
+import dev.kgamble.perspective.examples.common.generated.ExampleButtonProps;
+import dev.kgamble.perspective.examples.common.utilities.DelegatingComponentDescriptor;
 import dev.kgamble.perspective.examples.common.utilities.ImageUtilities;
+import dev.kgamble.perspective.examples.common.utilities.StartupProfiler;
 
 /**
  * This class describes the Button component to the Java registry.
@@ -20,47 +27,91 @@ import dev.kgamble.perspective.examples.common.utilities.ImageUtilities;
 public class Button {
 
 	// Unique ID of the component, matching the ID in the JavaScript implementation
-	public static String COMPONENT_ID = "examples.input.button";
+	public static final String COMPONENT_ID = "examples.input.button";
 
 	// Path to the thumbnail image for the component palette
 	private static final String THUMBNAIL_PATH = "/images/button-thumbnail.png";
 	private static final int THUMBNAIL_WIDTH = 70;
 	private static final int THUMBNAIL_HEIGHT = 35;
 
-	// Path to the JSON schema defining the component's properties
-	private static final String PROPS_SCHEMA_PATH = "/props/example-button.props.json";
-
 	// Component metadata
 	private static final String COMPONENT_NAME = "Example Button";
 	private static final String COMPONENT_DESCRIPTION = "A better button.";
 	private static final String COMPONENT_DEFAULT_NAME = "example-button";
 
+	// Keys of the Button's state in the LifecycleContext
+	private static final String DESCRIPTOR_KEY = COMPONENT_ID + "#descriptor";
+	private static final String ACTION_PERFORMED_KEY = COMPONENT_ID + "#onActionPerformed";
+
+	/**
+	 * The ComponentDescriptor for the Button component.
+	 * This descriptor provides all necessary information for the Perspective system
+	 * to recognize, display, and utilize the Button component.
+	 * The props schema and its defaults are generated at build time from
+	 * /props/example-button.props.json, so no JSON is read at runtime.
+	 *
+	 * The palette entry of this descriptor has no thumbnail, so the gateway never
+	 * decodes or holds palette images. The Designer adds them with
+	 * createPaletteEntries().
+	 *
+	 * The descriptor is built once per LifecycleContext and dropped when the
+	 * module shuts down.
+	 *
+	 * @return The descriptor of the current lifecycle.
+	 */
+	public static ComponentDescriptor descriptor() {
+		return LifecycleContext.current().get(DESCRIPTOR_KEY, () -> new DelegatingComponentDescriptor(
+				newDescriptorBuilder()
+					.addPaletteEntry("", COMPONENT_NAME, COMPONENT_DESCRIPTION, null, null)
+					.build()) {
+			@Override
+			public JsonObject defaultProperties() {
+				return ExampleButtonProps.defaultProperties();
+			}
+		});
+	}
+
 	/**
 	 * Descriptor for the onActionPerformed event of the Button component.
+	 * The schema is generated at build time from
+	 * events/example-button/onActionPerformed.json.
+	 *
+	 * @return The event descriptor of the current lifecycle.
+	 */
+	static ComponentEventDescriptor actionPerformedDescriptor() {
+		return LifecycleContext.current().get(ACTION_PERFORMED_KEY, () -> StartupProfiler.get().time(
+				COMPONENT_ID, "event descriptor load",
+				() -> ExampleButtonOnActionPerformedEvent.descriptor("This event is fired when Better Button is clicked.")));
+	}
+
+	/**
+	 * Creates the palette entries of the Button, including the thumbnail.
+	 * Only the Designer shows the palette, so only the Designer should call this.
+	 *
+	 * @return The palette entries of the Button.
 	 */
-	static ComponentEventDescriptor ActionPerformedDescriptor = ComponentUtilities.getEventDescriptor(
-			"events/example-button/onActionPerformed.json",
-			"onActionPerformed",
-			"This event is fired when Better Button is clicked.");
+	public static Collection<PaletteEntry> createPaletteEntries() {
+		BufferedImage thumbnail = StartupProfiler.get().time(
+				COMPONENT_ID, "thumbnail",
+				() -> ImageUtilities.loadThumbnailFromFilePath(THUMBNAIL_PATH, THUMBNAIL_WIDTH, THUMBNAIL_HEIGHT));
 
-	// Load the thumbnail image for the component palette
-	static BufferedImage thumbnail = ImageUtilities.loadThumbnailFromFilePath(THUMBNAIL_PATH, THUMBNAIL_WIDTH,
-			THUMBNAIL_HEIGHT);
+		// The entry is all the palette needs, the rest of the descriptor is built once by descriptor()
+		return List.of(new PaletteEntry(COMPONENT_ID, "", COMPONENT_NAME, COMPONENT_DESCRIPTION, thumbnail, null));
+	}
 
 	/**
-	 * The ComponentDescriptor for the Button component.
-	 * This descriptor provides all necessary information for the Perspective system
-	 * to recognize, display, and utilize the Button component.
+	 * @return A builder with everything of the Button's descriptor except its
+	 *         palette entries.
 	 */
-	public static ComponentDescriptor DESCRIPTOR = ComponentDescriptorImpl.ComponentBuilder.newBuilder()
-			.setPaletteCategory(ExampleComponents.COMPONENT_CATEGORY)
-			.setId(COMPONENT_ID)
-			.setModuleId(Constants.MODULE_ID)
-			.setSchema(ComponentUtilities.getSchemaFromFilePath(PROPS_SCHEMA_PATH))
-			.setEvents(List.of(ActionPerformedDescriptor))
-			.setName(COMPONENT_NAME)
-			.addPaletteEntry("", COMPONENT_NAME, COMPONENT_DESCRIPTION, thumbnail, null)
-			.setDefaultMetaName(COMPONENT_DEFAULT_NAME)
-			.setResources(ExampleComponents.BROWSER_RESOURCES)
-			.build();
-}
\ No newline at end of file
+	private static ComponentDescriptorImpl.ComponentBuilder newDescriptorBuilder() {
+		return ComponentDescriptorImpl.ComponentBuilder.newBuilder()
+				.setPaletteCategory(ExampleComponents.COMPONENT_CATEGORY)
+				.setId(COMPONENT_ID)
+				.setModuleId(Constants.MODULE_ID)
+				.setSchema(StartupProfiler.get().time(COMPONENT_ID, "schema load", ExampleButtonProps::schema))
+				.setEvents(List.of(actionPerformedDescriptor()))
+				.setName(COMPONENT_NAME)
+				.setDefaultMetaName(COMPONENT_DEFAULT_NAME)
+				.setResources(ExampleComponents.BROWSER_RESOURCES);
+	}
+}
@@ -0,0 +1,364 @@
+/*
+ * Copyright 2024 Keith Gamble
+ * [License information]
+ */
+package dev.kgamble.perspective.examples.common.utilities;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+import com.inductiveautomation.ignition.common.gson.JsonArray;
+import com.inductiveautomation.ignition.common.gson.JsonElement;
+import com.inductiveautomation.ignition.common.gson.JsonObject;
+import com.inductiveautomation.ignition.common.gson.JsonPrimitive;
+
+/**
+ * A props or event schema compiled into a validator for the payloads that
+ * arrive at a high rate, like event payloads and prop writes.
+ *
+ * A JsonSchema validates by walking its keyword tree and collecting messages
+ * for every payload. The schema is compiled once instead: the allowed types
+ * become a bit mask, the bounds become fields, and the declared properties
+ * become an array of names with the validator of each, so checking a payload
+ * is a lookup per declared property and a few comparisons. {@link #test}
+ * never allocates, only {@link #explain} describes what is wrong, which is
+ * meant for the payloads that failed the test.
+ *
+ * The keywords used by this module's schemas are compiled: type, properties,
+ * required, additionalProperties, items, enum, minimum, maximum, minLength and
+ * maxLength. Other keywords, like a $ref to a schema of Perspective, accept
+ * anything, so the compiled validator is never stricter than the schema.
+ *
+ * Numbers are only converted when a bound or the integer type is checked.
+ * Numbers parsed from JSON text keep their text, plain integers are read from
+ * it without allocating, other numbers are parsed.
+ *
+ * @author Keith Gamble
+ */
+public final class CompiledValidator {
+
+	/**
+	 * Accepts anything, the validator of a schema without keywords.
+	 */
+	public static final CompiledValidator ANY = new CompiledValidator();
+
+	private static final int NULL = 1;
+	private static final int BOOLEAN = 1 << 1;
+	private static final int STRING = 1 << 2;
+	private static final int NUMBER = 1 << 3;
+	private static final int INTEGER = 1 << 4;
+	private static final int OBJECT = 1 << 5;
+	private static final int ARRAY = 1 << 6;
+	private static final int ALL_TYPES = NULL | BOOLEAN | STRING | NUMBER | INTEGER | OBJECT | ARRAY;
+
+	private final int types;
+	private final double minimum;
+	private final double maximum;
+	private final int minLength;
+	private final int maxLength;
+	private final JsonElement[] allowed;
+	private final String[] propertyNames;
+	private final CompiledValidator[] propertyValidators;
+	private final boolean[] required;
+	private final Map<String, CompiledValidator> properties;
+	private final boolean additionalProperties;
+	private final CompiledValidator items;
+
+	private CompiledValidator() {
+		this.types = ALL_TYPES;
+		this.minimum = Double.NaN;
+		this.maximum = Double.NaN;
+		this.minLength = -1;
+		this.maxLength = -1;
+		this.allowed = null;
+		this.propertyNames = new String[0];
+		this.propertyValidators = new CompiledValidator[0];
+		this.required = new boolean[0];
+		this.properties = Collections.emptyMap();
+		this.additionalProperties = true;
+		this.items = null;
+	}
+
+	private CompiledValidator(JsonObject schema) {
+		this.types = typesOf(schema.get("type"));
+		this.minimum = number(schema, "minimum");
+		this.maximum = number(schema, "maximum");
+		this.minLength = (int) orElse(number(schema, "minLength"), -1);
+		this.maxLength = (int) orElse(number(schema, "maxLength"), -1);
+
+		JsonElement allowedValues = schema.get("enum");
+		if (allowedValues != null && allowedValues.isJsonArray()) {
+			JsonArray values = allowedValues.getAsJsonArray();
+			this.allowed = new JsonElement[values.size()];
+			for (int i = 0; i < allowed.length; i++) {
+				allowed[i] = values.get(i);
+			}
+		} else {
+			this.allowed = null;
+		}
+
+		JsonElement declared = schema.get("properties");
+		JsonObject declaredProperties = declared != null && declared.isJsonObject() ? declared.getAsJsonObject()
+				: new JsonObject();
+		JsonElement requiredNames = schema.get("required");
+		this.propertyNames = new String[declaredProperties.size()];
+		this.propertyValidators = new CompiledValidator[propertyNames.length];
+		this.required = new boolean[propertyNames.length];
+		Map<String, CompiledValidator> byName = new HashMap<>();
+		int i = 0;
+		for (Map.Entry<String, JsonElement> property : declaredProperties.entrySet()) {
+			propertyNames[i] = property.getKey();
+			propertyValidators[i] = compile(property.getValue());
+			required[i] = requiredNames != null && requiredNames.isJsonArray()
+					&& requiredNames.getAsJsonArray().contains(new JsonPrimitive(property.getKey()));
+			byName.put(property.getKey(), propertyValidators[i]);
+			i++;
+		}
+		this.properties = Collections.unmodifiableMap(byName);
+
+		JsonElement additional = schema.get("additionalProperties");
+		this.additionalProperties = additional == null || !additional.isJsonPrimitive()
+				|| !additional.getAsJsonPrimitive().isBoolean() || additional.getAsBoolean();
+
+		JsonElement itemSchema = schema.get("items");
+		this.items = itemSchema != null && itemSchema.isJsonObject() ? compile(itemSchema) : null;
+	}
+
+	/**
+	 * Compiles a schema. Prefer {@link SchemaRegistry#validator}, which compiles
+	 * each schema once.
+	 *
+	 * @param schema The JSON of the schema.
+	 * @return The validator, {@link #ANY} if the schema isn't an object.
+	 */
+	public static CompiledValidator compile(JsonElement schema) {
+		if (schema == null || !schema.isJsonObject() || schema.getAsJsonObject().size() == 0) {
+			return ANY;
+		}
+		return new CompiledValidator(schema.getAsJsonObject());
+	}
+
+	/**
+	 * @param value The value to check, null for a missing value.
+	 * @return Whether the schema accepts the value. Never allocates.
+	 */
+	public boolean test(JsonElement value) {
+		return check(value, null) == null;
+	}
+
+	/**
+	 * Describes why the schema rejects a value.
+	 *
+	 * @param value The value to check.
+	 * @return The first problem found, or empty if the value is valid.
+	 */
+	public Optional<String> explain(JsonElement value) {
+		return Optional.ofNullable(check(value, "$"));
+	}
+
+	/**
+	 * @param name The name of a property declared by the schema.
+	 * @return The validator of the property, or {@link #ANY} if it isn't
+	 *         declared. Look it up once, e.g. to check the writes of one prop.
+	 */
+	public CompiledValidator property(String name) {
+		return properties.getOrDefault(name, ANY);
+	}
+
+	/**
+	 * Checks a value, describing the problem only if a path is given, so the
+	 * test never builds a message.
+	 *
+	 * @return null if the value is valid, otherwise a problem, which is only
+	 *         described if a path was given.
+	 */
+	private String check(JsonElement value, String path) {
+		if (value == null || this == ANY) {
+			return null;
+		}
+
+		int type = typeOf(value);
+		if (type == NUMBER && (types & NUMBER) == 0 && isInteger(value.getAsJsonPrimitive())) {
+			type = INTEGER;
+		}
+		if ((types & type) == 0) {
+			return problem(path, "has the wrong type");
+		}
+
+		if (allowed != null && !isAllowed(value)) {
+			return problem(path, "is not one of the allowed values");
+		}
+
+		if (type == NUMBER || type == INTEGER) {
+			if (!Double.isNaN(minimum) || !Double.isNaN(maximum)) {
+				double number = toDouble(value.getAsJsonPrimitive());
+				if (number < minimum || number > maximum) {
+					return problem(path, "is out of range");
+				}
+			}
+		} else if (type == STRING) {
+			if (minLength >= 0 || maxLength >= 0) {
+				int length = value.getAsString().length();
+				if (length < minLength || (maxLength >= 0 && length > maxLength)) {
+					return problem(path, "has the wrong length");
+				}
+			}
+		} else if (type == OBJECT) {
+			return checkObject(value.getAsJsonObject(), path);
+		} else if (type == ARRAY && items != null) {
+			JsonArray array = value.getAsJsonArray();
+			for (int i = 0; i < array.size(); i++) {
+				String problem = items.check(array.get(i), path != null ? path + "[" + i + "]" : null);
+				if (problem != null) {
+					return problem;
+				}
+			}
+		}
+		return null;
+	}
+
+	private String checkObject(JsonObject object, String path) {
+		int present = 0;
+		for (int i = 0; i < propertyNames.length; i++) {
+			JsonElement member = object.get(propertyNames[i]);
+			if (member == null) {
+				if (required[i]) {
+					return problem(path != null ? path + "." + propertyNames[i] : null, "is missing");
+				}
+				continue;
+			}
+			present++;
+			String problem = propertyValidators[i].check(member,
+					path != null ? path + "." + propertyNames[i] : null);
+			if (problem != null) {
+				return problem;
+			}
+		}
+
+		// Only schemas that forbid other properties pay for iterating the members
+		if (!additionalProperties && object.size() > present) {
+			for (Map.Entry<String, JsonElement> member : object.entrySet()) {
+				if (!properties.containsKey(member.getKey())) {
+					return problem(path != null ? path + "." + member.getKey() : null, "is not allowed");
+				}
+			}
+		}
+		return null;
+	}
+
+	private boolean isAllowed(JsonElement value) {
+		for (JsonElement candidate : allowed) {
+			if (candidate.equals(value)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static String problem(String path, String problem) {
+		// The shared constant tells test() it failed without building a message
+		return path != null ? path + " " + problem : "";
+	}
+
+	private static int typeOf(JsonElement value) {
+		if (value.isJsonObject()) {
+			return OBJECT;
+		} else if (value.isJsonArray()) {
+			return ARRAY;
+		} else if (value.isJsonNull()) {
+			return NULL;
+		}
+		JsonPrimitive primitive = value.getAsJsonPrimitive();
+		if (primitive.isBoolean()) {
+			return BOOLEAN;
+		} else if (primitive.isString()) {
+			return STRING;
+		}
+		return NUMBER;
+	}
+
+	private static boolean isInteger(JsonPrimitive primitive) {
+		double number = toDouble(primitive);
+		return number == Math.rint(number) && !Double.isInfinite(number);
+	}
+
+	private static double toDouble(JsonPrimitive primitive) {
+		Number number = primitive.getAsNumber();
+		if (number instanceof Double || number instanceof Integer || number instanceof Long
+				|| number instanceof Float || number instanceof Short || number instanceof Byte) {
+			return number.doubleValue();
+		}
+
+		// A number parsed from JSON returns its text
+		String text = number.toString();
+		int length = text.length();
+		boolean negative = length > 0 && text.charAt(0) == '-';
+		int start = negative ? 1 : 0;
+		// Up to 15 digits are exact in a double
+		if (length == start || length - start > 15) {
+			return number.doubleValue();
+		}
+		long value = 0;
+		for (int i = start; i < length; i++) {
+			char digit = text.charAt(i);
+			if (digit < '0' || digit > '9') {
+				return number.doubleValue();
+			}
+			value = value * 10 + (digit - '0');
+		}
+		return negative ? -value : value;
+	}
+
+	private static int typesOf(JsonElement type) {
+		if (type == null) {
+			return ALL_TYPES;
+		}
+		if (type.isJsonArray()) {
+			int types = 0;
+			for (JsonElement name : type.getAsJsonArray()) {
+				types |= typeNamed(name);
+			}
+			return types != 0 ? types : ALL_TYPES;
+		}
+		int types = typeNamed(type);
+		return types != 0 ? types : ALL_TYPES;
+	}
+
+	private static int typeNamed(JsonElement name) {
+		if (!name.isJsonPrimitive()) {
+			return 0;
+		}
+		switch (name.getAsString()) {
+			case "null":
+				return NULL;
+			case "boolean":
+				return BOOLEAN;
+			case "string":
+				return STRING;
+			case "number":
+				// Every integer is a number too
+				return NUMBER | INTEGER;
+			case "integer":
+				return INTEGER;
+			case "object":
+				return OBJECT;
+			case "array":
+				return ARRAY;
+			default:
+				return 0;
+		}
+	}
+
+	private static double number(JsonObject schema, String keyword) {
+		JsonElement value = schema.get(keyword);
+		return value != null && value.isJsonPrimitive() && value.getAsJsonPrimitive().isNumber()
+				? value.getAsDouble()
+				: Double.NaN;
+	}
+
+	private static double orElse(double value, double fallback) {
+		return Double.isNaN(value) ? fallback : value;
+	}
+}
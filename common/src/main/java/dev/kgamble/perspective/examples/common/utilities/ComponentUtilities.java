@@ -15,18 +15,27 @@ import com.inductiveautomation.perspective.common.api.ComponentEventDescriptor;
 public class ComponentUtilities {
 
 	/**
-	 * Loads and parses a JSON schema from a given resource path.
+	 * Loads and parses a JSON schema from a given resource path. The schema is
+	 * parsed on the first call and cached in the shared SchemaRegistry, later
+	 * calls return the same instance.
 	 *
 	 * @param resourcePath The path to the JSON schema resource.
 	 * @return A JsonSchema object representing the parsed schema.
 	 */
 	public static JsonSchema getSchemaFromFilePath(String resourcePath) {
-		// Ensure the resource path starts with a forward slash
-		if (!resourcePath.startsWith("/")) {
-			resourcePath = "/" + resourcePath;
-		}
+		return SchemaRegistry.shared().fromResource(resourcePath);
+	}
 
-		return JsonSchema.parse(ComponentUtilities.class.getResourceAsStream(resourcePath));
+	/**
+	 * Returns the compiled validator of a JSON schema resource, for checking
+	 * payloads at a high rate. The validator is compiled on the first call and
+	 * cached in the shared SchemaRegistry.
+	 *
+	 * @param resourcePath The path to the JSON schema resource.
+	 * @return The validator of the schema.
+	 */
+	public static CompiledValidator getValidatorFromFilePath(String resourcePath) {
+		return SchemaRegistry.shared().validatorFromResource(resourcePath);
 	}
 
 	/**
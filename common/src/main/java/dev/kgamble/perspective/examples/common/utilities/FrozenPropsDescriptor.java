@@ -0,0 +1,105 @@
+/*
+ * Copyright 2024 Keith Gamble
+ * [License information]
+ */
+package dev.kgamble.perspective.examples.common.utilities;
+
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.annotation.Nullable;
+
+import com.inductiveautomation.ignition.common.gson.JsonObject;
+import com.inductiveautomation.perspective.common.api.ComponentDescriptor;
+
+/**
+ * A ComponentDescriptor that builds its default props and the initial props of
+ * its variants only once, and hands out copies of those templates.
+ *
+ * Every component dropped in the Designer and every instance created in a view
+ * asks its descriptor for these props, and the descriptors built by the
+ * ComponentBuilder assemble them anew on every call. The defaults and the
+ * initial props of the default variant are built when this descriptor is
+ * created, other variants the first time they are asked for, so the palette
+ * entries with thumbnails are never touched early.
+ *
+ * The templates are never handed out, since Perspective owns and modifies the
+ * props it is given. A copy only allocates the objects and arrays of the
+ * template, its values are immutable and shared.
+ *
+ * @author Keith Gamble
+ */
+public class FrozenPropsDescriptor extends DelegatingComponentDescriptor {
+	private final JsonObject defaultProperties;
+	private final ConcurrentHashMap<String, Optional<JsonObject>> initialProps = new ConcurrentHashMap<>();
+
+	/**
+	 * Constructs a new FrozenPropsDescriptor, building the default props and the
+	 * initial props of the default variant.
+	 *
+	 * @param delegate The ComponentDescriptor to which other calls are delegated.
+	 */
+	public FrozenPropsDescriptor(ComponentDescriptor delegate) {
+		super(delegate);
+		this.defaultProperties = freeze(delegate.defaultProperties());
+		initialPropsTemplate("");
+	}
+
+	/**
+	 * Constructs a new FrozenPropsDescriptor from templates built before, e.g.
+	 * loaded from a DescriptorSnapshot, without asking the delegate.
+	 *
+	 * @param delegate            The ComponentDescriptor to which other calls are
+	 *                            delegated.
+	 * @param defaultProperties   The default props, which must not be modified
+	 *                            afterwards.
+	 * @param defaultInitialProps The initial props of the default variant, or
+	 *                            null if it has none. Must not be modified
+	 *                            afterwards.
+	 */
+	public FrozenPropsDescriptor(ComponentDescriptor delegate, JsonObject defaultProperties,
+			JsonObject defaultInitialProps) {
+		super(delegate);
+		this.defaultProperties = defaultProperties;
+		this.initialProps.put("", Optional.ofNullable(defaultInitialProps));
+	}
+
+	/**
+	 * @return A new copy of the default props.
+	 */
+	@Override
+	public JsonObject defaultProperties() {
+		return copyOf(defaultProperties);
+	}
+
+	/**
+	 * @param variantId The id of the palette variant, empty for the default.
+	 * @return A new copy of the initial props of the variant, or null if it has
+	 *         none.
+	 */
+	@Override
+	@Nullable
+	public JsonObject getInitialProps(String variantId) {
+		return copyOf(initialPropsTemplate(variantId != null ? variantId : "").orElse(null));
+	}
+
+	private Optional<JsonObject> initialPropsTemplate(String variantId) {
+		Optional<JsonObject> template = initialProps.get(variantId);
+		return template != null ? template
+				: initialProps.computeIfAbsent(variantId,
+						id -> Optional.ofNullable(freeze(super.getInitialProps(id))));
+	}
+
+	/**
+	 * @return A private copy of props built by the delegate, which the delegate
+	 *         may still hold on to.
+	 */
+	private static JsonObject freeze(JsonObject props) {
+		return props != null ? props.deepCopy() : null;
+	}
+
+	private static JsonObject copyOf(JsonObject template) {
+		// JsonPrimitive.deepCopy() returns itself, so only objects and arrays are allocated
+		return template != null ? template.deepCopy() : null;
+	}
+}
@@ -0,0 +1,149 @@
+/*
+ * Copyright 2024 Keith Gamble
+ * [License information]
+ */
+package dev.kgamble.perspective.examples.common.utilities;
+
+import java.awt.image.BufferedImage;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+
+import dev.kgamble.perspective.examples.common.LifecycleContext;
+
+/**
+ * A concurrent cache of rendered palette images, i.e. thumbnails and
+ * rasterized icons, keyed by resource path, size and scale factor.
+ *
+ * The cache is bounded by the memory of the cached pixels rather than by the
+ * number of images, and evicts the least recently used images first (per
+ * segment of the underlying Guava cache, so the order is approximate). When
+ * several threads ask for the same missing image at once, only one renders it
+ * and the others wait for the result. Each scale factor is its own entry, so
+ * the 2x variant of an icon is rendered once and not derived on every paint.
+ *
+ * The cached images are shared, callers must not draw into them.
+ *
+ * @author Keith Gamble
+ */
+public class ImageCache {
+
+	/**
+	 * Default pixel memory of the shared cache, can be overridden with the
+	 * {@code example-components.imageCache.maxBytes} system property.
+	 */
+	public static final long DEFAULT_MAX_BYTES = 16L * 1024 * 1024;
+
+	private final Cache<Key, BufferedImage> cache;
+
+	/**
+	 * Constructs a new ImageCache.
+	 *
+	 * @param maxBytes The pixel memory the cached images may use.
+	 */
+	public ImageCache(long maxBytes) {
+		this.cache = CacheBuilder.newBuilder()
+				.maximumWeight(maxBytes)
+				.weigher((Key key, BufferedImage image) -> weigh(image))
+				.recordStats()
+				.build();
+	}
+
+	/**
+	 * @return The cache shared by all components of this module, for the
+	 *         current LifecycleContext.
+	 */
+	public static ImageCache shared() {
+		return LifecycleContext.current().getImageCache();
+	}
+
+	/**
+	 * Returns the cached image, rendering it first if it isn't cached.
+	 *
+	 * @param resourcePath The resource the image is rendered from.
+	 * @param width        The width of the image at scale 1.
+	 * @param height       The height of the image at scale 1.
+	 * @param scale        The scale factor of the image, e.g. 2 for HiDPI.
+	 * @param renderer     Renders the image at width * scale by height * scale.
+	 * @return The cached image.
+	 */
+	public BufferedImage get(String resourcePath, int width, int height, int scale, Callable<BufferedImage> renderer) {
+		try {
+			return cache.get(new Key(resourcePath, width, height, scale), renderer);
+		} catch (ExecutionException | UncheckedExecutionException e) {
+			throw new IllegalStateException("Unable to render image " + resourcePath, e.getCause());
+		}
+	}
+
+	/**
+	 * Removes all cached images, e.g. when the module shuts down.
+	 */
+	public void invalidateAll() {
+		cache.invalidateAll();
+	}
+
+	/**
+	 * @return The hit, miss and eviction counts of the cache, suitable for JSON
+	 *         and scripting.
+	 */
+	public Map<String, Object> snapshot() {
+		CacheStats stats = cache.stats();
+		Map<String, Object> snapshot = new LinkedHashMap<>();
+		snapshot.put("images", cache.size());
+		snapshot.put("hits", stats.hitCount());
+		snapshot.put("misses", stats.missCount());
+		snapshot.put("evictions", stats.evictionCount());
+		return snapshot;
+	}
+
+	/**
+	 * @return The approximate memory of the image's pixels in bytes.
+	 */
+	private static int weigh(BufferedImage image) {
+		long pixels = (long) image.getWidth() * image.getHeight();
+		int bytesPerPixel = Math.max(1, image.getColorModel().getPixelSize() / 8);
+		return (int) Math.min(Integer.MAX_VALUE, pixels * bytesPerPixel);
+	}
+
+	/**
+	 * The identity of a rendered image.
+	 */
+	private static final class Key {
+		private final String resourcePath;
+		private final int width;
+		private final int height;
+		private final int scale;
+
+		Key(String resourcePath, int width, int height, int scale) {
+			this.resourcePath = resourcePath;
+			this.width = width;
+			this.height = height;
+			this.scale = scale;
+		}
+
+		@Override
+		public boolean equals(Object other) {
+			if (this == other) {
+				return true;
+			}
+			if (!(other instanceof Key)) {
+				return false;
+			}
+			Key key = (Key) other;
+			return width == key.width && height == key.height && scale == key.scale
+					&& resourcePath.equals(key.resourcePath);
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(resourcePath, width, height, scale);
+		}
+	}
+}
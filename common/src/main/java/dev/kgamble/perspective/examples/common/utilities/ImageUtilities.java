@@ -37,16 +37,35 @@ public class ImageUtilities {
 	 * Loads an image from a resource path and resizes it to the specified
 	 * dimensions.
 	 *
+	 * The thumbnail is cached in the shared {@link ImageCache}, so the image is
+	 * only decoded and scaled once per path and size. The returned image is
+	 * shared and must not be drawn into.
+	 *
 	 * @param resourcePath The path to the image resource.
 	 * @param width        The desired width of the thumbnail.
 	 * @param height       The desired height of the thumbnail.
 	 * @return A BufferedImage of the resized thumbnail.
 	 */
 	public static BufferedImage loadThumbnailFromFilePath(String resourcePath, int width, int height) {
+		return ImageCache.shared().get(resourcePath, width, height, 1,
+				() -> renderThumbnail(resourcePath, width, height, 1));
+	}
+
+	/**
+	 * Loads an image from a resource path and resizes it to the specified
+	 * dimensions times the scale factor, without going through the cache.
+	 *
+	 * @param resourcePath The path to the image resource.
+	 * @param width        The desired width of the thumbnail at scale 1.
+	 * @param height       The desired height of the thumbnail at scale 1.
+	 * @param scale        The scale factor, e.g. 2 for HiDPI displays.
+	 * @return A new BufferedImage of the resized thumbnail.
+	 */
+	public static BufferedImage renderThumbnail(String resourcePath, int width, int height, int scale) {
 		BufferedImage originalImage = loadThumbnailFromFilePath(resourcePath);
 
 		// Create a new BufferedImage with the desired size
-		BufferedImage resizedImage = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+		BufferedImage resizedImage = new BufferedImage(width * scale, height * scale, BufferedImage.TYPE_INT_ARGB);
 
 		// Get the Graphics2D object and set rendering hints for better quality
 		Graphics2D g2d = resizedImage.createGraphics();
@@ -55,7 +74,7 @@ public class ImageUtilities {
 		g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
 
 		// Draw the original image onto the new image, scaling it to fit
-		g2d.drawImage(originalImage, 0, 0, width, height, null);
+		g2d.drawImage(originalImage, 0, 0, width * scale, height * scale, null);
 		g2d.dispose();
 
 		return resizedImage;
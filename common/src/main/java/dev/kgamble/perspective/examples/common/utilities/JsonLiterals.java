@@ -0,0 +1,78 @@
+/*
+ * Copyright 2024 Keith Gamble
+ * [License information]
+ */
+package dev.kgamble.perspective.examples.common.utilities;
+
+import com.inductiveautomation.ignition.common.gson.JsonArray;
+import com.inductiveautomation.ignition.common.gson.JsonElement;
+import com.inductiveautomation.ignition.common.gson.JsonNull;
+import com.inductiveautomation.ignition.common.gson.JsonObject;
+import com.inductiveautomation.ignition.common.gson.JsonPrimitive;
+
+/**
+ * Utility class for building JSON trees directly from Java literals.
+ * The classes generated from the props and event schemas at build time use
+ * these methods, so the schemas can be rebuilt at runtime without reading or
+ * tokenizing any JSON text.
+ *
+ * @author Keith Gamble
+ */
+public class JsonLiterals {
+
+	/**
+	 * Builds a JsonObject from alternating keys and values.
+	 *
+	 * @param keysAndValues Alternating String keys and values, see
+	 *                      {@link #element(Object)} for the supported values.
+	 * @return A new JsonObject containing the given members, in order.
+	 */
+	public static JsonObject object(Object... keysAndValues) {
+		if (keysAndValues.length % 2 != 0) {
+			throw new IllegalArgumentException("Keys and values must be given in pairs");
+		}
+
+		JsonObject object = new JsonObject();
+		for (int i = 0; i < keysAndValues.length; i += 2) {
+			object.add((String) keysAndValues[i], element(keysAndValues[i + 1]));
+		}
+		return object;
+	}
+
+	/**
+	 * Builds a JsonArray from the given values.
+	 *
+	 * @param values The values of the array, see {@link #element(Object)} for the
+	 *               supported values.
+	 * @return A new JsonArray containing the given values, in order.
+	 */
+	public static JsonArray array(Object... values) {
+		JsonArray array = new JsonArray();
+		for (Object value : values) {
+			array.add(element(value));
+		}
+		return array;
+	}
+
+	/**
+	 * Converts a Java literal into a JsonElement.
+	 *
+	 * @param value A JsonElement, String, Number, Boolean or null.
+	 * @return The matching JsonElement.
+	 */
+	public static JsonElement element(Object value) {
+		if (value == null) {
+			return JsonNull.INSTANCE;
+		} else if (value instanceof JsonElement) {
+			return (JsonElement) value;
+		} else if (value instanceof String) {
+			return new JsonPrimitive((String) value);
+		} else if (value instanceof Number) {
+			return new JsonPrimitive((Number) value);
+		} else if (value instanceof Boolean) {
+			return new JsonPrimitive((Boolean) value);
+		}
+
+		throw new IllegalArgumentException("Unsupported JSON literal: " + value.getClass().getName());
+	}
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright 2024 Keith Gamble
+ * [License information]
+ */
+package dev.kgamble.perspective.examples.common.utilities;
+
+import java.util.Collection;
+import java.util.Optional;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.swing.Icon;
+
+import com.inductiveautomation.perspective.common.api.ComponentDescriptor;
+import com.inductiveautomation.perspective.common.api.PaletteEntry;
+
+/**
+ * A ComponentDescriptor that shows placeholders in the palette until its real
+ * palette entries and icon have been rendered.
+ *
+ * Palette thumbnails and icons are only ever shown in the Designer, so the
+ * descriptors registered on the gateway leave them out. The Designer
+ * registers those descriptors wrapped in a PlaceholderPaletteDescriptor right
+ * away, with the delegate's palette entries, which have no thumbnail, and a
+ * placeholder icon. The real assets are rendered in the background and handed
+ * over with {@link #complete(Collection, Icon)}, after which the component has
+ * to be registered again for the palette to pick them up.
+ *
+ * @author Keith Gamble
+ */
+public class PlaceholderPaletteDescriptor extends DelegatingComponentDescriptor {
+	private final Optional<Icon> placeholderIcon;
+	private volatile Collection<PaletteEntry> paletteEntries;
+	private volatile Optional<Icon> icon;
+
+	/**
+	 * Constructs a new PlaceholderPaletteDescriptor.
+	 *
+	 * @param delegate        The ComponentDescriptor to which other calls are
+	 *                        delegated.
+	 * @param placeholderIcon The icon shown until the real one is rendered, may be
+	 *                        null.
+	 */
+	public PlaceholderPaletteDescriptor(ComponentDescriptor delegate, @Nullable Icon placeholderIcon) {
+		super(delegate);
+		this.placeholderIcon = Optional.ofNullable(placeholderIcon);
+	}
+
+	/**
+	 * Replaces the placeholders with the rendered assets.
+	 *
+	 * @param paletteEntries The palette entries with thumbnails, or null to keep
+	 *                       the delegate's.
+	 * @param icon           The icon, or null if the component has none.
+	 */
+	public void complete(@Nullable Collection<PaletteEntry> paletteEntries, @Nullable Icon icon) {
+		this.paletteEntries = paletteEntries;
+		this.icon = Optional.ofNullable(icon);
+	}
+
+	/**
+	 * @return Whether the rendered assets have replaced the placeholders.
+	 */
+	public boolean isComplete() {
+		return icon != null;
+	}
+
+	@Override
+	@Nonnull
+	public Collection<PaletteEntry> paletteEntries() {
+		Collection<PaletteEntry> entries = paletteEntries;
+		return entries != null ? entries : super.paletteEntries();
+	}
+
+	@Override
+	@Nonnull
+	public Optional<Icon> getIcon() {
+		Optional<Icon> rendered = icon;
+		return rendered != null ? rendered : placeholderIcon;
+	}
+}
@@ -0,0 +1,342 @@
+/*
+ * Copyright 2024 Keith Gamble
+ * [License information]
+ */
+package dev.kgamble.perspective.examples.common.utilities;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import com.inductiveautomation.ignition.common.gson.Gson;
+import com.inductiveautomation.ignition.common.gson.JsonArray;
+import com.inductiveautomation.ignition.common.gson.JsonElement;
+import com.inductiveautomation.ignition.common.gson.JsonObject;
+import com.inductiveautomation.ignition.common.jsonschema.JsonSchema;
+
+import dev.kgamble.perspective.examples.common.LifecycleContext;
+
+/**
+ * A concurrent registry of parsed props and event schemas.
+ *
+ * Each schema is parsed once per resource path and then shared by every
+ * descriptor that asks for it. Before parsing, the schema's JSON is interned:
+ * every object, array and value is replaced by an equal one already seen in
+ * another schema, so fragments repeated across the library, like the
+ * {@code style} property and its {@code $ref}, exist once no matter how many
+ * components declare them. Unlike JsonElement.equals, fragments only match
+ * with their members in the same order, so the order of the props shown in the
+ * Designer is kept. Schemas whose JSON is equal as a whole, e.g. the
+ * payloads of events without fields, share a single JsonSchema.
+ *
+ * The registry also compiles each schema once into a CompiledValidator, for
+ * checking payloads without walking the schema.
+ *
+ * The interned JSON is shared, callers must not modify it or the schemas.
+ *
+ * @author Keith Gamble
+ */
+public class SchemaRegistry {
+	private static final Gson GSON = new Gson();
+
+	private final ConcurrentHashMap<String, JsonSchema> byKey = new ConcurrentHashMap<>();
+	private final ConcurrentHashMap<String, JsonObject> jsonByKey = new ConcurrentHashMap<>();
+	private final ConcurrentHashMap<String, JsonObject> preloaded = new ConcurrentHashMap<>();
+	private final ConcurrentHashMap<Fragment, JsonSchema> byJson = new ConcurrentHashMap<>();
+	private final ConcurrentHashMap<Fragment, JsonElement> fragments = new ConcurrentHashMap<>();
+	private final ConcurrentHashMap<String, CompiledValidator> validators = new ConcurrentHashMap<>();
+
+	private final LongAdder parsed = new LongAdder();
+	private final LongAdder sharedFragments = new LongAdder();
+
+	/**
+	 * @return The registry shared by all components of this module, for the
+	 *         current LifecycleContext.
+	 */
+	public static SchemaRegistry shared() {
+		return LifecycleContext.current().getSchemaRegistry();
+	}
+
+	/**
+	 * Returns the schema of a resource, reading and parsing it on first use.
+	 *
+	 * @param resourcePath The path of the schema in the module's jars, with or
+	 *                     without a leading slash.
+	 * @return The shared schema.
+	 * @throws IllegalArgumentException If there is no such resource.
+	 * @throws UncheckedIOException     If the resource can't be read.
+	 */
+	public JsonSchema fromResource(String resourcePath) {
+		String path = resourcePath.startsWith("/") ? resourcePath : "/" + resourcePath;
+		return get(path, () -> readResource(path));
+	}
+
+	/**
+	 * Returns the schema registered under a key, building and parsing it on
+	 * first use. The classes generated from the schemas use their resource path
+	 * as key, so they share their schema with {@link #fromResource(String)}.
+	 *
+	 * @param key  The key of the schema, usually its resource path.
+	 * @param json Builds the JSON of the schema, only called on first use.
+	 * @return The shared schema.
+	 */
+	public JsonSchema get(String key, Supplier<JsonObject> json) {
+		JsonSchema schema = byKey.get(key);
+		return schema != null ? schema : byKey.computeIfAbsent(key, k -> {
+			JsonObject preloadedJson = preloaded.remove(k);
+			JsonObject interned = (JsonObject) intern(preloadedJson != null ? preloadedJson : json.get());
+			jsonByKey.put(k, interned);
+			return parseInterned(interned);
+		});
+	}
+
+	/**
+	 * Returns the compiled validator of the schema registered under a key,
+	 * compiling it on first use.
+	 *
+	 * @param key  The key of the schema, usually its resource path.
+	 * @param json Builds the JSON of the schema, only called if the schema
+	 *             wasn't registered yet.
+	 * @return The shared validator.
+	 */
+	public CompiledValidator validator(String key, Supplier<JsonObject> json) {
+		CompiledValidator validator = validators.get(key);
+		return validator != null ? validator : validators.computeIfAbsent(key, k -> {
+			get(k, json);
+			return CompiledValidator.compile(jsonByKey.get(k));
+		});
+	}
+
+	/**
+	 * Returns the compiled validator of the schema of a resource, reading it on
+	 * first use.
+	 *
+	 * @param resourcePath The path of the schema in the module's jars, with or
+	 *                     without a leading slash.
+	 * @return The shared validator.
+	 * @throws IllegalArgumentException If there is no such resource.
+	 * @throws UncheckedIOException     If the resource can't be read.
+	 */
+	public CompiledValidator validatorFromResource(String resourcePath) {
+		String path = resourcePath.startsWith("/") ? resourcePath : "/" + resourcePath;
+		return validator(path, () -> readResource(path));
+	}
+
+	/**
+	 * Provides the JSON of schemas ahead of time, e.g. from a DescriptorSnapshot.
+	 * A schema that is asked for later is parsed from the preloaded JSON instead
+	 * of building it.
+	 *
+	 * @param schemas The JSON of each schema by key, which must be what the key's
+	 *                supplier would build.
+	 */
+	public void preload(Map<String, JsonObject> schemas) {
+		schemas.forEach((key, json) -> {
+			if (!byKey.containsKey(key)) {
+				preloaded.put(key, json);
+			}
+		});
+	}
+
+	/**
+	 * @return The JSON of every schema parsed by key, in no particular order.
+	 *         The JSON is shared, don't modify it.
+	 */
+	public Map<String, JsonObject> getSchemaJson() {
+		return Collections.unmodifiableMap(new LinkedHashMap<>(jsonByKey));
+	}
+
+	/**
+	 * Interns the JSON of a schema and parses it, unless an equal schema was
+	 * parsed before.
+	 *
+	 * @param json The JSON of the schema, which must not be modified afterwards.
+	 * @return The shared schema.
+	 */
+	public JsonSchema parse(JsonObject json) {
+		return parseInterned((JsonObject) intern(json));
+	}
+
+	private JsonSchema parseInterned(JsonObject interned) {
+		Fragment key = new Fragment(interned);
+		JsonSchema schema = byJson.get(key);
+		return schema != null ? schema : byJson.computeIfAbsent(key, k -> {
+			parsed.increment();
+			return JsonSchema.parse((JsonObject) k.element);
+		});
+	}
+
+	/**
+	 * Returns the shared instance equal to a JSON tree, bottom up, so equal
+	 * subtrees of different trees end up as the same instance.
+	 *
+	 * @param element A JSON tree, which must not be modified afterwards.
+	 * @return The shared instance equal to the tree.
+	 */
+	public JsonElement intern(JsonElement element) {
+		JsonElement canonical;
+		if (element.isJsonObject()) {
+			JsonObject object = new JsonObject();
+			for (Map.Entry<String, JsonElement> member : element.getAsJsonObject().entrySet()) {
+				object.add(member.getKey(), intern(member.getValue()));
+			}
+			canonical = object;
+		} else if (element.isJsonArray()) {
+			JsonArray array = new JsonArray();
+			for (JsonElement value : element.getAsJsonArray()) {
+				array.add(intern(value));
+			}
+			canonical = array;
+		} else {
+			canonical = element;
+		}
+
+		JsonElement existing = fragments.putIfAbsent(new Fragment(canonical), canonical);
+		if (existing != null) {
+			sharedFragments.increment();
+			return existing;
+		}
+		return canonical;
+	}
+
+	/**
+	 * @return The number of distinct fragments held, i.e. JSON objects, arrays
+	 *         and values.
+	 */
+	public int getFragmentCount() {
+		return fragments.size();
+	}
+
+	/**
+	 * @return How many times a fragment was replaced by an equal one already
+	 *         held.
+	 */
+	public long getSharedFragmentCount() {
+		return sharedFragments.sum();
+	}
+
+	/**
+	 * @return The number of distinct schemas parsed.
+	 */
+	public long getParsedCount() {
+		return parsed.sum();
+	}
+
+	/**
+	 * Forgets all schemas and fragments. Schemas handed out before stay valid.
+	 */
+	public void clear() {
+		byKey.clear();
+		jsonByKey.clear();
+		preloaded.clear();
+		byJson.clear();
+		fragments.clear();
+		validators.clear();
+	}
+
+	private static JsonObject readResource(String path) {
+		InputStream stream = SchemaRegistry.class.getResourceAsStream(path);
+		if (stream == null) {
+			throw new IllegalArgumentException("No schema found at " + path);
+		}
+		try (Reader reader = new InputStreamReader(stream, StandardCharsets.UTF_8)) {
+			return GSON.fromJson(reader, JsonObject.class);
+		} catch (IOException e) {
+			throw new UncheckedIOException("Failed to read the schema at " + path, e);
+		}
+	}
+
+	/**
+	 * The key of an interned fragment. The children of a fragment are already
+	 * interned, so they are compared by identity, which keeps comparing a
+	 * fragment as cheap as its own size.
+	 */
+	private static final class Fragment {
+		private final JsonElement element;
+		private final int hash;
+
+		Fragment(JsonElement element) {
+			this.element = element;
+			this.hash = hashOf(element);
+		}
+
+		private static int hashOf(JsonElement element) {
+			int hash;
+			if (element.isJsonObject()) {
+				hash = 1;
+				for (Map.Entry<String, JsonElement> member : element.getAsJsonObject().entrySet()) {
+					hash = 31 * (31 * hash + member.getKey().hashCode()) + System.identityHashCode(member.getValue());
+				}
+			} else if (element.isJsonArray()) {
+				hash = 2;
+				for (JsonElement value : element.getAsJsonArray()) {
+					hash = 31 * hash + System.identityHashCode(value);
+				}
+			} else {
+				hash = element.toString().hashCode();
+			}
+			return hash;
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+
+		@Override
+		public boolean equals(Object other) {
+			if (this == other) {
+				return true;
+			}
+			if (!(other instanceof Fragment) || ((Fragment) other).hash != hash) {
+				return false;
+			}
+			JsonElement that = ((Fragment) other).element;
+
+			if (element.isJsonObject()) {
+				return that.isJsonObject() && sameMembers(element.getAsJsonObject(), that.getAsJsonObject());
+			} else if (element.isJsonArray()) {
+				return that.isJsonArray() && sameValues(element.getAsJsonArray(), that.getAsJsonArray());
+			}
+			// Values only match with the same type and the same JSON text, so 1 and 1.0 stay apart
+			return !that.isJsonObject() && !that.isJsonArray() && element.equals(that)
+					&& element.toString().equals(that.toString());
+		}
+
+		private static boolean sameMembers(JsonObject a, JsonObject b) {
+			if (a.size() != b.size()) {
+				return false;
+			}
+			Iterator<Map.Entry<String, JsonElement>> others = b.entrySet().iterator();
+			for (Map.Entry<String, JsonElement> member : a.entrySet()) {
+				Map.Entry<String, JsonElement> other = others.next();
+				if (!member.getKey().equals(other.getKey()) || member.getValue() != other.getValue()) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		private static boolean sameValues(JsonArray a, JsonArray b) {
+			if (a.size() != b.size()) {
+				return false;
+			}
+			for (int i = 0; i < a.size(); i++) {
+				if (a.get(i) != b.get(i)) {
+					return false;
+				}
+			}
+			return true;
+		}
+	}
+}
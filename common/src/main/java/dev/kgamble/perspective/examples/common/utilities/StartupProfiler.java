@@ -0,0 +1,192 @@
+/*
+ * Copyright 2024 Keith Gamble
+ * [License information]
+ */
+package dev.kgamble.perspective.examples.common.utilities;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import com.inductiveautomation.ignition.common.util.LoggerEx;
+
+import dev.kgamble.perspective.examples.common.LifecycleContext;
+
+/**
+ * Records the wall time and allocated bytes of each phase of the module's
+ * startup, per component: class init, descriptor, schema and event descriptor
+ * loading, thumbnail and icon generation, and the registry calls.
+ *
+ * Phases can be nested, e.g. the schema load of a component happens within its
+ * descriptor. Nested phases are reported indented below the phase they ran in,
+ * and their time is also included in it.
+ *
+ * @author Keith Gamble
+ */
+public class StartupProfiler {
+	private final List<Phase> phases = new ArrayList<>();
+	private final ThreadLocal<int[]> depth = ThreadLocal.withInitial(() -> new int[1]);
+
+	/**
+	 * @return The profiler of this module, for the current LifecycleContext.
+	 */
+	public static StartupProfiler get() {
+		return LifecycleContext.current().getProfiler();
+	}
+
+	/**
+	 * Runs and records a phase that produces a value.
+	 *
+	 * @param component The id of the component the phase belongs to, or the scope
+	 *                  for phases that aren't specific to a component.
+	 * @param phase     The name of the phase, e.g. "schema load".
+	 * @param work      The work of the phase.
+	 * @return The value produced by the work.
+	 */
+	public <T> T time(String component, String phase, Supplier<T> work) {
+		int[] currentDepth = depth.get();
+		// Added when started, so phases are listed in the order they started
+		Phase recorded = new Phase(component, phase, currentDepth[0]);
+		synchronized (phases) {
+			phases.add(recorded);
+		}
+
+		long startBytes = allocatedBytes();
+		long startNanos = System.nanoTime();
+		currentDepth[0]++;
+		try {
+			return work.get();
+		} finally {
+			currentDepth[0]--;
+			long nanos = System.nanoTime() - startNanos;
+			long bytes = startBytes < 0 ? -1 : allocatedBytes() - startBytes;
+			recorded.bytes = bytes;
+			recorded.nanos = nanos;
+		}
+	}
+
+	/**
+	 * Runs and records a phase that doesn't produce a value.
+	 *
+	 * @param component The id of the component the phase belongs to.
+	 * @param phase     The name of the phase, e.g. "registry call".
+	 * @param work      The work of the phase.
+	 */
+	public void run(String component, String phase, Runnable work) {
+		time(component, phase, () -> {
+			work.run();
+			return null;
+		});
+	}
+
+	/**
+	 * Logs all recorded phases at INFO, nested phases indented below the phase
+	 * they ran in.
+	 *
+	 * @param log   The logger to write to.
+	 * @param title The first line of the report, e.g. "Gateway startup".
+	 */
+	public void logReport(LoggerEx log, String title) {
+		StringBuilder report = new StringBuilder(title).append(':');
+		for (Phase phase : getPhases()) {
+			report.append(String.format("%n  %s%-40s %-24s %10.3f ms %12s",
+					"  ".repeat(phase.depth),
+					phase.component,
+					phase.name,
+					phase.nanos / 1_000_000d,
+					phase.bytes < 0 ? "n/a" : phase.bytes + " B"));
+		}
+		log.info(report.toString());
+	}
+
+	/**
+	 * @return The recorded phases in the order they started.
+	 */
+	public List<Phase> getPhases() {
+		synchronized (phases) {
+			return new ArrayList<>(phases);
+		}
+	}
+
+	/**
+	 * @return The recorded phases as plain maps, suitable for JSON and scripting.
+	 */
+	public List<Map<String, Object>> snapshot() {
+		List<Map<String, Object>> snapshot = new ArrayList<>();
+		for (Phase phase : getPhases()) {
+			Map<String, Object> entry = new LinkedHashMap<>();
+			entry.put("component", phase.component);
+			entry.put("phase", phase.name);
+			entry.put("depth", phase.depth);
+			entry.put("wallMs", Math.round(phase.nanos / 1_000d) / 1_000d);
+			entry.put("allocatedBytes", phase.bytes);
+			snapshot.add(entry);
+		}
+		return snapshot;
+	}
+
+	/**
+	 * Forgets all recorded phases.
+	 */
+	public void clear() {
+		synchronized (phases) {
+			phases.clear();
+		}
+	}
+
+	/**
+	 * @return The bytes allocated by the current thread so far, or -1 if the JVM
+	 *         doesn't track them.
+	 */
+	private static long allocatedBytes() {
+		java.lang.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+		if (threads instanceof com.sun.management.ThreadMXBean) {
+			com.sun.management.ThreadMXBean sunThreads = (com.sun.management.ThreadMXBean) threads;
+			if (sunThreads.isThreadAllocatedMemorySupported() && sunThreads.isThreadAllocatedMemoryEnabled()) {
+				return sunThreads.getCurrentThreadAllocatedBytes();
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * A recorded phase.
+	 */
+	public static class Phase {
+		private final String component;
+		private final String name;
+		private final int depth;
+		// Set when the phase finishes
+		private volatile long nanos = -1;
+		private volatile long bytes = -1;
+
+		Phase(String component, String name, int depth) {
+			this.component = component;
+			this.name = name;
+			this.depth = depth;
+		}
+
+		public String getComponent() {
+			return component;
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		public int getDepth() {
+			return depth;
+		}
+
+		public long getNanos() {
+			return nanos;
+		}
+
+		public long getAllocatedBytes() {
+			return bytes;
+		}
+	}
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright 2024 Keith Gamble
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+*/
+package dev.kgamble.perspective.examples.designer;
+
+import javax.swing.Icon;
+import java.awt.Component;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+
+import dev.kgamble.perspective.examples.common.utilities.ImageCache;
+
+/**
+ * A Swing Icon that paints an SVG file from images pre-rendered into the
+ * shared {@link ImageCache}.
+ *
+ * When the icon is painted on a scaled Graphics, i.e. on a HiDPI display, the
+ * 2x image is drawn into the icon's bounds, otherwise the 1x image is. Both
+ * are rendered when the icon is constructed, on the palette loader's thread,
+ * and held by the icon, so painting never runs Batik on the Swing event thread
+ * and keeps working after the cache dropped them or was closed.
+ *
+ * @author Keith Gamble
+ */
+public class CachedSvgIcon implements Icon {
+	private final int width;
+	private final int height;
+	private final BufferedImage image1x;
+	private final BufferedImage image2x;
+
+	/**
+	 * Constructs a new CachedSvgIcon, rendering the SVG at 1x and 2x unless the
+	 * cache holds them.
+	 *
+	 * @param filePath The path to the SVG file, relative to the classpath.
+	 * @param width    The width of the icon.
+	 * @param height   The height of the icon.
+	 * @throws RuntimeException If there's an error loading or rendering the SVG
+	 *                          file.
+	 */
+	public CachedSvgIcon(String filePath, int width, int height) {
+		this.width = width;
+		this.height = height;
+		ImageCache cache = ImageCache.shared();
+		this.image1x = cache.get(filePath, width, height, 1,
+				() -> IconUtilities.renderSvgIcon(filePath, width, height, 1));
+		this.image2x = cache.get(filePath, width, height, 2,
+				() -> IconUtilities.renderSvgIcon(filePath, width, height, 2));
+	}
+
+	/**
+	 * @param scale The scale factor of the image, 1 or 2.
+	 * @return The image of the icon at the scale factor.
+	 */
+	public BufferedImage getImage(int scale) {
+		return scale > 1 ? image2x : image1x;
+	}
+
+	@Override
+	public void paintIcon(Component c, Graphics g, int x, int y) {
+		Graphics2D g2d = (Graphics2D) g.create();
+		try {
+			int scale = g2d.getTransform().getScaleX() > 1 ? 2 : 1;
+			g2d.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+			g2d.drawImage(getImage(scale), x, y, width, height, null);
+		} finally {
+			g2d.dispose();
+		}
+	}
+
+	@Override
+	public int getIconWidth() {
+		return width;
+	}
+
+	@Override
+	public int getIconHeight() {
+		return height;
+	}
+}
@@ -6,15 +6,17 @@
 */
 package dev.kgamble.perspective.examples.designer;
 
-import javax.swing.Icon;
-import java.util.Optional;
-import javax.annotation.Nonnull;
+import java.util.Collection;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
 
 import com.inductiveautomation.ignition.common.util.LoggerEx;
 import com.inductiveautomation.perspective.common.api.ComponentDescriptor;
+import com.inductiveautomation.perspective.common.api.PaletteEntry;
 import com.inductiveautomation.perspective.designer.DesignerComponentRegistry;
 
-import dev.kgamble.perspective.examples.common.utilities.DelegatingComponentDescriptor;
+import dev.kgamble.perspective.examples.common.utilities.PlaceholderPaletteDescriptor;
+import dev.kgamble.perspective.examples.common.utilities.StartupProfiler;
 
 /**
  * Utility class for registering components with custom icons in the Ignition Designer.
@@ -26,42 +28,39 @@ public class ComponentUtilities {
     private static final LoggerEx logger = LoggerEx.newBuilder().build(ComponentUtilities.class);
     
     /**
-     * Registers a component with a custom SVG icon in the Designer component registry.
+     * Registers a component with its palette entries and a custom SVG icon in the Designer component registry.
      * 
      * We use Designer-scoped SVG functions because:
      * 1. The Designer scope already has the SvgIconUtil class available for loading SVG icons.
+     * 2. The icon is rendered into the shared ImageCache, once per scale factor, instead of on every paint.
      * 
-     * We use a DelegatingComponentDescriptor because:
-     * 1. It allows us to override only the getIcon() method while keeping all other descriptor behaviors intact.
-     * 2. This approach avoids the need to implement all methods of ComponentDescriptor, reducing code duplication.
-     * 3. It provides a flexible way to customize component representation in the Designer without modifying the original descriptor.
+     * We use a PlaceholderPaletteDescriptor because:
+     * 1. It allows us to override only the paletteEntries() and getIcon() methods while keeping all other descriptor behaviors intact.
+     * 2. The component is registered right away with placeholders, and the thumbnails and icon are rendered by the
+     *    PaletteAssetLoader in the background, so the Designer never waits for them while it starts.
+     * 3. The descriptor shared with the gateway stays free of images, so the gateway never loads them.
+     * 
+     * Once the assets are rendered, the component is registered again on the Swing event thread so the palette
+     * shows them.
      * 
      * @param registry The DesignerComponentRegistry to register the component with.
      * @param descriptor The original ComponentDescriptor of the component.
+     * @param paletteEntries Creates the palette entries of the component, including their thumbnails.
      * @param iconFilePath The file path of the SVG icon to be used for the component.
+     * @param loader Renders the palette entries and icon in the background.
+     * @return Completes once the component was registered again with its rendered assets, see
+     *         {@link PaletteAssetLoader#load}.
      */
-    public static void registerComponentWithIcon(DesignerComponentRegistry registry, ComponentDescriptor descriptor, String iconFilePath) {
-        Icon icon = null;
-        try {
-            icon = IconUtilities.getSvgIcon(iconFilePath);
-        } catch (Exception e) {
-            logger.error("Failed to load icon from path: " + iconFilePath, e);
-        }
-
-        final Icon finalIcon = icon;  // Need a final reference for use in the anonymous class
+    public static CompletableFuture<Void> registerComponentWithIcon(DesignerComponentRegistry registry, ComponentDescriptor descriptor,
+            Supplier<Collection<PaletteEntry>> paletteEntries, String iconFilePath, PaletteAssetLoader loader) {
+        PlaceholderPaletteDescriptor paletteDescriptor = new PlaceholderPaletteDescriptor(descriptor,
+                new PlaceholderIcon(IconUtilities.ICON_SIZE, IconUtilities.ICON_SIZE));
+        StartupProfiler.get().run(descriptor.id(), "registry call", () -> registry.registerComponent(paletteDescriptor));
+        logger.trace("Component " + descriptor.id() + " registered with placeholders.");
 
-        registry.registerComponent(new DelegatingComponentDescriptor(descriptor) {
-            @Override
-            @Nonnull
-            public Optional<Icon> getIcon() {
-                return Optional.ofNullable(finalIcon);
-            }
+        return loader.load(paletteDescriptor, paletteEntries, iconFilePath, () -> {
+            registry.removeComponent(descriptor.id());
+            registry.registerComponent(paletteDescriptor);
         });
-
-        if (finalIcon == null) {
-            logger.warn("Component " + descriptor.id() + " registered without an icon due to loading failure.");
-        } else {
-            logger.trace("Component " + descriptor.id() + " registered successfully with custom icon.");
-        }
     }
-}
\ No newline at end of file
+}
@@ -1,13 +1,20 @@
 package dev.kgamble.perspective.examples.designer;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
 import com.inductiveautomation.ignition.common.licensing.LicenseState;
 import com.inductiveautomation.ignition.common.util.LoggerEx;
 import com.inductiveautomation.ignition.designer.model.AbstractDesignerModuleHook;
 import com.inductiveautomation.ignition.designer.model.DesignerContext;
 import com.inductiveautomation.perspective.designer.DesignerComponentRegistry;
+import com.inductiveautomation.perspective.common.api.ComponentDescriptor;
 import com.inductiveautomation.perspective.designer.api.PerspectiveDesignerInterface;
 
-import dev.kgamble.perspective.examples.common.components.input.Button;
+import dev.kgamble.perspective.examples.common.ComponentCatalog;
+import dev.kgamble.perspective.examples.common.LifecycleContext;
+import dev.kgamble.perspective.examples.common.utilities.StartupProfiler;
 
 /**
  * Designer module hook for the Example Component Library.
@@ -18,7 +25,11 @@ public class ExampleComponentLibraryDesignerHook extends AbstractDesignerModuleH
 	private static final LoggerEx log = LoggerEx.newBuilder().build(ExampleComponentLibraryDesignerHook.class);
 
 	private DesignerContext context;
+	private LifecycleContext lifecycle;
 	private DesignerComponentRegistry registry;
+	private PaletteAssetLoader paletteAssetLoader;
+	private final List<String> registeredComponents = new ArrayList<>();
+	private final List<CompletableFuture<Void>> paletteLoads = new ArrayList<>();
 
 	/**
 	 * Initializes the module in the Designer scope.
@@ -30,7 +41,21 @@ public class ExampleComponentLibraryDesignerHook extends AbstractDesignerModuleH
 	public void startup(DesignerContext context, LicenseState activationState) {
 		log.trace("Starting up Example Component Library Designer Hook");
 		this.context = context;
-		init();
+		// Everything the components build from here on is released with it on shutdown
+		this.lifecycle = LifecycleContext.start("designer");
+
+		StartupProfiler profiler = StartupProfiler.get();
+		profiler.run("designer", "init", this::init);
+		profiler.logReport(log, "Example Component Library Designer startup");
+
+		// The thumbnails and icons are rendered after the report above, so their phases get a report of their own
+		PaletteAssetLoader loader = paletteAssetLoader;
+		CompletableFuture.allOf(paletteLoads.toArray(new CompletableFuture<?>[0])).whenComplete((ignored, error) -> {
+			if (!loader.isShutdown()) {
+				profiler.logReport(log, "Example Component Library Designer startup, with palette assets");
+			}
+		});
+		paletteLoads.clear();
 	}
 
 	/**
@@ -40,9 +65,34 @@ public class ExampleComponentLibraryDesignerHook extends AbstractDesignerModuleH
 		PerspectiveDesignerInterface pdi = PerspectiveDesignerInterface.get(context);
 
 		registry = pdi.getDesignerComponentRegistry();
+		paletteAssetLoader = PaletteAssetLoader.fromSystemProperties();
+
+		// Descriptors are built in parallel, the registry is only called from this thread
+		ComponentCatalog.BuildResult catalog = StartupProfiler.get().time("designer", "build descriptors",
+				ComponentCatalog::buildDescriptors);
+		catalog.getFailures().forEach((entry, error) -> log.error(
+				"Failed to build component " + entry.getId() + ", it will not be available.", error));
 
-		// Each component must be registered, with an optional icon, to the component registry.
-		ComponentUtilities.registerComponentWithIcon(registry, Button.DESCRIPTOR, "/images/button-click.svg");
+		// Each component must be registered, with its palette entries and an optional icon, to the component registry.
+		// Components are registered with placeholders, the palette entries and icon are rendered in the background.
+		catalog.getDescriptors().forEach(this::registerComponent);
+	}
+
+	/**
+	 * Registers a component with the Designer's component registry. A component
+	 * that fails to register is logged and skipped.
+	 *
+	 * @param entry      The catalog entry of the component.
+	 * @param descriptor The descriptor built for it.
+	 */
+	private void registerComponent(ComponentCatalog.Entry entry, ComponentDescriptor descriptor) {
+		try {
+			paletteLoads.add(ComponentUtilities.registerComponentWithIcon(registry, descriptor,
+					entry.getPaletteEntries(), entry.getIconPath(), paletteAssetLoader));
+			registeredComponents.add(entry.getId());
+		} catch (Exception e) {
+			log.error("Failed to register component " + entry.getId() + ", it will not be available.", e);
+		}
 	}
 
 	/**
@@ -51,13 +101,23 @@ public class ExampleComponentLibraryDesignerHook extends AbstractDesignerModuleH
 	@Override
 	public void shutdown() {
 		log.trace("Shutting down Example Component Library Designer Hook");
+		if (paletteAssetLoader != null) {
+			paletteAssetLoader.shutdown(5000);
+			paletteAssetLoader = null;
+		}
 		removeComponents();
+		if (lifecycle != null) {
+			// Drops the descriptors, schemas, palette images and SVG factories
+			lifecycle.close();
+			lifecycle = null;
+		}
 	}
 
 	/**
 	 * Removes registered components from the registry.
 	 */
 	private void removeComponents() {
-		registry.removeComponent(Button.COMPONENT_ID);
+		registeredComponents.forEach(registry::removeComponent);
+		registeredComponents.clear();
 	}
 }
\ No newline at end of file
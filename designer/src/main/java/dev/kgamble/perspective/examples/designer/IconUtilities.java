@@ -7,12 +7,19 @@
 package dev.kgamble.perspective.examples.designer;
 
 import javax.swing.Icon;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
 import java.io.IOException;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import org.apache.batik.anim.dom.SAXSVGDocumentFactory;
 import org.apache.batik.util.XMLResourceDescriptor;
 import org.w3c.dom.svg.SVGDocument;
 import com.inductiveautomation.ignition.client.icons.SvgIconUtil;
 import com.inductiveautomation.perspective.designer.DesignerHook;
+import dev.kgamble.perspective.examples.common.LifecycleContext;
+import dev.kgamble.perspective.examples.common.utilities.ImageCache;
 
 /**
  * Utility class for handling SVG icons in the Ignition Designer.
@@ -30,10 +37,19 @@ public class IconUtilities {
 	public static String xmlParser = XMLResourceDescriptor.getXMLParserClassName();
 
 	/**
-	 * Factory for creating SVG documents from XML input.
-	 * This factory is initialized with the XML parser specified above.
+	 * The key of the idle factories for creating SVG documents in the
+	 * LifecycleContext. SAXSVGDocumentFactory keeps parser state between calls,
+	 * so each factory is used by one thread at a time. They are kept in the
+	 * context rather than in a ThreadLocal, so closing the context releases them
+	 * instead of leaving one on every thread that ever loaded an icon, like the
+	 * Swing event thread.
 	 */
-	public static SAXSVGDocumentFactory factory = new SAXSVGDocumentFactory(xmlParser);
+	private static final String FACTORIES_KEY = "designer#svgDocumentFactories";
+
+	/**
+	 * The size of component icons in the palette, at scale 1.
+	 */
+	public static final int ICON_SIZE = 16;
 
 	/**
 	 * Loads an SVG file and converts it into a Swing Icon object.
@@ -52,16 +68,76 @@ public class IconUtilities {
 	 */
 	public static Icon getSvgIcon(String filePath) {
 		final Icon componentIcon;
+		// Create an SVG document from the file
+		SVGDocument document = loadSvgDocument(filePath);
+		// Convert the SVG document to a Swing Icon
+		componentIcon = new SvgIconUtil.SvgIcon(document, ICON_SIZE, ICON_SIZE);
+
+		return componentIcon;
+	}
+
+	/**
+	 * Loads an SVG file as a Swing Icon that paints pre-rendered images from the
+	 * shared {@link ImageCache} instead of the SVG document.
+	 *
+	 * The SVG is rendered at 1x and 2x right away, on the calling thread, and
+	 * the icon holds both images, so painting it, also on a HiDPI display, only
+	 * draws an image.
+	 *
+	 * @param filePath The path to the SVG file, relative to the classpath.
+	 * @return An Icon object representing the loaded SVG.
+	 * @throws RuntimeException If there's an error loading or processing the SVG
+	 *                          file.
+	 */
+	public static Icon getCachedSvgIcon(String filePath) {
+		// Renders both variants, so a broken SVG fails here and not on paint
+		return new CachedSvgIcon(filePath, ICON_SIZE, ICON_SIZE);
+	}
+
+	/**
+	 * Renders an SVG file into a new image, without going through the cache.
+	 *
+	 * @param filePath The path to the SVG file, relative to the classpath.
+	 * @param width    The width of the icon at scale 1.
+	 * @param height   The height of the icon at scale 1.
+	 * @param scale    The scale factor, e.g. 2 for HiDPI displays.
+	 * @return A new image of width * scale by height * scale pixels.
+	 */
+	public static BufferedImage renderSvgIcon(String filePath, int width, int height, int scale) {
+		SVGDocument document = loadSvgDocument(filePath);
+
+		BufferedImage image = new BufferedImage(width * scale, height * scale, BufferedImage.TYPE_INT_ARGB);
+		Graphics2D g2d = image.createGraphics();
+		g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+		g2d.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+		g2d.scale(scale, scale);
+		new SvgIconUtil.SvgIcon(document, width, height).paintIcon(null, g2d, 0, 0);
+		g2d.dispose();
+		return image;
+	}
+
+	/**
+	 * Parses an SVG file with an idle factory of the current LifecycleContext,
+	 * creating one if all are in use.
+	 *
+	 * @param filePath The path to the SVG file, relative to the classpath.
+	 * @return The SVG document.
+	 * @throws RuntimeException If there's an error loading the SVG file.
+	 */
+	private static SVGDocument loadSvgDocument(String filePath) {
+		Queue<SAXSVGDocumentFactory> factories = LifecycleContext.current().get(FACTORIES_KEY,
+				ConcurrentLinkedQueue::new);
+		SAXSVGDocumentFactory factory = factories.poll();
+		if (factory == null) {
+			factory = new SAXSVGDocumentFactory(xmlParser);
+		}
 		try (var inputStream = DesignerHook.class.getResourceAsStream(filePath)) {
-			// Create an SVG document from the input stream
-			SVGDocument document = factory.createSVGDocument(filePath, inputStream);
-			// Convert the SVG document to a Swing Icon
-			componentIcon = new SvgIconUtil.SvgIcon(document, 16, 16);
+			return factory.createSVGDocument(filePath, inputStream);
 		} catch (IOException e) {
 			// If there's an error loading the icon, throw a RuntimeException
 			throw new RuntimeException("Unable to load resource icon", e);
+		} finally {
+			factories.offer(factory);
 		}
-
-		return componentIcon;
 	}
-}
\ No newline at end of file
+}
@@ -0,0 +1,154 @@
+/*
+ * Copyright 2024 Keith Gamble
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+*/
+package dev.kgamble.perspective.examples.designer;
+
+import javax.swing.Icon;
+import javax.swing.SwingUtilities;
+import java.util.Collection;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import com.inductiveautomation.ignition.common.util.LoggerEx;
+import com.inductiveautomation.perspective.common.api.PaletteEntry;
+
+import dev.kgamble.perspective.examples.common.Constants;
+import dev.kgamble.perspective.examples.common.utilities.PlaceholderPaletteDescriptor;
+import dev.kgamble.perspective.examples.common.utilities.StartupProfiler;
+
+/**
+ * Renders the palette thumbnails and icons of registered components on a few
+ * background threads, so the Designer never waits for Batik or image scaling
+ * while it starts.
+ *
+ * Each load fills a PlaceholderPaletteDescriptor with the rendered assets and
+ * then runs its callback on the Swing event thread, where the component is
+ * registered again so the palette shows them. After {@link #shutdown(long)}
+ * no more callbacks are run, and the futures of loads that hadn't started
+ * never complete.
+ *
+ * The number of threads can be set with the
+ * {@code example-components.palette.threads} system property.
+ *
+ * @author Keith Gamble
+ */
+public class PaletteAssetLoader {
+	private static final LoggerEx log = LoggerEx.newBuilder().build(PaletteAssetLoader.class);
+	private static final String PROPERTY_PREFIX = Constants.MODULE_URL_ALIAS + ".palette.";
+
+	private final ExecutorService executor;
+	private volatile boolean shutdown = false;
+
+	/**
+	 * Constructs a new PaletteAssetLoader.
+	 *
+	 * @param threads The number of threads rendering assets.
+	 */
+	public PaletteAssetLoader(int threads) {
+		AtomicInteger threadCount = new AtomicInteger();
+		ThreadPoolExecutor pool = new ThreadPoolExecutor(Math.max(1, threads), Math.max(1, threads), 5,
+				TimeUnit.SECONDS, new LinkedBlockingQueue<>(), runnable -> {
+					Thread thread = new Thread(runnable, "example-components-palette-" + threadCount.incrementAndGet());
+					thread.setDaemon(true);
+					return thread;
+				});
+		// The assets are only rendered once, so the threads don't outlive the work
+		pool.allowCoreThreadTimeOut(true);
+		this.executor = pool;
+	}
+
+	/**
+	 * Creates a loader configured from the
+	 * {@code example-components.palette.*} system properties.
+	 *
+	 * @return The loader.
+	 */
+	public static PaletteAssetLoader fromSystemProperties() {
+		int threads = Integer.getInteger(PROPERTY_PREFIX + "threads",
+				Math.max(1, Math.min(2, Runtime.getRuntime().availableProcessors() - 1)));
+		return new PaletteAssetLoader(threads);
+	}
+
+	/**
+	 * Renders the palette entries and icon of a component in the background. A
+	 * component whose assets fail to render keeps its placeholders, or is shown
+	 * without an icon.
+	 *
+	 * @param descriptor     The registered descriptor showing the placeholders.
+	 * @param paletteEntries Creates the palette entries, including thumbnails.
+	 * @param iconFilePath   The path of the component's SVG icon.
+	 * @param onLoaded       Run on the Swing event thread once the descriptor
+	 *                       holds the rendered assets.
+	 * @return Completes once the callback has run, or was skipped after shutdown.
+	 */
+	public CompletableFuture<Void> load(PlaceholderPaletteDescriptor descriptor,
+			Supplier<Collection<PaletteEntry>> paletteEntries, String iconFilePath, Runnable onLoaded) {
+		String componentId = descriptor.id();
+		StartupProfiler profiler = StartupProfiler.get();
+		return CompletableFuture.runAsync(() -> {
+			Collection<PaletteEntry> entries = null;
+			try {
+				entries = paletteEntries.get();
+			} catch (Exception e) {
+				log.error("Failed to render the palette entries of component " + componentId
+						+ ", it is shown without a thumbnail.", e);
+			}
+
+			Icon icon = null;
+			try {
+				icon = profiler.time(componentId, "icon", () -> IconUtilities.getCachedSvgIcon(iconFilePath));
+			} catch (Exception e) {
+				log.error("Failed to load icon from path: " + iconFilePath + ", component " + componentId
+						+ " is shown without an icon.", e);
+			}
+			descriptor.complete(entries, icon);
+		}, executor).thenCompose(ignored -> {
+			CompletableFuture<Void> swapped = new CompletableFuture<>();
+			SwingUtilities.invokeLater(() -> {
+				try {
+					if (!shutdown) {
+						onLoaded.run();
+						log.trace("Palette assets of component " + componentId + " loaded.");
+					}
+					swapped.complete(null);
+				} catch (Throwable t) {
+					swapped.completeExceptionally(t);
+				}
+			});
+			return swapped;
+		});
+	}
+
+	/**
+	 * @return Whether {@link #shutdown(long)} was called.
+	 */
+	public boolean isShutdown() {
+		return shutdown;
+	}
+
+	/**
+	 * Stops rendering assets. Pending loads are dropped and no more callbacks
+	 * run.
+	 *
+	 * @param timeoutMillis How long to wait for assets being rendered.
+	 */
+	public void shutdown(long timeoutMillis) {
+		shutdown = true;
+		executor.shutdownNow();
+		try {
+			if (!executor.awaitTermination(timeoutMillis, TimeUnit.MILLISECONDS)) {
+				log.warn("Palette threads did not stop within " + timeoutMillis + " ms.");
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
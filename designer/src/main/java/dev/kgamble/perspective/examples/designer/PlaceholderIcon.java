@@ -0,0 +1,61 @@
+/*
+ * Copyright 2024 Keith Gamble
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+*/
+package dev.kgamble.perspective.examples.designer;
+
+import javax.swing.Icon;
+import java.awt.Color;
+import java.awt.Component;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+
+/**
+ * A Swing Icon shown in the palette until a component's SVG icon has been
+ * rendered: a rounded outline the size of the real icon, painted without
+ * loading anything.
+ *
+ * @author Keith Gamble
+ */
+public class PlaceholderIcon implements Icon {
+	private static final Color OUTLINE = new Color(128, 128, 128, 160);
+
+	private final int width;
+	private final int height;
+
+	/**
+	 * Constructs a new PlaceholderIcon.
+	 *
+	 * @param width  The width of the icon.
+	 * @param height The height of the icon.
+	 */
+	public PlaceholderIcon(int width, int height) {
+		this.width = width;
+		this.height = height;
+	}
+
+	@Override
+	public void paintIcon(Component c, Graphics g, int x, int y) {
+		Graphics2D g2d = (Graphics2D) g.create();
+		try {
+			g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+			g2d.setColor(OUTLINE);
+			g2d.drawRoundRect(x + 1, y + 1, width - 3, height - 3, 4, 4);
+		} finally {
+			g2d.dispose();
+		}
+	}
+
+	@Override
+	public int getIconWidth() {
+		return width;
+	}
+
+	@Override
+	public int getIconHeight() {
+		return height;
+	}
+}
@@ -22,6 +22,7 @@ dependencies {
     // Runtime dependencies provided by Ignition
     compileOnly(libs.ignition.common)  // Core Ignition classes
     compileOnly(libs.ignition.gateway.api)  // Gateway-specific API
+    compileOnly(libs.google.guava)  // Google Guava library
     // Perspective dependencies that need to be included
     implementation(libs.ignition.perspective.gateway)
     implementation(libs.ignition.perspective.common)
@@ -1,16 +1,59 @@
 package dev.kgamble.perspective.examples.gateway;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
 
+import com.inductiveautomation.ignition.common.BundleUtil;
 import com.inductiveautomation.ignition.common.licensing.LicenseState;
+import com.inductiveautomation.ignition.common.script.ScriptManager;
+import com.inductiveautomation.ignition.common.script.hints.PropertiesFileDocProvider;
 import com.inductiveautomation.ignition.common.util.LoggerEx;
+import com.inductiveautomation.ignition.gateway.dataroutes.RouteGroup;
 import com.inductiveautomation.ignition.gateway.model.AbstractGatewayModuleHook;
 import com.inductiveautomation.ignition.gateway.model.GatewayContext;
+import com.inductiveautomation.perspective.common.api.ComponentDescriptor;
 import com.inductiveautomation.perspective.common.api.ComponentRegistry;
+import com.inductiveautomation.perspective.gateway.api.ComponentModelDelegateRegistry;
 import com.inductiveautomation.perspective.gateway.api.PerspectiveContext;
 
+import dev.kgamble.perspective.examples.common.ComponentCatalog;
 import dev.kgamble.perspective.examples.common.Constants;
+import dev.kgamble.perspective.examples.common.DescriptorSnapshot;
+import dev.kgamble.perspective.examples.common.EventRateLimit;
+import dev.kgamble.perspective.examples.common.LifecycleContext;
+import dev.kgamble.perspective.examples.common.components.chart.Trend;
+import dev.kgamble.perspective.examples.common.components.display.Table;
 import dev.kgamble.perspective.examples.common.components.input.Button;
+import dev.kgamble.perspective.examples.common.generated.DescriptorSources;
+import dev.kgamble.perspective.examples.common.generated.WebBundle;
+import dev.kgamble.perspective.examples.common.utilities.SchemaRegistry;
+import dev.kgamble.perspective.examples.common.utilities.StartupProfiler;
+import dev.kgamble.perspective.examples.gateway.channels.ChannelStore;
+import dev.kgamble.perspective.examples.gateway.delegates.ButtonActionReceiver;
+import dev.kgamble.perspective.examples.gateway.delegates.ButtonModelDelegate;
+import dev.kgamble.perspective.examples.gateway.delegates.TableModelDelegate;
+import dev.kgamble.perspective.examples.gateway.delegates.TrendModelDelegate;
+import dev.kgamble.perspective.examples.gateway.events.ActionDeduplicator;
+import dev.kgamble.perspective.examples.gateway.events.ActionHandler;
+import dev.kgamble.perspective.examples.gateway.events.ActionPipeline;
+import dev.kgamble.perspective.examples.gateway.events.ActionPipelineSettings;
+import dev.kgamble.perspective.examples.gateway.journal.ActionJournal;
+import dev.kgamble.perspective.examples.gateway.journal.ActionJournalSettings;
+import dev.kgamble.perspective.examples.gateway.journal.ActionRecorder;
+import dev.kgamble.perspective.examples.gateway.metrics.EventMetrics;
+import dev.kgamble.perspective.examples.gateway.metrics.MetricsRoute;
+import dev.kgamble.perspective.examples.gateway.metrics.ModuleMetrics;
+import dev.kgamble.perspective.examples.gateway.ratelimit.ComponentRateLimiter;
+import dev.kgamble.perspective.examples.gateway.ratelimit.EventRateLimiter;
+import dev.kgamble.perspective.examples.gateway.resources.PrecompressedAssets;
+import dev.kgamble.perspective.examples.gateway.scripting.ExampleScriptModule;
+import dev.kgamble.perspective.examples.gateway.table.TableService;
+import dev.kgamble.perspective.examples.gateway.trend.TrendService;
+import dev.kgamble.perspective.examples.gateway.writeback.TagWriteSink;
+import dev.kgamble.perspective.examples.gateway.writeback.WriteCoalescer;
 
 /**
  * Gateway module hook for the Example Component Library.
@@ -21,9 +64,30 @@ public class ExampleComponentLibraryGatewayHook extends AbstractGatewayModuleHoo
 
 	private static final LoggerEx log = LoggerEx.newBuilder().build(ExampleComponentLibraryGatewayHook.class);
 
+	/**
+	 * Set to true to build the descriptors with the snapshot of the last start.
+	 * Off by default: the generated schema classes build their JSON without
+	 * I/O, so reading and parsing the snapshot only pays off where
+	 * DescriptorBuildBenchmark.coldStartFromSnapshot beats coldStart.
+	 */
+	private static final String SNAPSHOT_ENABLED_PROPERTY = "example-components.descriptorSnapshot.enabled";
+
 	private GatewayContext gatewayContext;
+	private LifecycleContext lifecycle;
 	private PerspectiveContext perspectiveContext;
 	private ComponentRegistry componentRegistry;
+	private ComponentModelDelegateRegistry modelDelegateRegistry;
+	private ActionPipeline actionPipeline;
+	private ActionDeduplicator actionDeduplicator;
+	private ActionJournal actionJournal;
+	private WriteCoalescer writeCoalescer;
+	private ChannelStore channelStore;
+	private EventRateLimiter rateLimiter;
+	private TrendService trendService;
+	private TableService tableService;
+	private final ModuleMetrics metrics = new ModuleMetrics();
+	private final List<String> registeredComponents = new ArrayList<>();
+	private final PrecompressedAssets assets = new PrecompressedAssets("/mounted/", WebBundle.FILES);
 
 	/**
 	 * Called before startup. This is where we can add extension points and update
@@ -33,7 +97,25 @@ public class ExampleComponentLibraryGatewayHook extends AbstractGatewayModuleHoo
 	 */
 	@Override
 	public void setup(GatewayContext context) {
+		// Everything the components build from here on is released with it on shutdown
+		this.lifecycle = LifecycleContext.start("gateway");
 		this.gatewayContext = context;
+		StartupProfiler.get().run("gateway", "setup", () -> BundleUtil.get().addBundle(
+				ExampleScriptModule.BUNDLE_PREFIX, ExampleScriptModule.class, ExampleScriptModule.BUNDLE_PREFIX));
+	}
+
+	/**
+	 * Adds the module's scripting functions, e.g.
+	 * system.exampleComponents.writeBack, to gateway scripts, which includes
+	 * the event scripts of Perspective components.
+	 *
+	 * @param manager The gateway's script manager.
+	 */
+	@Override
+	public void initializeScriptManager(ScriptManager manager) {
+		super.initializeScriptManager(manager);
+		manager.addScriptModule(ExampleScriptModule.PATH, new ExampleScriptModule(this),
+				new PropertiesFileDocProvider());
 	}
 
 	/**
@@ -43,14 +125,181 @@ public class ExampleComponentLibraryGatewayHook extends AbstractGatewayModuleHoo
 	 */
 	@Override
 	public void startup(LicenseState activationState) {
+		StartupProfiler profiler = StartupProfiler.get();
+		profiler.run("gateway", "startup", this::registerComponents);
+		profiler.logReport(log, "Example Component Library gateway startup");
+		this.metrics.recordStartup(profiler);
+	}
+
+	/**
+	 * Registers the components and their model delegates.
+	 */
+	private void registerComponents() {
+		StartupProfiler profiler = StartupProfiler.get();
 		this.perspectiveContext = PerspectiveContext.get(this.gatewayContext);
 		this.componentRegistry = this.perspectiveContext.getComponentRegistry();
+		this.modelDelegateRegistry = this.perspectiveContext.getComponentModelDelegateRegistry();
 
 		if (this.componentRegistry != null) {
-			this.componentRegistry.registerComponent(Button.DESCRIPTOR);
+			// If enabled, the schemas and props templates of the last start are reused while the module is unchanged
+			boolean snapshotEnabled = Boolean.parseBoolean(System.getProperty(SNAPSHOT_ENABLED_PROPERTY, "false"));
+			Path snapshotFile = getDataDirectory().resolve("descriptors.snapshot");
+			DescriptorSnapshot snapshot = !snapshotEnabled ? null
+					: profiler.time("gateway", "snapshot load",
+							() -> DescriptorSnapshot.load(snapshotFile, DescriptorSources.FINGERPRINT).orElse(null));
+
+			// Descriptors are built in parallel, the registry is only called from this thread
+			ComponentCatalog.BuildResult catalog = profiler.time("gateway", "build descriptors",
+					() -> ComponentCatalog.buildDescriptors(snapshot));
+			catalog.getFailures().forEach((entry, error) -> log.error(
+					"Failed to build component " + entry.getId() + ", it will not be available.", error));
+			catalog.getDescriptors().forEach(this::registerComponent);
+
+			if (snapshotEnabled && snapshot == null && catalog.getFailures().isEmpty()) {
+				profiler.run("gateway", "snapshot write", () -> writeSnapshot(catalog, snapshotFile));
+			}
 		} else {
 			log.error("Reference to component registry not found, Example Components will fail to function!");
 		}
+
+		if (this.modelDelegateRegistry != null) {
+			// Every event of the components passes a per instance and a per session limit before it is handled
+			this.rateLimiter = EventRateLimiter.fromSystemProperties();
+			this.rateLimiter.start();
+
+			// Button clicks pass a shared pipeline before the Button's client fires onActionPerformed,
+			// repeated clicks are collapsed before they are dispatched back to it
+			// Writes of action handlers, made with system.exampleComponents.writeBack, are batched per flush
+			// window instead of each being its own tag write
+			this.writeCoalescer = WriteCoalescer.fromSystemProperties(
+					new TagWriteSink(this.gatewayContext.getTagManager(), 10_000),
+					this.metrics.component(Button.COMPONENT_ID).event("write-back"));
+
+			ActionPipelineSettings settings = ActionPipelineSettings.fromSystemProperties();
+			EventMetrics actionMetrics = this.metrics.component(Button.COMPONENT_ID).event("onActionPerformed");
+			this.actionDeduplicator = new ActionDeduplicator(settings.getMaxDebounceMillis(), ActionHandler.DISPATCH,
+					actionMetrics);
+			this.actionPipeline = new ActionPipeline(settings, this.actionDeduplicator, actionMetrics);
+			this.actionPipeline.start();
+			ActionRecorder recorder = startActionJournal();
+
+			// Buttons following the same channel share one store, changes are pushed once per flush and session
+			this.channelStore = ChannelStore.fromSystemProperties(
+					this.metrics.component(Button.COMPONENT_ID).event("channels"));
+			this.channelStore.start();
+			ChannelStore channels = this.channelStore;
+			ComponentRateLimiter buttonLimiter = createRateLimiter(Button.COMPONENT_ID);
+			ComponentRateLimiter channelLimiter = this.rateLimiter.forComponent(ButtonModelDelegate.CHANNELS_LIMIT_ID,
+					ButtonModelDelegate.CHANNELS_RATE_LIMIT,
+					this.metrics.component(Button.COMPONENT_ID).event("channels-rate-limit"));
+			ButtonActionReceiver receiver = new ButtonActionReceiver(this.actionPipeline, recorder, buttonLimiter);
+			this.modelDelegateRegistry.register(Button.COMPONENT_ID,
+					component -> new ButtonModelDelegate(component, receiver, channels, buttonLimiter,
+							channelLimiter));
+
+			// All Trends share the sources and a few threads, each instance only gets downsampled points
+			this.trendService = TrendService.fromSystemProperties(
+					this.metrics.component(Trend.COMPONENT_ID).event("trend-data"));
+			this.trendService.start();
+			ComponentRateLimiter trendLimiter = createRateLimiter(Trend.COMPONENT_ID);
+			this.modelDelegateRegistry.register(Trend.COMPONENT_ID,
+					component -> new TrendModelDelegate(component, this.trendService, trendLimiter));
+
+			// Tables share the datasets and their sorted views, each instance only gets the rows it shows
+			this.tableService = TableService.fromSystemProperties(
+					this.metrics.component(Table.COMPONENT_ID).event("table-window"));
+			ComponentRateLimiter tableLimiter = createRateLimiter(Table.COMPONENT_ID);
+			this.modelDelegateRegistry.register(Table.COMPONENT_ID,
+					component -> new TableModelDelegate(component, this.tableService, tableLimiter));
+		} else {
+			log.error("Reference to model delegate registry not found, Example Button actions will not fire!");
+		}
+	}
+
+	/**
+	 * Creates the rate limiter of a component type, with the limit declared in
+	 * its catalog entry.
+	 *
+	 * @param componentId The id of the component type.
+	 * @return The limiter its model delegates pass their events through.
+	 */
+	private ComponentRateLimiter createRateLimiter(String componentId) {
+		EventRateLimit limit = ComponentCatalog.ENTRIES.stream()
+				.filter(entry -> entry.getId().equals(componentId))
+				.map(ComponentCatalog.Entry::getRateLimit)
+				.findFirst()
+				.orElse(EventRateLimit.DEFAULT);
+		return this.rateLimiter.forComponent(componentId, limit,
+				this.metrics.component(componentId).event("rate-limit"));
+	}
+
+	/**
+	 * Starts the journal of Button presses, if it is enabled.
+	 *
+	 * @return The journal, or ActionRecorder.NONE if it is disabled or failed to
+	 *         start.
+	 */
+	private ActionRecorder startActionJournal() {
+		ActionJournalSettings settings = ActionJournalSettings.fromSystemProperties();
+		if (!settings.isEnabled()) {
+			return ActionRecorder.NONE;
+		}
+
+		Path directory = settings.getDirectory() != null ? settings.getDirectory()
+				: getDataDirectory().resolve("journal");
+		ActionJournal journal = new ActionJournal(settings, directory,
+				this.metrics.component(Button.COMPONENT_ID).event("journal"));
+		try {
+			journal.start();
+		} catch (IOException e) {
+			log.error("Failed to open the action journal in " + directory + ", Button actions will not be journaled.",
+					e);
+			return ActionRecorder.NONE;
+		}
+		this.actionJournal = journal;
+		return journal;
+	}
+
+	/**
+	 * Writes a snapshot of the descriptors just built, so the next start can skip
+	 * deriving their schemas and props templates. A snapshot that can't be
+	 * written only costs the next start that time.
+	 *
+	 * @param catalog The descriptors that were built.
+	 * @param file    The snapshot file.
+	 */
+	private void writeSnapshot(ComponentCatalog.BuildResult catalog, Path file) {
+		try {
+			DescriptorSnapshot.capture(DescriptorSources.FINGERPRINT, catalog, SchemaRegistry.shared()).write(file);
+		} catch (IOException | RuntimeException e) {
+			log.warn("Failed to write the descriptor snapshot " + file + ", the next start builds all descriptors.",
+					e);
+		}
+	}
+
+	/**
+	 * @return The directory of this module in the gateway's data directory.
+	 */
+	private Path getDataDirectory() {
+		return this.gatewayContext.getSystemManager().getDataDir().toPath().resolve(Constants.MODULE_URL_ALIAS);
+	}
+
+	/**
+	 * Registers a component with the component registry. A component that fails
+	 * to register is logged and skipped.
+	 *
+	 * @param entry      The catalog entry of the component.
+	 * @param descriptor The descriptor built for it.
+	 */
+	private void registerComponent(ComponentCatalog.Entry entry, ComponentDescriptor descriptor) {
+		try {
+			StartupProfiler.get().run(entry.getId(), "registry call",
+					() -> this.componentRegistry.registerComponent(descriptor));
+			this.registeredComponents.add(entry.getId());
+			this.metrics.component(entry.getId()).recordRegistration();
+		} catch (Exception e) {
+			log.error("Failed to register component " + entry.getId() + ", it will not be available.", e);
+		}
 	}
 
 	/**
@@ -60,10 +309,166 @@ public class ExampleComponentLibraryGatewayHook extends AbstractGatewayModuleHoo
 	public void shutdown() {
 		log.info("Shutting down Example module and removing registered components.");
 		if (this.componentRegistry != null) {
-			this.componentRegistry.removeComponent(Button.COMPONENT_ID);
+			this.registeredComponents.forEach(this.componentRegistry::removeComponent);
+			this.registeredComponents.clear();
 		} else {
 			log.warn("Component registry was null, could not unregister Example Components.");
 		}
+
+		if (this.modelDelegateRegistry != null) {
+			this.modelDelegateRegistry.remove(Button.COMPONENT_ID);
+			this.modelDelegateRegistry.remove(Trend.COMPONENT_ID);
+			this.modelDelegateRegistry.remove(Table.COMPONENT_ID);
+		}
+
+		if (this.rateLimiter != null) {
+			// First, so no deferred event is replayed into the stages shutting down below
+			this.rateLimiter.shutdown(5000);
+			this.rateLimiter = null;
+		}
+
+		if (this.actionPipeline != null) {
+			this.actionPipeline.shutdown(5000);
+			log.infof("Example Button actions: %d dispatched, %d suppressed as repeats, %d coalesced, %d dropped.",
+					this.actionDeduplicator.getPassedCount(), this.actionDeduplicator.getSuppressedCount(),
+					this.actionPipeline.getCoalescedCount(), this.actionPipeline.getDroppedCount());
+			this.actionPipeline = null;
+			this.actionDeduplicator = null;
+		}
+
+		if (this.writeCoalescer != null) {
+			// After the pipeline, so the writes of the last handled actions are flushed too
+			this.writeCoalescer.shutdown(5000);
+			this.writeCoalescer = null;
+		}
+
+		if (this.actionJournal != null) {
+			this.actionJournal.close(5000);
+			this.actionJournal = null;
+		}
+
+		if (this.channelStore != null) {
+			this.channelStore.shutdown(5000);
+			this.channelStore = null;
+		}
+
+		if (this.trendService != null) {
+			this.trendService.shutdown(5000);
+			this.trendService = null;
+		}
+
+		if (this.tableService != null) {
+			this.tableService.shutdown(5000);
+			this.tableService = null;
+		}
+
+		this.assets.clear();
+		BundleUtil.get().removeBundle(ExampleScriptModule.BUNDLE_PREFIX);
+		if (this.lifecycle != null) {
+			// Last, drops the descriptors, schemas and startup profile, nothing running uses them anymore
+			this.lifecycle.close();
+			this.lifecycle = null;
+		}
+	}
+
+	/**
+	 * @return The pipeline processing Button actions, or null while the module
+	 *         isn't running.
+	 */
+	public ActionPipeline getActionPipeline() {
+		return this.actionPipeline;
+	}
+
+	/**
+	 * @return The stage collapsing repeated Button clicks, exposing how many were
+	 *         suppressed, or null while the module isn't running.
+	 */
+	public ActionDeduplicator getActionDeduplicator() {
+		return this.actionDeduplicator;
+	}
+
+	/**
+	 * @return The stage that batches the writes of Button action handlers, or
+	 *         null while the module isn't running. Scripts submit their writes
+	 *         with system.exampleComponents.writeBack(tagPath, value), Java code
+	 *         with submit(target, value).
+	 */
+	public WriteCoalescer getWriteCoalescer() {
+		return this.writeCoalescer;
+	}
+
+	/**
+	 * @return The shared state Buttons can follow, or null while the module isn't
+	 *         running. Scripts publish to a channel with
+	 *         system.exampleComponents.publishChannel(channel, value), Java code
+	 *         with publish(channel, value), to update every Button following it.
+	 */
+	public ChannelStore getChannelStore() {
+		return this.channelStore;
+	}
+
+	/**
+	 * @return The limiter of the events the components send to the gateway, or
+	 *         null while the module isn't running.
+	 */
+	public EventRateLimiter getRateLimiter() {
+		return this.rateLimiter;
+	}
+
+	/**
+	 * @return The journal of Button presses, whose newReader() replays or exports
+	 *         them, or null while it is disabled or the module isn't running.
+	 */
+	public ActionJournal getActionJournal() {
+		return this.actionJournal;
+	}
+
+	/**
+	 * @return The service owning the trend sources, or null while the module
+	 *         isn't running.
+	 */
+	public TrendService getTrendService() {
+		return this.trendService;
+	}
+
+	/**
+	 * @return The service owning the Table datasets, or null while the module
+	 *         isn't running.
+	 */
+	public TableService getTableService() {
+		return this.tableService;
+	}
+
+	/**
+	 * @return The runtime metrics of the module's components. Call snapshot() on
+	 *         them for plain maps of the current values, gateway scripts use
+	 *         system.exampleComponents.getMetrics().
+	 */
+	public ModuleMetrics getMetrics() {
+		return this.metrics;
+	}
+
+	/**
+	 * Mounts the metrics route, served as JSON at
+	 * /data/example-components/metrics to clients presenting the configured
+	 * token, and the web bundle, served with precompressed variants and
+	 * immutable cache headers at /data/example-components/assets/.
+	 *
+	 * @param routes The route group of this module's mount path.
+	 */
+	@Override
+	public void mountRouteHandlers(RouteGroup routes) {
+		MetricsRoute metricsRoute = MetricsRoute.fromSystemProperties(this.metrics);
+		if (!metricsRoute.isOpen()) {
+			log.debug("No metrics token is set, the metrics route answers 404.");
+		}
+		routes.newRoute("/metrics")
+				.handler(metricsRoute::handle)
+				.type(RouteGroup.TYPE_JSON)
+				.mount();
+		routes.newRoute("/assets/:file")
+				.handler(this.assets::handle)
+				.mount();
 	}
 
 	/**
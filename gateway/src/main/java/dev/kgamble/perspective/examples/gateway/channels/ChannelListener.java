@@ -0,0 +1,25 @@
+/*
+ * Copyright 2024 Keith Gamble
+ * [License information]
+ */
+package dev.kgamble.perspective.examples.gateway.channels;
+
+import com.inductiveautomation.ignition.common.gson.JsonObject;
+
+/**
+ * Receives the values of the channels a component instance subscribed to.
+ *
+ * @author Keith Gamble
+ */
+@FunctionalInterface
+public interface ChannelListener {
+
+	/**
+	 * Receives the channels that changed since the last flush, at most once per
+	 * flush.
+	 *
+	 * @param values The latest value of each changed channel, by channel name.
+	 *               The values are shared, don't modify them.
+	 */
+	void onChannelValues(JsonObject values);
+}
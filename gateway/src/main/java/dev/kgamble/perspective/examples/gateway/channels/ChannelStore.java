@@ -0,0 +1,394 @@
+/*
+ * Copyright 2024 Keith Gamble
+ * [License information]
+ */
+package dev.kgamble.perspective.examples.gateway.channels;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.inductiveautomation.ignition.common.gson.JsonElement;
+import com.inductiveautomation.ignition.common.gson.JsonNull;
+import com.inductiveautomation.ignition.common.gson.JsonObject;
+import com.inductiveautomation.ignition.common.util.LoggerEx;
+
+import dev.kgamble.perspective.examples.common.Constants;
+import dev.kgamble.perspective.examples.gateway.metrics.EventMetrics;
+
+/**
+ * A gateway-wide store of shared state, a JSON value per named channel, that
+ * component instances in any session can follow.
+ *
+ * The channels are kept in striped concurrent maps, so publishing to different
+ * channels rarely touches the same map. A publish only replaces the channel's
+ * value and marks it changed. Every flush interval the changed channels are
+ * collected, so a channel published many times between two flushes is only
+ * delivered with its latest value, and the deliveries are grouped by session:
+ * each session with changes gets one task, which hands every subscribed
+ * listener all of its changed channels in one call. A session has at most one
+ * task at a time, changes collected while it runs are merged and delivered
+ * when it is done, so a listener never sees an older value after a newer one.
+ *
+ * A channel only exists while it holds a value or has subscribers. Clients
+ * choose the channels they follow, so a channel created by a subscription is
+ * removed again with its last subscription unless something was published to
+ * it, and a cleared channel is removed once nobody follows it.
+ *
+ * The settings can be overridden on the gateway with system properties in
+ * ignition.conf, e.g.
+ * {@code wrapper.java.additional.N=-Dexample-components.channels.flushIntervalMs=100}.
+ *
+ * @author Keith Gamble
+ */
+public class ChannelStore {
+	private static final LoggerEx log = LoggerEx.newBuilder().build(ChannelStore.class);
+	private static final String PROPERTY_PREFIX = Constants.MODULE_URL_ALIAS + ".channels.";
+
+	private final Stripe[] stripes;
+	private final long flushIntervalMillis;
+	private final EventMetrics metrics;
+	private final ScheduledThreadPoolExecutor scheduler;
+
+	// Subscriptions that get the current value of their channel on the next flush
+	private final ConcurrentLinkedQueue<ChannelSubscription> added = new ConcurrentLinkedQueue<>();
+
+	// The sessions with a delivery task, and what they still have to deliver
+	private final ConcurrentHashMap<String, SessionDeliveries> sessions = new ConcurrentHashMap<>();
+
+	/**
+	 * Constructs a new ChannelStore, call start() to begin delivering.
+	 *
+	 * @param stripes             The number of maps the channels are spread over,
+	 *                            rounded up to a power of two.
+	 * @param flushIntervalMillis How often changed channels are delivered.
+	 * @param threads             The number of threads flushing and delivering.
+	 * @param metrics             The metrics of the channels: arrivals are
+	 *                            publishes, the batch size is the listeners per
+	 *                            session task and the handler time is the time
+	 *                            of each session task.
+	 */
+	public ChannelStore(int stripes, long flushIntervalMillis, int threads, EventMetrics metrics) {
+		int stripeCount = Integer.highestOneBit(Math.max(1, stripes - 1)) << 1;
+		this.stripes = new Stripe[Math.max(1, stripeCount)];
+		for (int i = 0; i < this.stripes.length; i++) {
+			this.stripes[i] = new Stripe();
+		}
+		this.flushIntervalMillis = Math.max(1, flushIntervalMillis);
+		this.metrics = metrics;
+
+		AtomicInteger threadCount = new AtomicInteger();
+		this.scheduler = new ScheduledThreadPoolExecutor(Math.max(1, threads), runnable -> {
+			Thread thread = new Thread(runnable, "example-components-channels-" + threadCount.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	/**
+	 * Creates a store configured from the {@code example-components.channels.*}
+	 * system properties.
+	 *
+	 * @param metrics The metrics of the channels.
+	 * @return The store, not yet started.
+	 */
+	public static ChannelStore fromSystemProperties(EventMetrics metrics) {
+		return new ChannelStore(
+				Integer.getInteger(PROPERTY_PREFIX + "stripes", 16),
+				Long.getLong(PROPERTY_PREFIX + "flushIntervalMs", 50),
+				Integer.getInteger(PROPERTY_PREFIX + "threads", 2),
+				metrics);
+	}
+
+	/**
+	 * Starts delivering changed channels every flush interval.
+	 */
+	public void start() {
+		scheduler.scheduleWithFixedDelay(this::flush, flushIntervalMillis, flushIntervalMillis,
+				TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Sets the value of a channel, creating the channel if it doesn't exist.
+	 * Never blocks, the subscribers get the value on the next flush.
+	 *
+	 * @param channel The name of the channel.
+	 * @param value   The new value, which must not be modified afterwards. null
+	 *                or JSON null clears the channel.
+	 */
+	public void publish(String channel, JsonElement value) {
+		metrics.recordArrival();
+		if (value == null || value.isJsonNull()) {
+			clear(channel);
+			return;
+		}
+		Stripe stripe = stripeFor(channel);
+		// Set within the map's lock, so the channel can't be removed by a cancelled subscription meanwhile
+		Channel state = stripe.channels.compute(channel, (name, existing) -> {
+			Channel updated = existing != null ? existing : new Channel();
+			updated.value = value;
+			return updated;
+		});
+		if (!stripe.changed.add(state)) {
+			// Only the latest value is delivered
+			metrics.increment("coalesced");
+		}
+	}
+
+	/**
+	 * Clears the value of a channel. Its subscribers get null on the next flush,
+	 * and the channel is removed once nobody follows it.
+	 *
+	 * @param channel The name of the channel.
+	 */
+	public void clear(String channel) {
+		Stripe stripe = stripeFor(channel);
+		Channel[] cleared = new Channel[1];
+		stripe.channels.computeIfPresent(channel, (name, state) -> {
+			if (state.subscribers.isEmpty()) {
+				return null;
+			}
+			state.value = JsonNull.INSTANCE;
+			cleared[0] = state;
+			return state;
+		});
+		if (cleared[0] != null) {
+			stripe.changed.add(cleared[0]);
+		}
+	}
+
+	/**
+	 * @param channel The name of the channel.
+	 * @return The current value of the channel, or empty if it was never
+	 *         published. JSON null if it was cleared. The value is shared, don't
+	 *         modify it.
+	 */
+	public Optional<JsonElement> get(String channel) {
+		Channel state = stripeFor(channel).channels.get(channel);
+		return state != null ? Optional.ofNullable(state.value) : Optional.empty();
+	}
+
+	/**
+	 * Subscribes a component instance to a channel. The listener gets the
+	 * current value, if there is one, on the next flush, and every change after
+	 * that.
+	 *
+	 * @param channel   The name of the channel.
+	 * @param sessionId The session of the component instance, subscriptions of
+	 *                  one session are delivered together.
+	 * @param listener  Receives the values. A listener subscribed to several
+	 *                  channels gets their changes in one call.
+	 * @return The subscription, cancel it when the component goes away.
+	 */
+	public ChannelSubscription subscribe(String channel, String sessionId, ChannelListener listener) {
+		ChannelSubscription subscription = new ChannelSubscription(this, channel, sessionId, listener);
+		stripeFor(channel).channels.compute(channel, (name, existing) -> {
+			Channel state = existing != null ? existing : new Channel();
+			state.subscribers.add(subscription);
+			return state;
+		});
+		added.add(subscription);
+		return subscription;
+	}
+
+	/**
+	 * Removes a cancelled subscription, and its channel with it if that was
+	 * the last subscription and the channel holds no value.
+	 */
+	void remove(ChannelSubscription subscription) {
+		stripeFor(subscription.getChannel()).channels.computeIfPresent(subscription.getChannel(),
+				(name, state) -> {
+					state.subscribers.remove(subscription);
+					return state.subscribers.isEmpty() && state.isEmpty() ? null : state;
+				});
+	}
+
+	/**
+	 * @return The number of channels that hold a value or have subscribers.
+	 */
+	public int getChannelCount() {
+		int count = 0;
+		for (Stripe stripe : stripes) {
+			count += stripe.channels.size();
+		}
+		return count;
+	}
+
+	/**
+	 * Stops delivering. Values published afterwards are kept but never
+	 * delivered.
+	 *
+	 * @param timeoutMillis How long to wait for running deliveries to finish.
+	 */
+	public void shutdown(long timeoutMillis) {
+		scheduler.shutdownNow();
+		try {
+			if (!scheduler.awaitTermination(timeoutMillis, TimeUnit.MILLISECONDS)) {
+				log.warn("Channel threads did not stop within " + timeoutMillis + " ms.");
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * Collects the changed channels and new subscriptions, and hands each
+	 * session's deliveries to a task of its own.
+	 */
+	void flush() {
+		Map<String, Map<ChannelListener, JsonObject>> bySession = new LinkedHashMap<>();
+
+		for (Stripe stripe : stripes) {
+			Iterator<Channel> changed = stripe.changed.iterator();
+			while (changed.hasNext()) {
+				Channel channel = changed.next();
+				// Unmark before reading, so a publish racing with this flush is delivered again next time
+				changed.remove();
+				JsonElement value = channel.value;
+				for (ChannelSubscription subscription : channel.subscribers) {
+					collect(bySession, subscription, value);
+				}
+			}
+		}
+
+		ChannelSubscription subscription;
+		while ((subscription = added.poll()) != null) {
+			if (!subscription.isCancelled()) {
+				collect(bySession, subscription, get(subscription.getChannel()).orElse(null));
+			}
+		}
+
+		for (Map.Entry<String, Map<ChannelListener, JsonObject>> entry : bySession.entrySet()) {
+			String sessionId = entry.getKey();
+			boolean[] schedule = new boolean[1];
+			sessions.compute(sessionId, (id, queued) -> {
+				if (queued == null) {
+					queued = new SessionDeliveries();
+					schedule[0] = true;
+				}
+				queued.merge(entry.getValue());
+				return queued;
+			});
+
+			if (schedule[0]) {
+				try {
+					scheduler.execute(() -> drain(sessionId));
+				} catch (RejectedExecutionException e) {
+					// Shutting down
+					sessions.remove(sessionId);
+					return;
+				}
+			}
+		}
+	}
+
+	private static void collect(Map<String, Map<ChannelListener, JsonObject>> bySession,
+			ChannelSubscription subscription, JsonElement value) {
+		if (value == null || subscription.isCancelled()) {
+			return;
+		}
+		bySession.computeIfAbsent(subscription.getSessionId(), id -> new LinkedHashMap<>())
+				.computeIfAbsent(subscription.getListener(), listener -> new JsonObject())
+				.add(subscription.getChannel(), value);
+	}
+
+	/**
+	 * Delivers a session's changes until none are left, then lets the next flush
+	 * schedule a new task for it.
+	 */
+	private void drain(String sessionId) {
+		while (true) {
+			Object[] taken = new Object[1];
+			sessions.computeIfPresent(sessionId, (id, queued) -> {
+				if (queued.pending == null) {
+					return null;
+				}
+				taken[0] = queued.pending;
+				queued.pending = null;
+				return queued;
+			});
+			if (taken[0] == null) {
+				return;
+			}
+			@SuppressWarnings("unchecked")
+			Map<ChannelListener, JsonObject> deliveries = (Map<ChannelListener, JsonObject>) taken[0];
+			deliver(deliveries);
+		}
+	}
+
+	/**
+	 * Hands a session's listeners their changed channels.
+	 */
+	private void deliver(Map<ChannelListener, JsonObject> deliveries) {
+		long start = System.nanoTime();
+		metrics.recordBatchSize(deliveries.size());
+		for (Map.Entry<ChannelListener, JsonObject> delivery : deliveries.entrySet()) {
+			try {
+				delivery.getKey().onChannelValues(delivery.getValue());
+			} catch (RuntimeException e) {
+				metrics.increment("failed");
+				log.debug("A channel listener failed.", e);
+			}
+		}
+		metrics.recordHandlerTime(System.nanoTime() - start);
+	}
+
+	private Stripe stripeFor(String channel) {
+		int hash = channel.hashCode();
+		return stripes[(hash ^ (hash >>> 16)) & (stripes.length - 1)];
+	}
+
+	/**
+	 * One of the maps the channels are spread over.
+	 */
+	private static class Stripe {
+		final ConcurrentHashMap<String, Channel> channels = new ConcurrentHashMap<>();
+		final Set<Channel> changed = ConcurrentHashMap.newKeySet();
+	}
+
+	/**
+	 * The changes of a session waiting for its delivery task, only accessed
+	 * within the compute calls on the sessions map.
+	 */
+	private static class SessionDeliveries {
+		Map<ChannelListener, JsonObject> pending;
+
+		void merge(Map<ChannelListener, JsonObject> deliveries) {
+			if (pending == null) {
+				pending = deliveries;
+				return;
+			}
+			for (Map.Entry<ChannelListener, JsonObject> delivery : deliveries.entrySet()) {
+				JsonObject values = pending.computeIfAbsent(delivery.getKey(), listener -> new JsonObject());
+				for (Map.Entry<String, JsonElement> value : delivery.getValue().entrySet()) {
+					// Later values replace earlier ones
+					values.add(value.getKey(), value.getValue());
+				}
+			}
+		}
+	}
+
+	/**
+	 * The state of a channel.
+	 */
+	private static class Channel {
+		final Set<ChannelSubscription> subscribers = ConcurrentHashMap.newKeySet();
+		volatile JsonElement value;
+
+		/**
+		 * @return Whether the channel was never published or was cleared.
+		 */
+		boolean isEmpty() {
+			JsonElement current = value;
+			return current == null || current.isJsonNull();
+		}
+	}
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright 2024 Keith Gamble
+ * [License information]
+ */
+package dev.kgamble.perspective.examples.gateway.channels;
+
+/**
+ * A subscription of a component instance to a channel of the ChannelStore.
+ *
+ * @author Keith Gamble
+ */
+public class ChannelSubscription {
+	private final ChannelStore store;
+	private final String channel;
+	private final String sessionId;
+	private final ChannelListener listener;
+	private volatile boolean cancelled;
+
+	ChannelSubscription(ChannelStore store, String channel, String sessionId, ChannelListener listener) {
+		this.store = store;
+		this.channel = channel;
+		this.sessionId = sessionId;
+		this.listener = listener;
+	}
+
+	/**
+	 * @return The name of the channel.
+	 */
+	public String getChannel() {
+		return channel;
+	}
+
+	/**
+	 * @return The session of the component instance.
+	 */
+	public String getSessionId() {
+		return sessionId;
+	}
+
+	ChannelListener getListener() {
+		return listener;
+	}
+
+	boolean isCancelled() {
+		return cancelled;
+	}
+
+	/**
+	 * Stops delivering the channel, a flush that is already running may still
+	 * deliver it once.
+	 */
+	public void cancel() {
+		if (!cancelled) {
+			cancelled = true;
+			store.remove(this);
+		}
+	}
+}
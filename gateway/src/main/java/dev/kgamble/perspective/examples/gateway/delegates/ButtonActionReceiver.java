@@ -0,0 +1,98 @@
+/*
+ * Copyright 2024 Keith Gamble
+ * [License information]
+ */
+package dev.kgamble.perspective.examples.gateway.delegates;
+
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import com.inductiveautomation.ignition.common.gson.JsonObject;
+import com.inductiveautomation.ignition.common.util.LoggerEx;
+
+import dev.kgamble.perspective.examples.common.generated.ExampleButtonOnActionPerformedEvent;
+import dev.kgamble.perspective.examples.common.utilities.CompiledValidator;
+import dev.kgamble.perspective.examples.gateway.events.ActionPipeline;
+import dev.kgamble.perspective.examples.gateway.events.ButtonAction;
+import dev.kgamble.perspective.examples.gateway.journal.ActionRecord;
+import dev.kgamble.perspective.examples.gateway.journal.ActionRecorder;
+import dev.kgamble.perspective.examples.gateway.ratelimit.ComponentRateLimiter;
+
+/**
+ * The part of handling a Button click that doesn't depend on the Perspective
+ * session, shared by every ButtonModelDelegate: the click passes the Button's
+ * rate limit, its payload is checked against the compiled onActionPerformed
+ * schema, it is journaled and finally submitted to the ActionPipeline.
+ *
+ * The load test in the benchmarks project drives clicks through the same
+ * receiver, so it measures every stage a click passes on the gateway.
+ *
+ * @author Keith Gamble
+ */
+public class ButtonActionReceiver {
+	private static final LoggerEx log = LoggerEx.newBuilder().build(ButtonActionReceiver.class);
+
+	private final ActionPipeline pipeline;
+	private final ActionRecorder recorder;
+	private final ComponentRateLimiter rateLimiter;
+
+	// The compiled schema of the click payloads, owned by the LifecycleContext
+	private final CompiledValidator payloadValidator;
+
+	/**
+	 * Constructs a new ButtonActionReceiver.
+	 *
+	 * @param pipeline    The pipeline that processes the actions.
+	 * @param recorder    Records every click, ActionRecorder.NONE to record none.
+	 * @param rateLimiter Limits the rate of the Buttons' clicks.
+	 */
+	public ButtonActionReceiver(ActionPipeline pipeline, ActionRecorder recorder, ComponentRateLimiter rateLimiter) {
+		this.pipeline = pipeline;
+		this.recorder = recorder;
+		this.rateLimiter = rateLimiter;
+		this.payloadValidator = ExampleButtonOnActionPerformedEvent.validator();
+	}
+
+	/**
+	 * Receives a click.
+	 *
+	 * @param sessionId The session of the Button.
+	 * @param instance  The Button instance, usually its model delegate, whose
+	 *                  rate limit the click counts against.
+	 * @param payload   The payload the Button sent, null for none.
+	 * @param action    Creates the action from the checked payload.
+	 * @param user      Resolves the name of the logged in user, only called if
+	 *                  the click is journaled.
+	 * @return What the pipeline did with the action, or null if it didn't reach
+	 *         the pipeline right away: it was dropped or deferred by the rate
+	 *         limit, or its payload is invalid.
+	 */
+	public ActionPipeline.SubmitResult receive(String sessionId, Object instance, JsonObject payload,
+			Function<JsonObject, ButtonAction> action, Supplier<String> user) {
+		// A flood of clicks is dropped before anything is done for it
+		ActionPipeline.SubmitResult[] result = new ActionPipeline.SubmitResult[1];
+		rateLimiter.execute(sessionId, instance, () -> result[0] = accept(payload, action, user));
+		return result[0];
+	}
+
+	private ActionPipeline.SubmitResult accept(JsonObject payload, Function<JsonObject, ButtonAction> factory,
+			Supplier<String> user) {
+		JsonObject checked = payload != null ? payload : new JsonObject();
+		if (!payloadValidator.test(checked)) {
+			log.debugf("Dropped an action with an invalid payload: %s", payloadValidator.explain(checked).orElse(""));
+			return null;
+		}
+
+		ButtonAction action = factory.apply(checked);
+		if (recorder != ActionRecorder.NONE) {
+			recorder.record(new ActionRecord(-1, System.currentTimeMillis(), action.getSessionId(), user.get(),
+					action.getViewPath(), action.getComponentPath()));
+		}
+
+		ActionPipeline.SubmitResult result = pipeline.submit(action);
+		if (result == ActionPipeline.SubmitResult.DROPPED || result == ActionPipeline.SubmitResult.REJECTED) {
+			log.debugf("Action of '%s' was not queued: %s", action.getComponentPath(), result);
+		}
+		return result;
+	}
+}
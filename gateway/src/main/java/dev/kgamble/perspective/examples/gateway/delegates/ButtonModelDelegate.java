@@ -0,0 +1,336 @@
+/*
+ * Copyright 2024 Keith Gamble
+ * [License information]
+ */
+package dev.kgamble.perspective.examples.gateway.delegates;
+
+import com.inductiveautomation.ignition.common.gson.JsonElement;
+import com.inductiveautomation.ignition.common.gson.JsonObject;
+import com.inductiveautomation.ignition.common.util.LoggerEx;
+import com.inductiveautomation.perspective.common.PropertyType;
+import com.inductiveautomation.perspective.gateway.api.Component;
+import com.inductiveautomation.perspective.gateway.api.ComponentModelDelegate;
+import com.inductiveautomation.perspective.gateway.messages.EventFiringContext;
+
+import dev.kgamble.perspective.examples.common.EventRateLimit;
+import dev.kgamble.perspective.examples.common.components.input.Button;
+import dev.kgamble.perspective.examples.common.generated.ExampleButtonProps;
+import dev.kgamble.perspective.examples.common.utilities.CompiledValidator;
+import dev.kgamble.perspective.examples.gateway.channels.ChannelListener;
+import dev.kgamble.perspective.examples.gateway.channels.ChannelStore;
+import dev.kgamble.perspective.examples.gateway.channels.ChannelSubscription;
+import dev.kgamble.perspective.examples.gateway.events.ActionTarget;
+import dev.kgamble.perspective.examples.gateway.events.ButtonAction;
+import dev.kgamble.perspective.examples.gateway.ratelimit.ComponentRateLimiter;
+
+/**
+ * Gateway-side model delegate of the Button component.
+ *
+ * Instead of firing onActionPerformed directly, the Button sends its clicks to
+ * this delegate. The delegate hands them to the shared ButtonActionReceiver,
+ * which drops clicks beyond the Button's event rate limit and clicks whose
+ * payload doesn't match the onActionPerformed schema, journals the rest when
+ * the action journal is enabled and submits them to the ActionPipeline. Once
+ * the pipeline has processed an action it is sent back to the Button, which
+ * then fires onActionPerformed so the configured scripts run.
+ *
+ * The scripts still run through Perspective's own component event, which the
+ * client fires after the round trip to this delegate, so every click costs one
+ * more message each way. The pipeline only decides which clicks the Button's
+ * own client code goes on to fire: it relies on the client cooperating. A
+ * client that fires onActionPerformed itself, e.g. a modified page, reaches
+ * the scripts without passing the rate limiter, the deduplicator or the
+ * journal, since Perspective doesn't hand component events to the delegate.
+ *
+ * The Button also tells this delegate which channels of the ChannelStore its
+ * text and enabled props follow. The delegate subscribes to them and sends
+ * their values to the Button whenever they change. These requests pass a rate
+ * limit of their own, which defers rather than drops them, since only the
+ * latest one matters.
+ *
+ * @author Keith Gamble
+ */
+public class ButtonModelDelegate extends ComponentModelDelegate implements ActionTarget, ChannelListener {
+	private static final LoggerEx log = LoggerEx.newBuilder().build(ButtonModelDelegate.class);
+
+	/**
+	 * The event the Button sends to the gateway for every click.
+	 * This should match ACTION_EVENT in the JavaScript implementation.
+	 */
+	public static final String ACTION_EVENT = "example-button-action";
+
+	/**
+	 * The event sent back to the Button once an action has been processed.
+	 * This should match DISPATCH_EVENT in the JavaScript implementation.
+	 */
+	public static final String DISPATCH_EVENT = "example-button-dispatch";
+
+	/**
+	 * The event the Button sends whenever the channels its props follow change.
+	 * This should match CHANNELS_EVENT in the JavaScript implementation.
+	 */
+	public static final String CHANNELS_EVENT = "example-button-channels";
+
+	/**
+	 * The event carrying the values of the followed channels to the Button.
+	 * This should match CHANNEL_VALUES_EVENT in the JavaScript implementation.
+	 */
+	public static final String CHANNEL_VALUES_EVENT = "example-button-channel-values";
+
+	/**
+	 * The id the limit of the channel requests is configured under, with the
+	 * example-components.rateLimit.examples.input.button.channels.* system
+	 * properties.
+	 */
+	public static final String CHANNELS_LIMIT_ID = Button.COMPONENT_ID + ".channels";
+
+	/**
+	 * The limit of the channel requests. Only the latest one matters, so they
+	 * are deferred rather than dropped.
+	 */
+	public static final EventRateLimit CHANNELS_RATE_LIMIT = new EventRateLimit(10, 20, EventRateLimit.Policy.DEFER);
+
+	/**
+	 * The props that can follow a channel.
+	 */
+	private static final String[] CHANNEL_PROPS = { "text", "enabled" };
+
+	/**
+	 * The prop holding the Button's debounce window.
+	 */
+	private static final String DEBOUNCE_PROP = "debounceMs";
+
+	/**
+	 * The debounce window of a Button whose prop can't be read, the prop's
+	 * default.
+	 */
+	private static final long DEFAULT_DEBOUNCE_MILLIS = 250;
+
+	/**
+	 * The session prop holding the name of the logged in user.
+	 */
+	private static final String USER_NAME_PROP = "auth.user.userName";
+
+	private final ButtonActionReceiver receiver;
+	private final ChannelStore channels;
+	private final ComponentRateLimiter rateLimiter;
+	private final ComponentRateLimiter channelRateLimiter;
+
+	// The compiled schemas of the props in CHANNEL_PROPS, owned by the LifecycleContext
+	private final CompiledValidator[] channelPropValidators = new CompiledValidator[CHANNEL_PROPS.length];
+
+	// The channel followed by each prop in CHANNEL_PROPS, null for none
+	private final String[] followed = new String[CHANNEL_PROPS.length];
+	private final ChannelSubscription[] subscriptions = new ChannelSubscription[CHANNEL_PROPS.length];
+	private boolean shutdown;
+
+	/**
+	 * Constructs a new ButtonModelDelegate.
+	 *
+	 * @param component          The Button instance this delegate belongs to.
+	 * @param receiver           Receives the Button's clicks, with the same rate
+	 *                           limiter.
+	 * @param channels           The shared state the Button's props can follow.
+	 * @param rateLimiter        Limits the rate of the Button's clicks.
+	 * @param channelRateLimiter Limits the rate of the Button's channel
+	 *                           requests.
+	 */
+	public ButtonModelDelegate(Component component, ButtonActionReceiver receiver, ChannelStore channels,
+			ComponentRateLimiter rateLimiter, ComponentRateLimiter channelRateLimiter) {
+		super(component);
+		this.receiver = receiver;
+		this.channels = channels;
+		this.rateLimiter = rateLimiter;
+		this.channelRateLimiter = channelRateLimiter;
+		CompiledValidator props = ExampleButtonProps.validator();
+		for (int i = 0; i < CHANNEL_PROPS.length; i++) {
+			this.channelPropValidators[i] = props.property(CHANNEL_PROPS[i]);
+		}
+	}
+
+	@Override
+	protected void onStartup() {
+		log.tracef("Starting up delegate for '%s'", component.getComponentAddressPath());
+	}
+
+	@Override
+	protected synchronized void onShutdown() {
+		log.tracef("Shutting down delegate for '%s'", component.getComponentAddressPath());
+		shutdown = true;
+		for (int i = 0; i < subscriptions.length; i++) {
+			follow(i, null);
+		}
+		rateLimiter.release(this);
+		channelRateLimiter.release(this);
+	}
+
+	/**
+	 * Receives the events sent by the Button's client-side delegate. Every event
+	 * passes a rate limit before anything is done for it.
+	 *
+	 * @param event The event and its payload.
+	 */
+	@Override
+	public void handleEvent(EventFiringContext event) {
+		if (CHANNELS_EVENT.equals(event.getEvent())) {
+			JsonObject request = event.getEventObject();
+			channelRateLimiter.execute(getSessionId(), this, () -> followChannels(request));
+			return;
+		}
+		if (!ACTION_EVENT.equals(event.getEvent())) {
+			return;
+		}
+
+		String sessionId = getSessionId();
+		receiver.receive(sessionId, this, event.getEventObject(), payload -> createAction(sessionId, payload),
+				this::resolveUser);
+	}
+
+	private ButtonAction createAction(String sessionId, JsonObject payload) {
+		return new ButtonAction(
+				sessionId,
+				String.valueOf(component.getView().getPage().getId()),
+				String.valueOf(component.getView().getId()),
+				String.valueOf(component.getComponentAddressPath()),
+				payload,
+				readDebounceMillis(),
+				this);
+	}
+
+	/**
+	 * Follows the channels the Button asked for, one per prop, an empty or
+	 * missing name stops following.
+	 *
+	 * @param request The channel of each prop, by prop name.
+	 */
+	private synchronized void followChannels(JsonObject request) {
+		// A deferred request may be replayed after the Button was removed
+		if (shutdown) {
+			return;
+		}
+		for (int i = 0; i < CHANNEL_PROPS.length; i++) {
+			JsonElement channel = request != null ? request.get(CHANNEL_PROPS[i]) : null;
+			String name = channel != null && channel.isJsonPrimitive() ? channel.getAsString().trim() : "";
+			follow(i, name.isEmpty() ? null : name);
+		}
+	}
+
+	private void follow(int prop, String channel) {
+		if (channel != null && channel.equals(followed[prop])) {
+			return;
+		}
+		if (subscriptions[prop] != null) {
+			subscriptions[prop].cancel();
+			subscriptions[prop] = null;
+		}
+		followed[prop] = channel;
+		if (channel != null) {
+			// Subscribing to a channel the other prop follows too only adds it to the same delivery
+			subscriptions[prop] = channels.subscribe(channel, getSessionId(), this);
+		}
+	}
+
+	/**
+	 * Sends the values of the followed channels that changed to the Button, by
+	 * prop name. A value the prop's schema doesn't allow is left out, null is
+	 * sent, the Button then shows its own prop again.
+	 *
+	 * @param values The changed channels, by channel name.
+	 */
+	@Override
+	public void onChannelValues(JsonObject values) {
+		JsonObject props = new JsonObject();
+		synchronized (this) {
+			for (int i = 0; i < CHANNEL_PROPS.length; i++) {
+				JsonElement value = followed[i] != null ? values.get(followed[i]) : null;
+				if (value == null) {
+					continue;
+				}
+				if (!value.isJsonNull() && !channelPropValidators[i].test(value)) {
+					log.debugf("Channel '%s' holds an invalid %s for '%s': %s", followed[i], CHANNEL_PROPS[i],
+							component.getComponentAddressPath(), channelPropValidators[i].explain(value).orElse(""));
+					continue;
+				}
+				props.add(CHANNEL_PROPS[i], value);
+			}
+		}
+		if (props.size() > 0) {
+			fireEvent(CHANNEL_VALUES_EVENT, props);
+		}
+	}
+
+	/**
+	 * @return The id of the Button's session.
+	 */
+	private String getSessionId() {
+		return component.getView().getPage().getSession().getSessionId();
+	}
+
+	/**
+	 * Reads the Button's debounceMs prop. The window is taken from the props on
+	 * the gateway, a client can't shorten it by sending another value.
+	 *
+	 * @return The debounce window, the prop's default if it can't be read.
+	 */
+	private long readDebounceMillis() {
+		try {
+			return component.getPropertyTreeOf(PropertyType.props).read(DEBOUNCE_PROP)
+					.map(ButtonModelDelegate::asNumber)
+					.map(Number::longValue)
+					.orElse(DEFAULT_DEBOUNCE_MILLIS);
+		} catch (RuntimeException e) {
+			log.tracef("Could not read the debounceMs of '%s': %s", component.getComponentAddressPath(),
+					e.getMessage());
+			return DEFAULT_DEBOUNCE_MILLIS;
+		}
+	}
+
+	private static Number asNumber(Object value) {
+		if (value instanceof JsonElement) {
+			JsonElement element = (JsonElement) value;
+			return element.isJsonPrimitive() && element.getAsJsonPrimitive().isNumber() ? element.getAsNumber()
+					: null;
+		}
+		return value instanceof Number ? (Number) value : null;
+	}
+
+	/**
+	 * @return The name of the user logged into the Button's session, empty if
+	 *         nobody is logged in or the name can't be read.
+	 */
+	private String resolveUser() {
+		try {
+			return component.getView().getPage().getSession().getSessionProps().read(USER_NAME_PROP)
+					.map(ButtonModelDelegate::asText)
+					.orElse("");
+		} catch (RuntimeException e) {
+			log.tracef("Could not read the user of '%s': %s", component.getComponentAddressPath(), e.getMessage());
+			return "";
+		}
+	}
+
+	private static String asText(Object value) {
+		if (value instanceof JsonElement) {
+			JsonElement element = (JsonElement) value;
+			return element.isJsonPrimitive() ? element.getAsString() : "";
+		}
+		return value != null ? String.valueOf(value) : "";
+	}
+
+	/**
+	 * Sends a processed action back to the Button, whose client code then fires
+	 * onActionPerformed, see the class doc for what that means for scripts.
+	 *
+	 * @param action The processed action.
+	 */
+	@Override
+	public void dispatch(ButtonAction action) {
+		JsonObject payload = action.getPayload().deepCopy();
+		// Scripts see the window the click was collapsed with, whatever the client sent
+		payload.addProperty("debounceMs", action.getDebounceMillis());
+		if (action.getCoalescedClicks() > 0) {
+			payload.addProperty("coalescedClicks", action.getCoalescedClicks());
+		}
+		fireEvent(DISPATCH_EVENT, payload);
+	}
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright 2024 Keith Gamble
+ * [License information]
+ */
+package dev.kgamble.perspective.examples.gateway.delegates;
+
+import com.inductiveautomation.ignition.common.gson.JsonObject;
+import com.inductiveautomation.ignition.common.util.LoggerEx;
+import com.inductiveautomation.perspective.gateway.api.Component;
+import com.inductiveautomation.perspective.gateway.api.ComponentModelDelegate;
+import com.inductiveautomation.perspective.gateway.messages.EventFiringContext;
+
+import dev.kgamble.perspective.examples.gateway.ratelimit.ComponentRateLimiter;
+import dev.kgamble.perspective.examples.gateway.table.TableService;
+import dev.kgamble.perspective.examples.gateway.table.TableTarget;
+import dev.kgamble.perspective.examples.gateway.table.TableWindowRequest;
+
+/**
+ * Gateway-side model delegate of the Table component.
+ *
+ * The Table's client-side delegate asks for the rows it is about to show, and
+ * this delegate has the TableService fetch them from the shared dataset and
+ * sends them straight to the client. The dataset never goes into the property
+ * tree, so a Table costs the same per session whatever the size of its dataset.
+ * Requests beyond the Table's event rate limit are deferred, only the latest
+ * one is kept.
+ *
+ * @author Keith Gamble
+ */
+public class TableModelDelegate extends ComponentModelDelegate implements TableTarget {
+	private static final LoggerEx log = LoggerEx.newBuilder().build(TableModelDelegate.class);
+
+	/**
+	 * The event the Table sends when it needs a window of rows.
+	 * This should match WINDOW_EVENT in the JavaScript implementation.
+	 */
+	public static final String WINDOW_EVENT = "example-table-window";
+
+	/**
+	 * The event carrying a window of rows to the Table.
+	 * This should match ROWS_EVENT in the JavaScript implementation.
+	 */
+	public static final String ROWS_EVENT = "example-table-rows";
+
+	private final TableService service;
+	private final ComponentRateLimiter rateLimiter;
+	private volatile long latestRequestId = Long.MIN_VALUE;
+
+	/**
+	 * Constructs a new TableModelDelegate.
+	 *
+	 * @param component   The Table instance this delegate belongs to.
+	 * @param service     The service owning the datasets.
+	 * @param rateLimiter Limits the rate of the Table's requests.
+	 */
+	public TableModelDelegate(Component component, TableService service, ComponentRateLimiter rateLimiter) {
+		super(component);
+		this.service = service;
+		this.rateLimiter = rateLimiter;
+	}
+
+	@Override
+	protected void onStartup() {
+		log.tracef("Starting up delegate for '%s'", component.getComponentAddressPath());
+	}
+
+	@Override
+	protected void onShutdown() {
+		log.tracef("Shutting down delegate for '%s'", component.getComponentAddressPath());
+		// Any fetch still queued is skipped
+		latestRequestId = Long.MAX_VALUE;
+		rateLimiter.release(this);
+	}
+
+	/**
+	 * Receives the window requests sent by the Table's client-side delegate.
+	 *
+	 * @param event The event and its payload.
+	 */
+	@Override
+	public void handleEvent(EventFiringContext event) {
+		if (!WINDOW_EVENT.equals(event.getEvent())) {
+			return;
+		}
+
+		rateLimiter.execute(component.getView().getPage().getSession().getSessionId(), this, () -> fetch(event));
+	}
+
+	private void fetch(EventFiringContext event) {
+		TableWindowRequest request = TableWindowRequest.fromJson(event.getEventObject());
+		latestRequestId = Math.max(latestRequestId, request.getRequestId());
+		service.fetch(request, this);
+	}
+
+	/**
+	 * Sends a window of rows to the Table.
+	 *
+	 * @param payload The window.
+	 */
+	@Override
+	public void push(JsonObject payload) {
+		fireEvent(ROWS_EVENT, payload);
+	}
+
+	@Override
+	public boolean isSuperseded(long requestId) {
+		return requestId < latestRequestId;
+	}
+}
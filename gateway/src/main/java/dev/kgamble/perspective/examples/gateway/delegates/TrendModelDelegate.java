@@ -0,0 +1,121 @@
+/*
+ * Copyright 2024 Keith Gamble
+ * [License information]
+ */
+package dev.kgamble.perspective.examples.gateway.delegates;
+
+import com.inductiveautomation.ignition.common.gson.JsonObject;
+import com.inductiveautomation.ignition.common.util.LoggerEx;
+import com.inductiveautomation.perspective.gateway.api.Component;
+import com.inductiveautomation.perspective.gateway.api.ComponentModelDelegate;
+import com.inductiveautomation.perspective.gateway.messages.EventFiringContext;
+
+import dev.kgamble.perspective.examples.gateway.ratelimit.ComponentRateLimiter;
+import dev.kgamble.perspective.examples.gateway.trend.TrendRequest;
+import dev.kgamble.perspective.examples.gateway.trend.TrendService;
+import dev.kgamble.perspective.examples.gateway.trend.TrendSubscription;
+import dev.kgamble.perspective.examples.gateway.trend.TrendTarget;
+
+/**
+ * Gateway-side model delegate of the Trend component.
+ *
+ * The Trend's client-side delegate tells this delegate which source to follow
+ * and how wide the Trend is rendered. This delegate subscribes to the source
+ * through the TrendService and sends the downsampled points straight to the
+ * client, so neither the raw samples nor the points ever go into the property
+ * tree. Requests beyond the Trend's event rate limit are deferred, only the
+ * latest one is kept.
+ *
+ * @author Keith Gamble
+ */
+public class TrendModelDelegate extends ComponentModelDelegate implements TrendTarget {
+	private static final LoggerEx log = LoggerEx.newBuilder().build(TrendModelDelegate.class);
+
+	/**
+	 * The event the Trend sends whenever its props or its width change.
+	 * This should match SUBSCRIBE_EVENT in the JavaScript implementation.
+	 */
+	public static final String SUBSCRIBE_EVENT = "example-trend-subscribe";
+
+	/**
+	 * The event carrying the downsampled points to the Trend.
+	 * This should match DATA_EVENT in the JavaScript implementation.
+	 */
+	public static final String DATA_EVENT = "example-trend-data";
+
+	private final TrendService service;
+	private final ComponentRateLimiter rateLimiter;
+	private TrendSubscription subscription;
+	private boolean shutdown;
+
+	/**
+	 * Constructs a new TrendModelDelegate.
+	 *
+	 * @param component   The Trend instance this delegate belongs to.
+	 * @param service     The service owning the trend sources.
+	 * @param rateLimiter Limits the rate of the Trend's requests.
+	 */
+	public TrendModelDelegate(Component component, TrendService service, ComponentRateLimiter rateLimiter) {
+		super(component);
+		this.service = service;
+		this.rateLimiter = rateLimiter;
+	}
+
+	@Override
+	protected void onStartup() {
+		log.tracef("Starting up delegate for '%s'", component.getComponentAddressPath());
+	}
+
+	@Override
+	protected synchronized void onShutdown() {
+		log.tracef("Shutting down delegate for '%s'", component.getComponentAddressPath());
+		shutdown = true;
+		if (subscription != null) {
+			subscription.cancel();
+			subscription = null;
+		}
+		rateLimiter.release(this);
+	}
+
+	/**
+	 * Receives the requests sent by the Trend's client-side delegate, replacing
+	 * the previous subscription.
+	 *
+	 * @param event The event and its payload.
+	 */
+	@Override
+	public void handleEvent(EventFiringContext event) {
+		if (!SUBSCRIBE_EVENT.equals(event.getEvent())) {
+			return;
+		}
+
+		rateLimiter.execute(component.getView().getPage().getSession().getSessionId(), this,
+				() -> subscribe(event));
+	}
+
+	private synchronized void subscribe(EventFiringContext event) {
+		// A deferred request may be replayed after the Trend was removed
+		if (shutdown) {
+			return;
+		}
+		if (subscription != null) {
+			subscription.cancel();
+		}
+		TrendRequest request = TrendRequest.fromJson(event.getEventObject());
+		subscription = service.subscribe(request, this);
+		if (subscription == null) {
+			log.debugf("Trend '%s' asked for unknown source '%s'", component.getComponentAddressPath(),
+					request.getSource());
+		}
+	}
+
+	/**
+	 * Sends the downsampled points to the Trend.
+	 *
+	 * @param payload The points.
+	 */
+	@Override
+	public void push(JsonObject payload) {
+		fireEvent(DATA_EVENT, payload);
+	}
+}
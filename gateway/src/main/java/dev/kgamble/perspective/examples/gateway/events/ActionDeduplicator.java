@@ -0,0 +1,191 @@
+/*
+ * Copyright 2024 Keith Gamble
+ * [License information]
+ */
+package dev.kgamble.perspective.examples.gateway.events;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.inductiveautomation.ignition.common.gson.JsonElement;
+
+import dev.kgamble.perspective.examples.gateway.metrics.EventMetrics;
+
+/**
+ * Pipeline stage that collapses repeated clicks of the same Button instance.
+ *
+ * A click is suppressed when another click of the same session, page, view
+ * and component passed within the Button's debounceMs, or when it carries an
+ * actionId that was already seen, e.g. a message replayed after a reconnect.
+ * The actionIds are counted per page, so the clicks of a view open in two tabs
+ * are checked separately.
+ * The debounceMs is the Button's prop as read on the gateway, not a value the
+ * client sends, and replayed actionIds are recognized for the largest window
+ * whatever the Button's own window is, so a client can't switch either check
+ * off. Only clicks that pass are handed to the next handler.
+ *
+ * Recent clicks are kept in a ring of time buckets, each covering
+ * BUCKET_MILLIS. A bucket is cleared as a whole when the ring wraps around, so
+ * no per-entry expiry or sweeping is needed and memory stays bounded by the
+ * clicks of the last maximum window.
+ *
+ * @author Keith Gamble
+ */
+public class ActionDeduplicator implements ActionHandler {
+
+	/**
+	 * The payload field holding the client's monotonically increasing action id.
+	 */
+	public static final String ACTION_ID = "actionId";
+
+	// Time covered by each bucket
+	private static final long BUCKET_MILLIS = 50;
+
+	private final ActionHandler next;
+	private final EventMetrics metrics;
+	private final long maxWindowMillis;
+	private final Bucket[] buckets;
+
+	private final LongAdder passed = new LongAdder();
+	private final LongAdder suppressed = new LongAdder();
+
+	/**
+	 * Constructs a new ActionDeduplicator.
+	 *
+	 * @param maxWindowMillis The largest debounce window honoured, larger
+	 *                        debounceMs values are clamped to it. Replayed
+	 *                        actionIds are recognized within this window.
+	 * @param next            The handler that receives the clicks that pass.
+	 * @param metrics         Counts the suppressed clicks as "suppressed".
+	 */
+	public ActionDeduplicator(long maxWindowMillis, ActionHandler next, EventMetrics metrics) {
+		this.next = next;
+		this.metrics = metrics;
+		this.maxWindowMillis = Math.max(0, maxWindowMillis);
+
+		// One extra bucket for the partially elapsed current bucket
+		int bucketCount = (int) (this.maxWindowMillis / BUCKET_MILLIS) + 2;
+		this.buckets = new Bucket[bucketCount];
+		for (int i = 0; i < bucketCount; i++) {
+			buckets[i] = new Bucket();
+		}
+	}
+
+	@Override
+	public void handle(ButtonAction action) throws Exception {
+		if (isDuplicate(action)) {
+			suppressed.increment();
+			metrics.increment("suppressed");
+			return;
+		}
+
+		passed.increment();
+		next.handle(action);
+	}
+
+	/**
+	 * Checks the action against the recent clicks of its component, and records
+	 * it if it passes. Actions of one session are handled by a single pipeline
+	 * worker, so the check and the record can't race for the same key.
+	 *
+	 * @param action The action to check.
+	 * @return true if the action repeats a recent click.
+	 */
+	boolean isDuplicate(ButtonAction action) {
+		long window = Math.min(action.getDebounceMillis(), maxWindowMillis);
+		long actionId = readLong(action, ACTION_ID, -1);
+		long now = TimeUnit.NANOSECONDS.toMillis(action.getReceivedNanos());
+		long currentEpoch = now / BUCKET_MILLIS;
+
+		// The whole ring is searched for the last click, replays are recognized beyond the Button's window
+		long oldestEpoch = (now - maxWindowMillis) / BUCKET_MILLIS;
+		for (long epoch = currentEpoch; epoch >= oldestEpoch; epoch--) {
+			Click previous = bucketFor(epoch, false).get(action.getKey());
+			if (previous == null) {
+				continue;
+			}
+			boolean withinWindow = now - previous.millis < window;
+			boolean replayed = actionId >= 0 && actionId <= previous.actionId;
+			if (withinWindow || replayed) {
+				return true;
+			}
+			// Older buckets can only hold older clicks
+			break;
+		}
+
+		bucketFor(currentEpoch, true).put(action.getKey(), new Click(now, actionId));
+		return false;
+	}
+
+	/**
+	 * Returns the clicks recorded in the bucket of the given epoch.
+	 *
+	 * @param epoch  The epoch, the time divided by BUCKET_MILLIS.
+	 * @param create true to claim the bucket for the epoch if it holds an older
+	 *               one, false to only read it.
+	 * @return The clicks of the epoch, empty if none were recorded.
+	 */
+	private ConcurrentHashMap<String, Click> bucketFor(long epoch, boolean create) {
+		Bucket bucket = buckets[(int) Math.floorMod(epoch, (long) buckets.length)];
+		if (bucket.epoch == epoch) {
+			return bucket.clicks;
+		}
+		if (!create) {
+			return Bucket.EMPTY;
+		}
+
+		synchronized (bucket) {
+			if (bucket.epoch != epoch) {
+				bucket.clicks = new ConcurrentHashMap<>();
+				bucket.epoch = epoch;
+			}
+			return bucket.clicks;
+		}
+	}
+
+	private static long readLong(ButtonAction action, String field, long fallback) {
+		JsonElement value = action.getPayload().get(field);
+		if (value == null || !value.isJsonPrimitive() || !value.getAsJsonPrimitive().isNumber()) {
+			return fallback;
+		}
+		return value.getAsLong();
+	}
+
+	/**
+	 * @return The number of clicks handed to the next handler.
+	 */
+	public long getPassedCount() {
+		return passed.sum();
+	}
+
+	/**
+	 * @return The number of clicks suppressed as repeats.
+	 */
+	public long getSuppressedCount() {
+		return suppressed.sum();
+	}
+
+	/**
+	 * A recorded click.
+	 */
+	private static class Click {
+		final long millis;
+		final long actionId;
+
+		Click(long millis, long actionId) {
+			this.millis = millis;
+			this.actionId = actionId;
+		}
+	}
+
+	/**
+	 * The clicks recorded during one BUCKET_MILLIS epoch.
+	 */
+	private static class Bucket {
+		static final ConcurrentHashMap<String, Click> EMPTY = new ConcurrentHashMap<>();
+
+		volatile long epoch = Long.MIN_VALUE;
+		volatile ConcurrentHashMap<String, Click> clicks = new ConcurrentHashMap<>();
+	}
+}
@@ -0,0 +1,30 @@
+/*
+ * Copyright 2024 Keith Gamble
+ * [License information]
+ */
+package dev.kgamble.perspective.examples.gateway.events;
+
+/**
+ * Processes the actions taken from the ActionPipeline queues. Handlers are
+ * called from the pipeline's worker threads, actions of the same session are
+ * always handled one at a time and in the order they arrived.
+ *
+ * @author Keith Gamble
+ */
+@FunctionalInterface
+public interface ActionHandler {
+
+	/**
+	 * The handler that dispatches every action straight back to its component.
+	 */
+	ActionHandler DISPATCH = action -> action.getTarget().dispatch(action);
+
+	/**
+	 * Processes a single action.
+	 *
+	 * @param action The action to process.
+	 * @throws Exception If the action could not be processed, the pipeline logs
+	 *                   the failure and moves on to the next action.
+	 */
+	void handle(ButtonAction action) throws Exception;
+}
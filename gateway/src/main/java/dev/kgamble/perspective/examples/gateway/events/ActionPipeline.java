@@ -0,0 +1,300 @@
+/*
+ * Copyright 2024 Keith Gamble
+ * [License information]
+ */
+package dev.kgamble.perspective.examples.gateway.events;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import com.inductiveautomation.ignition.common.util.LoggerEx;
+
+import dev.kgamble.perspective.examples.gateway.metrics.EventMetrics;
+
+/**
+ * Receives Button actions from the component model delegates and processes
+ * them on a fixed pool of worker threads.
+ *
+ * Each worker owns a BoundedLockFreeQueue. Actions are assigned to workers by
+ * session, so the actions of a session are always processed one at a time and
+ * in the order they arrived, while different sessions are processed in
+ * parallel. When a queue is full the configured BackpressurePolicy decides
+ * what happens to the action, so a burst of clicks can never grow the gateway's
+ * memory or tie up the threads that received them.
+ *
+ * @author Keith Gamble
+ */
+public class ActionPipeline {
+	private static final LoggerEx log = LoggerEx.newBuilder().build(ActionPipeline.class);
+
+	// Upper bound on how long an idle worker sleeps before checking its queue again
+	private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+	// How long a BLOCK submit sleeps between attempts
+	private static final long BLOCK_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+
+	/**
+	 * The outcome of submitting an action.
+	 */
+	public enum SubmitResult {
+		/** The action was queued. */
+		ACCEPTED,
+		/** The action was folded into an action that is already queued. */
+		COALESCED,
+		/** The queue was full and the action was dropped. */
+		DROPPED,
+		/** The pipeline isn't running. */
+		REJECTED
+	}
+
+	private final ActionPipelineSettings settings;
+	private final ActionHandler handler;
+	private final EventMetrics metrics;
+	private final Worker[] workers;
+
+	// Queued actions by component instance, only maintained for COALESCE
+	private final ConcurrentHashMap<String, ButtonAction> pending = new ConcurrentHashMap<>();
+
+	private final LongAdder accepted = new LongAdder();
+	private final LongAdder coalesced = new LongAdder();
+	private final LongAdder dropped = new LongAdder();
+	private final LongAdder processed = new LongAdder();
+	private final LongAdder failed = new LongAdder();
+
+	private volatile boolean running;
+
+	/**
+	 * Constructs a new ActionPipeline, call start() before submitting actions.
+	 *
+	 * @param settings The pipeline settings.
+	 * @param handler  The handler that processes the actions.
+	 * @param metrics  Records the arrival, queue wait and handler time of every
+	 *                 action.
+	 */
+	public ActionPipeline(ActionPipelineSettings settings, ActionHandler handler, EventMetrics metrics) {
+		this.settings = settings;
+		this.handler = handler;
+		this.metrics = metrics;
+		this.workers = new Worker[settings.getWorkers()];
+		for (int i = 0; i < workers.length; i++) {
+			workers[i] = new Worker(i, settings.getQueueCapacity());
+		}
+	}
+
+	/**
+	 * Starts the worker threads.
+	 */
+	public synchronized void start() {
+		if (running) {
+			return;
+		}
+		running = true;
+		for (Worker worker : workers) {
+			worker.thread.start();
+		}
+		log.debugf("Started action pipeline with %d workers, queue capacity %d and %s backpressure",
+				workers.length, settings.getQueueCapacity(), settings.getBackpressure());
+	}
+
+	/**
+	 * Stops accepting actions, lets the workers finish the actions already queued
+	 * and waits for them to exit.
+	 *
+	 * @param timeoutMillis How long to wait for the workers.
+	 */
+	public synchronized void shutdown(long timeoutMillis) {
+		if (!running) {
+			return;
+		}
+		running = false;
+
+		long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+		for (Worker worker : workers) {
+			LockSupport.unpark(worker.thread);
+		}
+		for (Worker worker : workers) {
+			try {
+				worker.thread.join(Math.max(1, TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime())));
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				break;
+			}
+			if (worker.thread.isAlive()) {
+				log.warnf("Action worker %s did not finish within %d ms", worker.thread.getName(), timeoutMillis);
+			}
+		}
+		pending.clear();
+	}
+
+	/**
+	 * Submits an action for processing. This never blocks unless the BLOCK policy
+	 * is configured and the queue is full.
+	 *
+	 * @param action The action to submit.
+	 * @return What happened to the action.
+	 */
+	public SubmitResult submit(ButtonAction action) {
+		metrics.recordArrival();
+		if (!running) {
+			metrics.increment("rejected");
+			return SubmitResult.REJECTED;
+		}
+
+		Worker worker = workerFor(action.getSessionId());
+		BackpressurePolicy policy = settings.getBackpressure();
+
+		if (worker.offer(action, policy)) {
+			accepted.increment();
+			return SubmitResult.ACCEPTED;
+		}
+
+		if (policy == BackpressurePolicy.COALESCE) {
+			ButtonAction queued = pending.get(action.getKey());
+			if (queued != null && queued.tryCoalesce()) {
+				coalesced.increment();
+				metrics.increment("coalesced");
+				return SubmitResult.COALESCED;
+			}
+		}
+
+		dropped.increment();
+		metrics.increment("dropped");
+		return SubmitResult.DROPPED;
+	}
+
+	private Worker workerFor(String sessionId) {
+		return workers[Math.floorMod(sessionId.hashCode(), workers.length)];
+	}
+
+	/**
+	 * @return The number of actions queued.
+	 */
+	public long getAcceptedCount() {
+		return accepted.sum();
+	}
+
+	/**
+	 * @return The number of actions folded into already queued actions.
+	 */
+	public long getCoalescedCount() {
+		return coalesced.sum();
+	}
+
+	/**
+	 * @return The number of actions dropped because a queue was full.
+	 */
+	public long getDroppedCount() {
+		return dropped.sum();
+	}
+
+	/**
+	 * @return The number of actions handled, including failed ones.
+	 */
+	public long getProcessedCount() {
+		return processed.sum();
+	}
+
+	/**
+	 * @return The number of actions whose handler threw an exception.
+	 */
+	public long getFailedCount() {
+		return failed.sum();
+	}
+
+	/**
+	 * @return The number of actions currently waiting in all queues.
+	 */
+	public int getQueuedCount() {
+		int queued = 0;
+		for (Worker worker : workers) {
+			queued += worker.queue.size();
+		}
+		return queued;
+	}
+
+	/**
+	 * A worker thread and the queue it drains.
+	 */
+	private class Worker implements Runnable {
+		private final BoundedLockFreeQueue<ButtonAction> queue;
+		private final Thread thread;
+		private volatile boolean idle;
+
+		Worker(int index, int capacity) {
+			this.queue = new BoundedLockFreeQueue<>(capacity);
+			this.thread = new Thread(this, "example-components-action-worker-" + index);
+			this.thread.setDaemon(true);
+		}
+
+		boolean offer(ButtonAction action, BackpressurePolicy policy) {
+			boolean offered = queue.offer(action);
+
+			if (!offered && policy == BackpressurePolicy.BLOCK) {
+				long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(settings.getBlockTimeoutMillis());
+				while (!offered && running && System.nanoTime() < deadline) {
+					LockSupport.parkNanos(BLOCK_PARK_NANOS);
+					offered = queue.offer(action);
+				}
+			}
+
+			if (!offered) {
+				return false;
+			}
+
+			if (policy == BackpressurePolicy.COALESCE) {
+				pending.put(action.getKey(), action);
+				// The worker may have taken the action before it was registered
+				if (action.isClaimed()) {
+					pending.remove(action.getKey(), action);
+				}
+			}
+
+			if (idle) {
+				LockSupport.unpark(thread);
+			}
+			return true;
+		}
+
+		@Override
+		public void run() {
+			while (true) {
+				ButtonAction action = queue.poll();
+
+				if (action == null) {
+					if (!running) {
+						return;
+					}
+					idle = true;
+					// Check again after publishing idle, so a concurrent offer can't be missed
+					if (queue.isEmpty() && running) {
+						LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+					}
+					idle = false;
+					continue;
+				}
+
+				process(action);
+			}
+		}
+
+		private void process(ButtonAction action) {
+			long startNanos = System.nanoTime();
+			metrics.recordQueueWait(startNanos - action.getReceivedNanos());
+
+			action.claim();
+			pending.remove(action.getKey(), action);
+
+			try {
+				handler.handle(action);
+			} catch (Exception e) {
+				failed.increment();
+				metrics.increment("failed");
+				log.error("Failed to process action of " + action.getComponentPath(), e);
+			} finally {
+				processed.increment();
+				metrics.recordHandlerTime(System.nanoTime() - startNanos);
+			}
+		}
+	}
+}
@@ -0,0 +1,148 @@
+/*
+ * Copyright 2024 Keith Gamble
+ * [License information]
+ */
+package dev.kgamble.perspective.examples.gateway.events;
+
+import java.util.Locale;
+
+import dev.kgamble.perspective.examples.common.Constants;
+
+/**
+ * Settings of the ActionPipeline.
+ *
+ * The defaults can be overridden on the gateway with system properties in
+ * ignition.conf, e.g.
+ * {@code wrapper.java.additional.N=-Dexample-components.actions.workers=8}.
+ *
+ * @author Keith Gamble
+ */
+public class ActionPipelineSettings {
+	private static final String PROPERTY_PREFIX = Constants.MODULE_URL_ALIAS + ".actions.";
+
+	private final int workers;
+	private final int queueCapacity;
+	private final BackpressurePolicy backpressure;
+	private final long blockTimeoutMillis;
+	private final long maxDebounceMillis;
+
+	private ActionPipelineSettings(Builder builder) {
+		this.workers = builder.workers;
+		this.queueCapacity = builder.queueCapacity;
+		this.backpressure = builder.backpressure;
+		this.blockTimeoutMillis = builder.blockTimeoutMillis;
+		this.maxDebounceMillis = builder.maxDebounceMillis;
+	}
+
+	/**
+	 * @return The number of worker threads, each owning one queue.
+	 */
+	public int getWorkers() {
+		return workers;
+	}
+
+	/**
+	 * @return The capacity of each worker's queue.
+	 */
+	public int getQueueCapacity() {
+		return queueCapacity;
+	}
+
+	/**
+	 * @return What happens to actions that arrive while a queue is full.
+	 */
+	public BackpressurePolicy getBackpressure() {
+		return backpressure;
+	}
+
+	/**
+	 * @return How long a BLOCK submit waits for room before dropping the action.
+	 */
+	public long getBlockTimeoutMillis() {
+		return blockTimeoutMillis;
+	}
+
+	/**
+	 * @return The largest debounceMs honoured when collapsing repeated clicks.
+	 */
+	public long getMaxDebounceMillis() {
+		return maxDebounceMillis;
+	}
+
+	/**
+	 * @return A new Builder with the default settings.
+	 */
+	public static Builder newBuilder() {
+		return new Builder();
+	}
+
+	/**
+	 * Reads the settings from the {@code example-components.actions.*} system
+	 * properties, falling back to the defaults for any that are not set.
+	 *
+	 * @return The configured settings.
+	 */
+	public static ActionPipelineSettings fromSystemProperties() {
+		Builder builder = newBuilder();
+		builder.setWorkers(Integer.getInteger(PROPERTY_PREFIX + "workers", builder.workers));
+		builder.setQueueCapacity(Integer.getInteger(PROPERTY_PREFIX + "queueCapacity", builder.queueCapacity));
+		builder.setBlockTimeoutMillis(Long.getLong(PROPERTY_PREFIX + "blockTimeoutMs", builder.blockTimeoutMillis));
+		builder.setMaxDebounceMillis(Long.getLong(PROPERTY_PREFIX + "maxDebounceMs", builder.maxDebounceMillis));
+
+		String backpressure = System.getProperty(PROPERTY_PREFIX + "backpressure");
+		if (backpressure != null) {
+			builder.setBackpressure(BackpressurePolicy.valueOf(backpressure.trim().toUpperCase(Locale.ROOT)));
+		}
+
+		return builder.build();
+	}
+
+	/**
+	 * Builder for ActionPipelineSettings.
+	 */
+	public static class Builder {
+		private int workers = Math.max(2, Runtime.getRuntime().availableProcessors() / 2);
+		private int queueCapacity = 1024;
+		private BackpressurePolicy backpressure = BackpressurePolicy.COALESCE;
+		private long blockTimeoutMillis = 50;
+		private long maxDebounceMillis = 5000;
+
+		private Builder() {
+		}
+
+		public Builder setWorkers(int workers) {
+			if (workers < 1) {
+				throw new IllegalArgumentException("At least one worker is required");
+			}
+			this.workers = workers;
+			return this;
+		}
+
+		public Builder setQueueCapacity(int queueCapacity) {
+			if (queueCapacity < 1) {
+				throw new IllegalArgumentException("Queue capacity must be positive");
+			}
+			this.queueCapacity = queueCapacity;
+			return this;
+		}
+
+		public Builder setBackpressure(BackpressurePolicy backpressure) {
+			this.backpressure = backpressure;
+			return this;
+		}
+
+		public Builder setBlockTimeoutMillis(long blockTimeoutMillis) {
+			this.blockTimeoutMillis = Math.max(0, blockTimeoutMillis);
+			return this;
+		}
+
+		public Builder setMaxDebounceMillis(long maxDebounceMillis) {
+			this.maxDebounceMillis = Math.max(0, maxDebounceMillis);
+			return this;
+		}
+
+		public ActionPipelineSettings build() {
+			return new ActionPipelineSettings(this);
+		}
+	}
+}
@@ -0,0 +1,22 @@
+/*
+ * Copyright 2024 Keith Gamble
+ * [License information]
+ */
+package dev.kgamble.perspective.examples.gateway.events;
+
+/**
+ * The component instance a ButtonAction came from, which receives the action
+ * back once the pipeline has processed it.
+ *
+ * @author Keith Gamble
+ */
+public interface ActionTarget {
+
+	/**
+	 * Dispatches a processed action to the component, so its configured event
+	 * handlers run.
+	 *
+	 * @param action The processed action.
+	 */
+	void dispatch(ButtonAction action);
+}
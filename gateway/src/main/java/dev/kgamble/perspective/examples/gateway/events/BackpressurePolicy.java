@@ -0,0 +1,30 @@
+/*
+ * Copyright 2024 Keith Gamble
+ * [License information]
+ */
+package dev.kgamble.perspective.examples.gateway.events;
+
+/**
+ * What the ActionPipeline does with an action when the queue of the worker
+ * responsible for its session is full.
+ *
+ * @author Keith Gamble
+ */
+public enum BackpressurePolicy {
+	/**
+	 * Drop the action immediately.
+	 */
+	DROP,
+
+	/**
+	 * Wait for room in the queue, up to the configured block timeout, then drop
+	 * the action.
+	 */
+	BLOCK,
+
+	/**
+	 * Fold the action into an action of the same component that is still waiting
+	 * in the queue, or drop it if there is none.
+	 */
+	COALESCE
+}
@@ -0,0 +1,150 @@
+/*
+ * Copyright 2024 Keith Gamble
+ * [License information]
+ */
+package dev.kgamble.perspective.examples.gateway.events;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A bounded, lock-free, multi-producer queue backed by a ring buffer.
+ *
+ * Every slot carries a sequence number that tells producers and consumers
+ * whether the slot is free or filled for the current lap, so neither side ever
+ * takes a lock. offer() fails immediately when the queue is full, which leaves
+ * the decision of what to do with the element to the caller.
+ *
+ * @param <E> The type of the queued elements.
+ * @author Keith Gamble
+ */
+public class BoundedLockFreeQueue<E> {
+	private final AtomicReferenceArray<E> buffer;
+	private final AtomicLongArray sequences;
+	private final int mask;
+
+	// Next position to write to, claimed by producers
+	private final AtomicLong tail = new AtomicLong();
+	// Next position to read from, claimed by consumers
+	private final AtomicLong head = new AtomicLong();
+
+	/**
+	 * Constructs a new BoundedLockFreeQueue.
+	 *
+	 * @param capacity The minimum capacity of the queue, rounded up to the next
+	 *                 power of two.
+	 */
+	public BoundedLockFreeQueue(int capacity) {
+		if (capacity < 1 || capacity > (1 << 30)) {
+			throw new IllegalArgumentException("Capacity must be between 1 and 2^30, was " + capacity);
+		}
+
+		int size = Integer.highestOneBit(capacity);
+		if (size < capacity) {
+			size <<= 1;
+		}
+
+		this.buffer = new AtomicReferenceArray<>(size);
+		this.sequences = new AtomicLongArray(size);
+		this.mask = size - 1;
+
+		for (int i = 0; i < size; i++) {
+			sequences.set(i, i);
+		}
+	}
+
+	/**
+	 * Adds an element to the queue if there is room for it.
+	 *
+	 * @param element The element to add, must not be null.
+	 * @return true if the element was added, false if the queue is full.
+	 */
+	public boolean offer(E element) {
+		if (element == null) {
+			throw new NullPointerException("Queued elements must not be null");
+		}
+
+		long position = tail.get();
+		int index;
+		while (true) {
+			index = (int) (position & mask);
+			long difference = sequences.get(index) - position;
+
+			if (difference == 0) {
+				// The slot is free for this lap, try to claim it
+				if (tail.compareAndSet(position, position + 1)) {
+					break;
+				}
+				position = tail.get();
+			} else if (difference < 0) {
+				// The slot still holds the element from the previous lap
+				return false;
+			} else {
+				// Another producer claimed this slot first
+				position = tail.get();
+			}
+		}
+
+		buffer.set(index, element);
+		// Publish the element to consumers
+		sequences.set(index, position + 1);
+		return true;
+	}
+
+	/**
+	 * Removes the oldest element from the queue.
+	 *
+	 * @return The oldest element, or null if the queue is empty.
+	 */
+	public E poll() {
+		long position = head.get();
+		int index;
+		while (true) {
+			index = (int) (position & mask);
+			long difference = sequences.get(index) - (position + 1);
+
+			if (difference == 0) {
+				// The slot is filled for this lap, try to claim it
+				if (head.compareAndSet(position, position + 1)) {
+					break;
+				}
+				position = head.get();
+			} else if (difference < 0) {
+				// Nothing has been published to this slot yet
+				return null;
+			} else {
+				// Another consumer claimed this slot first
+				position = head.get();
+			}
+		}
+
+		E element = buffer.get(index);
+		buffer.set(index, null);
+		// Free the slot for the next lap
+		sequences.set(index, position + mask + 1);
+		return element;
+	}
+
+	/**
+	 * @return true if the queue held no elements at the time of the call.
+	 */
+	public boolean isEmpty() {
+		return size() == 0;
+	}
+
+	/**
+	 * @return The approximate number of elements in the queue.
+	 */
+	public int size() {
+		long size = tail.get() - head.get();
+		return (int) Math.max(0, Math.min(size, capacity()));
+	}
+
+	/**
+	 * @return The number of elements the queue can hold.
+	 */
+	public int capacity() {
+		return mask + 1;
+	}
+}
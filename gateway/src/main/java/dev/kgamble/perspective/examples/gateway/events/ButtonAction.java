@@ -0,0 +1,165 @@
+/*
+ * Copyright 2024 Keith Gamble
+ * [License information]
+ */
+package dev.kgamble.perspective.examples.gateway.events;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.inductiveautomation.ignition.common.gson.JsonObject;
+
+/**
+ * A single Button action received from a Perspective session, on its way
+ * through the ActionPipeline.
+ *
+ * @author Keith Gamble
+ */
+public class ButtonAction {
+	// Marks an action that a worker has taken, it can no longer absorb other clicks
+	private static final int CLAIMED = -1;
+
+	private final String sessionId;
+	private final String pageId;
+	private final String viewPath;
+	private final String componentPath;
+	private final String key;
+	private final JsonObject payload;
+	private final long debounceMillis;
+	private final ActionTarget target;
+	private final long receivedNanos;
+
+	// Number of clicks folded into this action while it waited in the queue
+	private final AtomicInteger coalesced = new AtomicInteger();
+	private int coalescedClicks;
+
+	/**
+	 * Constructs a new ButtonAction.
+	 *
+	 * @param sessionId     The id of the session the action came from.
+	 * @param pageId        The id of the page, i.e. the browser tab, showing
+	 *                      the view.
+	 * @param viewPath      The path of the view containing the component.
+	 * @param componentPath The path of the component within the view.
+	 * @param payload        The payload sent by the client.
+	 * @param debounceMillis The debounceMs prop of the Button, read on the
+	 *                       gateway rather than taken from the payload.
+	 * @param target         Where the action is dispatched once processed.
+	 */
+	public ButtonAction(String sessionId, String pageId, String viewPath, String componentPath, JsonObject payload,
+			long debounceMillis, ActionTarget target) {
+		this.sessionId = sessionId;
+		this.pageId = pageId;
+		this.viewPath = viewPath;
+		this.componentPath = componentPath;
+		// A view open in two tabs of a session shows a Button instance on each page
+		this.key = sessionId + '|' + pageId + '|' + viewPath + '|' + componentPath;
+		this.payload = payload;
+		this.debounceMillis = Math.max(0, debounceMillis);
+		this.target = target;
+		this.receivedNanos = System.nanoTime();
+	}
+
+	/**
+	 * @return The id of the session the action came from.
+	 */
+	public String getSessionId() {
+		return sessionId;
+	}
+
+	/**
+	 * @return The id of the page showing the view.
+	 */
+	public String getPageId() {
+		return pageId;
+	}
+
+	/**
+	 * @return The path of the view containing the component.
+	 */
+	public String getViewPath() {
+		return viewPath;
+	}
+
+	/**
+	 * @return The path of the component within the view.
+	 */
+	public String getComponentPath() {
+		return componentPath;
+	}
+
+	/**
+	 * @return A key that identifies the component instance across all sessions.
+	 */
+	public String getKey() {
+		return key;
+	}
+
+	/**
+	 * @return The payload sent by the client.
+	 */
+	public JsonObject getPayload() {
+		return payload;
+	}
+
+	/**
+	 * @return The debounceMs prop of the Button when it was clicked, at least 0.
+	 */
+	public long getDebounceMillis() {
+		return debounceMillis;
+	}
+
+	/**
+	 * @return Where the action is dispatched once processed.
+	 */
+	public ActionTarget getTarget() {
+		return target;
+	}
+
+	/**
+	 * @return The System.nanoTime() at which the action was received.
+	 */
+	public long getReceivedNanos() {
+		return receivedNanos;
+	}
+
+	/**
+	 * @return The number of additional clicks folded into this action while it
+	 *         waited, only valid once a worker has taken the action.
+	 */
+	public int getCoalescedClicks() {
+		return coalescedClicks;
+	}
+
+	/**
+	 * Folds another click of the same component into this action.
+	 *
+	 * @return true if the click was folded in, false if a worker has already
+	 *         taken this action.
+	 */
+	boolean tryCoalesce() {
+		while (true) {
+			int current = coalesced.get();
+			if (current == CLAIMED) {
+				return false;
+			}
+			if (coalesced.compareAndSet(current, current + 1)) {
+				return true;
+			}
+		}
+	}
+
+	/**
+	 * Marks the action as taken by a worker, no more clicks are folded into it
+	 * after this.
+	 */
+	void claim() {
+		coalescedClicks = coalesced.getAndSet(CLAIMED);
+	}
+
+	/**
+	 * @return true if a worker has taken this action.
+	 */
+	boolean isClaimed() {
+		return coalesced.get() == CLAIMED;
+	}
+}
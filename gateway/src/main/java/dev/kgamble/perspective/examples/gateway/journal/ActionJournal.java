@@ -0,0 +1,346 @@
+/*
+ * Copyright 2024 Keith Gamble
+ * [License information]
+ */
+package dev.kgamble.perspective.examples.gateway.journal;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+import com.inductiveautomation.ignition.common.util.LoggerEx;
+
+import dev.kgamble.perspective.examples.gateway.events.BoundedLockFreeQueue;
+import dev.kgamble.perspective.examples.gateway.metrics.EventMetrics;
+
+/**
+ * An append-only journal of Button presses, kept in memory-mapped segment
+ * files.
+ *
+ * record() only offers the press to a bounded, lock-free queue, so the thread
+ * delivering the Button's events never waits for the disk. A single writer
+ * thread drains the queue into the current segment, forces it to disk every
+ * forceIntervalMillis and starts a new segment when a record doesn't fit.
+ * Whenever a segment is finished, the oldest segments beyond maxSegments or
+ * retentionMillis are deleted. When the queue is full the press is dropped and
+ * counted, the journal never slows down the Buttons.
+ *
+ * Segments are read back with a JournalReader, see JournalSegments for their
+ * layout.
+ *
+ * @author Keith Gamble
+ */
+public class ActionJournal implements ActionRecorder {
+	private static final LoggerEx log = LoggerEx.newBuilder().build(ActionJournal.class);
+
+	private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+	private final ActionJournalSettings settings;
+	private final Path directory;
+	private final EventMetrics metrics;
+	private final BoundedLockFreeQueue<ActionRecord> queue;
+	// Presses between their check of running and their offer, close() waits for them
+	private final AtomicInteger recording = new AtomicInteger();
+
+	private Thread writer;
+	private volatile boolean running;
+	private volatile boolean idle;
+
+	// Only touched by the writer thread once started
+	private MappedByteBuffer segment;
+	private Path segmentFile;
+	private long nextSequence;
+	private boolean dirty;
+	private long lastForceNanos;
+
+	/**
+	 * Constructs a new ActionJournal. Nothing is written until it is started.
+	 *
+	 * @param settings  The journal settings.
+	 * @param directory The directory of the segment files, created if missing.
+	 * @param metrics   The metrics the journal records its writes into.
+	 */
+	public ActionJournal(ActionJournalSettings settings, Path directory, EventMetrics metrics) {
+		this.settings = settings;
+		this.directory = directory;
+		this.metrics = metrics;
+		this.queue = new BoundedLockFreeQueue<>(settings.getBufferCapacity());
+	}
+
+	/**
+	 * Opens a new segment after the records already in the directory and starts
+	 * the writer thread.
+	 *
+	 * @throws IOException If the directory or the first segment can't be created.
+	 */
+	public synchronized void start() throws IOException {
+		if (running) {
+			return;
+		}
+		Files.createDirectories(directory);
+		nextSequence = findNextSequence();
+		openSegment();
+		applyRetention();
+
+		running = true;
+		writer = new Thread(this::run, "example-components-journal-writer");
+		writer.setDaemon(true);
+		writer.start();
+		log.debugf("Started action journal in %s at sequence %d", directory, nextSequence);
+	}
+
+	/**
+	 * Stops the writer once it has written the presses already queued, and
+	 * forces the current segment to disk. A press recorded while the journal
+	 * closes is either written or counted as dropped.
+	 *
+	 * @param timeoutMillis How long to wait for the writer.
+	 */
+	public synchronized void close(long timeoutMillis) {
+		if (!running) {
+			return;
+		}
+		running = false;
+		// Every press that saw the journal running is queued before the writer is stopped
+		while (recording.get() > 0) {
+			Thread.onSpinWait();
+		}
+		LockSupport.unpark(writer);
+		try {
+			writer.join(timeoutMillis);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		if (writer.isAlive()) {
+			log.warnf("Action journal writer did not finish within %d ms", timeoutMillis);
+			return;
+		}
+		// The writer may have found the queue empty just before the last presses were queued
+		writeRemaining();
+	}
+
+	/**
+	 * Queues a press for the writer. Never blocks, a press that finds the queue
+	 * full is counted as dropped.
+	 *
+	 * @param record The press.
+	 */
+	@Override
+	public void record(ActionRecord record) {
+		metrics.recordArrival();
+		recording.incrementAndGet();
+		try {
+			if (!running || !queue.offer(record)) {
+				metrics.increment("dropped");
+				return;
+			}
+		} finally {
+			recording.decrementAndGet();
+		}
+		if (idle) {
+			LockSupport.unpark(writer);
+		}
+	}
+
+	/**
+	 * @return The directory of the segment files.
+	 */
+	public Path getDirectory() {
+		return directory;
+	}
+
+	/**
+	 * @return A reader of this journal's segments.
+	 */
+	public JournalReader newReader() {
+		return new JournalReader(directory);
+	}
+
+	private void run() {
+		lastForceNanos = System.nanoTime();
+		while (true) {
+			ActionRecord record = queue.poll();
+
+			if (record == null) {
+				forceIfDue(false);
+				if (!running) {
+					forceIfDue(true);
+					touch(segmentFile);
+					return;
+				}
+				idle = true;
+				// Check again after publishing idle, so a concurrent record can't be missed
+				if (queue.isEmpty() && running) {
+					LockSupport.parkNanos(this, Math.min(IDLE_PARK_NANOS,
+							TimeUnit.MILLISECONDS.toNanos(Math.max(1, settings.getForceIntervalMillis()))));
+				}
+				idle = false;
+				continue;
+			}
+
+			long startNanos = System.nanoTime();
+			try {
+				write(record);
+				forceIfDue(false);
+			} catch (Exception e) {
+				metrics.increment("failed");
+				log.error("Failed to journal the action of " + record.getComponentPath(), e);
+			} finally {
+				metrics.recordHandlerTime(System.nanoTime() - startNanos);
+			}
+		}
+	}
+
+	/**
+	 * Writes the presses left in the queue once the writer has stopped, on the
+	 * closing thread, and forces them to disk.
+	 */
+	private void writeRemaining() {
+		ActionRecord record;
+		while ((record = queue.poll()) != null) {
+			try {
+				write(record);
+			} catch (Exception e) {
+				metrics.increment("failed");
+				log.error("Failed to journal the action of " + record.getComponentPath(), e);
+			}
+		}
+		forceIfDue(true);
+		touch(segmentFile);
+	}
+
+	private void write(ActionRecord record) throws IOException {
+		byte[] sessionId = JournalSegments.encode(record.getSessionId());
+		byte[] user = JournalSegments.encode(record.getUser());
+		byte[] viewPath = JournalSegments.encode(record.getViewPath());
+		byte[] componentPath = JournalSegments.encode(record.getComponentPath());
+		int size = JournalSegments.FIXED_BYTES + 8 + sessionId.length + user.length + viewPath.length
+				+ componentPath.length;
+
+		if (size > settings.getSegmentBytes()) {
+			metrics.increment("oversized");
+			return;
+		}
+		if (size > segment.remaining()) {
+			rollSegment();
+		}
+
+		int start = segment.position();
+		segment.position(start + 4);
+		segment.putLong(nextSequence);
+		segment.putLong(record.getTimestampMillis());
+		putString(sessionId);
+		putString(user);
+		putString(viewPath);
+		putString(componentPath);
+		// The length goes in last, which makes the record visible to readers
+		segment.putInt(start, size - 4);
+
+		nextSequence++;
+		dirty = true;
+	}
+
+	private void putString(byte[] bytes) {
+		segment.putShort((short) bytes.length);
+		segment.put(bytes);
+	}
+
+	private void forceIfDue(boolean always) {
+		if (!dirty) {
+			return;
+		}
+		long now = System.nanoTime();
+		if (always || now - lastForceNanos >= TimeUnit.MILLISECONDS.toNanos(settings.getForceIntervalMillis())) {
+			segment.force();
+			dirty = false;
+			lastForceNanos = now;
+		}
+	}
+
+	private void rollSegment() throws IOException {
+		forceIfDue(true);
+		touch(segmentFile);
+		openSegment();
+		metrics.increment("rolled");
+		applyRetention();
+	}
+
+	private void openSegment() throws IOException {
+		Path file = directory.resolve(JournalSegments.fileName(nextSequence));
+		try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "rw")) {
+			raf.setLength(settings.getSegmentBytes());
+			// The mapping stays valid after the channel is closed
+			segment = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, settings.getSegmentBytes());
+		}
+		segmentFile = file;
+	}
+
+	/**
+	 * @return The sequence after the last record in the directory.
+	 */
+	private long findNextSequence() throws IOException {
+		List<Path> segments = JournalSegments.list(directory);
+		if (segments.isEmpty()) {
+			return 0;
+		}
+
+		Path last = segments.get(segments.size() - 1);
+		long next = JournalSegments.firstSequence(last);
+		try (FileChannel channel = FileChannel.open(last)) {
+			ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			ActionRecord record;
+			while ((record = JournalSegments.read(buffer)) != null) {
+				next = record.getSequence() + 1;
+			}
+		}
+		return next;
+	}
+
+	/**
+	 * Deletes the oldest finished segments beyond maxSegments and, if set,
+	 * retentionMillis. The current segment is always kept.
+	 */
+	private void applyRetention() {
+		try {
+			List<Path> segments = JournalSegments.list(directory);
+			long cutoff = settings.getRetentionMillis() > 0
+					? System.currentTimeMillis() - settings.getRetentionMillis()
+					: Long.MIN_VALUE;
+			int excess = segments.size() - settings.getMaxSegments();
+
+			for (Path file : segments) {
+				if (file.equals(segmentFile)) {
+					continue;
+				}
+				if (excess > 0 || Files.getLastModifiedTime(file).toMillis() < cutoff) {
+					Files.deleteIfExists(file);
+					excess--;
+				}
+			}
+		} catch (IOException e) {
+			// A segment that is still mapped can't be deleted on every platform, try again on the next roll
+			log.debugf("Could not apply journal retention in %s: %s", directory, e.getMessage());
+		}
+	}
+
+	/**
+	 * Marks a segment as finished now, which is the time retention is counted
+	 * from.
+	 */
+	private static void touch(Path file) {
+		try {
+			Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+		} catch (IOException e) {
+			log.debugf("Could not update the modification time of %s: %s", file, e.getMessage());
+		}
+	}
+}
@@ -0,0 +1,188 @@
+/*
+ * Copyright 2024 Keith Gamble
+ * [License information]
+ */
+package dev.kgamble.perspective.examples.gateway.journal;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
+
+import dev.kgamble.perspective.examples.common.Constants;
+
+/**
+ * Settings of the ActionJournal.
+ *
+ * The journal is disabled by default. It is enabled, and the defaults can be
+ * overridden, on the gateway with system properties in ignition.conf, e.g.
+ * {@code wrapper.java.additional.N=-Dexample-components.journal.enabled=true}.
+ *
+ * @author Keith Gamble
+ */
+public class ActionJournalSettings {
+	private static final String PROPERTY_PREFIX = Constants.MODULE_URL_ALIAS + ".journal.";
+
+	private final boolean enabled;
+	private final Path directory;
+	private final int segmentBytes;
+	private final int maxSegments;
+	private final long retentionMillis;
+	private final int bufferCapacity;
+	private final long forceIntervalMillis;
+
+	private ActionJournalSettings(Builder builder) {
+		this.enabled = builder.enabled;
+		this.directory = builder.directory;
+		this.segmentBytes = builder.segmentBytes;
+		this.maxSegments = builder.maxSegments;
+		this.retentionMillis = builder.retentionMillis;
+		this.bufferCapacity = builder.bufferCapacity;
+		this.forceIntervalMillis = builder.forceIntervalMillis;
+	}
+
+	/**
+	 * @return Whether Button presses are journaled at all.
+	 */
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * @return The directory of the segment files, or null for the default in the
+	 *         gateway's data directory.
+	 */
+	public Path getDirectory() {
+		return directory;
+	}
+
+	/**
+	 * @return The size of each segment file. A new segment is started when a
+	 *         record doesn't fit in the current one.
+	 */
+	public int getSegmentBytes() {
+		return segmentBytes;
+	}
+
+	/**
+	 * @return The most segments kept, the oldest are deleted first.
+	 */
+	public int getMaxSegments() {
+		return maxSegments;
+	}
+
+	/**
+	 * @return How long a finished segment is kept, 0 to keep segments until
+	 *         maxSegments is reached.
+	 */
+	public long getRetentionMillis() {
+		return retentionMillis;
+	}
+
+	/**
+	 * @return How many presses may wait for the writer before new ones are
+	 *         dropped.
+	 */
+	public int getBufferCapacity() {
+		return bufferCapacity;
+	}
+
+	/**
+	 * @return How often written records are forced to disk.
+	 */
+	public long getForceIntervalMillis() {
+		return forceIntervalMillis;
+	}
+
+	/**
+	 * @return A new Builder with the default settings.
+	 */
+	public static Builder newBuilder() {
+		return new Builder();
+	}
+
+	/**
+	 * Reads the settings from the {@code example-components.journal.*} system
+	 * properties, falling back to the defaults for any that are not set.
+	 *
+	 * @return The configured settings.
+	 */
+	public static ActionJournalSettings fromSystemProperties() {
+		Builder builder = newBuilder();
+		builder.setEnabled(Boolean.getBoolean(PROPERTY_PREFIX + "enabled"));
+		String directory = System.getProperty(PROPERTY_PREFIX + "directory");
+		if (directory != null && !directory.trim().isEmpty()) {
+			builder.setDirectory(Paths.get(directory.trim()));
+		}
+		builder.setSegmentBytes(Integer.getInteger(PROPERTY_PREFIX + "segmentBytes", builder.segmentBytes));
+		builder.setMaxSegments(Integer.getInteger(PROPERTY_PREFIX + "maxSegments", builder.maxSegments));
+		builder.setRetentionMillis(TimeUnit.HOURS.toMillis(Long.getLong(PROPERTY_PREFIX + "retentionHours",
+				TimeUnit.MILLISECONDS.toHours(builder.retentionMillis))));
+		builder.setBufferCapacity(Integer.getInteger(PROPERTY_PREFIX + "bufferCapacity", builder.bufferCapacity));
+		builder.setForceIntervalMillis(Long.getLong(PROPERTY_PREFIX + "forceIntervalMs", builder.forceIntervalMillis));
+		return builder.build();
+	}
+
+	/**
+	 * Builder for ActionJournalSettings.
+	 */
+	public static class Builder {
+		private boolean enabled = false;
+		private Path directory = null;
+		private int segmentBytes = 16 * 1024 * 1024;
+		private int maxSegments = 64;
+		private long retentionMillis = TimeUnit.DAYS.toMillis(30);
+		private int bufferCapacity = 8192;
+		private long forceIntervalMillis = 1000;
+
+		private Builder() {
+		}
+
+		public Builder setEnabled(boolean enabled) {
+			this.enabled = enabled;
+			return this;
+		}
+
+		public Builder setDirectory(Path directory) {
+			this.directory = directory;
+			return this;
+		}
+
+		public Builder setSegmentBytes(int segmentBytes) {
+			if (segmentBytes < 4096) {
+				throw new IllegalArgumentException("Segments must be at least 4096 bytes");
+			}
+			this.segmentBytes = segmentBytes;
+			return this;
+		}
+
+		public Builder setMaxSegments(int maxSegments) {
+			if (maxSegments < 1) {
+				throw new IllegalArgumentException("At least one segment must be kept");
+			}
+			this.maxSegments = maxSegments;
+			return this;
+		}
+
+		public Builder setRetentionMillis(long retentionMillis) {
+			this.retentionMillis = Math.max(0, retentionMillis);
+			return this;
+		}
+
+		public Builder setBufferCapacity(int bufferCapacity) {
+			if (bufferCapacity < 1) {
+				throw new IllegalArgumentException("Buffer capacity must be positive");
+			}
+			this.bufferCapacity = bufferCapacity;
+			return this;
+		}
+
+		public Builder setForceIntervalMillis(long forceIntervalMillis) {
+			this.forceIntervalMillis = Math.max(0, forceIntervalMillis);
+			return this;
+		}
+
+		public ActionJournalSettings build() {
+			return new ActionJournalSettings(this);
+		}
+	}
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright 2024 Keith Gamble
+ * [License information]
+ */
+package dev.kgamble.perspective.examples.gateway.journal;
+
+/**
+ * One Button press as kept in the ActionJournal.
+ *
+ * @author Keith Gamble
+ */
+public class ActionRecord {
+	private final long sequence;
+	private final long timestampMillis;
+	private final String sessionId;
+	private final String user;
+	private final String viewPath;
+	private final String componentPath;
+
+	/**
+	 * Constructs a new ActionRecord.
+	 *
+	 * @param sequence        The position of the record in the journal, -1 until
+	 *                        it has been written.
+	 * @param timestampMillis When the press reached the gateway.
+	 * @param sessionId       The id of the session.
+	 * @param user            The user logged into the session, empty if none.
+	 * @param viewPath        The path of the view containing the Button.
+	 * @param componentPath   The path of the Button within the view.
+	 */
+	public ActionRecord(long sequence, long timestampMillis, String sessionId, String user, String viewPath,
+			String componentPath) {
+		this.sequence = sequence;
+		this.timestampMillis = timestampMillis;
+		this.sessionId = nonNull(sessionId);
+		this.user = nonNull(user);
+		this.viewPath = nonNull(viewPath);
+		this.componentPath = nonNull(componentPath);
+	}
+
+	/**
+	 * @return The position of the record in the journal, counting from 0 when the
+	 *         journal was first created.
+	 */
+	public long getSequence() {
+		return sequence;
+	}
+
+	/**
+	 * @return When the press reached the gateway, in epoch milliseconds.
+	 */
+	public long getTimestampMillis() {
+		return timestampMillis;
+	}
+
+	public String getSessionId() {
+		return sessionId;
+	}
+
+	public String getUser() {
+		return user;
+	}
+
+	public String getViewPath() {
+		return viewPath;
+	}
+
+	public String getComponentPath() {
+		return componentPath;
+	}
+
+	@Override
+	public String toString() {
+		return "ActionRecord[" + sequence + " at " + timestampMillis + " by '" + user + "' in " + sessionId + ", "
+				+ viewPath + " " + componentPath + "]";
+	}
+
+	private static String nonNull(String value) {
+		return value != null ? value : "";
+	}
+}
@@ -0,0 +1,28 @@
+/*
+ * Copyright 2024 Keith Gamble
+ * [License information]
+ */
+package dev.kgamble.perspective.examples.gateway.journal;
+
+/**
+ * Records Button presses as they reach the gateway. Called on the thread that
+ * delivers the Button's events, so implementations must never block.
+ *
+ * @author Keith Gamble
+ */
+@FunctionalInterface
+public interface ActionRecorder {
+
+	/**
+	 * The recorder used while the journal is disabled, it records nothing.
+	 */
+	ActionRecorder NONE = record -> {
+	};
+
+	/**
+	 * Records a press.
+	 *
+	 * @param record The press, its sequence is assigned when it is written.
+	 */
+	void record(ActionRecord record);
+}
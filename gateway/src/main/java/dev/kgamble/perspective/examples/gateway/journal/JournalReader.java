@@ -0,0 +1,145 @@
+/*
+ * Copyright 2024 Keith Gamble
+ * [License information]
+ */
+package dev.kgamble.perspective.examples.gateway.journal;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Reads the Button presses written by an ActionJournal, for replaying them or
+ * exporting them for an audit.
+ *
+ * The reader maps the segments read-only and never locks them, so it can be
+ * used while the journal is being written. A record that is still being
+ * written is not seen, and segments deleted by retention while reading are
+ * skipped.
+ *
+ * @author Keith Gamble
+ */
+public class JournalReader {
+	private static final String CSV_HEADER = "sequence,timestamp,sessionId,user,viewPath,componentPath";
+
+	private final Path directory;
+
+	/**
+	 * Constructs a new JournalReader.
+	 *
+	 * @param directory The directory of the journal's segment files.
+	 */
+	public JournalReader(Path directory) {
+		this.directory = directory;
+	}
+
+	/**
+	 * @return The segment files of the journal, oldest first.
+	 * @throws IOException If the directory can't be listed.
+	 */
+	public List<Path> segments() throws IOException {
+		return JournalSegments.list(directory);
+	}
+
+	/**
+	 * Passes every record to the consumer, oldest first.
+	 *
+	 * @param consumer Receives the records.
+	 * @return The number of records read.
+	 * @throws IOException If a segment can't be read.
+	 */
+	public long replayAll(Consumer<ActionRecord> consumer) throws IOException {
+		return replay(Long.MIN_VALUE, Long.MAX_VALUE, consumer);
+	}
+
+	/**
+	 * Passes the records of a time range to the consumer, oldest first.
+	 *
+	 * @param fromMillis The earliest timestamp to include, in epoch milliseconds.
+	 * @param toMillis   The first timestamp to exclude, in epoch milliseconds.
+	 * @param consumer   Receives the records.
+	 * @return The number of records passed to the consumer.
+	 * @throws IOException If a segment can't be read.
+	 */
+	public long replay(long fromMillis, long toMillis, Consumer<ActionRecord> consumer) throws IOException {
+		long count = 0;
+		for (Path file : segments()) {
+			ByteBuffer buffer;
+			try (FileChannel channel = FileChannel.open(file)) {
+				buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			} catch (NoSuchFileException e) {
+				continue;
+			}
+
+			ActionRecord record;
+			while ((record = JournalSegments.read(buffer)) != null) {
+				if (record.getTimestampMillis() >= fromMillis && record.getTimestampMillis() < toMillis) {
+					consumer.accept(record);
+					count++;
+				}
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Writes the records of a time range as CSV, with a header line.
+	 *
+	 * @param out        Receives the CSV.
+	 * @param fromMillis The earliest timestamp to include, in epoch milliseconds.
+	 * @param toMillis   The first timestamp to exclude, in epoch milliseconds.
+	 * @return The number of records written.
+	 * @throws IOException If a segment can't be read or the output fails.
+	 */
+	public long exportCsv(Appendable out, long fromMillis, long toMillis) throws IOException {
+		out.append(CSV_HEADER).append('\n');
+		StringBuilder line = new StringBuilder();
+		IOException[] failure = new IOException[1];
+
+		long count = replay(fromMillis, toMillis, record -> {
+			if (failure[0] != null) {
+				return;
+			}
+			line.setLength(0);
+			line.append(record.getSequence()).append(',').append(record.getTimestampMillis());
+			appendCsv(line, record.getSessionId());
+			appendCsv(line, record.getUser());
+			appendCsv(line, record.getViewPath());
+			appendCsv(line, record.getComponentPath());
+			line.append('\n');
+			try {
+				out.append(line);
+			} catch (IOException e) {
+				failure[0] = e;
+			}
+		});
+
+		if (failure[0] != null) {
+			throw failure[0];
+		}
+		return count;
+	}
+
+	private static void appendCsv(StringBuilder line, String value) {
+		line.append(',');
+		boolean quote = value.indexOf(',') >= 0 || value.indexOf('"') >= 0 || value.indexOf('\n') >= 0
+				|| value.indexOf('\r') >= 0;
+		if (!quote) {
+			line.append(value);
+			return;
+		}
+		line.append('"');
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			if (c == '"') {
+				line.append('"');
+			}
+			line.append(c);
+		}
+		line.append('"');
+	}
+}
@@ -0,0 +1,144 @@
+/*
+ * Copyright 2024 Keith Gamble
+ * [License information]
+ */
+package dev.kgamble.perspective.examples.gateway.journal;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The file layout shared by the ActionJournal and the JournalReader.
+ *
+ * A journal is a directory of segment files named after the sequence of their
+ * first record, e.g. {@code actions-00000000000000004096.journal}, so sorting
+ * the names sorts the records. Every segment is created at its full size and
+ * filled with records:
+ *
+ * <pre>
+ * int    length of the rest of the record, written last
+ * long   sequence
+ * long   timestamp in epoch milliseconds
+ * short  length + UTF-8 bytes of the session id, user, view path and component path
+ * </pre>
+ *
+ * A length of 0 marks the end of the records, so a record only becomes visible
+ * to readers once it is complete.
+ *
+ * @author Keith Gamble
+ */
+final class JournalSegments {
+	static final String PREFIX = "actions-";
+	static final String SUFFIX = ".journal";
+
+	/**
+	 * Bytes of a record before its strings: length, sequence and timestamp.
+	 */
+	static final int FIXED_BYTES = 4 + 8 + 8;
+
+	/**
+	 * Longest string kept in a record, in characters. Longer strings are cut,
+	 * so their UTF-8 form always fits the short length prefix.
+	 */
+	static final int MAX_STRING_CHARS = 8192;
+
+	private JournalSegments() {
+	}
+
+	/**
+	 * @param firstSequence The sequence of the segment's first record.
+	 * @return The file name of the segment.
+	 */
+	static String fileName(long firstSequence) {
+		return PREFIX + String.format("%020d", firstSequence) + SUFFIX;
+	}
+
+	/**
+	 * @param file A segment file.
+	 * @return The sequence of its first record, or -1 if it isn't a segment.
+	 */
+	static long firstSequence(Path file) {
+		String name = file.getFileName().toString();
+		if (!name.startsWith(PREFIX) || !name.endsWith(SUFFIX)) {
+			return -1;
+		}
+		try {
+			return Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+		} catch (NumberFormatException e) {
+			return -1;
+		}
+	}
+
+	/**
+	 * @param directory The directory of the journal.
+	 * @return The segment files in the directory, oldest first. Empty if the
+	 *         directory doesn't exist.
+	 * @throws IOException If the directory can't be listed.
+	 */
+	static List<Path> list(Path directory) throws IOException {
+		if (!Files.isDirectory(directory)) {
+			return Collections.emptyList();
+		}
+		List<Path> segments = new ArrayList<>();
+		try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, PREFIX + "*" + SUFFIX)) {
+			for (Path file : files) {
+				if (firstSequence(file) >= 0) {
+					segments.add(file);
+				}
+			}
+		}
+		segments.sort(null);
+		return segments;
+	}
+
+	/**
+	 * @param value A string of a record.
+	 * @return The UTF-8 bytes stored for it.
+	 */
+	static byte[] encode(String value) {
+		String kept = value.length() > MAX_STRING_CHARS ? value.substring(0, MAX_STRING_CHARS) : value;
+		return kept.getBytes(StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Reads the record at the buffer's position and advances past it.
+	 *
+	 * @param buffer A segment.
+	 * @return The record, or null at the end of the records or at a record that
+	 *         doesn't fit the segment.
+	 */
+	static ActionRecord read(ByteBuffer buffer) {
+		if (buffer.remaining() < FIXED_BYTES) {
+			return null;
+		}
+		int start = buffer.position();
+		int length = buffer.getInt(start);
+		if (length < FIXED_BYTES - 4 || length > buffer.remaining() - 4) {
+			return null;
+		}
+
+		buffer.position(start + 4);
+		long sequence = buffer.getLong();
+		long timestamp = buffer.getLong();
+		String sessionId = readString(buffer);
+		String user = readString(buffer);
+		String viewPath = readString(buffer);
+		String componentPath = readString(buffer);
+		buffer.position(start + 4 + length);
+		return new ActionRecord(sequence, timestamp, sessionId, user, viewPath, componentPath);
+	}
+
+	private static String readString(ByteBuffer buffer) {
+		int length = Short.toUnsignedInt(buffer.getShort());
+		byte[] bytes = new byte[length];
+		buffer.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+}
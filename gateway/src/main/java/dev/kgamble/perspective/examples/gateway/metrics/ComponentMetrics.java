@@ -0,0 +1,60 @@
+/*
+ * Copyright 2024 Keith Gamble
+ * [License information]
+ */
+package dev.kgamble.perspective.examples.gateway.metrics;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Metrics of one component type, e.g. examples.input.button.
+ *
+ * @author Keith Gamble
+ */
+public class ComponentMetrics {
+	private final LongAdder registrations = new LongAdder();
+	private final ConcurrentHashMap<String, EventMetrics> events = new ConcurrentHashMap<>();
+
+	/**
+	 * Records a registration of the component with a component registry.
+	 */
+	public void recordRegistration() {
+		registrations.increment();
+	}
+
+	/**
+	 * @return The number of times the component was registered.
+	 */
+	public long getRegistrations() {
+		return registrations.sum();
+	}
+
+	/**
+	 * Returns the metrics of an event of this component, creating them on first
+	 * use. Callers on a hot path should keep the returned instance.
+	 *
+	 * @param eventName The name of the event, e.g. "onActionPerformed".
+	 * @return The metrics of the event.
+	 */
+	public EventMetrics event(String eventName) {
+		EventMetrics metrics = events.get(eventName);
+		return metrics != null ? metrics : events.computeIfAbsent(eventName, name -> new EventMetrics());
+	}
+
+	/**
+	 * @return The current values, suitable for JSON and scripting.
+	 */
+	public Map<String, Object> snapshot() {
+		Map<String, Object> eventSnapshots = new TreeMap<>();
+		events.forEach((name, metrics) -> eventSnapshots.put(name, metrics.snapshot()));
+
+		Map<String, Object> snapshot = new LinkedHashMap<>();
+		snapshot.put("registrations", getRegistrations());
+		snapshot.put("events", eventSnapshots);
+		return snapshot;
+	}
+}
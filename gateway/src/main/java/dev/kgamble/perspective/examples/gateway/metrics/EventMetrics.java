@@ -0,0 +1,133 @@
+/*
+ * Copyright 2024 Keith Gamble
+ * [License information]
+ */
+package dev.kgamble.perspective.examples.gateway.metrics;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Metrics of one event of one component type, e.g. onActionPerformed of the
+ * Button.
+ *
+ * Three stages of every event are measured: its arrival at the gateway, how
+ * long it waited in a queue, and how long its handler ran. Anything else worth
+ * counting, like dropped or suppressed events, is kept in named counters.
+ * Events that are processed in batches also record the size of each batch.
+ *
+ * @author Keith Gamble
+ */
+public class EventMetrics {
+	private final LongAdder arrivals = new LongAdder();
+	private final LatencyHistogram queueWait = new LatencyHistogram();
+	private final LatencyHistogram handlerTime = new LatencyHistogram();
+	private final LatencyHistogram batchSize = new LatencyHistogram();
+	private final ConcurrentHashMap<String, LongAdder> counters = new ConcurrentHashMap<>();
+
+	/**
+	 * Records the arrival of an event at the gateway.
+	 */
+	public void recordArrival() {
+		arrivals.increment();
+	}
+
+	/**
+	 * Records how long an event waited before a handler picked it up.
+	 *
+	 * @param nanos The wait in nanoseconds.
+	 */
+	public void recordQueueWait(long nanos) {
+		queueWait.record(nanos);
+	}
+
+	/**
+	 * Records how long the handler of an event ran.
+	 *
+	 * @param nanos The handler time in nanoseconds.
+	 */
+	public void recordHandlerTime(long nanos) {
+		handlerTime.record(nanos);
+	}
+
+	/**
+	 * Records how many events were processed together in one batch.
+	 *
+	 * @param size The number of events in the batch.
+	 */
+	public void recordBatchSize(long size) {
+		batchSize.record(size);
+	}
+
+	/**
+	 * Increments a named counter. Only the first increment of a counter
+	 * allocates.
+	 *
+	 * @param counter The name of the counter, e.g. "dropped".
+	 */
+	public void increment(String counter) {
+		LongAdder adder = counters.get(counter);
+		if (adder == null) {
+			adder = counters.computeIfAbsent(counter, name -> new LongAdder());
+		}
+		adder.increment();
+	}
+
+	/**
+	 * @return The number of events that arrived.
+	 */
+	public long getArrivals() {
+		return arrivals.sum();
+	}
+
+	/**
+	 * @param counter The name of the counter.
+	 * @return The value of the counter, 0 if it was never incremented.
+	 */
+	public long getCounter(String counter) {
+		LongAdder adder = counters.get(counter);
+		return adder == null ? 0 : adder.sum();
+	}
+
+	/**
+	 * @return The queue wait histogram.
+	 */
+	public LatencyHistogram getQueueWait() {
+		return queueWait;
+	}
+
+	/**
+	 * @return The handler time histogram.
+	 */
+	public LatencyHistogram getHandlerTime() {
+		return handlerTime;
+	}
+
+	/**
+	 * @return The batch size histogram.
+	 */
+	public LatencyHistogram getBatchSize() {
+		return batchSize;
+	}
+
+	/**
+	 * @return The current values, suitable for JSON and scripting.
+	 */
+	public Map<String, Object> snapshot() {
+		Map<String, Long> counterValues = new TreeMap<>();
+		counters.forEach((name, adder) -> counterValues.put(name, adder.sum()));
+
+		Map<String, Object> snapshot = new LinkedHashMap<>();
+		snapshot.put("arrivals", getArrivals());
+		snapshot.put("counters", counterValues);
+		snapshot.put("queueWait", queueWait.snapshot());
+		snapshot.put("handlerTime", handlerTime.snapshot());
+		if (batchSize.getCount() > 0) {
+			snapshot.put("batchSize", batchSize.snapshotValues());
+		}
+		return snapshot;
+	}
+}
@@ -0,0 +1,159 @@
+/*
+ * Copyright 2024 Keith Gamble
+ * [License information]
+ */
+package dev.kgamble.perspective.examples.gateway.metrics;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A concurrent histogram of durations in nanoseconds.
+ *
+ * Like HdrHistogram, values are counted in buckets that grow with the value:
+ * every power of two is split into SUB_BUCKETS linear buckets, so any recorded
+ * value is reported within about 6% of its real value no matter its magnitude.
+ * The buckets are a fixed array, so recording is a couple of atomic increments
+ * and never allocates.
+ *
+ * @author Keith Gamble
+ */
+public class LatencyHistogram {
+	// Linear buckets per power of two, must be a power of two itself
+	private static final int SUB_BUCKET_BITS = 4;
+	private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+	// Enough buckets for any positive long
+	private static final int BUCKETS = (64 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+	private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+	private final AtomicLong count = new AtomicLong();
+	private final AtomicLong sum = new AtomicLong();
+	private final AtomicLong max = new AtomicLong();
+
+	/**
+	 * Records a duration.
+	 *
+	 * @param nanos The duration in nanoseconds, negative values are recorded as
+	 *              zero.
+	 */
+	public void record(long nanos) {
+		long value = Math.max(0, nanos);
+
+		counts.incrementAndGet(indexOf(value));
+		count.incrementAndGet();
+		sum.addAndGet(value);
+
+		long currentMax = max.get();
+		while (value > currentMax && !max.compareAndSet(currentMax, value)) {
+			currentMax = max.get();
+		}
+	}
+
+	/**
+	 * @return The number of recorded durations.
+	 */
+	public long getCount() {
+		return count.get();
+	}
+
+	/**
+	 * @return The largest recorded duration in nanoseconds.
+	 */
+	public long getMax() {
+		return max.get();
+	}
+
+	/**
+	 * @return The mean of the recorded durations in nanoseconds.
+	 */
+	public double getMean() {
+		long recorded = count.get();
+		return recorded == 0 ? 0 : (double) sum.get() / recorded;
+	}
+
+	/**
+	 * Returns the duration below which the given fraction of the recorded
+	 * durations fall, e.g. 0.99 for the 99th percentile.
+	 *
+	 * @param quantile The fraction, between 0 and 1.
+	 * @return The duration in nanoseconds, or 0 if nothing was recorded.
+	 */
+	public long getValueAtQuantile(double quantile) {
+		long recorded = count.get();
+		if (recorded == 0) {
+			return 0;
+		}
+
+		long target = Math.max(1, (long) Math.ceil(Math.min(1, Math.max(0, quantile)) * recorded));
+		long seen = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			seen += counts.get(i);
+			if (seen >= target) {
+				return Math.min(highestValueOf(i), max.get());
+			}
+		}
+		return max.get();
+	}
+
+	/**
+	 * @return A summary of the recorded durations in milliseconds, suitable for
+	 *         JSON and scripting.
+	 */
+	public Map<String, Object> snapshot() {
+		Map<String, Object> snapshot = new LinkedHashMap<>();
+		snapshot.put("count", getCount());
+		snapshot.put("meanMs", toMillis(getMean()));
+		snapshot.put("p50Ms", toMillis(getValueAtQuantile(0.50)));
+		snapshot.put("p90Ms", toMillis(getValueAtQuantile(0.90)));
+		snapshot.put("p99Ms", toMillis(getValueAtQuantile(0.99)));
+		snapshot.put("p999Ms", toMillis(getValueAtQuantile(0.999)));
+		snapshot.put("maxMs", toMillis(getMax()));
+		return snapshot;
+	}
+
+	/**
+	 * @return A summary of the recorded values as they were recorded, for
+	 *         histograms of counts rather than durations.
+	 */
+	public Map<String, Object> snapshotValues() {
+		Map<String, Object> snapshot = new LinkedHashMap<>();
+		snapshot.put("count", getCount());
+		snapshot.put("mean", Math.round(getMean() * 1_000d) / 1_000d);
+		snapshot.put("p50", getValueAtQuantile(0.50));
+		snapshot.put("p90", getValueAtQuantile(0.90));
+		snapshot.put("p99", getValueAtQuantile(0.99));
+		snapshot.put("max", getMax());
+		return snapshot;
+	}
+
+	private static double toMillis(double nanos) {
+		// Three decimals are plenty, and keep the JSON readable
+		return Math.round(nanos / 1_000d) / 1_000d;
+	}
+
+	/**
+	 * @return The bucket a value is counted in.
+	 */
+	static int indexOf(long value) {
+		if (value < SUB_BUCKETS) {
+			return (int) value;
+		}
+		int shift = (63 - Long.numberOfLeadingZeros(value)) - SUB_BUCKET_BITS;
+		int subBucket = (int) (value >>> shift) - SUB_BUCKETS;
+		return (shift + 1) * SUB_BUCKETS + subBucket;
+	}
+
+	/**
+	 * @return The largest value counted in the given bucket.
+	 */
+	static long highestValueOf(int index) {
+		if (index < SUB_BUCKETS) {
+			return index;
+		}
+		int shift = index / SUB_BUCKETS - 1;
+		long subBucket = index % SUB_BUCKETS;
+		return ((SUB_BUCKETS + subBucket + 1) << shift) - 1;
+	}
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright 2024 Keith Gamble
+ * [License information]
+ */
+package dev.kgamble.perspective.examples.gateway.metrics;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
+import javax.servlet.http.HttpServletResponse;
+
+import com.inductiveautomation.ignition.common.util.LoggerEx;
+import com.inductiveautomation.ignition.gateway.dataroutes.RequestContext;
+
+import dev.kgamble.perspective.examples.common.Constants;
+
+/**
+ * Serves the ModuleMetrics as JSON, only to clients that present the
+ * configured token.
+ *
+ * The metrics show how the components are used and how the module is
+ * configured, so the route is closed unless a token is set on the gateway with
+ * a system property in ignition.conf, e.g.
+ * {@code wrapper.java.additional.N=-Dexample-components.metrics.token=<token>}.
+ * Clients then send it as {@code Authorization: Bearer <token>}, which works
+ * for monitoring tools that have no gateway login. Without a token the route
+ * answers 404, a wrong or missing token gets a 401.
+ *
+ * @author Keith Gamble
+ */
+public class MetricsRoute {
+	private static final LoggerEx log = LoggerEx.newBuilder().build(MetricsRoute.class);
+	private static final String PROPERTY_PREFIX = Constants.MODULE_URL_ALIAS + ".metrics.";
+	private static final String BEARER = "Bearer ";
+
+	private final ModuleMetrics metrics;
+	private final byte[] token;
+
+	/**
+	 * Constructs a new MetricsRoute.
+	 *
+	 * @param metrics The metrics to serve.
+	 * @param token   The token clients must send, null or empty to close the
+	 *                route.
+	 */
+	public MetricsRoute(ModuleMetrics metrics, String token) {
+		this.metrics = metrics;
+		this.token = token == null || token.isBlank() ? null : token.trim().getBytes(StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * @param metrics The metrics to serve.
+	 * @return A route with the token of the system properties, closed if none
+	 *         is set.
+	 */
+	public static MetricsRoute fromSystemProperties(ModuleMetrics metrics) {
+		return new MetricsRoute(metrics, System.getProperty(PROPERTY_PREFIX + "token"));
+	}
+
+	/**
+	 * Handles a request for the metrics.
+	 *
+	 * @param request  The request.
+	 * @param response The response, only written to when access is denied.
+	 * @return The metrics as JSON, or null if access was denied.
+	 * @throws IOException If the error can't be sent.
+	 */
+	public Object handle(RequestContext request, HttpServletResponse response) throws IOException {
+		if (token == null) {
+			response.sendError(HttpServletResponse.SC_NOT_FOUND);
+			return null;
+		}
+		if (!isAuthorized(request.getRequest().getHeader("Authorization"))) {
+			log.debugf("Denied a metrics request from %s", request.getRequest().getRemoteAddr());
+			response.setHeader("WWW-Authenticate", "Bearer realm=\"" + Constants.MODULE_URL_ALIAS + "\"");
+			response.sendError(HttpServletResponse.SC_UNAUTHORIZED);
+			return null;
+		}
+		return metrics.snapshotJson();
+	}
+
+	/**
+	 * @return Whether the header carries the token. Compared in constant time,
+	 *         so the response time doesn't reveal how much of it matched.
+	 */
+	boolean isAuthorized(String authorization) {
+		if (authorization == null || !authorization.regionMatches(true, 0, BEARER, 0, BEARER.length())) {
+			return false;
+		}
+		byte[] presented = authorization.substring(BEARER.length()).trim().getBytes(StandardCharsets.UTF_8);
+		return MessageDigest.isEqual(presented, token);
+	}
+
+	/**
+	 * @return Whether a token is configured, i.e. the route serves anything.
+	 */
+	public boolean isOpen() {
+		return token != null;
+	}
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright 2024 Keith Gamble
+ * [License information]
+ */
+package dev.kgamble.perspective.examples.gateway.metrics;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.inductiveautomation.ignition.common.gson.Gson;
+import com.inductiveautomation.ignition.common.gson.GsonBuilder;
+
+import dev.kgamble.perspective.examples.common.Constants;
+import dev.kgamble.perspective.examples.common.utilities.StartupProfiler;
+
+/**
+ * The runtime metrics of the Example Component Library, per component type.
+ *
+ * The metrics are served as JSON by the gateway hook at
+ * {@code /data/example-components/metrics}, see MetricsRoute for who may read
+ * them. Gateway scripts read them with
+ * {@code system.exampleComponents.getMetrics()}, see ExampleScriptModule, and
+ * Java code holding the module hook with {@code hook.getMetrics().snapshot()},
+ * both return plain maps and numbers.
+ *
+ * @author Keith Gamble
+ */
+public class ModuleMetrics {
+	private static final Gson GSON = new GsonBuilder().setPrettyPrinting().create();
+
+	private final long startedMillis = System.currentTimeMillis();
+	private final ConcurrentHashMap<String, ComponentMetrics> components = new ConcurrentHashMap<>();
+	// Copied once startup finished, the profiler can't be reached after shutdown
+	private volatile List<Map<String, Object>> startup = List.of();
+
+	/**
+	 * Returns the metrics of a component type, creating them on first use.
+	 * Callers on a hot path should keep the returned instance.
+	 *
+	 * @param componentId The id of the component, e.g. "examples.input.button".
+	 * @return The metrics of the component.
+	 */
+	public ComponentMetrics component(String componentId) {
+		ComponentMetrics metrics = components.get(componentId);
+		return metrics != null ? metrics : components.computeIfAbsent(componentId, id -> new ComponentMetrics());
+	}
+
+	/**
+	 * Keeps the startup profile to report with the metrics. Called once the
+	 * module started, the phases recorded later aren't included.
+	 *
+	 * @param profiler The profiler of the module's startup.
+	 */
+	public void recordStartup(StartupProfiler profiler) {
+		this.startup = profiler.snapshot();
+	}
+
+	/**
+	 * @return The current values of all metrics as plain maps, lists and numbers.
+	 */
+	public Map<String, Object> snapshot() {
+		Map<String, Object> componentSnapshots = new TreeMap<>();
+		components.forEach((id, metrics) -> componentSnapshots.put(id, metrics.snapshot()));
+
+		Map<String, Object> snapshot = new LinkedHashMap<>();
+		snapshot.put("moduleId", Constants.MODULE_ID);
+		snapshot.put("startedMillis", startedMillis);
+		snapshot.put("snapshotMillis", System.currentTimeMillis());
+		snapshot.put("startup", startup);
+		snapshot.put("components", componentSnapshots);
+		return snapshot;
+	}
+
+	/**
+	 * @return The current values of all metrics as JSON.
+	 */
+	public String snapshotJson() {
+		return GSON.toJson(snapshot());
+	}
+}
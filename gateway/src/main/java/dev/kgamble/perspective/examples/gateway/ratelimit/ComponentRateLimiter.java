@@ -0,0 +1,224 @@
+/*
+ * Copyright 2024 Keith Gamble
+ * [License information]
+ */
+package dev.kgamble.perspective.examples.gateway.ratelimit;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.inductiveautomation.ignition.common.util.LoggerEx;
+
+import dev.kgamble.perspective.examples.common.EventRateLimit;
+import dev.kgamble.perspective.examples.gateway.metrics.EventMetrics;
+
+/**
+ * The rate limit of one component type, which the model delegates of its
+ * instances pass their events through. Created by
+ * {@link EventRateLimiter#forComponent}.
+ *
+ * An event within the limits of its instance and session runs right away, on
+ * the thread that received it. Beyond them, the DROP policy drops it and the
+ * DEFER policy holds it until both buckets have a token again. An instance has
+ * at most one held event: a later event replaces it, and while it is held or
+ * replayed the instance's newer events are held too, so they are never handled
+ * out of order.
+ *
+ * @author Keith Gamble
+ */
+public class ComponentRateLimiter {
+	private static final LoggerEx log = LoggerEx.newBuilder().build(ComponentRateLimiter.class);
+
+	private final EventRateLimiter owner;
+	private final String componentId;
+	private final EventRateLimit limit;
+	private final EventMetrics metrics;
+
+	// Buckets by model delegate, removed when the delegate shuts down or the bucket refills
+	private final ConcurrentHashMap<Object, TokenBucket> instances = new ConcurrentHashMap<>();
+	// The held event of each instance, only changed within compute calls
+	private final ConcurrentHashMap<Object, Deferred> deferred = new ConcurrentHashMap<>();
+
+	ComponentRateLimiter(EventRateLimiter owner, String componentId, EventRateLimit limit, EventMetrics metrics) {
+		this.owner = owner;
+		this.componentId = componentId;
+		this.limit = limit;
+		this.metrics = metrics;
+	}
+
+	/**
+	 * Runs an event if it is within the limits, otherwise drops or defers it.
+	 *
+	 * @param sessionId The session of the component instance.
+	 * @param instance  The component instance, usually its model delegate.
+	 * @param event     Handles the event, run later on the limiter's thread if
+	 *                  it is deferred.
+	 * @return Whether the event ran.
+	 */
+	public boolean execute(String sessionId, Object instance, Runnable event) {
+		if (!owner.isEnabled()) {
+			event.run();
+			return true;
+		}
+		metrics.recordArrival();
+
+		// Newer events wait behind the held one
+		if (limit.getPolicy() == EventRateLimit.Policy.DEFER && deferred.containsKey(instance)) {
+			defer(sessionId, instance, event, 0);
+			return false;
+		}
+
+		long wait = tryTake(sessionId, instance, System.nanoTime());
+		if (wait == 0) {
+			event.run();
+			return true;
+		}
+
+		owner.logLimited(componentId, sessionId, limit, limit.getPolicy());
+		if (limit.getPolicy() == EventRateLimit.Policy.DROP) {
+			metrics.increment("dropped");
+		} else {
+			defer(sessionId, instance, event, wait);
+		}
+		return false;
+	}
+
+	/**
+	 * Forgets a component instance, dropping its held event. Called when its
+	 * model delegate shuts down.
+	 *
+	 * @param instance The component instance.
+	 */
+	public void release(Object instance) {
+		instances.remove(instance);
+		deferred.remove(instance);
+	}
+
+	/**
+	 * @return The limit of this component type, after the system property
+	 *         overrides.
+	 */
+	public EventRateLimit getLimit() {
+		return limit;
+	}
+
+	/**
+	 * Takes a token of the instance and of the session.
+	 *
+	 * @return 0 if both were taken, otherwise how many nanoseconds until both
+	 *         may have one.
+	 */
+	private long tryTake(String sessionId, Object instance, long nowNanos) {
+		TokenBucket bucket = instances.get(instance);
+		if (bucket == null) {
+			bucket = instances.computeIfAbsent(instance,
+					key -> new TokenBucket(limit.getEventsPerSecond(), limit.getBurst(), nowNanos));
+		}
+		long wait = bucket.tryTake(nowNanos);
+		if (wait > 0) {
+			return wait;
+		}
+
+		wait = owner.takeSessionToken(sessionId, nowNanos);
+		if (wait > 0) {
+			// The instance's token wasn't used
+			bucket.refund();
+		}
+		return wait;
+	}
+
+	private void defer(String sessionId, Object instance, Runnable event, long delayNanos) {
+		boolean[] created = new boolean[1];
+		Deferred held = deferred.compute(instance, (key, current) -> {
+			if (current == null) {
+				current = new Deferred(sessionId, instance);
+				created[0] = true;
+			} else if (current.event != null) {
+				metrics.increment("superseded");
+			}
+			current.event = event;
+			return current;
+		});
+		metrics.increment("deferred");
+
+		// Whoever created the held event schedules its replay, which keeps rescheduling until it ran
+		if (created[0] && !owner.schedule(() -> replay(held), delayNanos)) {
+			deferred.remove(instance, held);
+		}
+	}
+
+	/**
+	 * Runs a held event once both buckets have a token, on the limiter's thread.
+	 */
+	private void replay(Deferred held) {
+		if (deferred.get(held.instance) != held) {
+			// Released
+			return;
+		}
+
+		long now = System.nanoTime();
+		long wait = tryTake(held.sessionId, held.instance, now);
+		if (wait > 0) {
+			reschedule(held, wait);
+			return;
+		}
+
+		Runnable[] taken = new Runnable[1];
+		deferred.computeIfPresent(held.instance, (key, current) -> {
+			taken[0] = current.event;
+			current.event = null;
+			return current;
+		});
+		if (taken[0] != null) {
+			metrics.recordQueueWait(now - held.heldSinceNanos);
+			try {
+				taken[0].run();
+			} catch (RuntimeException e) {
+				metrics.increment("failed");
+				log.error("Failed to handle a deferred event of " + componentId, e);
+			}
+		}
+
+		// Keep the instance's events in order: a newer event held meanwhile is replayed next
+		boolean[] more = new boolean[1];
+		deferred.computeIfPresent(held.instance, (key, current) -> {
+			if (current != held || current.event == null) {
+				return current == held ? null : current;
+			}
+			current.heldSinceNanos = System.nanoTime();
+			more[0] = true;
+			return current;
+		});
+		if (more[0]) {
+			reschedule(held, 0);
+		}
+	}
+
+	private void reschedule(Deferred held, long delayNanos) {
+		if (!owner.schedule(() -> replay(held), delayNanos)) {
+			deferred.remove(held.instance, held);
+		}
+	}
+
+	/**
+	 * Removes the buckets that have refilled and hold no event.
+	 */
+	void sweep(long nowNanos) {
+		instances.entrySet().removeIf(entry -> entry.getValue().isFull(nowNanos)
+				&& !deferred.containsKey(entry.getKey()));
+	}
+
+	/**
+	 * The held event of an instance.
+	 */
+	private static class Deferred {
+		final String sessionId;
+		final Object instance;
+		volatile long heldSinceNanos = System.nanoTime();
+		volatile Runnable event;
+
+		Deferred(String sessionId, Object instance) {
+			this.sessionId = sessionId;
+			this.instance = instance;
+		}
+	}
+}
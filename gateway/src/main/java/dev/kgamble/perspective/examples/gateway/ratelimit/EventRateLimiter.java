@@ -0,0 +1,236 @@
+/*
+ * Copyright 2024 Keith Gamble
+ * [License information]
+ */
+package dev.kgamble.perspective.examples.gateway.ratelimit;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.inductiveautomation.ignition.common.util.LoggerEx;
+
+import dev.kgamble.perspective.examples.common.Constants;
+import dev.kgamble.perspective.examples.common.EventRateLimit;
+import dev.kgamble.perspective.examples.gateway.metrics.EventMetrics;
+
+/**
+ * Limits the rate of the events the module's components send to the gateway,
+ * so a stuck touchscreen or a misbehaving client can't flood the threads
+ * that serve everyone else.
+ *
+ * Every event takes a token from two TokenBuckets: one of the component
+ * instance, with the limit of its component type, and one of its session,
+ * shared by all of the module's components in that session. Both are lock-free,
+ * so the check costs the thread that received the event a few compare and
+ * sets, and an event beyond either limit is dropped or deferred before any
+ * work is done for it. Deferred events are replayed on a single thread of this
+ * limiter. Only the events the model delegates receive pass through here:
+ * component events a client fires itself, like onActionPerformed, run their
+ * scripts without reaching the module and can't be limited by it.
+ *
+ * Rejections are counted in the metrics of each component type and logged at
+ * most once per log interval, so a flood can't flood the log either. Buckets
+ * that have refilled are swept away, so sessions that are gone hold no memory.
+ *
+ * The settings can be overridden on the gateway with system properties in
+ * ignition.conf, e.g.
+ * {@code wrapper.java.additional.N=-Dexample-components.rateLimit.session.perSecond=200}.
+ * The limit of a component type is overridden with its id, e.g.
+ * {@code -Dexample-components.rateLimit.examples.input.button.burst=5}.
+ *
+ * @author Keith Gamble
+ */
+public class EventRateLimiter {
+	private static final LoggerEx log = LoggerEx.newBuilder().build(EventRateLimiter.class);
+	private static final String PROPERTY_PREFIX = Constants.MODULE_URL_ALIAS + ".rateLimit.";
+
+	// How often buckets that have refilled are removed
+	private static final long SWEEP_INTERVAL_MILLIS = 60_000;
+
+	private final boolean enabled;
+	private final EventRateLimit sessionLimit;
+	private final long logIntervalNanos;
+	private final ConcurrentHashMap<String, TokenBucket> sessions = new ConcurrentHashMap<>();
+	private final List<ComponentRateLimiter> components = new CopyOnWriteArrayList<>();
+	private final ScheduledThreadPoolExecutor scheduler;
+
+	private final AtomicLong nextLogNanos = new AtomicLong(System.nanoTime());
+	private final LongAdder limitedSinceLog = new LongAdder();
+
+	/**
+	 * Constructs a new EventRateLimiter, call start() to begin sweeping.
+	 *
+	 * @param enabled           Whether events are limited at all.
+	 * @param sessionLimit      The limit of each session, over all of the
+	 *                          module's components. Its policy is ignored, the
+	 *                          policy of the component type applies.
+	 * @param logIntervalMillis How often limited events are logged at most.
+	 */
+	public EventRateLimiter(boolean enabled, EventRateLimit sessionLimit, long logIntervalMillis) {
+		this.enabled = enabled;
+		this.sessionLimit = sessionLimit;
+		this.logIntervalNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, logIntervalMillis));
+
+		AtomicInteger threadCount = new AtomicInteger();
+		this.scheduler = new ScheduledThreadPoolExecutor(1, runnable -> {
+			Thread thread = new Thread(runnable, "example-components-rate-limit-" + threadCount.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+		this.scheduler.setRemoveOnCancelPolicy(true);
+	}
+
+	/**
+	 * Creates a limiter configured from the {@code example-components.rateLimit.*}
+	 * system properties.
+	 *
+	 * @return The limiter, not yet started.
+	 */
+	public static EventRateLimiter fromSystemProperties() {
+		return new EventRateLimiter(
+				Boolean.parseBoolean(System.getProperty(PROPERTY_PREFIX + "enabled", "true")),
+				readLimit(PROPERTY_PREFIX + "session.", new EventRateLimit(100, 200, EventRateLimit.Policy.DROP)),
+				Long.getLong(PROPERTY_PREFIX + "logIntervalMs", 10_000));
+	}
+
+	/**
+	 * Creates the limiter of a component type.
+	 *
+	 * @param componentId The id of the component type.
+	 * @param limit       The limit declared in the ComponentCatalog, overridden by
+	 *                    the {@code example-components.rateLimit.<componentId>.*}
+	 *                    system properties.
+	 * @param metrics     Counts the events that were limited.
+	 * @return The limiter the component's model delegates pass their events
+	 *         through.
+	 */
+	public ComponentRateLimiter forComponent(String componentId, EventRateLimit limit, EventMetrics metrics) {
+		EventRateLimit configured = readLimit(PROPERTY_PREFIX + componentId + ".", limit);
+		ComponentRateLimiter limiter = new ComponentRateLimiter(this, componentId, configured, metrics);
+		components.add(limiter);
+		log.debugf("Events of %s are limited to %s per instance and %s per session", componentId, configured,
+				sessionLimit);
+		return limiter;
+	}
+
+	private static EventRateLimit readLimit(String prefix, EventRateLimit defaults) {
+		String perSecond = System.getProperty(prefix + "perSecond");
+		String policy = System.getProperty(prefix + "policy");
+		return new EventRateLimit(
+				perSecond != null ? Double.parseDouble(perSecond.trim()) : defaults.getEventsPerSecond(),
+				Integer.getInteger(prefix + "burst", defaults.getBurst()),
+				policy != null ? EventRateLimit.Policy.valueOf(policy.trim().toUpperCase(Locale.ROOT))
+						: defaults.getPolicy());
+	}
+
+	/**
+	 * Starts sweeping away the buckets that have refilled.
+	 */
+	public void start() {
+		scheduler.scheduleWithFixedDelay(this::sweep, SWEEP_INTERVAL_MILLIS, SWEEP_INTERVAL_MILLIS,
+				TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Stops the limiter. Deferred events that weren't replayed yet are dropped.
+	 *
+	 * @param timeoutMillis How long to wait for a running replay to finish.
+	 */
+	public void shutdown(long timeoutMillis) {
+		scheduler.shutdownNow();
+		try {
+			if (!scheduler.awaitTermination(timeoutMillis, TimeUnit.MILLISECONDS)) {
+				log.warn("Rate limit thread did not stop within " + timeoutMillis + " ms.");
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * @return Whether events are limited at all.
+	 */
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * @return The limit of each session.
+	 */
+	public EventRateLimit getSessionLimit() {
+		return sessionLimit;
+	}
+
+	/**
+	 * @return The number of sessions that sent events since their bucket was
+	 *         last full.
+	 */
+	public int getSessionCount() {
+		return sessions.size();
+	}
+
+	/**
+	 * Takes a token from the bucket of a session.
+	 *
+	 * @return 0 if a token was taken, otherwise how many nanoseconds until the
+	 *         next token is available.
+	 */
+	long takeSessionToken(String sessionId, long nowNanos) {
+		TokenBucket bucket = sessions.get(sessionId);
+		if (bucket == null) {
+			bucket = sessions.computeIfAbsent(sessionId,
+					id -> new TokenBucket(sessionLimit.getEventsPerSecond(), sessionLimit.getBurst(), nowNanos));
+		}
+		return bucket.tryTake(nowNanos);
+	}
+
+	/**
+	 * Runs a task on the limiter's thread after a delay.
+	 *
+	 * @return false if the limiter is shut down.
+	 */
+	boolean schedule(Runnable task, long delayNanos) {
+		try {
+			scheduler.schedule(task, Math.max(0, delayNanos), TimeUnit.NANOSECONDS);
+			return true;
+		} catch (RejectedExecutionException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * Logs a limited event, unless one was logged within the log interval. The
+	 * message carries how many events were limited since the last one.
+	 */
+	void logLimited(String componentId, String sessionId, EventRateLimit limit, EventRateLimit.Policy outcome) {
+		limitedSinceLog.increment();
+		long now = System.nanoTime();
+		long next = nextLogNanos.get();
+		if (now - next < 0 || !nextLogNanos.compareAndSet(next, now + logIntervalNanos)) {
+			return;
+		}
+		log.warnf("Session %s exceeds the event rate of %s (%s per instance, %s per session), events are %s. "
+				+ "%d events were limited since the last message.", sessionId, componentId, limit, sessionLimit,
+				outcome == EventRateLimit.Policy.DROP ? "dropped" : "deferred", limitedSinceLog.sumThenReset());
+	}
+
+	/**
+	 * Removes the buckets that have refilled, which behave exactly like new
+	 * ones.
+	 */
+	void sweep() {
+		long now = System.nanoTime();
+		sessions.values().removeIf(bucket -> bucket.isFull(now));
+		for (ComponentRateLimiter component : components) {
+			component.sweep(now);
+		}
+	}
+}
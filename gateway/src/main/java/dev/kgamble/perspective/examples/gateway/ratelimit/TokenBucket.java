@@ -0,0 +1,76 @@
+/*
+ * Copyright 2024 Keith Gamble
+ * [License information]
+ */
+package dev.kgamble.perspective.examples.gateway.ratelimit;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A lock-free token bucket.
+ *
+ * Rather than a token count and the time of the last refill, the bucket only
+ * keeps the time at which it will be full again. Taking a token moves that
+ * time one token interval later, and the bucket is empty once that time is a
+ * full bucket beyond now. Both the check and the take are one compare and set
+ * of a single long, so the bucket never blocks and never allocates.
+ *
+ * @author Keith Gamble
+ */
+public class TokenBucket {
+	private final long intervalNanos;
+	private final long capacityNanos;
+
+	// The System.nanoTime() at which the bucket is full again
+	private final AtomicLong fullAtNanos;
+
+	/**
+	 * Constructs a new, full TokenBucket.
+	 *
+	 * @param tokensPerSecond How fast the bucket refills.
+	 * @param capacity        How many tokens the bucket holds.
+	 * @param nowNanos        The current System.nanoTime().
+	 */
+	public TokenBucket(double tokensPerSecond, int capacity, long nowNanos) {
+		this.intervalNanos = Math.max(1, (long) (1_000_000_000d / tokensPerSecond));
+		this.capacityNanos = intervalNanos * Math.max(1, capacity);
+		this.fullAtNanos = new AtomicLong(nowNanos);
+	}
+
+	/**
+	 * Takes a token if there is one.
+	 *
+	 * @param nowNanos The current System.nanoTime().
+	 * @return 0 if a token was taken, otherwise how many nanoseconds until the
+	 *         next token is available.
+	 */
+	public long tryTake(long nowNanos) {
+		while (true) {
+			long fullAt = fullAtNanos.get();
+			long next = (fullAt - nowNanos > 0 ? fullAt : nowNanos) + intervalNanos;
+			long wait = next - nowNanos - capacityNanos;
+			if (wait > 0) {
+				return wait;
+			}
+			if (fullAtNanos.compareAndSet(fullAt, next)) {
+				return 0;
+			}
+		}
+	}
+
+	/**
+	 * Returns a token taken by {@link #tryTake(long)} that wasn't used.
+	 */
+	public void refund() {
+		fullAtNanos.addAndGet(-intervalNanos);
+	}
+
+	/**
+	 * @param nowNanos The current System.nanoTime().
+	 * @return Whether the bucket is full, so dropping it and starting a new one
+	 *         changes nothing.
+	 */
+	public boolean isFull(long nowNanos) {
+		return fullAtNanos.get() - nowNanos <= 0;
+	}
+}
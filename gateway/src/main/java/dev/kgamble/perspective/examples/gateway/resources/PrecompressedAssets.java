@@ -0,0 +1,195 @@
+/*
+ * Copyright 2024 Keith Gamble
+ * [License information]
+ */
+package dev.kgamble.perspective.examples.gateway.resources;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collection;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import com.inductiveautomation.ignition.gateway.dataroutes.RequestContext;
+
+/**
+ * Serves the content-hashed files of the web bundle, picking the precompressed
+ * .br or .gz variant the client accepts.
+ *
+ * A file name changes whenever its content does, so responses are marked
+ * immutable and cached by browsers for a year. Only the files listed in the
+ * web build's manifest are served, anything else is a 404. Each variant is
+ * read from the module's resources once and then kept in memory.
+ *
+ * @author Keith Gamble
+ */
+public class PrecompressedAssets {
+
+	/**
+	 * The Cache-Control header of every served file.
+	 */
+	public static final String CACHE_CONTROL = "public, max-age=31536000, immutable";
+
+	private final String resourceFolder;
+	private final Set<String> files;
+	private final ConcurrentHashMap<String, Optional<byte[]>> contents = new ConcurrentHashMap<>();
+
+	/**
+	 * Constructs a new PrecompressedAssets.
+	 *
+	 * @param resourceFolder The resource folder the files are read from, e.g.
+	 *                       "/mounted/".
+	 * @param files          The names of the files that may be served.
+	 */
+	public PrecompressedAssets(String resourceFolder, Collection<String> files) {
+		this.resourceFolder = resourceFolder;
+		this.files = Set.copyOf(files);
+	}
+
+	/**
+	 * Handles a request for a file, mounted as a route with a {@code :file}
+	 * parameter.
+	 *
+	 * @param request  The request.
+	 * @param response The response the file is written to.
+	 * @return null, the file is written to the response directly.
+	 * @throws IOException If the response can't be written.
+	 */
+	public Object handle(RequestContext request, HttpServletResponse response) throws IOException {
+		return handle(request.getParameter("file"), request.getRequest(), response);
+	}
+
+	/**
+	 * Handles a request for a file.
+	 *
+	 * @param file           The name of the requested file.
+	 * @param servletRequest The request, for its headers.
+	 * @param response       The response the file is written to.
+	 * @return null, the file is written to the response directly.
+	 * @throws IOException If the response can't be written.
+	 */
+	public Object handle(String file, HttpServletRequest servletRequest, HttpServletResponse response)
+			throws IOException {
+		if (file == null || !files.contains(file)) {
+			response.sendError(HttpServletResponse.SC_NOT_FOUND);
+			return null;
+		}
+
+		Encoding encoding = negotiate(servletRequest.getHeader("Accept-Encoding"), file);
+		byte[] body = load(file + encoding.suffix).orElse(null);
+		if (body == null) {
+			response.sendError(HttpServletResponse.SC_NOT_FOUND);
+			return null;
+		}
+
+		// The name is a content hash, so it is a strong validator of each variant
+		String etag = "\"" + file + encoding.suffix + "\"";
+		response.setHeader("Cache-Control", CACHE_CONTROL);
+		response.setHeader("Vary", "Accept-Encoding");
+		response.setHeader("ETag", etag);
+		response.setContentType(contentType(file));
+		if (etag.equals(servletRequest.getHeader("If-None-Match"))) {
+			response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+			return null;
+		}
+
+		if (encoding != Encoding.IDENTITY) {
+			response.setHeader("Content-Encoding", encoding.token);
+		}
+		response.setContentLength(body.length);
+		response.getOutputStream().write(body);
+		return null;
+	}
+
+	/**
+	 * Forgets the files read so far.
+	 */
+	public void clear() {
+		contents.clear();
+	}
+
+	/**
+	 * Picks the smallest variant the client accepts, brotli over gzip over the
+	 * file itself.
+	 */
+	private Encoding negotiate(String acceptEncoding, String file) {
+		if (acceptEncoding != null) {
+			if (accepts(acceptEncoding, Encoding.BROTLI.token) && load(file + Encoding.BROTLI.suffix).isPresent()) {
+				return Encoding.BROTLI;
+			}
+			if (accepts(acceptEncoding, Encoding.GZIP.token) && load(file + Encoding.GZIP.suffix).isPresent()) {
+				return Encoding.GZIP;
+			}
+		}
+		return Encoding.IDENTITY;
+	}
+
+	/**
+	 * @return true if the Accept-Encoding header lists the coding without q=0.
+	 */
+	static boolean accepts(String acceptEncoding, String coding) {
+		for (String entry : acceptEncoding.split(",")) {
+			String[] parts = entry.split(";");
+			if (!parts[0].trim().equalsIgnoreCase(coding)) {
+				continue;
+			}
+			for (int i = 1; i < parts.length; i++) {
+				String parameter = parts[i].trim();
+				if (parameter.startsWith("q=")) {
+					try {
+						return Double.parseDouble(parameter.substring(2)) > 0;
+					} catch (NumberFormatException e) {
+						return false;
+					}
+				}
+			}
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * @return The content of a resource in the resource folder, or empty if the
+	 *         module doesn't contain it.
+	 */
+	private Optional<byte[]> load(String name) {
+		return contents.computeIfAbsent(name, key -> {
+			try (InputStream in = PrecompressedAssets.class.getResourceAsStream(resourceFolder + key)) {
+				return in == null ? Optional.empty() : Optional.of(in.readAllBytes());
+			} catch (IOException e) {
+				return Optional.empty();
+			}
+		});
+	}
+
+	private static String contentType(String file) {
+		if (file.endsWith(".js")) {
+			return "application/javascript; charset=utf-8";
+		}
+		if (file.endsWith(".css")) {
+			return "text/css; charset=utf-8";
+		}
+		return "application/octet-stream";
+	}
+
+	/**
+	 * The variants each file is shipped in.
+	 */
+	private enum Encoding {
+		BROTLI("br", ".br"),
+		GZIP("gzip", ".gz"),
+		IDENTITY("identity", "");
+
+		private final String token;
+		private final String suffix;
+
+		Encoding(String token, String suffix) {
+			this.token = token;
+			this.suffix = suffix;
+		}
+	}
+}
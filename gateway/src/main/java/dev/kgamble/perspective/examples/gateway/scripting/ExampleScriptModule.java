@@ -0,0 +1,178 @@
+/*
+ * Copyright 2024 Keith Gamble
+ * [License information]
+ */
+package dev.kgamble.perspective.examples.gateway.scripting;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import com.inductiveautomation.ignition.common.gson.Gson;
+import com.inductiveautomation.ignition.common.gson.JsonElement;
+import com.inductiveautomation.ignition.common.gson.JsonNull;
+import com.inductiveautomation.ignition.common.gson.JsonPrimitive;
+import com.inductiveautomation.ignition.common.script.hints.ScriptFunction;
+
+import dev.kgamble.perspective.examples.gateway.ExampleComponentLibraryGatewayHook;
+import dev.kgamble.perspective.examples.gateway.channels.ChannelStore;
+import dev.kgamble.perspective.examples.gateway.writeback.WriteCoalescer;
+
+/**
+ * The gateway scripting functions of the module, registered as
+ * {@code system.exampleComponents}.
+ *
+ * Perspective runs component event scripts on the gateway, so the
+ * onActionPerformed script of a Button can hand its tag writes to the
+ * WriteCoalescer instead of calling system.tag.writeAsync itself:
+ *
+ * {@code system.exampleComponents.writeBack("[default]Line1/Setpoint", 42)}
+ *
+ * The writes are made without the rights of the session's user, see
+ * TagWriteSink, so only tags that anyone may write can be written this way.
+ *
+ * Any gateway script, e.g. a tag change script or a timer, can publish to the
+ * channels of the ChannelStore that Buttons follow:
+ *
+ * {@code system.exampleComponents.publishChannel("line1/interlock", False)}
+ *
+ * and read the module's metrics, e.g. to log or alarm on them:
+ *
+ * {@code system.exampleComponents.getMetrics()["components"]}
+ *
+ * The functions look up the module's stages on every call, so they keep
+ * working across restarts of the module and fail plainly while it isn't
+ * running.
+ *
+ * @author Keith Gamble
+ */
+public class ExampleScriptModule {
+	/**
+	 * The path scripts call the functions under.
+	 */
+	public static final String PATH = "system.exampleComponents";
+
+	/**
+	 * The prefix of the function docs in ExampleScriptModule.properties.
+	 */
+	public static final String BUNDLE_PREFIX = "ExampleScriptModule";
+
+	private static final Gson GSON = new Gson();
+
+	private final ExampleComponentLibraryGatewayHook hook;
+
+	/**
+	 * Constructs a new ExampleScriptModule.
+	 *
+	 * @param hook The hook owning the stages the functions use.
+	 */
+	public ExampleScriptModule(ExampleComponentLibraryGatewayHook hook) {
+		this.hook = hook;
+	}
+
+	/**
+	 * Adds a tag write to the current write-back batch, where it is coalesced
+	 * with the writes of other handlers to the same tag. The write is made
+	 * without a user or roles, a tag that requires them refuses it.
+	 *
+	 * @param tagPath The path of the tag to write.
+	 * @param value   The value to write.
+	 * @return Completes once the batch holding the write was written, call get()
+	 *         on it to wait.
+	 */
+	@ScriptFunction(docBundlePrefix = BUNDLE_PREFIX)
+	public CompletableFuture<Void> writeBack(String tagPath, Object value) {
+		return writeCoalescer().submit(tagPath, value);
+	}
+
+	/**
+	 * Sets the value of a channel, every Button following it shows the value
+	 * after the next flush.
+	 *
+	 * @param channel The name of the channel.
+	 * @param value   The value: a string, number or boolean, or a dictionary or
+	 *                list of them. None clears the channel.
+	 */
+	@ScriptFunction(docBundlePrefix = BUNDLE_PREFIX)
+	public void publishChannel(String channel, Object value) {
+		channelStore().publish(channel, toJson(value));
+	}
+
+	/**
+	 * Clears the value of a channel, the Buttons following it show their own
+	 * props again.
+	 *
+	 * @param channel The name of the channel.
+	 */
+	@ScriptFunction(docBundlePrefix = BUNDLE_PREFIX)
+	public void clearChannel(String channel) {
+		channelStore().clear(channel);
+	}
+
+	/**
+	 * @param channel The name of the channel.
+	 * @return The value of the channel: a string, number or boolean, the JSON
+	 *         text of a dictionary or list, or None if it has no value.
+	 */
+	@ScriptFunction(docBundlePrefix = BUNDLE_PREFIX)
+	public Object readChannel(String channel) {
+		JsonElement value = channelStore().get(channel).orElse(JsonNull.INSTANCE);
+		if (value.isJsonNull()) {
+			return null;
+		}
+		if (value.isJsonPrimitive()) {
+			JsonPrimitive primitive = value.getAsJsonPrimitive();
+			return primitive.isBoolean() ? (Object) primitive.getAsBoolean()
+					: primitive.isNumber() ? primitive.getAsNumber() : primitive.getAsString();
+		}
+		return GSON.toJson(value);
+	}
+
+	/**
+	 * @return The current metrics of the module as plain maps, lists and
+	 *         numbers, the same values the metrics route serves as JSON.
+	 */
+	@ScriptFunction(docBundlePrefix = BUNDLE_PREFIX)
+	public Map<String, Object> getMetrics() {
+		return hook.getMetrics().snapshot();
+	}
+
+	/**
+	 * @return The JSON of a value handed over by a script. Jython passes
+	 *         strings, numbers and booleans as their Java types, and
+	 *         dictionaries and lists as Java maps and lists.
+	 */
+	static JsonElement toJson(Object value) {
+		if (value == null) {
+			return JsonNull.INSTANCE;
+		}
+		if (value instanceof JsonElement) {
+			return (JsonElement) value;
+		}
+		if (value instanceof Boolean) {
+			return new JsonPrimitive((Boolean) value);
+		}
+		if (value instanceof Number) {
+			return new JsonPrimitive((Number) value);
+		}
+		if (value instanceof CharSequence || value instanceof Character) {
+			return new JsonPrimitive(value.toString());
+		}
+		return GSON.toJsonTree(value);
+	}
+
+	private ChannelStore channelStore() {
+		ChannelStore store = hook.getChannelStore();
+		if (store == null) {
+			throw new IllegalStateException("Channels aren't running, the Example Components module is stopped");
+		}
+		return store;
+	}
+
+	private WriteCoalescer writeCoalescer() {
+		WriteCoalescer coalescer = hook.getWriteCoalescer();
+		if (coalescer == null) {
+			throw new IllegalStateException("Write-back isn't running, the Example Components module is stopped");
+		}
+		return coalescer;
+	}
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright 2024 Keith Gamble
+ * [License information]
+ */
+package dev.kgamble.perspective.examples.gateway.table;
+
+import com.inductiveautomation.ignition.common.gson.JsonArray;
+
+/**
+ * A column of a ColumnarTable, holding the values of all rows in one primitive
+ * array instead of an object per cell.
+ *
+ * Columns are immutable once built, so they are shared by every session that
+ * shows their table.
+ *
+ * @author Keith Gamble
+ */
+public abstract class Column {
+	private final String name;
+
+	/**
+	 * Constructs a new Column.
+	 *
+	 * @param name The name of the column.
+	 */
+	protected Column(String name) {
+		this.name = name;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * @return The type of the column as sent to the client, e.g. "number" or
+	 *         "string".
+	 */
+	public abstract String getType();
+
+	/**
+	 * @return The number of rows in the column.
+	 */
+	public abstract int size();
+
+	/**
+	 * Compares the values of two rows, in ascending order.
+	 *
+	 * @param rowA The first row.
+	 * @param rowB The second row.
+	 * @return A negative number, zero or a positive number as the value of rowA
+	 *         is less than, equal to or greater than the value of rowB.
+	 */
+	public abstract int compare(int rowA, int rowB);
+
+	/**
+	 * Appends the value of a row to a row being sent to the client.
+	 *
+	 * @param target The row being sent.
+	 * @param row    The row of this column.
+	 */
+	public abstract void appendTo(JsonArray target, int row);
+
+	/**
+	 * Finds the rows of this column that match a text filter. Only columns that
+	 * hold text take part in filtering.
+	 *
+	 * @param needle The filter in lower case.
+	 * @return The matcher, or null if this column can't match text.
+	 */
+	public RowMatcher textMatcher(String needle) {
+		return null;
+	}
+
+	/**
+	 * Tests whether a row matches a filter.
+	 */
+	@FunctionalInterface
+	public interface RowMatcher {
+		boolean matches(int row);
+	}
+}
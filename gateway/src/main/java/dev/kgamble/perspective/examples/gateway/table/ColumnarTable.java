@@ -0,0 +1,99 @@
+/*
+ * Copyright 2024 Keith Gamble
+ * [License information]
+ */
+package dev.kgamble.perspective.examples.gateway.table;
+
+import java.util.List;
+
+import com.inductiveautomation.ignition.common.gson.JsonArray;
+import com.inductiveautomation.ignition.common.gson.JsonObject;
+
+/**
+ * An immutable dataset stored column by column in primitive arrays.
+ *
+ * A million rows of a few numeric and dictionary columns take tens of bytes per
+ * row, and the table is shared by every Table instance showing it. Sessions only
+ * ever receive the window of rows they display.
+ *
+ * @author Keith Gamble
+ */
+public class ColumnarTable {
+	private final String name;
+	private final List<Column> columns;
+	private final int rowCount;
+	private final JsonArray columnsJson;
+
+	/**
+	 * Constructs a new ColumnarTable.
+	 *
+	 * @param name    The name Table instances use to ask for this table.
+	 * @param columns The columns, all of the same size.
+	 */
+	public ColumnarTable(String name, List<Column> columns) {
+		this.name = name;
+		this.columns = List.copyOf(columns);
+		this.rowCount = columns.isEmpty() ? 0 : columns.get(0).size();
+		for (Column column : columns) {
+			if (column.size() != rowCount) {
+				throw new IllegalArgumentException("Column " + column.getName() + " has " + column.size()
+						+ " rows, expected " + rowCount);
+			}
+		}
+
+		this.columnsJson = new JsonArray();
+		for (Column column : columns) {
+			JsonObject json = new JsonObject();
+			json.addProperty("name", column.getName());
+			json.addProperty("type", column.getType());
+			columnsJson.add(json);
+		}
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public List<Column> getColumns() {
+		return columns;
+	}
+
+	public int getRowCount() {
+		return rowCount;
+	}
+
+	/**
+	 * @param name The name of a column.
+	 * @return The column, or null if this table has no column of that name.
+	 */
+	public Column getColumn(String name) {
+		for (Column column : columns) {
+			if (column.getName().equals(name)) {
+				return column;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * @return The name and type of each column, as sent to the client. The array
+	 *         is shared, don't modify it.
+	 */
+	public JsonArray getColumnsJson() {
+		return columnsJson;
+	}
+
+	/**
+	 * Encodes a row for the client, as an array of its values in column order.
+	 *
+	 * @param row The row.
+	 * @return The values of the row.
+	 */
+	public JsonArray encodeRow(int row) {
+		JsonArray values = new JsonArray();
+		for (Column column : columns) {
+			column.appendTo(values, row);
+		}
+		return values;
+	}
+}
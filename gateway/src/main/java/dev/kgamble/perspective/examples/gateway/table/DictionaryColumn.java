@@ -0,0 +1,88 @@
+/*
+ * Copyright 2024 Keith Gamble
+ * [License information]
+ */
+package dev.kgamble.perspective.examples.gateway.table;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Locale;
+
+import com.inductiveautomation.ignition.common.gson.JsonArray;
+
+/**
+ * A column of strings with few distinct values, e.g. a region or a product.
+ *
+ * Each distinct string is stored once, and every row holds the int code of its
+ * string. Rows are compared by the precomputed sort rank of their codes, and a
+ * filter is tested once per distinct string instead of once per row.
+ *
+ * @author Keith Gamble
+ */
+public class DictionaryColumn extends Column {
+	private final String[] dictionary;
+	private final int[] codes;
+	private final int[] ranks;
+
+	/**
+	 * Constructs a new DictionaryColumn, taking ownership of the arrays.
+	 *
+	 * @param name       The name of the column.
+	 * @param dictionary The distinct strings of the column.
+	 * @param codes      The index in the dictionary of each row's string.
+	 */
+	public DictionaryColumn(String name, String[] dictionary, int[] codes) {
+		super(name);
+		this.dictionary = dictionary;
+		this.codes = codes;
+
+		Integer[] order = new Integer[dictionary.length];
+		for (int i = 0; i < order.length; i++) {
+			order[i] = i;
+		}
+		Arrays.sort(order, Comparator.comparing(code -> dictionary[code]));
+		this.ranks = new int[dictionary.length];
+		for (int rank = 0; rank < order.length; rank++) {
+			ranks[order[rank]] = rank;
+		}
+	}
+
+	@Override
+	public String getType() {
+		return "string";
+	}
+
+	@Override
+	public int size() {
+		return codes.length;
+	}
+
+	@Override
+	public int compare(int rowA, int rowB) {
+		return Integer.compare(ranks[codes[rowA]], ranks[codes[rowB]]);
+	}
+
+	@Override
+	public void appendTo(JsonArray target, int row) {
+		target.add(dictionary[codes[row]]);
+	}
+
+	@Override
+	public RowMatcher textMatcher(String needle) {
+		boolean[] matching = new boolean[dictionary.length];
+		boolean any = false;
+		for (int code = 0; code < dictionary.length; code++) {
+			matching[code] = dictionary[code].toLowerCase(Locale.ROOT).contains(needle);
+			any |= matching[code];
+		}
+		return any ? row -> matching[codes[row]] : row -> false;
+	}
+
+	/**
+	 * @param row The row.
+	 * @return The string of the row.
+	 */
+	public String get(int row) {
+		return dictionary[codes[row]];
+	}
+}
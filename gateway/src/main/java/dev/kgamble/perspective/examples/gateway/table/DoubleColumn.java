@@ -0,0 +1,55 @@
+/*
+ * Copyright 2024 Keith Gamble
+ * [License information]
+ */
+package dev.kgamble.perspective.examples.gateway.table;
+
+import com.inductiveautomation.ignition.common.gson.JsonArray;
+
+/**
+ * A column of double values.
+ *
+ * @author Keith Gamble
+ */
+public class DoubleColumn extends Column {
+	private final double[] values;
+
+	/**
+	 * Constructs a new DoubleColumn, taking ownership of the values.
+	 *
+	 * @param name   The name of the column.
+	 * @param values The value of each row.
+	 */
+	public DoubleColumn(String name, double[] values) {
+		super(name);
+		this.values = values;
+	}
+
+	@Override
+	public String getType() {
+		return "number";
+	}
+
+	@Override
+	public int size() {
+		return values.length;
+	}
+
+	@Override
+	public int compare(int rowA, int rowB) {
+		return Double.compare(values[rowA], values[rowB]);
+	}
+
+	@Override
+	public void appendTo(JsonArray target, int row) {
+		target.add(values[row]);
+	}
+
+	/**
+	 * @param row The row.
+	 * @return The value of the row.
+	 */
+	public double get(int row) {
+		return values[row];
+	}
+}
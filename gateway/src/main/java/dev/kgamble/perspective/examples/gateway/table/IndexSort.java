@@ -0,0 +1,89 @@
+/*
+ * Copyright 2024 Keith Gamble
+ * [License information]
+ */
+package dev.kgamble.perspective.examples.gateway.table;
+
+/**
+ * A stable merge sort of row indices, comparing rows through their columns
+ * without boxing them.
+ *
+ * {@code Arrays.sort} can only sort an {@code int[]} by the values in it, and
+ * sorting an {@code Integer[]} with a Comparator would box every row. Stability
+ * keeps rows with equal values in the order they had before, so sorting a
+ * filtered view keeps its rows in table order within each value.
+ *
+ * @author Keith Gamble
+ */
+public final class IndexSort {
+	private static final int INSERTION_THRESHOLD = 24;
+
+	/**
+	 * Compares two rows.
+	 */
+	@FunctionalInterface
+	public interface RowComparator {
+		int compare(int rowA, int rowB);
+	}
+
+	private IndexSort() {
+	}
+
+	/**
+	 * Sorts row indices in place.
+	 *
+	 * @param rows       The row indices.
+	 * @param comparator Compares two rows.
+	 */
+	public static void sort(int[] rows, RowComparator comparator) {
+		if (rows.length < 2) {
+			return;
+		}
+		int[] scratch = rows.clone();
+		mergeSort(scratch, rows, 0, rows.length, comparator);
+	}
+
+	/**
+	 * Sorts source[from, to) into target[from, to). Both ranges hold the same
+	 * rows on entry, and the halves are sorted with the roles of the arrays
+	 * swapped, so nothing is copied back.
+	 */
+	private static void mergeSort(int[] source, int[] target, int from, int to, RowComparator comparator) {
+		if (to - from <= INSERTION_THRESHOLD) {
+			insertionSort(target, from, to, comparator);
+			return;
+		}
+
+		int middle = (from + to) >>> 1;
+		mergeSort(target, source, from, middle, comparator);
+		mergeSort(target, source, middle, to, comparator);
+
+		// Already in order, the halves only need to be copied
+		if (comparator.compare(source[middle - 1], source[middle]) <= 0) {
+			System.arraycopy(source, from, target, from, to - from);
+			return;
+		}
+
+		int left = from;
+		int right = middle;
+		for (int i = from; i < to; i++) {
+			if (right >= to || (left < middle && comparator.compare(source[left], source[right]) <= 0)) {
+				target[i] = source[left++];
+			} else {
+				target[i] = source[right++];
+			}
+		}
+	}
+
+	private static void insertionSort(int[] rows, int from, int to, RowComparator comparator) {
+		for (int i = from + 1; i < to; i++) {
+			int row = rows[i];
+			int j = i - 1;
+			while (j >= from && comparator.compare(rows[j], row) > 0) {
+				rows[j + 1] = rows[j];
+				j--;
+			}
+			rows[j + 1] = row;
+		}
+	}
+}
@@ -0,0 +1,55 @@
+/*
+ * Copyright 2024 Keith Gamble
+ * [License information]
+ */
+package dev.kgamble.perspective.examples.gateway.table;
+
+import com.inductiveautomation.ignition.common.gson.JsonArray;
+
+/**
+ * A column of int values.
+ *
+ * @author Keith Gamble
+ */
+public class IntColumn extends Column {
+	private final int[] values;
+
+	/**
+	 * Constructs a new IntColumn, taking ownership of the values.
+	 *
+	 * @param name   The name of the column.
+	 * @param values The value of each row.
+	 */
+	public IntColumn(String name, int[] values) {
+		super(name);
+		this.values = values;
+	}
+
+	@Override
+	public String getType() {
+		return "number";
+	}
+
+	@Override
+	public int size() {
+		return values.length;
+	}
+
+	@Override
+	public int compare(int rowA, int rowB) {
+		return Integer.compare(values[rowA], values[rowB]);
+	}
+
+	@Override
+	public void appendTo(JsonArray target, int row) {
+		target.add(values[row]);
+	}
+
+	/**
+	 * @param row The row.
+	 * @return The value of the row.
+	 */
+	public int get(int row) {
+		return values[row];
+	}
+}
@@ -0,0 +1,59 @@
+/*
+ * Copyright 2024 Keith Gamble
+ * [License information]
+ */
+package dev.kgamble.perspective.examples.gateway.table;
+
+import com.inductiveautomation.ignition.common.gson.JsonArray;
+
+/**
+ * A column of long values, e.g. ids or timestamps.
+ *
+ * @author Keith Gamble
+ */
+public class LongColumn extends Column {
+	private final long[] values;
+	private final String type;
+
+	/**
+	 * Constructs a new LongColumn, taking ownership of the values.
+	 *
+	 * @param name   The name of the column.
+	 * @param type   The type sent to the client, "number" or "date" for epoch
+	 *               milliseconds.
+	 * @param values The value of each row.
+	 */
+	public LongColumn(String name, String type, long[] values) {
+		super(name);
+		this.type = type;
+		this.values = values;
+	}
+
+	@Override
+	public String getType() {
+		return type;
+	}
+
+	@Override
+	public int size() {
+		return values.length;
+	}
+
+	@Override
+	public int compare(int rowA, int rowB) {
+		return Long.compare(values[rowA], values[rowB]);
+	}
+
+	@Override
+	public void appendTo(JsonArray target, int row) {
+		target.add(values[row]);
+	}
+
+	/**
+	 * @param row The row.
+	 * @return The value of the row.
+	 */
+	public long get(int row) {
+		return values[row];
+	}
+}
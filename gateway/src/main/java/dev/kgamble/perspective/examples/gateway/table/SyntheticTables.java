@@ -0,0 +1,75 @@
+/*
+ * Copyright 2024 Keith Gamble
+ * [License information]
+ */
+package dev.kgamble.perspective.examples.gateway.table;
+
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Builds the synthetic datasets the module ships for the Table, so it can be
+ * tried without a database.
+ *
+ * The data is generated from a fixed seed, so every gateway shows the same rows.
+ *
+ * @author Keith Gamble
+ */
+public final class SyntheticTables {
+	/**
+	 * The name of the synthetic order table.
+	 */
+	public static final String ORDERS = "synthetic/orders";
+
+	private static final String[] REGIONS = {
+			"North", "South", "East", "West", "Central", "Coastal", "Mountain", "Plains" };
+
+	private static final String[] PRODUCT_KINDS = {
+			"Valve", "Pump", "Sensor", "Motor", "Relay", "Gauge", "Filter", "Drive" };
+
+	private SyntheticTables() {
+	}
+
+	/**
+	 * Builds a table of orders with an id, a time, a region, a product, a
+	 * quantity and a price.
+	 *
+	 * @param rowCount The number of rows.
+	 * @return The table.
+	 */
+	public static ColumnarTable orders(int rowCount) {
+		SplittableRandom random = new SplittableRandom(42);
+
+		String[] products = new String[PRODUCT_KINDS.length * 25];
+		for (int i = 0; i < products.length; i++) {
+			products[i] = PRODUCT_KINDS[i % PRODUCT_KINDS.length] + " " + (100 + i / PRODUCT_KINDS.length);
+		}
+
+		long[] ids = new long[rowCount];
+		long[] times = new long[rowCount];
+		int[] regions = new int[rowCount];
+		int[] productCodes = new int[rowCount];
+		int[] quantities = new int[rowCount];
+		double[] prices = new double[rowCount];
+
+		// One order about every 30 seconds, ending at a fixed date
+		long time = 1_700_000_000_000L - rowCount * 30_000L;
+		for (int row = 0; row < rowCount; row++) {
+			ids[row] = row + 1;
+			time += random.nextInt(1, 60_000);
+			times[row] = time;
+			regions[row] = random.nextInt(REGIONS.length);
+			productCodes[row] = random.nextInt(products.length);
+			quantities[row] = 1 + random.nextInt(500);
+			prices[row] = Math.round(random.nextDouble(5, 2500) * 100) / 100d;
+		}
+
+		return new ColumnarTable(ORDERS, List.of(
+				new LongColumn("id", "number", ids),
+				new LongColumn("time", "date", times),
+				new DictionaryColumn("region", REGIONS.clone(), regions),
+				new DictionaryColumn("product", products, productCodes),
+				new IntColumn("quantity", quantities),
+				new DoubleColumn("price", prices)));
+	}
+}
@@ -0,0 +1,329 @@
+/*
+ * Copyright 2024 Keith Gamble
+ * [License information]
+ */
+package dev.kgamble.perspective.examples.gateway.table;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import com.google.common.base.Suppliers;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import com.inductiveautomation.ignition.common.gson.JsonArray;
+import com.inductiveautomation.ignition.common.gson.JsonObject;
+import com.inductiveautomation.ignition.common.util.LoggerEx;
+
+import dev.kgamble.perspective.examples.common.Constants;
+import dev.kgamble.perspective.examples.gateway.metrics.EventMetrics;
+
+/**
+ * Owns the datasets of the Table and serves windows of their rows on a small
+ * shared pool of threads.
+ *
+ * Filtering and sorting a dataset produces a TableView, an index of its rows.
+ * Views are cached by dataset, filter and sort, bounded by the memory of their
+ * indices, so every Table instance with the same settings shares one view and
+ * scrolling only copies the rows of the window. A dataset is built the first
+ * time a Table asks for it.
+ *
+ * The settings can be overridden on the gateway with system properties in
+ * ignition.conf, e.g.
+ * {@code wrapper.java.additional.N=-Dexample-components.table.syntheticRows=100000}.
+ *
+ * @author Keith Gamble
+ */
+public class TableService {
+	private static final LoggerEx log = LoggerEx.newBuilder().build(TableService.class);
+	private static final String PROPERTY_PREFIX = Constants.MODULE_URL_ALIAS + ".table.";
+
+	private final ConcurrentHashMap<String, Supplier<ColumnarTable>> tables = new ConcurrentHashMap<>();
+	private final Cache<ViewKey, TableView> views;
+	private final EventMetrics metrics;
+	private final ThreadPoolExecutor executor;
+
+	/**
+	 * Constructs a new TableService.
+	 *
+	 * @param threads        The number of threads fetching windows.
+	 * @param queueCapacity  How many requests may wait for a thread.
+	 * @param viewCacheBytes How much memory the cached views may hold.
+	 * @param metrics        The metrics of the Table's window requests.
+	 */
+	public TableService(int threads, int queueCapacity, long viewCacheBytes, EventMetrics metrics) {
+		this.metrics = metrics;
+		this.views = CacheBuilder.newBuilder()
+				.maximumWeight(viewCacheBytes)
+				.weigher((ViewKey key, TableView view) -> view.weight())
+				.build();
+
+		AtomicInteger threadCount = new AtomicInteger();
+		int poolSize = Math.max(1, threads);
+		this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0, TimeUnit.MILLISECONDS,
+				new ArrayBlockingQueue<>(Math.max(1, queueCapacity)), runnable -> {
+					Thread thread = new Thread(runnable, "example-components-table-" + threadCount.incrementAndGet());
+					thread.setDaemon(true);
+					return thread;
+				});
+	}
+
+	/**
+	 * Creates a service with the synthetic datasets, configured from the
+	 * {@code example-components.table.*} system properties.
+	 *
+	 * @param metrics The metrics of the Table's window requests.
+	 * @return The service.
+	 */
+	public static TableService fromSystemProperties(EventMetrics metrics) {
+		int threads = Integer.getInteger(PROPERTY_PREFIX + "threads", 2);
+		int queueCapacity = Integer.getInteger(PROPERTY_PREFIX + "queueCapacity", 256);
+		long viewCacheBytes = Long.getLong(PROPERTY_PREFIX + "viewCacheBytes", 64L * 1024 * 1024);
+		int syntheticRows = Integer.getInteger(PROPERTY_PREFIX + "syntheticRows", 1_000_000);
+
+		TableService service = new TableService(threads, queueCapacity, viewCacheBytes, metrics);
+		service.addTable(SyntheticTables.ORDERS, () -> SyntheticTables.orders(syntheticRows));
+		return service;
+	}
+
+	/**
+	 * Adds a dataset, replacing any dataset of the same name. The dataset is
+	 * built on first use and then kept.
+	 *
+	 * @param name    The name Tables use to ask for the dataset.
+	 * @param factory Builds the dataset.
+	 */
+	public void addTable(String name, Supplier<ColumnarTable> factory) {
+		tables.put(name, Suppliers.memoize(factory::get));
+		views.asMap().keySet().removeIf(key -> key.dataset.equals(name));
+	}
+
+	/**
+	 * Fetches a window on a service thread and pushes it to the target. A request
+	 * that a later request of the same target has replaced by the time a thread
+	 * picks it up is skipped.
+	 *
+	 * @param request What the Table asked for.
+	 * @param target  Receives the window.
+	 */
+	public void fetch(TableWindowRequest request, TableTarget target) {
+		long queued = System.nanoTime();
+		metrics.recordArrival();
+		try {
+			executor.execute(() -> {
+				long start = System.nanoTime();
+				metrics.recordQueueWait(start - queued);
+				if (target.isSuperseded(request.getRequestId())) {
+					metrics.increment("superseded");
+					return;
+				}
+				try {
+					JsonObject payload = window(request);
+					metrics.recordHandlerTime(System.nanoTime() - start);
+					target.push(payload);
+				} catch (Exception e) {
+					metrics.increment("failed");
+					log.warn("Failed to fetch rows of table " + request.getDataset(), e);
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			metrics.increment("rejected");
+		}
+	}
+
+	/**
+	 * Fetches a window on the calling thread.
+	 *
+	 * @param request What the Table asked for.
+	 * @return The window, with "requestId", "total", "offset", "columns" and
+	 *         "rows" members, or an "error" member if the dataset doesn't exist.
+	 */
+	public JsonObject window(TableWindowRequest request) {
+		JsonObject payload = new JsonObject();
+		payload.addProperty("requestId", request.getRequestId());
+		payload.addProperty("dataset", request.getDataset());
+
+		TableView view = getView(request.getDataset(), request.getFilter(), request.getSortColumn(),
+				request.isAscending());
+		if (view == null) {
+			metrics.increment("unknownDataset");
+			payload.addProperty("error", "Unknown dataset " + request.getDataset());
+			return payload;
+		}
+
+		int total = view.size();
+		int offset = Math.min(request.getOffset(), total);
+		int end = Math.min(total, offset + request.getLimit());
+		JsonArray rows = new JsonArray();
+		for (int position = offset; position < end; position++) {
+			rows.add(view.getTable().encodeRow(view.rowAt(position)));
+		}
+
+		payload.addProperty("total", total);
+		payload.addProperty("offset", offset);
+		payload.add("columns", view.getTable().getColumnsJson());
+		payload.add("rows", rows);
+		return payload;
+	}
+
+	/**
+	 * Gets the view of a dataset, filtering and sorting it if no view with the
+	 * same settings is cached.
+	 *
+	 * @param dataset    The name of the dataset.
+	 * @param filter     The filter in lower case, empty for all rows.
+	 * @param sortColumn The column to sort by, or null for table order.
+	 * @param ascending  Whether to sort in ascending order.
+	 * @return The view, or null if the dataset doesn't exist.
+	 */
+	public TableView getView(String dataset, String filter, String sortColumn, boolean ascending) {
+		Supplier<ColumnarTable> factory = tables.get(dataset);
+		if (factory == null) {
+			return null;
+		}
+		ColumnarTable table = factory.get();
+		if (sortColumn != null && table.getColumn(sortColumn) == null) {
+			sortColumn = null;
+		}
+		if (filter.isEmpty() && sortColumn == null) {
+			return new TableView(table, null);
+		}
+
+		ViewKey key = new ViewKey(dataset, filter, sortColumn, ascending);
+		try {
+			return views.get(key, () -> buildView(table, key));
+		} catch (ExecutionException | UncheckedExecutionException e) {
+			throw new IllegalStateException("Failed to build view of table " + dataset, e.getCause());
+		}
+	}
+
+	/**
+	 * Drops all cached views.
+	 */
+	public void invalidateViews() {
+		views.invalidateAll();
+	}
+
+	/**
+	 * Stops fetching windows and drops the datasets and views.
+	 *
+	 * @param timeoutMillis How long to wait for running fetches to finish.
+	 */
+	public void shutdown(long timeoutMillis) {
+		executor.shutdownNow();
+		try {
+			if (!executor.awaitTermination(timeoutMillis, TimeUnit.MILLISECONDS)) {
+				log.warn("Table threads did not stop within " + timeoutMillis + " ms.");
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		views.invalidateAll();
+		tables.clear();
+	}
+
+	private TableView buildView(ColumnarTable table, ViewKey key) throws ExecutionException {
+		long start = System.nanoTime();
+		int[] rows;
+		if (key.sortColumn == null) {
+			rows = filter(table, key.filter);
+		} else {
+			// The filtered rows are cached on their own, so changing the sort doesn't filter again
+			ViewKey filteredKey = new ViewKey(key.dataset, key.filter, null, true);
+			TableView filtered = key.filter.isEmpty() ? null
+					: views.get(filteredKey, () -> buildView(table, filteredKey));
+			rows = filtered != null ? copyRows(filtered) : identity(table.getRowCount());
+
+			Column column = table.getColumn(key.sortColumn);
+			IndexSort.sort(rows, key.ascending ? column::compare : (rowA, rowB) -> column.compare(rowB, rowA));
+		}
+		log.debugf("Built view of %s with %d of %d rows in %d ms", key, rows.length, table.getRowCount(),
+				TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+		return new TableView(table, rows);
+	}
+
+	private static int[] filter(ColumnarTable table, String filter) {
+		List<Column.RowMatcher> matchers = new ArrayList<>();
+		for (Column column : table.getColumns()) {
+			Column.RowMatcher matcher = column.textMatcher(filter);
+			if (matcher != null) {
+				matchers.add(matcher);
+			}
+		}
+
+		int[] matching = new int[table.getRowCount()];
+		int count = 0;
+		for (int row = 0; row < matching.length; row++) {
+			for (Column.RowMatcher matcher : matchers) {
+				if (matcher.matches(row)) {
+					matching[count++] = row;
+					break;
+				}
+			}
+		}
+		return Arrays.copyOf(matching, count);
+	}
+
+	private static int[] copyRows(TableView view) {
+		int[] rows = new int[view.size()];
+		for (int i = 0; i < rows.length; i++) {
+			rows[i] = view.rowAt(i);
+		}
+		return rows;
+	}
+
+	private static int[] identity(int size) {
+		int[] rows = new int[size];
+		for (int i = 0; i < size; i++) {
+			rows[i] = i;
+		}
+		return rows;
+	}
+
+	/**
+	 * The settings a view is cached by.
+	 */
+	private static final class ViewKey {
+		final String dataset;
+		final String filter;
+		final String sortColumn;
+		final boolean ascending;
+
+		ViewKey(String dataset, String filter, String sortColumn, boolean ascending) {
+			this.dataset = dataset;
+			this.filter = filter;
+			this.sortColumn = sortColumn;
+			this.ascending = ascending;
+		}
+
+		@Override
+		public boolean equals(Object other) {
+			if (!(other instanceof ViewKey)) {
+				return false;
+			}
+			ViewKey key = (ViewKey) other;
+			return ascending == key.ascending && dataset.equals(key.dataset) && filter.equals(key.filter)
+					&& Objects.equals(sortColumn, key.sortColumn);
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(dataset, filter, sortColumn, ascending);
+		}
+
+		@Override
+		public String toString() {
+			return dataset + " filtered by '" + filter + "' sorted by " + sortColumn + (ascending ? " asc" : " desc");
+		}
+	}
+}
@@ -0,0 +1,31 @@
+/*
+ * Copyright 2024 Keith Gamble
+ * [License information]
+ */
+package dev.kgamble.perspective.examples.gateway.table;
+
+import com.inductiveautomation.ignition.common.gson.JsonObject;
+
+/**
+ * Receives the row windows fetched for a Table, e.g. the Table's model
+ * delegate, which sends them to the client.
+ *
+ * @author Keith Gamble
+ */
+public interface TableTarget {
+
+	/**
+	 * Receives a window. Called on a TableService thread.
+	 *
+	 * @param payload The window, encoded by {@link TableService#window}.
+	 */
+	void push(JsonObject payload);
+
+	/**
+	 * @param requestId The id of a request of this target.
+	 * @return true if a later request has replaced it, so it needn't be fetched.
+	 */
+	default boolean isSuperseded(long requestId) {
+		return false;
+	}
+}
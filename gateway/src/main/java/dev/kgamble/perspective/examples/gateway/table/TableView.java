@@ -0,0 +1,58 @@
+/*
+ * Copyright 2024 Keith Gamble
+ * [License information]
+ */
+package dev.kgamble.perspective.examples.gateway.table;
+
+/**
+ * The rows of a ColumnarTable in the order a Table shows them, after filtering
+ * and sorting.
+ *
+ * A view is immutable and shared by all Table instances with the same filter
+ * and sort. The view of an unfiltered, unsorted table holds no index at all.
+ *
+ * @author Keith Gamble
+ */
+public class TableView {
+	private final ColumnarTable table;
+	private final int[] rows;
+
+	/**
+	 * Constructs a new TableView.
+	 *
+	 * @param table The table.
+	 * @param rows  The rows of the table in view order, or null for all rows in
+	 *              table order.
+	 */
+	public TableView(ColumnarTable table, int[] rows) {
+		this.table = table;
+		this.rows = rows;
+	}
+
+	public ColumnarTable getTable() {
+		return table;
+	}
+
+	/**
+	 * @return The number of rows in the view.
+	 */
+	public int size() {
+		return rows != null ? rows.length : table.getRowCount();
+	}
+
+	/**
+	 * @param position The position in the view.
+	 * @return The row of the table at that position.
+	 */
+	public int rowAt(int position) {
+		return rows != null ? rows[position] : position;
+	}
+
+	/**
+	 * @return The approximate number of bytes this view holds on top of its
+	 *         table.
+	 */
+	public int weight() {
+		return rows != null ? 16 + rows.length * Integer.BYTES : 16;
+	}
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright 2024 Keith Gamble
+ * [License information]
+ */
+package dev.kgamble.perspective.examples.gateway.table;
+
+import java.util.Locale;
+
+import com.inductiveautomation.ignition.common.gson.JsonElement;
+import com.inductiveautomation.ignition.common.gson.JsonObject;
+
+/**
+ * A window of rows a Table instance asks for: which dataset, filtered and
+ * sorted how, and which rows of the result.
+ *
+ * The Table's client-side delegate sends a request whenever it scrolls past the
+ * rows it has, or its sort or filter change. The window is clamped, so a client
+ * can't ask for more rows at once than the gateway allows.
+ *
+ * @author Keith Gamble
+ */
+public class TableWindowRequest {
+	/**
+	 * The most rows a Table can ask for at once, regardless of its height.
+	 */
+	public static final int MAX_LIMIT = 1000;
+
+	private final long requestId;
+	private final String dataset;
+	private final int offset;
+	private final int limit;
+	private final String sortColumn;
+	private final boolean ascending;
+	private final String filter;
+
+	/**
+	 * Constructs a new TableWindowRequest.
+	 *
+	 * @param requestId  The id of the request, increasing per Table instance.
+	 * @param dataset    The name of the ColumnarTable.
+	 * @param offset     The position of the first row of the window.
+	 * @param limit      The number of rows of the window.
+	 * @param sortColumn The column to sort by, or null to keep table order.
+	 * @param ascending  Whether the rows are sorted in ascending order.
+	 * @param filter     Text the rows must contain, or null for all rows.
+	 */
+	public TableWindowRequest(long requestId, String dataset, int offset, int limit, String sortColumn,
+			boolean ascending, String filter) {
+		this.requestId = requestId;
+		this.dataset = dataset;
+		this.offset = Math.max(0, offset);
+		this.limit = Math.max(0, Math.min(MAX_LIMIT, limit));
+		this.sortColumn = sortColumn == null || sortColumn.isEmpty() ? null : sortColumn;
+		this.ascending = ascending;
+		this.filter = filter == null ? "" : filter.trim().toLowerCase(Locale.ROOT);
+	}
+
+	/**
+	 * Reads a request sent by the Table's client-side delegate.
+	 *
+	 * @param json The payload of the window event.
+	 * @return The request, with defaults for missing values.
+	 */
+	public static TableWindowRequest fromJson(JsonObject json) {
+		return new TableWindowRequest(
+				readLong(json, "requestId", 0),
+				readString(json, "dataset", SyntheticTables.ORDERS),
+				(int) readLong(json, "offset", 0),
+				(int) readLong(json, "limit", 100),
+				readString(json, "sortColumn", null),
+				readBoolean(json, "ascending", true),
+				readString(json, "filter", null));
+	}
+
+	public long getRequestId() {
+		return requestId;
+	}
+
+	public String getDataset() {
+		return dataset;
+	}
+
+	public int getOffset() {
+		return offset;
+	}
+
+	public int getLimit() {
+		return limit;
+	}
+
+	/**
+	 * @return The column to sort by, or null to keep table order.
+	 */
+	public String getSortColumn() {
+		return sortColumn;
+	}
+
+	public boolean isAscending() {
+		return ascending;
+	}
+
+	/**
+	 * @return The filter in lower case, empty for all rows.
+	 */
+	public String getFilter() {
+		return filter;
+	}
+
+	private static String readString(JsonObject json, String name, String fallback) {
+		JsonElement element = json != null ? json.get(name) : null;
+		return element != null && element.isJsonPrimitive() ? element.getAsString() : fallback;
+	}
+
+	private static long readLong(JsonObject json, String name, long fallback) {
+		JsonElement element = json != null ? json.get(name) : null;
+		if (element == null || !element.isJsonPrimitive() || !element.getAsJsonPrimitive().isNumber()) {
+			return fallback;
+		}
+		return element.getAsLong();
+	}
+
+	private static boolean readBoolean(JsonObject json, String name, boolean fallback) {
+		JsonElement element = json != null ? json.get(name) : null;
+		if (element == null || !element.isJsonPrimitive() || !element.getAsJsonPrimitive().isBoolean()) {
+			return fallback;
+		}
+		return element.getAsBoolean();
+	}
+}
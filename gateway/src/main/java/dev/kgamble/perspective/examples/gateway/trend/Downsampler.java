@@ -0,0 +1,252 @@
+/*
+ * Copyright 2024 Keith Gamble
+ * [License information]
+ */
+package dev.kgamble.perspective.examples.gateway.trend;
+
+import java.util.Locale;
+
+/**
+ * Reduces a window of samples to about as many points as the trend has pixels,
+ * so the shape of the series survives while the payload stays small.
+ *
+ * Both algorithms run in a single pass over the window and write into a
+ * reusable output window, so downsampling doesn't allocate once the windows
+ * have grown to size. They read the window either from a SampleWindow or
+ * straight from the ring buffers of a SampleHistory.
+ *
+ * @author Keith Gamble
+ */
+public final class Downsampler {
+
+	/**
+	 * The downsampling algorithms.
+	 */
+	public enum Algorithm {
+		/**
+		 * Largest-Triangle-Three-Buckets, keeps the points that contribute most to
+		 * the visual shape of the line.
+		 */
+		LTTB,
+		/**
+		 * Keeps the minimum and maximum of each time bucket, so no spike is ever
+		 * lost.
+		 */
+		MIN_MAX;
+
+		/**
+		 * @param name The name of an algorithm, e.g. "lttb" or "min-max".
+		 * @return The algorithm, LTTB if the name is unknown.
+		 */
+		public static Algorithm fromString(String name) {
+			if (name != null) {
+				String normalized = name.trim().toUpperCase(Locale.ROOT).replace('-', '_');
+				if ("MINMAX".equals(normalized)) {
+					return MIN_MAX;
+				}
+				for (Algorithm algorithm : values()) {
+					if (algorithm.name().equals(normalized)) {
+						return algorithm;
+					}
+				}
+			}
+			return LTTB;
+		}
+	}
+
+	private Downsampler() {
+	}
+
+	/**
+	 * Downsamples a window.
+	 *
+	 * @param input     The samples, in increasing time order.
+	 * @param maxPoints The largest number of points to keep, usually the pixel
+	 *                  width of the trend.
+	 * @param algorithm The algorithm to use.
+	 * @param output    The window the points are written to, replacing its
+	 *                  content.
+	 */
+	public static void downsample(SampleWindow input, int maxPoints, Algorithm algorithm, SampleWindow output) {
+		downsample(input.times, input.values, 0, input.size, maxPoints, algorithm, output);
+	}
+
+	/**
+	 * Downsamples samples held in ring buffers, e.g. the arrays of a
+	 * SampleHistory, without copying them first. The sample at position i is
+	 * at index (first + i) modulo the length of the arrays.
+	 *
+	 * @param times     The times of the samples.
+	 * @param values    The values of the samples.
+	 * @param first     The index of the first sample.
+	 * @param count     The number of samples, in increasing time order.
+	 * @param maxPoints The largest number of points to keep.
+	 * @param algorithm The algorithm to use.
+	 * @param output    The window the points are written to, replacing its
+	 *                  content.
+	 */
+	static void downsample(long[] times, double[] values, int first, int count, int maxPoints, Algorithm algorithm,
+			SampleWindow output) {
+		if (algorithm == Algorithm.MIN_MAX) {
+			minMax(times, values, first, count, Math.max(1, maxPoints / 2), output);
+		} else {
+			lttb(times, values, first, count, maxPoints, output);
+		}
+	}
+
+	/**
+	 * Largest-Triangle-Three-Buckets. The first and last samples are always kept,
+	 * the rest are split into threshold - 2 buckets of equal sample count, and
+	 * from each bucket the sample forming the largest triangle with the previous
+	 * kept point and the average of the next bucket is kept. Below 3 points only
+	 * the last sample, or the first and the last, are kept.
+	 *
+	 * @param input     The samples, in increasing time order.
+	 * @param threshold The number of points to keep.
+	 * @param output    The window the points are written to.
+	 */
+	public static void lttb(SampleWindow input, int threshold, SampleWindow output) {
+		lttb(input.times, input.values, 0, input.size, threshold, output);
+	}
+
+	private static void lttb(long[] t, double[] v, int first, int n, int threshold, SampleWindow output) {
+		if (threshold >= n || n == 0) {
+			copy(t, v, first, n, output);
+			return;
+		}
+
+		int length = t.length;
+		if (threshold < 3) {
+			// Too narrow for a bucket, only the ends are kept, or just the latest sample
+			output.reset(2);
+			if (threshold == 2) {
+				output.add(t[first], v[first]);
+			}
+			int last = at(first, n - 1, length);
+			output.add(t[last], v[last]);
+			return;
+		}
+
+		long origin = t[first];
+		output.reset(threshold);
+
+		double every = (double) (n - 2) / (threshold - 2);
+		int a = first;
+		output.add(t[a], v[a]);
+
+		for (int i = 0; i < threshold - 2; i++) {
+			// The average of the next bucket is the third corner of the triangle
+			int averageStart = (int) Math.floor((i + 1) * every) + 1;
+			int averageEnd = Math.min((int) Math.floor((i + 2) * every) + 1, n);
+			double averageX = 0;
+			double averageY = 0;
+			for (int j = averageStart; j < averageEnd; j++) {
+				int index = at(first, j, length);
+				averageX += t[index] - origin;
+				averageY += v[index];
+			}
+			int averageCount = Math.max(1, averageEnd - averageStart);
+			averageX /= averageCount;
+			averageY /= averageCount;
+
+			int rangeStart = (int) Math.floor(i * every) + 1;
+			int rangeEnd = (int) Math.floor((i + 1) * every) + 1;
+			double aX = t[a] - origin;
+			double aY = v[a];
+
+			double maxArea = -1;
+			int next = at(first, rangeStart, length);
+			for (int j = rangeStart; j < rangeEnd; j++) {
+				int index = at(first, j, length);
+				double area = Math.abs(
+						(aX - averageX) * (v[index] - aY) - (aX - (t[index] - origin)) * (averageY - aY));
+				if (area > maxArea) {
+					maxArea = area;
+					next = index;
+				}
+			}
+
+			output.add(t[next], v[next]);
+			a = next;
+		}
+
+		int last = at(first, n - 1, length);
+		output.add(t[last], v[last]);
+	}
+
+	/**
+	 * Min-max bucketing. The time range of the window is split into buckets of
+	 * equal duration, and the minimum and maximum sample of each bucket are kept
+	 * in time order. Empty buckets are skipped.
+	 *
+	 * @param input   The samples, in increasing time order.
+	 * @param buckets The number of buckets, at most twice as many points are kept.
+	 * @param output  The window the points are written to.
+	 */
+	public static void minMax(SampleWindow input, int buckets, SampleWindow output) {
+		minMax(input.times, input.values, 0, input.size, buckets, output);
+	}
+
+	private static void minMax(long[] t, double[] v, int first, int n, int buckets, SampleWindow output) {
+		if (n <= buckets * 2) {
+			copy(t, v, first, n, output);
+			return;
+		}
+
+		int length = t.length;
+		long start = t[first];
+		double bucketMillis = (double) (t[at(first, n - 1, length)] - start + 1) / buckets;
+		output.reset(buckets * 2);
+
+		int bucket = -1;
+		int min = first;
+		int max = first;
+		for (int i = 0; i < n; i++) {
+			int index = at(first, i, length);
+			int current = Math.min(buckets - 1, (int) ((t[index] - start) / bucketMillis));
+			if (current != bucket) {
+				if (bucket >= 0) {
+					addMinMax(t, v, min, max, output);
+				}
+				bucket = current;
+				min = index;
+				max = index;
+			} else if (v[index] < v[min]) {
+				min = index;
+			} else if (v[index] > v[max]) {
+				max = index;
+			}
+		}
+		addMinMax(t, v, min, max, output);
+	}
+
+	// Indexes in a ring don't follow time order, so the times are compared instead
+	private static void addMinMax(long[] t, double[] v, int min, int max, SampleWindow output) {
+		int first = t[min] <= t[max] ? min : max;
+		int second = first == min ? max : min;
+		output.add(t[first], v[first]);
+		if (second != first) {
+			output.add(t[second], v[second]);
+		}
+	}
+
+	private static void copy(long[] t, double[] v, int first, int n, SampleWindow output) {
+		output.reset(n);
+		// At most two runs, before and after the end of the ring
+		int head = Math.min(n, t.length - first);
+		System.arraycopy(t, first, output.times, 0, head);
+		System.arraycopy(v, first, output.values, 0, head);
+		System.arraycopy(t, 0, output.times, head, n - head);
+		System.arraycopy(v, 0, output.values, head, n - head);
+		output.size = n;
+	}
+
+	/**
+	 * @return The array index of the sample at a position of a ring starting at
+	 *         first, without a division.
+	 */
+	private static int at(int first, int position, int length) {
+		int index = first + position;
+		return index < length ? index : index - length;
+	}
+}
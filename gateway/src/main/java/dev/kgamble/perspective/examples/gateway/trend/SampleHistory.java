@@ -0,0 +1,173 @@
+/*
+ * Copyright 2024 Keith Gamble
+ * [License information]
+ */
+package dev.kgamble.perspective.examples.gateway.trend;
+
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * A fixed-capacity history of timestamped samples, kept in primitive ring
+ * buffers so hours of 100 ms samples cost no object per sample.
+ *
+ * Samples are appended by a single writer, in increasing time order, and the
+ * oldest sample is overwritten once the history is full. Any number of readers
+ * can copy or downsample a time window of the history at the same time.
+ *
+ * @author Keith Gamble
+ */
+public class SampleHistory {
+	private final long[] times;
+	private final double[] values;
+	private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+	// The index the next sample is written to, and the number of samples held
+	private int head;
+	private int size;
+
+	/**
+	 * Constructs a new SampleHistory.
+	 *
+	 * @param capacity The number of samples kept.
+	 */
+	public SampleHistory(int capacity) {
+		if (capacity < 1) {
+			throw new IllegalArgumentException("capacity must be at least 1");
+		}
+		this.times = new long[capacity];
+		this.values = new double[capacity];
+	}
+
+	/**
+	 * Appends a sample. Samples older than the newest sample are ignored.
+	 *
+	 * @param timeMillis The time of the sample.
+	 * @param value      The value of the sample.
+	 */
+	public void append(long timeMillis, double value) {
+		lock.writeLock().lock();
+		try {
+			if (size > 0 && timeMillis < times[index(size - 1)]) {
+				return;
+			}
+			times[head] = timeMillis;
+			values[head] = value;
+			head = (head + 1) % times.length;
+			if (size < times.length) {
+				size++;
+			}
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Copies the samples from fromMillis (inclusive) to toMillis (exclusive) into
+	 * the window, replacing its previous content.
+	 *
+	 * @param fromMillis The start of the time range.
+	 * @param toMillis   The end of the time range.
+	 * @param window     The window to copy the samples into.
+	 */
+	public void read(long fromMillis, long toMillis, SampleWindow window) {
+		lock.readLock().lock();
+		try {
+			int from = firstAtOrAfter(fromMillis);
+			int to = firstAtOrAfter(toMillis);
+			int count = Math.max(0, to - from);
+			window.reset(count);
+			for (int i = 0; i < count; i++) {
+				int index = index(from + i);
+				window.times[i] = times[index];
+				window.values[i] = values[index];
+			}
+			window.size = count;
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Downsamples the samples from fromMillis (inclusive) to toMillis (exclusive)
+	 * straight out of the history, so the window is never copied. Appends wait
+	 * while the history is downsampled, which takes far less than a sample
+	 * interval.
+	 *
+	 * @param fromMillis The start of the time range.
+	 * @param toMillis   The end of the time range.
+	 * @param maxPoints  The largest number of points to keep.
+	 * @param algorithm  The algorithm to use.
+	 * @param output     The window the points are written to, replacing its
+	 *                   content.
+	 * @return The number of samples in the time range.
+	 */
+	public int downsample(long fromMillis, long toMillis, int maxPoints, Downsampler.Algorithm algorithm,
+			SampleWindow output) {
+		lock.readLock().lock();
+		try {
+			int from = firstAtOrAfter(fromMillis);
+			int count = Math.max(0, firstAtOrAfter(toMillis) - from);
+			Downsampler.downsample(times, values, index(from), count, maxPoints, algorithm, output);
+			return count;
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * @return The time of the newest sample, or Long.MIN_VALUE if there is none.
+	 */
+	public long getLatestTime() {
+		lock.readLock().lock();
+		try {
+			return size == 0 ? Long.MIN_VALUE : times[index(size - 1)];
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * @return The number of samples held.
+	 */
+	public int size() {
+		lock.readLock().lock();
+		try {
+			return size;
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * @return The number of samples kept before the oldest is overwritten.
+	 */
+	public int capacity() {
+		return times.length;
+	}
+
+	/**
+	 * @return The position, counted from the oldest sample, of the first sample
+	 *         at or after the time, or size if there is none.
+	 */
+	private int firstAtOrAfter(long timeMillis) {
+		int low = 0;
+		int high = size;
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+			if (times[index(middle)] < timeMillis) {
+				low = middle + 1;
+			} else {
+				high = middle;
+			}
+		}
+		return low;
+	}
+
+	/**
+	 * @return The array index of the sample at a position counted from the oldest.
+	 */
+	private int index(int position) {
+		int oldest = size < times.length ? 0 : head;
+		return (oldest + position) % times.length;
+	}
+}
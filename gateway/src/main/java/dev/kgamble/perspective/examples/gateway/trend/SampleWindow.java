@@ -0,0 +1,75 @@
+/*
+ * Copyright 2024 Keith Gamble
+ * [License information]
+ */
+package dev.kgamble.perspective.examples.gateway.trend;
+
+/**
+ * A reusable buffer of timestamped samples, e.g. a window read from a
+ * SampleHistory or the output of the Downsampler.
+ *
+ * The arrays only grow, so a window kept per trend stops allocating once it
+ * has seen its largest read. A window must not be shared between threads.
+ *
+ * @author Keith Gamble
+ */
+public class SampleWindow {
+	long[] times;
+	double[] values;
+	int size;
+
+	/**
+	 * Constructs a new SampleWindow.
+	 *
+	 * @param initialCapacity The number of samples the window holds before it
+	 *                        grows.
+	 */
+	public SampleWindow(int initialCapacity) {
+		this.times = new long[Math.max(1, initialCapacity)];
+		this.values = new double[times.length];
+	}
+
+	/**
+	 * Empties the window, growing it to hold at least the given number of samples.
+	 */
+	void reset(int capacity) {
+		if (times.length < capacity) {
+			int grown = Math.max(capacity, times.length + (times.length >> 1));
+			times = new long[grown];
+			values = new double[grown];
+		}
+		size = 0;
+	}
+
+	/**
+	 * Adds a sample after the current ones, the window must have room for it.
+	 */
+	void add(long timeMillis, double value) {
+		times[size] = timeMillis;
+		values[size] = value;
+		size++;
+	}
+
+	/**
+	 * @return The number of samples in the window.
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * @param index The index of the sample.
+	 * @return The time of the sample.
+	 */
+	public long getTime(int index) {
+		return times[index];
+	}
+
+	/**
+	 * @param index The index of the sample.
+	 * @return The value of the sample.
+	 */
+	public double getValue(int index) {
+		return values[index];
+	}
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright 2024 Keith Gamble
+ * [License information]
+ */
+package dev.kgamble.perspective.examples.gateway.trend;
+
+import java.util.Locale;
+
+/**
+ * A TrendSource that generates a deterministic signal at a fixed rate, so the
+ * Trend can be tried and benchmarked without a tag provider.
+ *
+ * The value at a time only depends on the time, so the history can be filled
+ * for any period up front with {@link #backfill(long, long)}.
+ *
+ * @author Keith Gamble
+ */
+public class SyntheticTrendSource implements TrendSource {
+
+	/**
+	 * The shapes of the generated signal.
+	 */
+	public enum Waveform {
+		/**
+		 * A slow sine with a faster ripple on top.
+		 */
+		SINE,
+		/**
+		 * A sawtooth ramping up over one minute.
+		 */
+		RAMP,
+		/**
+		 * Pseudo-random noise with an occasional spike, which LTTB and min-max
+		 * bucketing should both keep.
+		 */
+		NOISE
+	}
+
+	private final String name;
+	private final Waveform waveform;
+	private final long intervalMillis;
+	private final SampleHistory history;
+
+	// Only accessed by the thread polling this source
+	private long nextSampleMillis = Long.MIN_VALUE;
+
+	/**
+	 * Constructs a new SyntheticTrendSource.
+	 *
+	 * @param waveform       The shape of the signal.
+	 * @param intervalMillis The time between samples, e.g. 100.
+	 * @param historyMillis  How much history is kept.
+	 */
+	public SyntheticTrendSource(Waveform waveform, long intervalMillis, long historyMillis) {
+		this.name = "synthetic/" + waveform.name().toLowerCase(Locale.ROOT);
+		this.waveform = waveform;
+		this.intervalMillis = intervalMillis;
+		this.history = new SampleHistory((int) Math.max(1, historyMillis / intervalMillis));
+	}
+
+	@Override
+	public String getName() {
+		return name;
+	}
+
+	@Override
+	public SampleHistory getHistory() {
+		return history;
+	}
+
+	/**
+	 * Fills the history with the samples of the given period before now, as if
+	 * the source had been running all along.
+	 *
+	 * @param durationMillis The period to fill.
+	 * @param nowMillis      The current time.
+	 */
+	public void backfill(long durationMillis, long nowMillis) {
+		long start = align(nowMillis - Math.min(durationMillis, history.capacity() * intervalMillis));
+		nextSampleMillis = Math.max(nextSampleMillis, start);
+		poll(nowMillis);
+	}
+
+	@Override
+	public void poll(long nowMillis) {
+		if (nextSampleMillis == Long.MIN_VALUE) {
+			nextSampleMillis = align(nowMillis);
+		}
+		for (; nextSampleMillis <= nowMillis; nextSampleMillis += intervalMillis) {
+			history.append(nextSampleMillis, valueAt(nextSampleMillis));
+		}
+	}
+
+	/**
+	 * @param timeMillis The time of a sample.
+	 * @return The value of the signal at that time.
+	 */
+	public double valueAt(long timeMillis) {
+		double seconds = timeMillis / 1000d;
+		switch (waveform) {
+			case RAMP:
+				return (timeMillis % 60_000) / 600d;
+			case NOISE:
+				long hash = mix(timeMillis);
+				double noise = (hash >>> 11) / (double) (1L << 53) * 10 - 5;
+				// About one sample in five thousand is a spike
+				return (hash & 0x1FFF) < 2 ? noise + 80 : noise + 50;
+			case SINE:
+			default:
+				return 50 + 40 * Math.sin(seconds * 2 * Math.PI / 600) + 5 * Math.sin(seconds * 2 * Math.PI / 7);
+		}
+	}
+
+	private long align(long timeMillis) {
+		return timeMillis - Math.floorMod(timeMillis, intervalMillis);
+	}
+
+	/**
+	 * A 64-bit mixing function, see SplitMix64.
+	 */
+	private static long mix(long value) {
+		long z = value * 0x9E3779B97F4A7C15L;
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return z ^ (z >>> 31);
+	}
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright 2024 Keith Gamble
+ * [License information]
+ */
+package dev.kgamble.perspective.examples.gateway.trend;
+
+import com.inductiveautomation.ignition.common.gson.JsonElement;
+import com.inductiveautomation.ignition.common.gson.JsonObject;
+
+import dev.kgamble.perspective.examples.common.codec.MessageCodec;
+import dev.kgamble.perspective.examples.common.codec.MessageCodecs;
+
+/**
+ * What a Trend instance asks to be sent: which source, how much of its history,
+ * how often, downsampled to how many pixels, and in which message format.
+ *
+ * The Trend's client-side delegate sends its request whenever its props or its
+ * width change. Every value is clamped, so a client can't ask for more points
+ * or more frequent pushes than the gateway allows.
+ *
+ * @author Keith Gamble
+ */
+public class TrendRequest {
+	/**
+	 * The fastest refresh a Trend can ask for.
+	 */
+	public static final long MIN_REFRESH_MILLIS = 250;
+
+	/**
+	 * The most points a Trend can ask for, regardless of its width.
+	 */
+	public static final int MAX_POINTS = 4000;
+
+	private final String source;
+	private final long windowMillis;
+	private final long refreshMillis;
+	private final Downsampler.Algorithm algorithm;
+	private final int width;
+	private final MessageCodec codec;
+
+	/**
+	 * Constructs a new TrendRequest.
+	 *
+	 * @param source        The name of the TrendSource.
+	 * @param windowMillis  How much history is shown, up to now.
+	 * @param refreshMillis How often the Trend is updated.
+	 * @param algorithm     How the history is downsampled.
+	 * @param width         The rendered width of the Trend in pixels.
+	 * @param codec         The format the points are sent in.
+	 */
+	public TrendRequest(String source, long windowMillis, long refreshMillis, Downsampler.Algorithm algorithm,
+			int width, MessageCodec codec) {
+		this.source = source;
+		this.windowMillis = Math.max(1, windowMillis);
+		this.refreshMillis = Math.max(MIN_REFRESH_MILLIS, refreshMillis);
+		this.algorithm = algorithm;
+		this.width = Math.max(1, Math.min(MAX_POINTS, width));
+		this.codec = codec;
+	}
+
+	/**
+	 * Reads a request sent by the Trend's client-side delegate.
+	 *
+	 * @param json The payload of the subscribe event.
+	 * @return The request, with defaults for missing values.
+	 */
+	public static TrendRequest fromJson(JsonObject json) {
+		return new TrendRequest(
+				readString(json, "source", "synthetic/sine"),
+				readLong(json, "windowMs", 3_600_000),
+				readLong(json, "refreshMs", 1000),
+				Downsampler.Algorithm.fromString(readString(json, "algorithm", "lttb")),
+				(int) readLong(json, "width", 300),
+				MessageCodecs.forName(readString(json, "codec", null)));
+	}
+
+	public String getSource() {
+		return source;
+	}
+
+	public long getWindowMillis() {
+		return windowMillis;
+	}
+
+	public long getRefreshMillis() {
+		return refreshMillis;
+	}
+
+	public Downsampler.Algorithm getAlgorithm() {
+		return algorithm;
+	}
+
+	public int getWidth() {
+		return width;
+	}
+
+	public MessageCodec getCodec() {
+		return codec;
+	}
+
+	private static String readString(JsonObject json, String name, String fallback) {
+		JsonElement element = json != null ? json.get(name) : null;
+		return element != null && element.isJsonPrimitive() ? element.getAsString() : fallback;
+	}
+
+	private static long readLong(JsonObject json, String name, long fallback) {
+		JsonElement element = json != null ? json.get(name) : null;
+		if (element == null || !element.isJsonPrimitive() || !element.getAsJsonPrimitive().isNumber()) {
+			return fallback;
+		}
+		return element.getAsLong();
+	}
+}
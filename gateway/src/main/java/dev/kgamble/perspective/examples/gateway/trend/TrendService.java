@@ -0,0 +1,149 @@
+/*
+ * Copyright 2024 Keith Gamble
+ * [License information]
+ */
+package dev.kgamble.perspective.examples.gateway.trend;
+
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.inductiveautomation.ignition.common.util.LoggerEx;
+
+import dev.kgamble.perspective.examples.common.Constants;
+import dev.kgamble.perspective.examples.gateway.metrics.EventMetrics;
+
+/**
+ * Owns the TrendSources and refreshes the TrendSubscriptions of all Trend
+ * instances on a small shared pool of threads.
+ *
+ * The settings can be overridden on the gateway with system properties in
+ * ignition.conf, e.g.
+ * {@code wrapper.java.additional.N=-Dexample-components.trend.historyHours=8}.
+ *
+ * @author Keith Gamble
+ */
+public class TrendService {
+	private static final LoggerEx log = LoggerEx.newBuilder().build(TrendService.class);
+	private static final String PROPERTY_PREFIX = Constants.MODULE_URL_ALIAS + ".trend.";
+
+	private final ConcurrentHashMap<String, TrendSource> sources = new ConcurrentHashMap<>();
+	private final EventMetrics metrics;
+	private final long pollMillis;
+	private final ScheduledThreadPoolExecutor scheduler;
+
+	/**
+	 * Constructs a new TrendService.
+	 *
+	 * @param threads    The number of threads refreshing subscriptions.
+	 * @param pollMillis How often the sources are polled for new samples.
+	 * @param metrics    The metrics of the Trend's data pushes.
+	 */
+	public TrendService(int threads, long pollMillis, EventMetrics metrics) {
+		this.metrics = metrics;
+		this.pollMillis = pollMillis;
+
+		AtomicInteger threadCount = new AtomicInteger();
+		this.scheduler = new ScheduledThreadPoolExecutor(Math.max(1, threads), runnable -> {
+			Thread thread = new Thread(runnable, "example-components-trend-" + threadCount.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+		this.scheduler.setRemoveOnCancelPolicy(true);
+	}
+
+	/**
+	 * Creates a service with the synthetic sources, configured from the
+	 * {@code example-components.trend.*} system properties.
+	 *
+	 * @param metrics The metrics of the Trend's data pushes.
+	 * @return The service, not yet started.
+	 */
+	public static TrendService fromSystemProperties(EventMetrics metrics) {
+		int threads = Integer.getInteger(PROPERTY_PREFIX + "threads", 2);
+		long intervalMillis = Long.getLong(PROPERTY_PREFIX + "sampleIntervalMs", 100);
+		long historyMillis = TimeUnit.HOURS.toMillis(Long.getLong(PROPERTY_PREFIX + "historyHours", 4));
+
+		TrendService service = new TrendService(threads, intervalMillis, metrics);
+		long now = System.currentTimeMillis();
+		for (SyntheticTrendSource.Waveform waveform : SyntheticTrendSource.Waveform.values()) {
+			SyntheticTrendSource source = new SyntheticTrendSource(waveform, intervalMillis, historyMillis);
+			source.backfill(historyMillis, now);
+			service.addSource(source);
+		}
+		return service;
+	}
+
+	/**
+	 * Adds a source, replacing any source of the same name.
+	 *
+	 * @param source The source.
+	 */
+	public void addSource(TrendSource source) {
+		sources.put(source.getName(), source);
+	}
+
+	/**
+	 * @return The sources Trends can follow.
+	 */
+	public Collection<TrendSource> getSources() {
+		return sources.values();
+	}
+
+	/**
+	 * Starts polling the sources.
+	 */
+	public void start() {
+		scheduler.scheduleAtFixedRate(this::pollSources, 0, pollMillis, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Starts refreshing a Trend.
+	 *
+	 * @param request What the Trend asked for.
+	 * @param target  Receives the points.
+	 * @return The subscription, or null if the requested source doesn't exist.
+	 */
+	public TrendSubscription subscribe(TrendRequest request, TrendTarget target) {
+		TrendSource source = sources.get(request.getSource());
+		if (source == null) {
+			metrics.increment("unknownSource");
+			return null;
+		}
+
+		TrendSubscription subscription = new TrendSubscription(source, request, target, metrics);
+		subscription.setFuture(scheduler.scheduleWithFixedDelay(subscription, 0, request.getRefreshMillis(),
+				TimeUnit.MILLISECONDS));
+		return subscription;
+	}
+
+	/**
+	 * Stops polling the sources and refreshing all subscriptions.
+	 *
+	 * @param timeoutMillis How long to wait for running refreshes to finish.
+	 */
+	public void shutdown(long timeoutMillis) {
+		scheduler.shutdownNow();
+		try {
+			if (!scheduler.awaitTermination(timeoutMillis, TimeUnit.MILLISECONDS)) {
+				log.warn("Trend threads did not stop within " + timeoutMillis + " ms.");
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		sources.clear();
+	}
+
+	private void pollSources() {
+		long now = System.currentTimeMillis();
+		for (TrendSource source : sources.values()) {
+			try {
+				source.poll(now);
+			} catch (Exception e) {
+				log.warn("Failed to poll trend source " + source.getName(), e);
+			}
+		}
+	}
+}
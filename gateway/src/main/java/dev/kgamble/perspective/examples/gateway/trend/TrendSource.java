@@ -0,0 +1,36 @@
+/*
+ * Copyright 2024 Keith Gamble
+ * [License information]
+ */
+package dev.kgamble.perspective.examples.gateway.trend;
+
+/**
+ * A source of samples a Trend can follow, e.g. a tag or a synthetic signal.
+ *
+ * A source keeps its recent history in a SampleHistory, which the trends
+ * following it read from and downsample. The raw samples never leave the
+ * gateway.
+ *
+ * @author Keith Gamble
+ */
+public interface TrendSource {
+
+	/**
+	 * @return The name trends use to follow this source, e.g. "synthetic/sine".
+	 */
+	String getName();
+
+	/**
+	 * @return The recent samples of this source.
+	 */
+	SampleHistory getHistory();
+
+	/**
+	 * Appends the samples due up to the given time. Called periodically by the
+	 * TrendService, sources that receive their samples elsewhere can ignore it.
+	 *
+	 * @param nowMillis The current time.
+	 */
+	default void poll(long nowMillis) {
+	}
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright 2024 Keith Gamble
+ * [License information]
+ */
+package dev.kgamble.perspective.examples.gateway.trend;
+
+import java.util.concurrent.ScheduledFuture;
+
+import com.inductiveautomation.ignition.common.gson.JsonObject;
+import com.inductiveautomation.ignition.common.util.LoggerEx;
+
+import dev.kgamble.perspective.examples.common.codec.MessageWriter;
+
+import dev.kgamble.perspective.examples.gateway.metrics.EventMetrics;
+
+/**
+ * A Trend instance following a TrendSource.
+ *
+ * On every refresh the subscription downsamples the requested window of the
+ * source's history to the Trend's pixel width, straight out of the history's
+ * ring buffers, and pushes the points to its target. Nothing is pushed when the
+ * source has no new samples and the request didn't change. The window of points
+ * and the writer of the requested codec are kept, so a refresh neither copies
+ * nor allocates per sample.
+ *
+ * @author Keith Gamble
+ */
+public class TrendSubscription implements Runnable {
+	private static final LoggerEx log = LoggerEx.newBuilder().build(TrendSubscription.class);
+
+	private final TrendSource source;
+	private final TrendRequest request;
+	private final TrendTarget target;
+	private final EventMetrics metrics;
+
+	// Only accessed by the thread refreshing this subscription
+	private final SampleWindow points = new SampleWindow(256);
+	private final MessageWriter writer;
+	private long lastPushedSample = Long.MIN_VALUE;
+
+	private volatile ScheduledFuture<?> future;
+
+	/**
+	 * Constructs a new TrendSubscription.
+	 *
+	 * @param source  The source followed.
+	 * @param request What the Trend asked for.
+	 * @param target  Receives the points.
+	 * @param metrics The metrics of the Trend's data pushes.
+	 */
+	public TrendSubscription(TrendSource source, TrendRequest request, TrendTarget target, EventMetrics metrics) {
+		this.source = source;
+		this.request = request;
+		this.target = target;
+		this.metrics = metrics;
+		this.writer = request.getCodec().newWriter();
+	}
+
+	/**
+	 * Refreshes the subscription, run periodically by the TrendService.
+	 */
+	@Override
+	public void run() {
+		try {
+			JsonObject payload = refresh(System.currentTimeMillis());
+			if (payload != null) {
+				target.push(payload);
+			}
+		} catch (Exception e) {
+			metrics.increment("failed");
+			log.warn("Failed to refresh trend of source " + source.getName(), e);
+		}
+	}
+
+	/**
+	 * Downsamples the requested window.
+	 *
+	 * @param nowMillis The end of the window.
+	 * @return The encoded points, or null if nothing changed since the last push.
+	 */
+	public JsonObject refresh(long nowMillis) {
+		long latest = source.getHistory().getLatestTime();
+		if (latest == lastPushedSample) {
+			metrics.increment("unchanged");
+			return null;
+		}
+
+		long start = System.nanoTime();
+		int rawCount = source.getHistory().downsample(nowMillis - request.getWindowMillis(), nowMillis + 1,
+				request.getWidth(), request.getAlgorithm(), points);
+		JsonObject payload = encode(writer, source.getName(), rawCount, points);
+		metrics.recordHandlerTime(System.nanoTime() - start);
+		metrics.recordArrival();
+
+		lastPushedSample = latest;
+		return payload;
+	}
+
+	/**
+	 * Encodes downsampled points for the client. Times are sent as millisecond
+	 * offsets from the first point, which keeps the numbers short. Values only
+	 * end up as pixels, so a codec may send them at single precision.
+	 *
+	 * @param writer     The writer of the requested codec.
+	 * @param sourceName The name of the source.
+	 * @param rawCount   The number of samples the points were reduced from.
+	 * @param points     The points.
+	 * @return The payload, with "source", "raw", "t0", "t" and "v" fields.
+	 */
+	public static JsonObject encode(MessageWriter writer, String sourceName, int rawCount, SampleWindow points) {
+		long origin = points.size() > 0 ? points.getTime(0) : 0;
+		return writer.reset()
+				.writeString("source", sourceName)
+				.writeLong("raw", rawCount)
+				.writeLong("t0", origin)
+				.writeLongs("t", points.times, points.size(), origin)
+				.writeFloats("v", points.values, points.size())
+				.toJson();
+	}
+
+	/**
+	 * @return What the Trend asked for.
+	 */
+	public TrendRequest getRequest() {
+		return request;
+	}
+
+	/**
+	 * Stops refreshing this subscription.
+	 */
+	public void cancel() {
+		ScheduledFuture<?> scheduled = future;
+		if (scheduled != null) {
+			scheduled.cancel(false);
+		}
+	}
+
+	void setFuture(ScheduledFuture<?> future) {
+		this.future = future;
+	}
+}
@@ -0,0 +1,25 @@
+/*
+ * Copyright 2024 Keith Gamble
+ * [License information]
+ */
+package dev.kgamble.perspective.examples.gateway.trend;
+
+import com.inductiveautomation.ignition.common.gson.JsonObject;
+
+/**
+ * Receives the downsampled points of a TrendSubscription, e.g. the Trend's
+ * model delegate, which sends them to the client.
+ *
+ * @author Keith Gamble
+ */
+@FunctionalInterface
+public interface TrendTarget {
+
+	/**
+	 * Receives the points of a refresh. Called on a TrendService thread.
+	 *
+	 * @param payload The points, encoded by {@link TrendSubscription#encode} in
+	 *                the codec the Trend asked for.
+	 */
+	void push(JsonObject payload);
+}
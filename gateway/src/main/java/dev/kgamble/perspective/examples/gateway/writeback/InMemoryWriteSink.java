@@ -0,0 +1,66 @@
+/*
+ * Copyright 2024 Keith Gamble
+ * [License information]
+ */
+package dev.kgamble.perspective.examples.gateway.writeback;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A WriteSink that keeps the written values in memory, standing in for a real
+ * sink in benchmarks and while trying out a handler.
+ *
+ * @author Keith Gamble
+ */
+public class InMemoryWriteSink implements WriteSink {
+	private final ConcurrentHashMap<String, Object> values = new ConcurrentHashMap<>();
+	private final LongAdder writeCalls = new LongAdder();
+	private final LongAdder writtenTargets = new LongAdder();
+
+	@Override
+	public void write(List<String> targets, List<Object> values) {
+		for (int i = 0; i < targets.size(); i++) {
+			Object value = values.get(i);
+			if (value != null) {
+				this.values.put(targets.get(i), value);
+			} else {
+				this.values.remove(targets.get(i));
+			}
+		}
+		writeCalls.increment();
+		writtenTargets.add(targets.size());
+	}
+
+	/**
+	 * @param target A target.
+	 * @return The last value written to the target, or null if none was.
+	 */
+	public Object getValue(String target) {
+		return values.get(target);
+	}
+
+	/**
+	 * @return How many batches were written.
+	 */
+	public long getWriteCalls() {
+		return writeCalls.sum();
+	}
+
+	/**
+	 * @return How many target values were written over all batches.
+	 */
+	public long getWrittenTargets() {
+		return writtenTargets.sum();
+	}
+
+	/**
+	 * Forgets the written values and resets the counts.
+	 */
+	public void clear() {
+		values.clear();
+		writeCalls.reset();
+		writtenTargets.reset();
+	}
+}
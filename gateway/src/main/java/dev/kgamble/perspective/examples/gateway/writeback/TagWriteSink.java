@@ -0,0 +1,67 @@
+/*
+ * Copyright 2024 Keith Gamble
+ * [License information]
+ */
+package dev.kgamble.perspective.examples.gateway.writeback;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import com.inductiveautomation.ignition.common.model.values.QualityCode;
+import com.inductiveautomation.ignition.common.tags.model.SecurityContext;
+import com.inductiveautomation.ignition.common.tags.model.TagPath;
+import com.inductiveautomation.ignition.common.tags.paths.parser.TagPathParser;
+import com.inductiveautomation.ignition.gateway.tags.model.GatewayTagManager;
+
+/**
+ * A WriteSink that writes each batch to the gateway's tags in a single
+ * writeAsync call. Targets are tag paths, e.g. {@code [default]Line1/Setpoint}.
+ *
+ * The writes are made with the empty security context, without a user or
+ * roles. The sink can't tell which session submitted a write, so it never
+ * writes with more rights than an anonymous caller has: a tag whose write
+ * permissions require a role refuses the write, and the batch fails with it.
+ * Such tags have to be written with system.tag.writeAsync, which checks the
+ * rights of the logged in user.
+ *
+ * @author Keith Gamble
+ */
+public class TagWriteSink implements WriteSink {
+	private final GatewayTagManager tagManager;
+	private final long timeoutMillis;
+
+	/**
+	 * Constructs a new TagWriteSink.
+	 *
+	 * @param tagManager    The gateway's tag manager.
+	 * @param timeoutMillis How long to wait for a batch to be written.
+	 */
+	public TagWriteSink(GatewayTagManager tagManager, long timeoutMillis) {
+		this.tagManager = tagManager;
+		this.timeoutMillis = timeoutMillis;
+	}
+
+	@Override
+	public void write(List<String> targets, List<Object> values) throws Exception {
+		List<TagPath> paths = new ArrayList<>(targets.size());
+		for (String target : targets) {
+			paths.add(TagPathParser.parse(target));
+		}
+
+		List<QualityCode> results = tagManager.writeAsync(paths, values, SecurityContext.emptyContext())
+				.get(timeoutMillis, TimeUnit.MILLISECONDS);
+
+		StringBuilder failed = null;
+		for (int i = 0; i < results.size(); i++) {
+			if (!results.get(i).isGood()) {
+				failed = failed == null ? new StringBuilder() : failed.append(", ");
+				failed.append(targets.get(i)).append(" (").append(results.get(i)).append(')');
+			}
+		}
+		if (failed != null) {
+			throw new IOException("Failed to write " + failed);
+		}
+	}
+}
@@ -0,0 +1,255 @@
+/*
+ * Copyright 2024 Keith Gamble
+ * [License information]
+ */
+package dev.kgamble.perspective.examples.gateway.writeback;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import com.inductiveautomation.ignition.common.util.LoggerEx;
+
+import dev.kgamble.perspective.examples.common.Constants;
+import dev.kgamble.perspective.examples.gateway.metrics.EventMetrics;
+
+/**
+ * Pipeline stage that collects the writes of Button action handlers and sends
+ * them to a WriteSink in batches.
+ *
+ * The first write after a flush starts a flush window. Every write submitted
+ * within the window joins the same batch, and a write to a target that is
+ * already in the batch replaces its value, so a burst of clicks on Buttons
+ * writing the same few targets ends up as a single write call per window. A
+ * batch that reaches maxBatchSize targets is closed and flushed right away.
+ *
+ * Batches are written one at a time on a single thread, so writes of the same
+ * target reach the sink in the order they were submitted. While the sink is
+ * slow, new writes keep collecting in the next batch.
+ *
+ * The settings can be overridden on the gateway with system properties in
+ * ignition.conf, e.g.
+ * {@code wrapper.java.additional.N=-Dexample-components.writeBack.flushWindowMs=20}.
+ *
+ * @author Keith Gamble
+ */
+public class WriteCoalescer {
+	private static final LoggerEx log = LoggerEx.newBuilder().build(WriteCoalescer.class);
+	private static final String PROPERTY_PREFIX = Constants.MODULE_URL_ALIAS + ".writeBack.";
+
+	private final WriteSink sink;
+	private final long flushWindowNanos;
+	private final int maxBatchSize;
+	private final EventMetrics metrics;
+	private final ScheduledThreadPoolExecutor flusher;
+
+	private final Object lock = new Object();
+	// Guarded by lock
+	private LinkedHashMap<String, PendingWrite> batch = new LinkedHashMap<>();
+	// Full batches waiting for the flush thread, oldest first, guarded by lock
+	private final ArrayDeque<LinkedHashMap<String, PendingWrite>> fullBatches = new ArrayDeque<>();
+	private boolean flushScheduled;
+	private boolean running = true;
+
+	/**
+	 * Constructs a new WriteCoalescer.
+	 *
+	 * @param sink              Receives the batches.
+	 * @param flushWindowMillis How long a batch collects writes, 0 to flush every
+	 *                          write as soon as the flush thread is free.
+	 * @param maxBatchSize      The most targets in one batch.
+	 * @param metrics           The metrics the coalescer records its writes and
+	 *                          flushes into.
+	 */
+	public WriteCoalescer(WriteSink sink, long flushWindowMillis, int maxBatchSize, EventMetrics metrics) {
+		if (maxBatchSize < 1) {
+			throw new IllegalArgumentException("Batches must hold at least one write");
+		}
+		this.sink = sink;
+		this.flushWindowNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, flushWindowMillis));
+		this.maxBatchSize = maxBatchSize;
+		this.metrics = metrics;
+
+		this.flusher = new ScheduledThreadPoolExecutor(1, runnable -> {
+			Thread thread = new Thread(runnable, "example-components-write-back-1");
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	/**
+	 * Creates a coalescer configured from the
+	 * {@code example-components.writeBack.*} system properties.
+	 *
+	 * @param sink    Receives the batches.
+	 * @param metrics The metrics the coalescer records its writes and flushes
+	 *                into.
+	 * @return The coalescer.
+	 */
+	public static WriteCoalescer fromSystemProperties(WriteSink sink, EventMetrics metrics) {
+		long flushWindowMillis = Long.getLong(PROPERTY_PREFIX + "flushWindowMs", 10);
+		int maxBatchSize = Integer.getInteger(PROPERTY_PREFIX + "maxBatchSize", 500);
+		return new WriteCoalescer(sink, flushWindowMillis, maxBatchSize, metrics);
+	}
+
+	/**
+	 * Adds a write to the current batch.
+	 *
+	 * @param target The target to write, e.g. a tag path.
+	 * @param value  The value to write.
+	 * @return Completes once the batch holding the write was written, or
+	 *         exceptionally if the sink failed. Writes replaced by a later write of
+	 *         the same target complete with that write.
+	 */
+	public CompletableFuture<Void> submit(String target, Object value) {
+		metrics.recordArrival();
+		PendingWrite write;
+		boolean flushNow = false;
+		boolean scheduleFlush = false;
+
+		synchronized (lock) {
+			if (!running) {
+				metrics.increment("rejected");
+				CompletableFuture<Void> rejected = new CompletableFuture<>();
+				rejected.completeExceptionally(new IllegalStateException("Write-back has been shut down"));
+				return rejected;
+			}
+
+			write = batch.get(target);
+			if (write != null) {
+				write.value = value;
+				metrics.increment("coalesced");
+			} else {
+				write = new PendingWrite(value, System.nanoTime());
+				batch.put(target, write);
+				if (batch.size() >= maxBatchSize) {
+					fullBatches.add(batch);
+					batch = new LinkedHashMap<>();
+					flushNow = true;
+				}
+			}
+
+			if (!flushScheduled && !flushNow) {
+				flushScheduled = true;
+				scheduleFlush = true;
+			}
+		}
+
+		if (flushNow) {
+			flusher.execute(this::flushFullBatches);
+		} else if (scheduleFlush) {
+			flusher.schedule(this::flush, flushWindowNanos, TimeUnit.NANOSECONDS);
+		}
+		return write.future;
+	}
+
+	/**
+	 * Stops accepting writes, flushes the current batch and waits for the flush
+	 * thread to finish.
+	 *
+	 * @param timeoutMillis How long to wait for the last batch.
+	 */
+	public void shutdown(long timeoutMillis) {
+		synchronized (lock) {
+			if (!running) {
+				return;
+			}
+			running = false;
+		}
+		flusher.execute(this::flush);
+		flusher.shutdown();
+		try {
+			if (!flusher.awaitTermination(timeoutMillis, TimeUnit.MILLISECONDS)) {
+				log.warn("Write-back did not flush within " + timeoutMillis + " ms.");
+				flusher.shutdownNow();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * Writes the full batches and then the current batch to the sink, once the
+	 * flush window has passed. Only runs on the flush thread.
+	 */
+	private void flush() {
+		flushFullBatches();
+		LinkedHashMap<String, PendingWrite> flushed;
+		synchronized (lock) {
+			flushScheduled = false;
+			if (batch.isEmpty()) {
+				return;
+			}
+			flushed = batch;
+			batch = new LinkedHashMap<>();
+		}
+		write(flushed);
+	}
+
+	/**
+	 * Writes the full batches to the sink, oldest first. Only runs on the flush
+	 * thread.
+	 */
+	private void flushFullBatches() {
+		while (true) {
+			LinkedHashMap<String, PendingWrite> flushed;
+			synchronized (lock) {
+				flushed = fullBatches.poll();
+			}
+			if (flushed == null) {
+				return;
+			}
+			write(flushed);
+		}
+	}
+
+	private void write(LinkedHashMap<String, PendingWrite> flushed) {
+		List<String> targets = new ArrayList<>(flushed.size());
+		List<Object> values = new ArrayList<>(flushed.size());
+		long startNanos = System.nanoTime();
+		flushed.forEach((target, write) -> {
+			targets.add(target);
+			values.add(write.value);
+			metrics.recordQueueWait(startNanos - write.submittedNanos);
+		});
+		metrics.recordBatchSize(targets.size());
+
+		Exception failure = null;
+		try {
+			sink.write(targets, values);
+		} catch (Exception e) {
+			failure = e;
+			metrics.increment("failed");
+			log.warn("Failed to write a batch of " + targets.size() + " targets", e);
+		} finally {
+			metrics.recordHandlerTime(System.nanoTime() - startNanos);
+		}
+
+		for (PendingWrite write : flushed.values()) {
+			if (failure == null) {
+				write.future.complete(null);
+			} else {
+				write.future.completeExceptionally(failure);
+			}
+		}
+	}
+
+	/**
+	 * A target's write waiting in the current batch.
+	 */
+	private static class PendingWrite {
+		private final CompletableFuture<Void> future = new CompletableFuture<>();
+		private final long submittedNanos;
+		// Replaced by later writes of the same target, guarded by lock until flushed
+		private Object value;
+
+		PendingWrite(Object value, long submittedNanos) {
+			this.value = value;
+			this.submittedNanos = submittedNanos;
+		}
+	}
+}
@@ -0,0 +1,29 @@
+/*
+ * Copyright 2024 Keith Gamble
+ * [License information]
+ */
+package dev.kgamble.perspective.examples.gateway.writeback;
+
+import java.util.List;
+
+/**
+ * Where the WriteCoalescer sends its batches, e.g. the gateway's tags.
+ *
+ * Batches are written from the coalescer's single flush thread, one at a time,
+ * so a sink doesn't need to be thread-safe.
+ *
+ * @author Keith Gamble
+ */
+@FunctionalInterface
+public interface WriteSink {
+
+	/**
+	 * Writes a batch. Every target appears at most once.
+	 *
+	 * @param targets The targets to write, in the order they were first written.
+	 * @param values  The value of each target, the last one written.
+	 * @throws Exception If the batch could not be written, which fails every
+	 *                   write of the batch.
+	 */
+	void write(List<String> targets, List<Object> values) throws Exception;
+}
@@ -20,6 +20,10 @@ node {
 // Task to install npm dependencies
 val installDependencies by tasks.registering(NpmTask::class) {
     args.set(listOf("install"))
+
+    // Only reinstall when the declared dependencies change
+    inputs.files("package.json", "package-lock.json")
+    outputs.dir("node_modules")
 }
 
 // Task to run webpack build
@@ -29,13 +33,14 @@ val webpack by tasks.registering(NpmTask::class) {
     // Must run npm install first
     dependsOn(installDependencies)
     
-    // Define which files should trigger a rebuild
-    inputs.files(project.fileTree(".").matching {
-        exclude("**/node_modules/**", "**/dist/**", "**/.awcache/**", "**/yarn-error.log")
-    }.toList())
+    // Define which files should trigger a rebuild. The build's own output must not be an input,
+    // or the task would never be up to date, and every compile of the common project, which
+    // generates WebBundle from the manifest, would run the whole npm build again.
+    inputs.files("src", "package.json", "package-lock.json", "tsconfig.json", "webpack.config.js")
 
-    // Define where output files will be created
-    outputs.files(fileTree(projectOutput))
+    // Define where output files will be created, the bundle and the manifest the common project reads
+    outputs.dir(projectOutput)
+    outputs.dir("$buildDir/manifest")
 }
 
 // Configure standard tasks
@@ -0,0 +1,158 @@
+/**
+ * This file decodes the messages gateway-side delegates send to their
+ * components. It must understand every codec in the Java MessageCodecs class.
+ *
+ * A "json" message is a plain object and is returned as is. A "binary" message
+ * is `{ codec: "binary", data: "<base64>" }`, written by the Java
+ * BinaryMessageWriter, and is decoded into a plain object with a member per
+ * field. Arrays are decoded into Float64Arrays, which index like arrays.
+ */
+import { JsObject } from '@inductiveautomation/perspective-client';
+
+/**
+ * The codec a component asks the gateway to use for its messages.
+ * This should match CODEC_NAME in the Java BinaryMessageWriter class.
+ */
+export const BINARY_CODEC = "binary";
+
+const VERSION = 1;
+const TYPE_STRING = 1;
+const TYPE_LONG = 2;
+const TYPE_DOUBLE = 3;
+const TYPE_BOOLEAN = 4;
+const TYPE_LONGS = 5;
+const TYPE_DOUBLES = 6;
+const TYPE_FLOATS = 7;
+
+const utf8 = new TextDecoder();
+
+/**
+ * Reads the fields of a binary message. Numbers are decoded with arithmetic
+ * instead of bitwise operators, which only work on 32 bits, so longs are exact
+ * up to 2^53, enough for millisecond timestamps.
+ */
+class BinaryReader {
+	private readonly bytes: Uint8Array;
+	private readonly view: DataView;
+	position = 0;
+
+	constructor(bytes: Uint8Array) {
+		this.bytes = bytes;
+		this.view = new DataView(bytes.buffer, bytes.byteOffset, bytes.byteLength);
+	}
+
+	get remaining(): number {
+		return this.bytes.length - this.position;
+	}
+
+	byte(): number {
+		return this.bytes[this.position++];
+	}
+
+	varint(): number {
+		let value = 0;
+		let scale = 1;
+		for (;;) {
+			const b = this.bytes[this.position++];
+			value += (b & 0x7f) * scale;
+			if ((b & 0x80) === 0) {
+				return value;
+			}
+			scale *= 128;
+		}
+	}
+
+	zigzag(): number {
+		const value = this.varint();
+		return value % 2 === 0 ? value / 2 : -(value + 1) / 2;
+	}
+
+	float64(): number {
+		const value = this.view.getFloat64(this.position, true);
+		this.position += 8;
+		return value;
+	}
+
+	float32(): number {
+		const value = this.view.getFloat32(this.position, true);
+		this.position += 4;
+		return value;
+	}
+
+	string(): string {
+		const length = this.varint();
+		const value = utf8.decode(this.bytes.subarray(this.position, this.position + length));
+		this.position += length;
+		return value;
+	}
+}
+
+/**
+ * Converts a base64 string into bytes.
+ */
+function fromBase64(data: string): Uint8Array {
+	const binary = atob(data);
+	const bytes = new Uint8Array(binary.length);
+	for (let i = 0; i < binary.length; i++) {
+		bytes[i] = binary.charCodeAt(i);
+	}
+	return bytes;
+}
+
+/**
+ * Decodes the payload of a message sent by a gateway-side delegate.
+ * @param payload - The event object received by the component's delegate
+ * @returns The fields of the message
+ */
+export function decodeMessage(payload: JsObject): JsObject {
+	if (!payload || payload.codec !== BINARY_CODEC || typeof payload.data !== "string") {
+		return payload;
+	}
+
+	const reader = new BinaryReader(fromBase64(payload.data));
+	if (reader.byte() !== VERSION) {
+		throw new Error("Unsupported message version");
+	}
+
+	const message: JsObject = {};
+	while (reader.remaining > 0) {
+		const type = reader.byte();
+		const name = reader.string();
+		switch (type) {
+			case TYPE_STRING:
+				message[name] = reader.string();
+				break;
+			case TYPE_LONG:
+				message[name] = reader.zigzag();
+				break;
+			case TYPE_DOUBLE:
+				message[name] = reader.float64();
+				break;
+			case TYPE_BOOLEAN:
+				message[name] = reader.byte() !== 0;
+				break;
+			case TYPE_LONGS: {
+				const values = new Float64Array(reader.varint());
+				let previous = 0;
+				for (let i = 0; i < values.length; i++) {
+					previous += reader.zigzag();
+					values[i] = previous;
+				}
+				message[name] = values;
+				break;
+			}
+			case TYPE_DOUBLES:
+			case TYPE_FLOATS: {
+				const values = new Float64Array(reader.varint());
+				for (let i = 0; i < values.length; i++) {
+					values[i] = type === TYPE_DOUBLES ? reader.float64() : reader.float32();
+				}
+				message[name] = values;
+				break;
+			}
+			default:
+				throw new Error(`Unknown field type ${type} of field ${name}`);
+		}
+	}
+	return message;
+}
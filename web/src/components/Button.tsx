@@ -2,41 +2,94 @@
  * This file defines a custom Button component for use in Ignition Perspective.
  * The component provides a basic button with configurable text and enabled state,
  * with proper handling of designer/preview modes.
+ *
+ * This module is loaded lazily by ButtonMeta, only import it with import().
  */
 import * as React from 'react';
-import {
-	Component,
-	ComponentMeta,
-	ComponentProps,
-	PComponent,
-	PropertyTree,
-	SizeObject
-} from '@inductiveautomation/perspective-client';
+import { Component, ComponentProps, JsObject } from '@inductiveautomation/perspective-client';
+import type { ButtonDelegate, ButtonProps, ChannelValues } from './ButtonMeta';
 
-/**
- * Unique identifier for the Button component.
- * This should match the COMPONENT_ID in the Java Button class.
- */
-export const COMPONENT_TYPE = "examples.input.button";
+// Import the Button styles, so they are loaded with the Button's chunk
+import '../css/styles.css';
 
 /**
- * Interface defining the props for the Button component.
+ * Id of the last click of any Button on this page. Each click gets the next id,
+ * so the gateway can recognize a click it has already seen. The gateway keeps
+ * the ids per page, so other tabs of the session don't interfere. Starting from
+ * the time keeps the ids increasing when the page is reloaded in the same session.
  */
-export interface ButtonProps {
-	text?: string;
-	enabled?: boolean;
-}
+let lastActionId = Date.now();
 
 /**
  * Button component class.
  * Extends the base Component class from Perspective, typed with ButtonProps.
  * Provides a customizable button with proper handling of designer/preview modes.
  */
-export class Button extends Component<ComponentProps<ButtonProps>, any> {
+export class Button extends Component<ComponentProps<ButtonProps>, ChannelValues> {
+	state: ChannelValues = {};
+
+	/**
+	 * Starts receiving the actions dispatched by the gateway and the values of
+	 * the followed channels.
+	 */
+	componentDidMount() {
+		const delegate = this.getDelegate();
+		if (delegate) {
+			delegate.setDispatchHandler(this.onActionDispatched);
+			delegate.setChannelHandler(this.onChannelValues);
+			delegate.followChannels(this.props.props.channels);
+			this.setState(delegate.getChannelValues());
+		}
+	}
+
+	/**
+	 * Follows other channels if the props changed.
+	 */
+	componentDidUpdate() {
+		const delegate = this.getDelegate();
+		if (delegate) {
+			delegate.followChannels(this.props.props.channels);
+			const values = delegate.getChannelValues();
+			if (values.text !== this.state.text || values.enabled !== this.state.enabled) {
+				this.setState(values);
+			}
+		}
+	}
+
+	/**
+	 * Stops receiving the actions dispatched by the gateway and channel values.
+	 */
+	componentWillUnmount() {
+		this.getDelegate()?.setDispatchHandler(undefined);
+		this.getDelegate()?.setChannelHandler(undefined);
+	}
+
+	/**
+	 * @returns The delegate of this Button, if one was created.
+	 */
+	getDelegate(): ButtonDelegate | undefined {
+		return this.props.store.delegate as ButtonDelegate | undefined;
+	}
+
+	/**
+	 * Fires onActionPerformed for an action the gateway has processed. This is
+	 * the only place the Button fires it, the scripts run through Perspective's
+	 * usual component event once the gateway has let the click through.
+	 */
+	onActionDispatched = (payload: JsObject) => {
+		this.props.componentEvents.fireComponentEvent("onActionPerformed", payload);
+	}
+
+	/**
+	 * Shows the latest values of the followed channels.
+	 */
+	onChannelValues = (values: ChannelValues) => {
+		this.setState(values);
+	}
 
 	/**
 	 * Handler for the button's action event.
-	 * Fires a custom event when the button is clicked.
+	 * Sends the click to the gateway, which dispatches it back once processed.
 	 */
 	onActionPerformed = () => {
 		// If the designer is in "design" mode, don't do anything
@@ -45,15 +98,24 @@ export class Button extends Component<ComponentProps<ButtonProps>, any> {
 			return;
 		}
 
-		console.log("Button clicked!");
-		this.props.componentEvents.fireComponentEvent("onActionPerformed", {});
+		const delegate = this.getDelegate();
+		if (!delegate) {
+			// ButtonMeta always creates one, a click without it can't pass the gateway
+			console.warn("Button has no delegate, the click was not sent to the gateway");
+			return;
+		}
+		// The gateway collapses repeats of this click within the debounceMs it reads from the props
+		delegate.fireAction({ actionId: ++lastActionId });
 	}
 	/**
 	 * Render method for the Button component.
 	 * @returns JSX element representing the button
 	 */
 	render() {
-		const { props: { text, enabled }, emit } = this.props;
+		const { props, emit } = this.props;
+		// A prop following a channel shows the channel's value once the gateway has sent it
+		const text = this.state.text ?? props.text;
+		const enabled = this.state.enabled ?? props.enabled;
 		return (
 			<button
 				{...emit({ classes: ['kg-example-button'] })}
@@ -65,46 +127,3 @@ export class Button extends Component<ComponentProps<ButtonProps>, any> {
 		);
 	}
 }
-
-/**
- * Metadata class for the Button component.
- * Implements ComponentMeta interface from Perspective.
- */
-export class ButtonMeta implements ComponentMeta {
-
-	/**
-	 * @returns The unique identifier for this component type.
-	 */
-	getComponentType(): string {
-		return COMPONENT_TYPE;
-	}
-
-	/**
-	 * @returns The React component class.
-	 */
-	getViewComponent(): PComponent {
-		return Button;
-	}
-
-	/**
-	 * @returns The default size for the component.
-	 */
-	getDefaultSize(): SizeObject {
-		return ({
-			width: 80,
-			height: 34
-		});
-	}
-
-	/**
-	 * Reduces the full property tree into the props needed by the component.
-	 * @param tree - The full property tree
-	 * @returns The props object for the Button component
-	 */
-	getPropsReducer(tree: PropertyTree): ButtonProps {
-		return {
-			text: tree.readString("text", ""),
-			enabled: tree.readBoolean("enabled", true)
-		};
-	}
-}
\ No newline at end of file
@@ -0,0 +1,214 @@
+/**
+ * This file defines everything the Perspective client needs to know about the
+ * Button before one is rendered: its metadata, props reducer and delegate.
+ * The view itself is in Button.tsx, which is only downloaded once a Button is
+ * rendered.
+ */
+import {
+	AbstractUIElementStore,
+	ComponentMeta,
+	ComponentStoreDelegate,
+	JsObject,
+	PComponent,
+	PropertyTree,
+	SizeObject
+} from '@inductiveautomation/perspective-client';
+import { lazyComponent } from './lazyComponent';
+
+/**
+ * Unique identifier for the Button component.
+ * This should match the COMPONENT_ID in the Java Button class.
+ */
+export const COMPONENT_TYPE = "examples.input.button";
+
+/**
+ * Event sent to the gateway for every click.
+ * This should match ACTION_EVENT in the Java ButtonModelDelegate class.
+ */
+export const ACTION_EVENT = "example-button-action";
+
+/**
+ * Event sent back by the gateway once a click has been processed.
+ * This should match DISPATCH_EVENT in the Java ButtonModelDelegate class.
+ */
+export const DISPATCH_EVENT = "example-button-dispatch";
+
+/**
+ * Event sent to the gateway whenever the channels the props follow change.
+ * This should match CHANNELS_EVENT in the Java ButtonModelDelegate class.
+ */
+export const CHANNELS_EVENT = "example-button-channels";
+
+/**
+ * Event sent by the gateway with the values of the followed channels.
+ * This should match CHANNEL_VALUES_EVENT in the Java ButtonModelDelegate class.
+ */
+export const CHANNEL_VALUES_EVENT = "example-button-channel-values";
+
+/**
+ * The gateway channels the props follow, empty for none.
+ */
+export interface ButtonChannels {
+	text: string;
+	enabled: string;
+}
+
+/**
+ * The latest values of the followed channels, by prop.
+ */
+export interface ChannelValues {
+	text?: string | number;
+	enabled?: boolean;
+}
+
+/**
+ * Interface defining the props for the Button component.
+ */
+export interface ButtonProps {
+	text?: string;
+	enabled?: boolean;
+	channels?: ButtonChannels;
+}
+
+/**
+ * Client-side delegate of the Button component.
+ * Sends clicks to the gateway's ButtonModelDelegate, and hands the processed
+ * actions it sends back to the mounted Button. Also tells the gateway which
+ * channels the props follow, and keeps their latest values.
+ */
+export class ButtonDelegate extends ComponentStoreDelegate {
+	private dispatchHandler?: (payload: JsObject) => void;
+	private channelHandler?: (values: ChannelValues) => void;
+	private channelValues: ChannelValues = {};
+	private lastChannels = "";
+
+	constructor(componentStore: AbstractUIElementStore) {
+		super(componentStore);
+	}
+
+	/**
+	 * Sets the function called for every action the gateway dispatches.
+	 * @param handler - The handler, or undefined to stop receiving actions
+	 */
+	setDispatchHandler(handler?: (payload: JsObject) => void): void {
+		this.dispatchHandler = handler;
+	}
+
+	/**
+	 * Sets the function called whenever the gateway sends channel values.
+	 * @param handler - The handler, or undefined to stop receiving values
+	 */
+	setChannelHandler(handler?: (values: ChannelValues) => void): void {
+		this.channelHandler = handler;
+	}
+
+	/**
+	 * @returns The latest values of the followed channels, by prop.
+	 */
+	getChannelValues(): ChannelValues {
+		return this.channelValues;
+	}
+
+	/**
+	 * Asks the gateway to follow the given channels. Asking again for the same
+	 * channels does nothing, a prop that stops following drops its value.
+	 * @param channels - The channel of each prop, empty for none
+	 */
+	followChannels(channels?: ButtonChannels): void {
+		const request = { text: channels?.text ?? "", enabled: channels?.enabled ?? "" };
+		const key = JSON.stringify(request);
+		if (key === this.lastChannels) {
+			return;
+		}
+		// Only send once something is followed, or to stop following
+		if (this.lastChannels || request.text || request.enabled) {
+			this.fireEvent(CHANNELS_EVENT, request);
+		}
+		this.lastChannels = key;
+		this.channelValues = {
+			text: request.text ? this.channelValues.text : undefined,
+			enabled: request.enabled ? this.channelValues.enabled : undefined
+		};
+	}
+
+	/**
+	 * Sends a click to the gateway.
+	 * @param payload - The payload of the click
+	 */
+	fireAction(payload: JsObject): void {
+		this.fireEvent(ACTION_EVENT, payload);
+	}
+
+	/**
+	 * Receives the events fired by the gateway's ButtonModelDelegate.
+	 */
+	handleEvent(eventName: string, eventObject: JsObject): void {
+		if (eventName === DISPATCH_EVENT && this.dispatchHandler) {
+			this.dispatchHandler(eventObject);
+		} else if (eventName === CHANNEL_VALUES_EVENT) {
+			this.channelValues = { ...this.channelValues, ...(eventObject as ChannelValues) };
+			this.channelHandler?.(this.channelValues);
+		}
+	}
+}
+
+/**
+ * The Button view, loaded from its own chunk the first time a Button is rendered.
+ */
+const LazyButton = lazyComponent<ButtonProps>(
+	() => import(/* webpackChunkName: "button" */ './Button').then(module => module.Button)
+);
+
+/**
+ * Metadata class for the Button component.
+ * Implements ComponentMeta interface from Perspective.
+ */
+export class ButtonMeta implements ComponentMeta {
+
+	/**
+	 * @returns The unique identifier for this component type.
+	 */
+	getComponentType(): string {
+		return COMPONENT_TYPE;
+	}
+
+	/**
+	 * @returns The React component class.
+	 */
+	getViewComponent(): PComponent {
+		return LazyButton;
+	}
+
+	/**
+	 * @returns The delegate that connects the Button to its gateway-side delegate.
+	 */
+	createDelegate(component: AbstractUIElementStore): ComponentStoreDelegate | undefined {
+		return new ButtonDelegate(component);
+	}
+
+	/**
+	 * @returns The default size for the component.
+	 */
+	getDefaultSize(): SizeObject {
+		return ({
+			width: 80,
+			height: 34
+		});
+	}
+
+	/**
+	 * Reduces the full property tree into the props needed by the component.
+	 * @param tree - The full property tree
+	 * @returns The props object for the Button component
+	 */
+	getPropsReducer(tree: PropertyTree): ButtonProps {
+		return {
+			text: tree.readString("text", ""),
+			enabled: tree.readBoolean("enabled", true),
+			channels: {
+				text: tree.readString("channels.text", ""),
+				enabled: tree.readString("channels.enabled", "")
+			}
+		};
+	}
+}
\ No newline at end of file
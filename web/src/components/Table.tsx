@@ -0,0 +1,279 @@
+/**
+ * This file defines a Table component for use in Ignition Perspective.
+ * The Table shows a gateway-side dataset of any size. Only the rows in view,
+ * plus a few above and below, are fetched from the gateway and rendered, so
+ * opening and scrolling a table of a million rows costs the same as one of a
+ * hundred.
+ *
+ * This module is loaded lazily by TableMeta, only import it with import().
+ */
+import * as React from 'react';
+import { Component, ComponentProps } from '@inductiveautomation/perspective-client';
+import type { TableColumn, TableDelegate, TableProps, TableQuery, TableWindow } from './TableMeta';
+
+// Import the Table styles, so they are loaded with the Table's chunk
+import '../css/table.css';
+
+/**
+ * How long typing in the filter box must pause before the rows are filtered.
+ */
+const FILTER_DELAY_MS = 250;
+
+interface TableState {
+	query: TableQuery;
+	filterText: string;
+	columns: Array<TableColumn>;
+	total: number;
+	offset: number;
+	rows: Array<Array<any>>;
+	scrollTop: number;
+	viewportHeight: number;
+	error?: string;
+}
+
+/**
+ * Table component class.
+ * Extends the base Component class from Perspective, typed with TableProps.
+ */
+export class Table extends Component<ComponentProps<TableProps>, TableState> {
+	state: TableState = {
+		query: Table.queryOf(this.props.props),
+		filterText: this.props.props.filter,
+		columns: [],
+		total: 0,
+		offset: 0,
+		rows: [],
+		scrollTop: 0,
+		viewportHeight: 0
+	};
+
+	private body: HTMLElement | null = null;
+	private resizeObserver?: ResizeObserver;
+	private filterTimer?: number;
+	// Windows of requests older than the last change of the query are dropped
+	private queryRequestId = 0;
+	private requestedFrom = 0;
+	private requestedTo = 0;
+
+	/**
+	 * @returns The query described by the props.
+	 */
+	static queryOf(props: TableProps): TableQuery {
+		return {
+			dataset: props.dataset,
+			sortColumn: props.sortColumn,
+			ascending: props.sortAscending,
+			filter: props.filter
+		};
+	}
+
+	/**
+	 * Starts receiving rows and following the Table's height.
+	 */
+	componentDidMount() {
+		this.getDelegate()?.setRowsHandler(this.onRows);
+		if (this.body) {
+			this.resizeObserver = new ResizeObserver(this.onResize);
+			this.resizeObserver.observe(this.body);
+		}
+	}
+
+	/**
+	 * Starts over when the props describe a different query.
+	 */
+	componentDidUpdate(prevProps: ComponentProps<TableProps>) {
+		const previous = prevProps.props;
+		const current = this.props.props;
+		if (previous.dataset !== current.dataset || previous.sortColumn !== current.sortColumn
+			|| previous.sortAscending !== current.sortAscending || previous.filter !== current.filter) {
+			this.setQuery(Table.queryOf(current));
+			this.setState({ filterText: current.filter });
+		}
+	}
+
+	/**
+	 * Stops receiving rows.
+	 */
+	componentWillUnmount() {
+		this.resizeObserver?.disconnect();
+		window.clearTimeout(this.filterTimer);
+		this.getDelegate()?.setRowsHandler(undefined);
+	}
+
+	/**
+	 * @returns The delegate of this Table, if one was created.
+	 */
+	getDelegate(): TableDelegate | undefined {
+		return this.props.store.delegate as TableDelegate | undefined;
+	}
+
+	/**
+	 * Replaces the query and fetches its rows from the top.
+	 */
+	setQuery(query: TableQuery) {
+		this.requestedFrom = this.requestedTo = 0;
+		if (this.body) {
+			this.body.scrollTop = 0;
+		}
+		this.setState({ query, scrollTop: 0 }, () => {
+			this.queryRequestId = this.fetchVisibleRows(true);
+		});
+	}
+
+	/**
+	 * Asks the gateway for the visible rows and the overscan around them, unless
+	 * they have already been asked for.
+	 * @param force - Ask even if the rows have been asked for
+	 * @returns The id of the request, or 0 if nothing was asked for
+	 */
+	fetchVisibleRows(force: boolean = false): number {
+		const delegate = this.getDelegate();
+		const { rowHeight, overscan } = this.props.props;
+		const { scrollTop, viewportHeight, query } = this.state;
+		if (!delegate || viewportHeight === 0) {
+			return 0;
+		}
+
+		const first = Math.floor(scrollTop / rowHeight);
+		const last = Math.ceil((scrollTop + viewportHeight) / rowHeight);
+		if (!force && first >= this.requestedFrom && last <= this.requestedTo) {
+			return 0;
+		}
+
+		this.requestedFrom = Math.max(0, first - overscan);
+		this.requestedTo = last + overscan;
+		return delegate.requestWindow(query, this.requestedFrom, this.requestedTo - this.requestedFrom);
+	}
+
+	onRows = (result: TableWindow) => {
+		if (result.requestId < this.queryRequestId) {
+			return;
+		}
+		this.setState({
+			columns: result.columns || this.state.columns,
+			total: result.total || 0,
+			offset: result.offset || 0,
+			rows: result.rows || [],
+			error: result.error
+		});
+	}
+
+	onResize = (entries: Array<ResizeObserverEntry>) => {
+		const viewportHeight = entries[0].contentRect.height;
+		if (viewportHeight !== this.state.viewportHeight) {
+			const first = this.queryRequestId === 0;
+			this.setState({ viewportHeight }, () => {
+				const requestId = this.fetchVisibleRows(first);
+				if (first) {
+					this.queryRequestId = requestId;
+				}
+			});
+		}
+	}
+
+	onScroll = (event: React.UIEvent<HTMLElement>) => {
+		const scrollTop = event.currentTarget.scrollTop;
+		this.setState({ scrollTop }, () => this.fetchVisibleRows());
+	}
+
+	onSort = (column: string) => {
+		if (!this.props.eventsEnabled) {
+			return;
+		}
+		const { query } = this.state;
+		const ascending = query.sortColumn === column ? !query.ascending : true;
+		this.setQuery({ ...query, sortColumn: column, ascending });
+	}
+
+	onFilterChange = (event: React.ChangeEvent<HTMLInputElement>) => {
+		const filterText = event.target.value;
+		this.setState({ filterText });
+		window.clearTimeout(this.filterTimer);
+		this.filterTimer = window.setTimeout(() => {
+			this.setQuery({ ...this.state.query, filter: filterText });
+		}, FILTER_DELAY_MS);
+	}
+
+	setBody = (element: HTMLElement | null) => {
+		this.body = element;
+	}
+
+	/**
+	 * @returns The text of a cell.
+	 */
+	static formatCell(column: TableColumn, value: any): string {
+		if (value === null || value === undefined) {
+			return "";
+		}
+		return column.type === "date" ? new Date(value).toLocaleString() : String(value);
+	}
+
+	/**
+	 * Renders the rows of the last window that are in view.
+	 */
+	renderRows() {
+		const { rowHeight } = this.props.props;
+		const { columns, offset, rows, scrollTop, viewportHeight } = this.state;
+		const first = Math.max(offset, Math.floor(scrollTop / rowHeight) - 1);
+		const last = Math.min(offset + rows.length, Math.ceil((scrollTop + viewportHeight) / rowHeight) + 1);
+
+		const rendered: Array<JSX.Element> = [];
+		for (let position = first; position < last; position++) {
+			const row = rows[position - offset];
+			rendered.push(
+				<div
+					key={position}
+					className="kg-example-table-row"
+					style={{ top: position * rowHeight, height: rowHeight, lineHeight: `${rowHeight}px` }}
+				>
+					{columns.map((column, index) =>
+						<div key={column.name} className={`kg-example-table-cell kg-example-table-${column.type}`}>
+							{Table.formatCell(column, row[index])}
+						</div>
+					)}
+				</div>
+			);
+		}
+		return rendered;
+	}
+
+	/**
+	 * Render method for the Table component.
+	 * @returns JSX element representing the table
+	 */
+	render() {
+		const { props: { rowHeight }, emit } = this.props;
+		const { columns, total, query, filterText, error } = this.state;
+		return (
+			<div {...emit({ classes: ['kg-example-table'] })}>
+				<div className="kg-example-table-toolbar">
+					<input
+						type="search"
+						placeholder="Filter"
+						value={filterText}
+						onChange={this.onFilterChange}
+						disabled={!this.props.eventsEnabled}
+					/>
+					<span className="kg-example-table-count">{error || `${total.toLocaleString()} rows`}</span>
+				</div>
+				<div className="kg-example-table-header">
+					{columns.map(column =>
+						<div
+							key={column.name}
+							className={`kg-example-table-cell kg-example-table-${column.type}`}
+							onClick={() => this.onSort(column.name)}
+						>
+							{column.name}
+							{query.sortColumn === column.name ? (query.ascending ? " ▲" : " ▼") : ""}
+						</div>
+					)}
+				</div>
+				<div className="kg-example-table-body" ref={this.setBody} onScroll={this.onScroll}>
+					<div className="kg-example-table-spacer" style={{ height: total * rowHeight }}>
+						{this.renderRows()}
+					</div>
+				</div>
+			</div>
+		);
+	}
+}
@@ -0,0 +1,190 @@
+/**
+ * This file defines everything the Perspective client needs to know about the
+ * Table before one is rendered: its metadata, props reducer and delegate.
+ * The view itself is in Table.tsx, which is only downloaded once a Table is
+ * rendered.
+ */
+import {
+	AbstractUIElementStore,
+	ComponentMeta,
+	ComponentStoreDelegate,
+	JsObject,
+	PComponent,
+	PropertyTree,
+	SizeObject
+} from '@inductiveautomation/perspective-client';
+import { lazyComponent } from './lazyComponent';
+
+/**
+ * Unique identifier for the Table component.
+ * This should match the COMPONENT_ID in the Java Table class.
+ */
+export const COMPONENT_TYPE = "examples.display.table";
+
+/**
+ * Event sent to the gateway when the Table needs a window of rows.
+ * This should match WINDOW_EVENT in the Java TableModelDelegate class.
+ */
+export const WINDOW_EVENT = "example-table-window";
+
+/**
+ * Event carrying a window of rows from the gateway.
+ * This should match ROWS_EVENT in the Java TableModelDelegate class.
+ */
+export const ROWS_EVENT = "example-table-rows";
+
+/**
+ * Interface defining the props for the Table component.
+ */
+export interface TableProps {
+	dataset: string;
+	rowHeight: number;
+	overscan: number;
+	sortColumn: string;
+	sortAscending: boolean;
+	filter: string;
+}
+
+/**
+ * A column of the dataset, as sent by the gateway.
+ */
+export interface TableColumn {
+	name: string;
+	type: "number" | "date" | "string";
+}
+
+/**
+ * The rows sent by the gateway for a window request.
+ */
+export interface TableWindow {
+	requestId: number;
+	dataset: string;
+	total: number;
+	offset: number;
+	columns: Array<TableColumn>;
+	rows: Array<Array<any>>;
+	error?: string;
+}
+
+/**
+ * What the Table asks the gateway for.
+ */
+export interface TableQuery {
+	dataset: string;
+	sortColumn: string;
+	ascending: boolean;
+	filter: string;
+}
+
+/**
+ * Client-side delegate of the Table component.
+ * Asks the gateway's TableModelDelegate for the rows the Table is about to
+ * show, and hands the windows it sends back to the mounted Table.
+ */
+export class TableDelegate extends ComponentStoreDelegate {
+	private rowsHandler?: (window: TableWindow) => void;
+	private lastRequestId = 0;
+
+	constructor(componentStore: AbstractUIElementStore) {
+		super(componentStore);
+	}
+
+	/**
+	 * Sets the function called for every window the gateway sends.
+	 * @param handler - The handler, or undefined to stop receiving windows
+	 */
+	setRowsHandler(handler?: (window: TableWindow) => void): void {
+		this.rowsHandler = handler;
+	}
+
+	/**
+	 * Asks the gateway for a window of rows.
+	 * @param query - The dataset, sort and filter
+	 * @param offset - The position of the first row
+	 * @param limit - The number of rows
+	 * @returns The id of the request, which the window sent back carries
+	 */
+	requestWindow(query: TableQuery, offset: number, limit: number): number {
+		const requestId = ++this.lastRequestId;
+		this.fireEvent(WINDOW_EVENT, {
+			requestId,
+			dataset: query.dataset,
+			offset: Math.max(0, Math.floor(offset)),
+			limit: Math.max(0, Math.ceil(limit)),
+			sortColumn: query.sortColumn,
+			ascending: query.ascending,
+			filter: query.filter
+		});
+		return requestId;
+	}
+
+	/**
+	 * Receives the events fired by the gateway's TableModelDelegate.
+	 */
+	handleEvent(eventName: string, eventObject: JsObject): void {
+		if (eventName === ROWS_EVENT && this.rowsHandler) {
+			this.rowsHandler(eventObject as TableWindow);
+		}
+	}
+}
+
+/**
+ * The Table view, loaded from its own chunk the first time a Table is rendered.
+ */
+const LazyTable = lazyComponent<TableProps>(
+	() => import(/* webpackChunkName: "table" */ './Table').then(module => module.Table)
+);
+
+/**
+ * Metadata class for the Table component.
+ * Implements ComponentMeta interface from Perspective.
+ */
+export class TableMeta implements ComponentMeta {
+
+	/**
+	 * @returns The unique identifier for this component type.
+	 */
+	getComponentType(): string {
+		return COMPONENT_TYPE;
+	}
+
+	/**
+	 * @returns The React component class.
+	 */
+	getViewComponent(): PComponent {
+		return LazyTable;
+	}
+
+	/**
+	 * @returns The delegate that connects the Table to its gateway-side delegate.
+	 */
+	createDelegate(component: AbstractUIElementStore): ComponentStoreDelegate | undefined {
+		return new TableDelegate(component);
+	}
+
+	/**
+	 * @returns The default size for the component.
+	 */
+	getDefaultSize(): SizeObject {
+		return ({
+			width: 600,
+			height: 400
+		});
+	}
+
+	/**
+	 * Reduces the full property tree into the props needed by the component.
+	 * @param tree - The full property tree
+	 * @returns The props object for the Table component
+	 */
+	getPropsReducer(tree: PropertyTree): TableProps {
+		return {
+			dataset: tree.readString("dataset", "synthetic/orders"),
+			rowHeight: tree.readNumber("rowHeight", 28),
+			overscan: tree.readNumber("overscan", 30),
+			sortColumn: tree.readString("sortColumn", ""),
+			sortAscending: tree.readBoolean("sortAscending", true),
+			filter: tree.readString("filter", "")
+		};
+	}
+}
@@ -0,0 +1,138 @@
+/**
+ * This file defines a Trend component for use in Ignition Perspective.
+ * The Trend draws a sparkline of a gateway-side trend source. The gateway
+ * downsamples the source to the Trend's width, so the view only ever draws
+ * about one point per pixel.
+ *
+ * This module is loaded lazily by TrendMeta, only import it with import().
+ */
+import * as React from 'react';
+import { Component, ComponentProps } from '@inductiveautomation/perspective-client';
+import type { TrendData, TrendDelegate, TrendProps } from './TrendMeta';
+
+// Import the Trend styles, so they are loaded with the Trend's chunk
+import '../css/trend.css';
+
+interface TrendState {
+	data?: TrendData;
+	width: number;
+	height: number;
+}
+
+/**
+ * Trend component class.
+ * Extends the base Component class from Perspective, typed with TrendProps.
+ */
+export class Trend extends Component<ComponentProps<TrendProps>, TrendState> {
+	state: TrendState = { width: 0, height: 0 };
+	private element: HTMLElement | null = null;
+	private resizeObserver?: ResizeObserver;
+
+	/**
+	 * Starts receiving points and following the Trend's size.
+	 */
+	componentDidMount() {
+		this.getDelegate()?.setDataHandler(this.onData);
+		if (this.element) {
+			this.resizeObserver = new ResizeObserver(this.onResize);
+			this.resizeObserver.observe(this.element);
+		}
+	}
+
+	/**
+	 * Asks the gateway for new points when the props changed.
+	 */
+	componentDidUpdate() {
+		this.subscribe();
+	}
+
+	/**
+	 * Stops receiving points.
+	 */
+	componentWillUnmount() {
+		this.resizeObserver?.disconnect();
+		this.getDelegate()?.setDataHandler(undefined);
+	}
+
+	/**
+	 * @returns The delegate of this Trend, if one was created.
+	 */
+	getDelegate(): TrendDelegate | undefined {
+		return this.props.store.delegate as TrendDelegate | undefined;
+	}
+
+	/**
+	 * Asks the gateway for points at the current width, once the Trend has one.
+	 */
+	subscribe() {
+		if (this.state.width > 0) {
+			this.getDelegate()?.subscribe(this.props.props, this.state.width);
+		}
+	}
+
+	onData = (data: TrendData) => {
+		this.setState({ data });
+	}
+
+	onResize = (entries: Array<ResizeObserverEntry>) => {
+		const { width, height } = entries[0].contentRect;
+		if (width !== this.state.width || height !== this.state.height) {
+			this.setState({ width, height });
+		}
+	}
+
+	setElement = (element: HTMLElement | null) => {
+		this.element = element;
+	}
+
+	/**
+	 * @returns The SVG points attribute of the polyline, scaled to the Trend's size.
+	 */
+	getPoints(): string {
+		const { data, width, height } = this.state;
+		if (!data || data.t.length === 0 || width === 0 || height === 0) {
+			return "";
+		}
+
+		let min = Infinity;
+		let max = -Infinity;
+		for (let i = 0; i < data.v.length; i++) {
+			min = Math.min(min, data.v[i]);
+			max = Math.max(max, data.v[i]);
+		}
+		const span = max - min || 1;
+		const duration = data.t[data.t.length - 1] || 1;
+		const inset = this.props.props.lineWidth;
+		const usable = Math.max(1, height - 2 * inset);
+
+		const points = new Array<string>(data.t.length);
+		for (let i = 0; i < data.t.length; i++) {
+			const x = (data.t[i] / duration) * width;
+			const y = inset + usable - ((data.v[i] - min) / span) * usable;
+			points[i] = x.toFixed(1) + "," + y.toFixed(1);
+		}
+		return points.join(" ");
+	}
+
+	/**
+	 * Render method for the Trend component.
+	 * @returns JSX element representing the trend
+	 */
+	render() {
+		const { props: { lineColor, lineWidth }, emit } = this.props;
+		const { width, height } = this.state;
+		return (
+			<div {...emit({ classes: ['kg-example-trend'] })} ref={this.setElement}>
+				<svg width={width} height={height}>
+					<polyline
+						points={this.getPoints()}
+						fill="none"
+						stroke={lineColor}
+						strokeWidth={lineWidth}
+						strokeLinejoin="round"
+					/>
+				</svg>
+			</div>
+		);
+	}
+}
@@ -0,0 +1,172 @@
+/**
+ * This file defines everything the Perspective client needs to know about the
+ * Trend before one is rendered: its metadata, props reducer and delegate.
+ * The view itself is in Trend.tsx, which is only downloaded once a Trend is
+ * rendered.
+ */
+import {
+	AbstractUIElementStore,
+	ComponentMeta,
+	ComponentStoreDelegate,
+	JsObject,
+	PComponent,
+	PropertyTree,
+	SizeObject
+} from '@inductiveautomation/perspective-client';
+import { lazyComponent } from './lazyComponent';
+import { BINARY_CODEC, decodeMessage } from '../codec/decodeMessage';
+
+/**
+ * Unique identifier for the Trend component.
+ * This should match the COMPONENT_ID in the Java Trend class.
+ */
+export const COMPONENT_TYPE = "examples.chart.trend";
+
+/**
+ * Event sent to the gateway whenever the Trend's props or width change.
+ * This should match SUBSCRIBE_EVENT in the Java TrendModelDelegate class.
+ */
+export const SUBSCRIBE_EVENT = "example-trend-subscribe";
+
+/**
+ * Event carrying the downsampled points from the gateway.
+ * This should match DATA_EVENT in the Java TrendModelDelegate class.
+ */
+export const DATA_EVENT = "example-trend-data";
+
+/**
+ * Interface defining the props for the Trend component.
+ */
+export interface TrendProps {
+	source: string;
+	windowMs: number;
+	refreshMs: number;
+	algorithm: string;
+	lineColor: string;
+	lineWidth: number;
+}
+
+/**
+ * The points sent by the gateway, decoded. Times are millisecond offsets from t0.
+ */
+export interface TrendData {
+	source: string;
+	raw: number;
+	t0: number;
+	t: ArrayLike<number>;
+	v: ArrayLike<number>;
+}
+
+/**
+ * Client-side delegate of the Trend component.
+ * Tells the gateway's TrendModelDelegate what to follow, and hands the points
+ * it sends back to the mounted Trend.
+ */
+export class TrendDelegate extends ComponentStoreDelegate {
+	private dataHandler?: (data: TrendData) => void;
+	private lastRequest?: string;
+
+	constructor(componentStore: AbstractUIElementStore) {
+		super(componentStore);
+	}
+
+	/**
+	 * Sets the function called for every set of points the gateway sends.
+	 * @param handler - The handler, or undefined to stop receiving points
+	 */
+	setDataHandler(handler?: (data: TrendData) => void): void {
+		this.dataHandler = handler;
+	}
+
+	/**
+	 * Asks the gateway for points of the given props at the given width, in the
+	 * binary codec. Asking again for the same thing does nothing.
+	 * @param props - The props of the Trend
+	 * @param width - The rendered width of the Trend in pixels
+	 */
+	subscribe(props: TrendProps, width: number): void {
+		const request = {
+			source: props.source,
+			windowMs: props.windowMs,
+			refreshMs: props.refreshMs,
+			algorithm: props.algorithm,
+			width: Math.max(1, Math.round(width)),
+			codec: BINARY_CODEC
+		};
+		const key = JSON.stringify(request);
+		if (key !== this.lastRequest) {
+			this.lastRequest = key;
+			this.fireEvent(SUBSCRIBE_EVENT, request);
+		}
+	}
+
+	/**
+	 * Receives the events fired by the gateway's TrendModelDelegate.
+	 */
+	handleEvent(eventName: string, eventObject: JsObject): void {
+		if (eventName === DATA_EVENT && this.dataHandler) {
+			this.dataHandler(decodeMessage(eventObject) as TrendData);
+		}
+	}
+}
+
+/**
+ * The Trend view, loaded from its own chunk the first time a Trend is rendered.
+ */
+const LazyTrend = lazyComponent<TrendProps>(
+	() => import(/* webpackChunkName: "trend" */ './Trend').then(module => module.Trend)
+);
+
+/**
+ * Metadata class for the Trend component.
+ * Implements ComponentMeta interface from Perspective.
+ */
+export class TrendMeta implements ComponentMeta {
+
+	/**
+	 * @returns The unique identifier for this component type.
+	 */
+	getComponentType(): string {
+		return COMPONENT_TYPE;
+	}
+
+	/**
+	 * @returns The React component class.
+	 */
+	getViewComponent(): PComponent {
+		return LazyTrend;
+	}
+
+	/**
+	 * @returns The delegate that connects the Trend to its gateway-side delegate.
+	 */
+	createDelegate(component: AbstractUIElementStore): ComponentStoreDelegate | undefined {
+		return new TrendDelegate(component);
+	}
+
+	/**
+	 * @returns The default size for the component.
+	 */
+	getDefaultSize(): SizeObject {
+		return ({
+			width: 300,
+			height: 120
+		});
+	}
+
+	/**
+	 * Reduces the full property tree into the props needed by the component.
+	 * @param tree - The full property tree
+	 * @returns The props object for the Trend component
+	 */
+	getPropsReducer(tree: PropertyTree): TrendProps {
+		return {
+			source: tree.readString("source", "synthetic/sine"),
+			windowMs: tree.readNumber("windowMs", 3600000),
+			refreshMs: tree.readNumber("refreshMs", 1000),
+			algorithm: tree.readString("algorithm", "lttb"),
+			lineColor: tree.readString("lineColor", "#3D5D6F"),
+			lineWidth: tree.readNumber("lineWidth", 1.5)
+		};
+	}
+}
@@ -0,0 +1,31 @@
+/**
+ * This file defines the helper that lets a component's ComponentMeta be
+ * registered up front while the component's view is only downloaded once an
+ * instance of it is rendered.
+ */
+import * as React from 'react';
+import { Component, ComponentProps, PComponent } from '@inductiveautomation/perspective-client';
+
+/**
+ * Creates a view component that loads the real view on first render.
+ *
+ * Each `load` function should call `import()` on the module of the view, so
+ * webpack puts the view in its own chunk. Until the chunk has arrived, an empty
+ * element is rendered in the component's place, keeping its position and size.
+ *
+ * @param load - Loads the module of the view and returns the view
+ * @returns A view component to return from `ComponentMeta.getViewComponent()`
+ */
+export function lazyComponent<P>(load: () => Promise<PComponent>): PComponent {
+	const LazyView = React.lazy(() => load().then(view => ({ default: view as React.ComponentType<ComponentProps<P>> })));
+
+	return class LazyComponent extends Component<ComponentProps<P>, any> {
+		render() {
+			return (
+				<React.Suspense fallback={<div {...this.props.emit()} />}>
+					<LazyView {...this.props} />
+				</React.Suspense>
+			);
+		}
+	};
+}
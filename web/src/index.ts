@@ -1,16 +1,19 @@
 import { ComponentMeta, ComponentRegistry } from '@inductiveautomation/perspective-client';
-import { Button, ButtonMeta } from './components/Button';
+import { ButtonMeta } from './components/ButtonMeta';
+import { TableMeta } from './components/TableMeta';
+import { TrendMeta } from './components/TrendMeta';
 
-// Export components for external reference
-export { Button };
-
-// Import component styles
-import './css/styles.css';
+// Export component metadata for external reference. The views are loaded in
+// their own chunks the first time a component is rendered, so they aren't
+// imported here.
+export { ButtonMeta, TableMeta, TrendMeta };
 
 // Array of component metadata
 const components: Array<ComponentMeta> = [
 	new ButtonMeta(),
+	new TrendMeta(),
+	new TableMeta(),
 ];
 
 // Register each component with the Perspective ComponentRegistry
-components.forEach((c: ComponentMeta) => ComponentRegistry.register(c));
\ No newline at end of file
+components.forEach((c: ComponentMeta) => ComponentRegistry.register(c));
@@ -1,45 +1,87 @@
 const path = require('path');
 const MiniCssExtractPlugin = require('mini-css-extract-plugin');
 const fs = require('fs');
+const zlib = require('zlib');
 
 const LibName = "ExampleComponents";
 
+/**
+ * Copies a built file, writing precompressed .gz and .br siblings next to the copy.
+ * Throws if any of them can't be written, the manifest must never list a missing file.
+ */
+function copyWithCompressedVariants(from, to) {
+	console.log(`Copying ${from} to ${to}...`);
+	const content = fs.readFileSync(from);
+	fs.writeFileSync(to, content);
+	fs.writeFileSync(`${to}.gz`, zlib.gzipSync(content, { level: zlib.constants.Z_BEST_COMPRESSION }));
+	fs.writeFileSync(`${to}.br`, zlib.brotliCompressSync(content, {
+		params: {
+			[zlib.constants.BROTLI_PARAM_MODE]: zlib.constants.BROTLI_MODE_TEXT,
+			[zlib.constants.BROTLI_PARAM_QUALITY]: zlib.constants.BROTLI_MAX_QUALITY,
+			[zlib.constants.BROTLI_PARAM_SIZE_HINT]: content.length
+		}
+	}));
+}
+
 /**
  * Custom function to copy built files to the Gradle resources directory.
  * This ensures that the compiled JS and CSS are available to the Java module.
+ *
+ * The file names carry a hash of their content, so the gateway can serve them
+ * with immutable cache headers. Each file is written with precompressed .gz and
+ * .br siblings, so the gateway never compresses them per request. A manifest of
+ * the files is written to build/manifest, from which the common scope generates
+ * its BrowserResource list. The manifest lists the entry chunk, the small
+ * registry stub every session loads, separately from the per-component chunks.
+ *
+ * The copies of earlier builds are removed first, so only the files of this
+ * build end up in the module. Any failure fails the build.
  */
 function copyToResources(compilation, callback) {
+	try {
+		writeResources(compilation);
+	} catch (err) {
+		callback(err);
+		return;
+	}
+	callback();
+}
+
+/**
+ * Copies the bundle of the compilation and writes its manifest, throwing on any failure.
+ */
+function writeResources(compilation) {
 	const generatedResourcesDir = path.resolve(__dirname, 'build/generated-resources/mounted/');
-	const jsToCopy = path.resolve(__dirname, "dist", `${LibName}.js`);
-	const cssToCopy = path.resolve(__dirname, "dist", `${LibName}.css`);
-	const jSResourcePath = path.resolve(generatedResourcesDir, `${LibName}.js`);
-	const cssResourcePath = path.resolve(generatedResourcesDir, `${LibName}.css`);
+	const manifestDir = path.resolve(__dirname, 'build/manifest/');
+	const manifest = { resources: [], chunks: {} };
+
+	// Older hashed files and their .gz and .br siblings would otherwise ship with the module
+	[generatedResourcesDir, manifestDir].forEach(dir => {
+		fs.rmSync(dir, { recursive: true, force: true });
+		fs.mkdirSync(dir, { recursive: true });
+	});
 
-	const toCopy = [
-		{ from: jsToCopy, to: jSResourcePath },
-		{ from: cssToCopy, to: cssResourcePath }
-	];
+	// Only the bundle itself is shipped, source maps stay in dist
+	const isBundleFile = name => name.endsWith('.js') || name.endsWith('.css');
 
-	if (!fs.existsSync(generatedResourcesDir)) {
-		fs.mkdirSync(generatedResourcesDir, { recursive: true });
-	}
+	Array.from(compilation.chunks).forEach(chunk => {
+		const files = Array.from(chunk.files).filter(isBundleFile).sort();
+		files.forEach(name => copyWithCompressedVariants(
+			path.resolve(__dirname, "dist", name), path.resolve(generatedResourcesDir, name)));
 
-	toCopy.forEach(file => {
-		console.log(`Checking file ${file.from}...`);
-		if (fs.existsSync(file.from)) {
-			console.log(`Copying ${file.from} to ${file.to}...`);
-			try {
-				fs.copyFileSync(file.from, file.to);
-				console.log(`Successfully copied ${file.from}`);
-			} catch (err) {
-				console.error(`Error copying ${file.from}: ${err.message}`);
-			}
+		if (chunk.canBeInitial()) {
+			// The registry stub, declared as BrowserResources so every session loads it
+			files.forEach(name => {
+				const type = name.endsWith('.js') ? 'JS' : 'CSS';
+				manifest.resources.push({ name: `example-components-${type.toLowerCase()}`, file: name, type: type });
+			});
 		} else {
-			console.error(`Source file ${file.from} does not exist.`);
+			// A component's view, loaded by the stub the first time the component is rendered
+			manifest.chunks[chunk.name || String(chunk.id)] = files;
 		}
 	});
 
-	callback();
+	fs.writeFileSync(path.resolve(manifestDir, 'browser-resources.json'), JSON.stringify(manifest, null, '\t'));
 }
 
 // Webpack configuration
@@ -48,7 +90,13 @@ module.exports = {
 	output: {
 		library: LibName,
 		path: path.join(__dirname, "dist"),
-		filename: `${LibName}.js`,
+		filename: `${LibName}.[contenthash:8].js`,
+		// Component views are split into their own chunks, loaded from the gateway on first render
+		chunkFilename: `${LibName}.[name].[contenthash:8].js`,
+		// Chunks are loaded from where the entry was loaded, which the module declares with Constants.ASSETS_PATH
+		publicPath: "auto",
+		// Only the files of this build are kept in dist
+		clean: true,
 		libraryTarget: "umd",
 		umdNamedDefine: true
 	},
@@ -82,7 +130,8 @@ module.exports = {
 	},
 	plugins: [
 		new MiniCssExtractPlugin({
-			filename: `${LibName}.css`
+			filename: `${LibName}.[contenthash:8].css`,
+			chunkFilename: `${LibName}.[name].[contenthash:8].css`
 		}),
 		{
 			apply: (compiler) => {